@@ -0,0 +1,99 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.benchmark;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * ベンチマーク用の組み込みデータベース（H2 インメモリ）
+ */
+final class BenchmarkDatabase {
+
+    /** ユーザ名 */
+    static final String USER = "sa";
+
+    /** パスワード */
+    static final String PASSWORD = "";
+
+    /**
+     * コンストラクタ（インスタンス化しない）
+     */
+    private BenchmarkDatabase() {
+    }
+
+    /**
+     * 接続先 URL を取得する
+     * <br>最後の接続を閉じてもデータベースは破棄しない（JVM 終了まで保持する）。
+     *
+     * @param name : {@link String} : データベース名
+     * @return {@link String} ; 接続先 URL
+     */
+    static String getUrl(String name) {
+        return "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1";
+    }
+
+    /**
+     * 接続する
+     *
+     * @param name : {@link String} : データベース名
+     * @return {@link Connection} ; DB接続オブジェクト
+     * @throws SQLException 接続に失敗した場合
+     */
+    static Connection open(String name) throws SQLException {
+        return DriverManager.getConnection(getUrl(name), USER, PASSWORD);
+    }
+
+    /**
+     * 文字列カラムだけのテーブルを作成してデータを投入する
+     * <br>カラム名は C1,C2,...。10件に1件はダブルクォートを含む値（CSV でエスケープが必要な値）とする。
+     *
+     * @param connection : {@link Connection} : DB接続オブジェクト
+     * @param table      : {@link String}     : テーブル名
+     * @param rows       : int                 : 行数
+     * @param columns    : int                 : カラム数
+     * @throws SQLException 作成に失敗した場合
+     */
+    static void createTable(Connection connection, String table, int rows, int columns) throws SQLException {
+        StringBuilder ddl = new StringBuilder("CREATE TABLE ").append(table).append(" (");
+        StringBuilder dml = new StringBuilder("INSERT INTO ").append(table).append(" VALUES (");
+        for (int col = 1; col <= columns; col++) {
+            if (col > 1) {
+                ddl.append(", ");
+                dml.append(", ");
+            }
+            ddl.append('C').append(col).append(" VARCHAR(64)");
+            dml.append('?');
+        }
+        ddl.append(')');
+        dml.append(')');
+        Statement statement = connection.createStatement();
+        try {
+            statement.execute("DROP TABLE IF EXISTS " + table);
+            statement.execute(ddl.toString());
+        } finally {
+            statement.close();
+        }
+        PreparedStatement insert = connection.prepareStatement(dml.toString());
+        try {
+            for (int row = 1; row <= rows; row++) {
+                for (int col = 1; col <= columns; col++) {
+                    insert.setString(col, (row % 10 == 0) ? "say \"hello\" " + row : "value-" + row + "-" + col);
+                }
+                insert.addBatch();
+                if (row % 1000 == 0) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        } finally {
+            insert.close();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.benchmark;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * ベンチマークの起動クラス
+ * <br>JMH のコマンドライン引数をそのまま受け付け，GC プロファイラ（割り当て量・GC 回数）を常に有効にする。
+ * <blockquote>java -jar benchmarks/target/benchmarks.jar [JMH の引数（ベンチマーク名の正規表現など）]</blockquote>
+ */
+public final class BenchmarkMain {
+
+    /**
+     * コンストラクタ（インスタンス化しない）
+     */
+    private BenchmarkMain() {
+    }
+
+    /**
+     * ベンチマークを実行する
+     *
+     * @param args : {@link String}[] : JMH のコマンドライン引数
+     * @throws CommandLineOptionException 引数が正しくない場合
+     * @throws RunnerException ベンチマークの実行に失敗した場合
+     * @throws IOException 一覧の出力に失敗した場合
+     */
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException, IOException {
+        CommandLineOptions cmdOptions = new CommandLineOptions(args);
+        if (cmdOptions.shouldHelp() || cmdOptions.shouldList() || cmdOptions.shouldListProfilers()
+                || cmdOptions.shouldListWithParams() || cmdOptions.shouldListResultFormats()) {
+            org.openjdk.jmh.Main.main(args); //一覧・ヘルプは JMH に任せる
+            return;
+        }
+        Options options = new OptionsBuilder().parent(cmdOptions).addProfiler(GCProfiler.class).build();
+        new Runner(options).run();
+    }
+}
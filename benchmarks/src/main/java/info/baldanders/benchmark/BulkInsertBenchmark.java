@@ -0,0 +1,151 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.benchmark;
+
+import info.baldanders.jdbc.BulkInsert;
+import info.baldanders.jdbc.DbParameter;
+import info.baldanders.jdbc.DbStatement;
+import info.baldanders.jdbc.StatementCache;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link BulkInsert} のベンチマーク
+ * <br>組み込みデータベース（H2 インメモリ）に対して，バッチ実行（{@link DbStatement#insertBatch(ArrayList, int)}）と
+ * 複数行の INSERT への書き換えを比べる。呼び出しごとにテーブルを空にする。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BulkInsertBenchmark {
+
+    /** 追加 */
+    private static final String INSERT_SQL = "INSERT INTO BENCH_BULK (ID, NAME, AGE) VALUES (?, ?, ?)";
+
+    /** 追加する行数 */
+    @Param({"100", "10000"})
+    public int rows;
+
+    /** 接続 */
+    private Connection connection;
+
+    /** ステートメントキャッシュ */
+    private StatementCache cache;
+
+    /** 行ごとのパラメータ */
+    private ArrayList<ArrayList<DbParameter>> paramSets;
+
+    /**
+     * テーブルとパラメータを生成する
+     *
+     * @throws SQLException 失敗した場合
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        this.connection = BenchmarkDatabase.open("bulk");
+        this.connection.setAutoCommit(false);
+        Statement statement = this.connection.createStatement();
+        try {
+            statement.execute("DROP TABLE IF EXISTS BENCH_BULK");
+            statement.execute("CREATE TABLE BENCH_BULK (ID INT PRIMARY KEY, NAME VARCHAR(64), AGE INT)");
+        } finally {
+            statement.close();
+        }
+        this.connection.commit();
+        this.cache = new StatementCache(this.connection, 64);
+        this.paramSets = new ArrayList<ArrayList<DbParameter>>();
+        for (int id = 1; id <= this.rows; id++) {
+            ArrayList<DbParameter> params = new ArrayList<DbParameter>();
+            params.add(new DbParameter(id, Types.INTEGER));
+            params.add(new DbParameter("person-" + id, Types.VARCHAR));
+            params.add(new DbParameter(id % 100, Types.INTEGER));
+            this.paramSets.add(params);
+        }
+    }
+
+    /**
+     * テーブルを空にする
+     *
+     * @throws SQLException 失敗した場合
+     */
+    @Setup(Level.Invocation)
+    public void truncate() throws SQLException {
+        Statement statement = this.connection.createStatement();
+        try {
+            statement.execute("TRUNCATE TABLE BENCH_BULK");
+        } finally {
+            statement.close();
+        }
+        this.connection.commit();
+    }
+
+    /**
+     * 接続を閉じる
+     *
+     * @throws SQLException 失敗した場合
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        this.cache.close();
+        this.connection.close();
+    }
+
+    /**
+     * バッチ実行
+     *
+     * @return {@link ArrayList}<int[]> ; バッチごとの更新件数
+     * @throws SQLException 失敗した場合
+     */
+    @Benchmark
+    public ArrayList<int[]> insertBatch() throws SQLException {
+        DbStatement statement = new DbStatement(this.cache, INSERT_SQL, null);
+        try {
+            return statement.insertBatch(this.paramSets, DbStatement.DEFAULT_BATCH_SIZE);
+        } finally {
+            statement.close();
+            this.connection.commit();
+        }
+    }
+
+    /**
+     * 複数行の INSERT に書き換えて実行
+     *
+     * @return long ; 更新件数
+     * @throws SQLException 失敗した場合
+     */
+    @Benchmark
+    public long bulkInsert() throws SQLException {
+        BulkInsert bulk = new BulkInsert(this.connection, this.cache, INSERT_SQL);
+        try {
+            return bulk.insert(this.paramSets);
+        } finally {
+            bulk.close();
+            this.connection.commit();
+        }
+    }
+}
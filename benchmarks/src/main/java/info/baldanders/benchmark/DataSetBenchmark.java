@@ -0,0 +1,123 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.benchmark;
+
+import info.baldanders.jdbc.DataSet;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * {@link DataSet} のベンチマーク
+ * <br>クエリ結果からの {@link DataSet} の構築と，行データの CSV 変換を行数・カラム数ごとに測る。
+ * クエリ自体の時間を含めないよう，スクロール可能な {@link ResultSet} を先頭に戻して使い回す。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DataSetBenchmark {
+
+    /** 行数 */
+    @Param({"10", "1000", "10000"})
+    public int rows;
+
+    /** カラム数 */
+    @Param({"5", "20"})
+    public int columns;
+
+    /** DB接続オブジェクト */
+    private Connection connection;
+
+    /** クエリ実行用 */
+    private Statement statement;
+
+    /** クエリ結果（スクロール可能） */
+    private ResultSet rs;
+
+    /** 構築済みのデータセット */
+    private DataSet dataSet;
+
+    /**
+     * テーブルを作成してクエリを実行しておく
+     *
+     * @throws SQLException 失敗した場合
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        this.connection = BenchmarkDatabase.open("dataset");
+        BenchmarkDatabase.createTable(this.connection, "BENCH_DATASET", this.rows, this.columns);
+        this.statement = this.connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+        this.rs = this.statement.executeQuery("SELECT * FROM BENCH_DATASET");
+        this.dataSet = new DataSet(this.rs);
+    }
+
+    /**
+     * 後始末
+     *
+     * @throws SQLException 失敗した場合
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        this.rs.close();
+        this.statement.close();
+        this.connection.close();
+    }
+
+    /**
+     * {@link DataSet#DataSet(ResultSet)} の構築
+     *
+     * @return {@link DataSet} ; データセット
+     * @throws SQLException 失敗した場合
+     */
+    @Benchmark
+    public DataSet newDataSet() throws SQLException {
+        this.rs.beforeFirst();
+        return new DataSet(this.rs);
+    }
+
+    /**
+     * 全行の {@link info.baldanders.jdbc.DataRow#toString()}
+     *
+     * @param bh : {@link Blackhole} : 結果の受け取り
+     */
+    @Benchmark
+    public void rowToString(Blackhole bh) {
+        for (int rowNum = 1; rowNum <= this.rows; rowNum++) {
+            bh.consume(this.dataSet.getRow(rowNum).toString());
+        }
+    }
+
+    /**
+     * {@link DataSet#toString()}
+     *
+     * @return {@link String} ; CSV 形式の文字列
+     */
+    @Benchmark
+    public String dataSetToString() {
+        return this.dataSet.toString();
+    }
+}
@@ -0,0 +1,220 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.benchmark;
+
+import info.baldanders.jdbc.ConnectionPool;
+import info.baldanders.jdbc.DataSet;
+import info.baldanders.jdbc.DbParameter;
+import info.baldanders.jdbc.DbStatement;
+import info.baldanders.jdbc.StatementCache;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link DbStatement} のベンチマーク
+ * <br>組み込みデータベース（H2 インメモリ）に対してパラメータのバインドと実行を測る。
+ * 接続は {@link ConnectionPool} から借り，ステートメントキャッシュの有無を比べる。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DbStatementBenchmark {
+
+    /** テーブルの行数 */
+    private static final int ROWS = 1000;
+
+    /** 主キー検索 */
+    private static final String SELECT_SQL = "SELECT ID, NAME, AGE FROM BENCH_PERSON WHERE ID = ?";
+
+    /** 主キー更新 */
+    private static final String UPDATE_SQL = "UPDATE BENCH_PERSON SET AGE = ? WHERE ID = ?";
+
+    /** コネクションプール */
+    private ConnectionPool pool;
+
+    /**
+     * スレッドごとの接続とパラメータ
+     */
+    @State(Scope.Thread)
+    public static class Session {
+        /** 接続を借りたコネクションプール */
+        ConnectionPool pool;
+        /** 借りた接続 */
+        Connection connection;
+        /** 接続のステートメントキャッシュ */
+        StatementCache cache;
+        /** 検索用パラメータ（主キーごと） */
+        ArrayList<ArrayList<DbParameter>> selectParams;
+        /** 更新用パラメータ（主キーごと） */
+        ArrayList<ArrayList<DbParameter>> updateParams;
+        /** 次に使うパラメータの位置 */
+        int next;
+
+        /**
+         * 接続を借りてパラメータを生成する
+         *
+         * @param benchmark : {@link DbStatementBenchmark} : ベンチマーク（コネクションプール）
+         * @throws SQLException 失敗した場合
+         */
+        @Setup(Level.Trial)
+        public void setUp(DbStatementBenchmark benchmark) throws SQLException {
+            this.pool = benchmark.pool;
+            this.connection = this.pool.borrow();
+            this.cache = this.pool.getStatementCache(this.connection);
+            this.selectParams = new ArrayList<ArrayList<DbParameter>>();
+            this.updateParams = new ArrayList<ArrayList<DbParameter>>();
+            for (int id = 1; id <= ROWS; id++) {
+                ArrayList<DbParameter> select = new ArrayList<DbParameter>();
+                select.add(new DbParameter(id, Types.INTEGER));
+                this.selectParams.add(select);
+                ArrayList<DbParameter> update = new ArrayList<DbParameter>();
+                update.add(new DbParameter(id % 100, Types.INTEGER));
+                update.add(new DbParameter(id, Types.INTEGER));
+                this.updateParams.add(update);
+            }
+            this.next = 0;
+        }
+
+        /**
+         * 接続を返す
+         */
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            this.pool.release(this.connection);
+        }
+
+        /**
+         * 次のパラメータの位置を取得する
+         *
+         * @return int ; 位置
+         */
+        int nextIndex() {
+            int index = this.next;
+            this.next = (index + 1) % ROWS;
+            return index;
+        }
+    }
+
+    /**
+     * テーブルを作成してコネクションプールを生成する
+     *
+     * @throws SQLException 失敗した場合
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        Connection connection = BenchmarkDatabase.open("statement");
+        try {
+            Statement statement = connection.createStatement();
+            try {
+                statement.execute("DROP TABLE IF EXISTS BENCH_PERSON");
+                statement.execute("CREATE TABLE BENCH_PERSON (ID INT PRIMARY KEY, NAME VARCHAR(64), AGE INT)");
+            } finally {
+                statement.close();
+            }
+            PreparedStatement insert = connection.prepareStatement("INSERT INTO BENCH_PERSON VALUES (?, ?, ?)");
+            try {
+                for (int id = 1; id <= ROWS; id++) {
+                    insert.setInt(1, id);
+                    insert.setString(2, "person-" + id);
+                    insert.setInt(3, id % 100);
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+            } finally {
+                insert.close();
+            }
+        } finally {
+            connection.close();
+        }
+        this.pool = new ConnectionPool(BenchmarkDatabase.getUrl("statement"), BenchmarkDatabase.USER, BenchmarkDatabase.PASSWORD, 1, 16, 30000, 0, 0, 64);
+    }
+
+    /**
+     * コネクションプールを閉じる
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.pool.close();
+    }
+
+    /**
+     * 主キー検索（毎回ステートメントを生成する）
+     *
+     * @param session : {@link Session} : 接続とパラメータ
+     * @return {@link DataSet} ; 検索結果
+     * @throws SQLException 失敗した場合
+     */
+    @Benchmark
+    public DataSet selectPrepared(Session session) throws SQLException {
+        DbStatement statement = new DbStatement(session.connection, SELECT_SQL, session.selectParams.get(session.nextIndex()));
+        try {
+            return statement.select();
+        } finally {
+            statement.close();
+        }
+    }
+
+    /**
+     * 主キー検索（ステートメントキャッシュを使う）
+     *
+     * @param session : {@link Session} : 接続とパラメータ
+     * @return {@link DataSet} ; 検索結果
+     * @throws SQLException 失敗した場合
+     */
+    @Benchmark
+    public DataSet selectCached(Session session) throws SQLException {
+        DbStatement statement = new DbStatement(session.cache, SELECT_SQL, session.selectParams.get(session.nextIndex()));
+        try {
+            return statement.select();
+        } finally {
+            statement.close();
+        }
+    }
+
+    /**
+     * 主キー更新（ステートメントキャッシュを使う）
+     * <br>未コミットの更新が溜まらないよう，全行を1巡するごとにコミットする。
+     *
+     * @param session : {@link Session} : 接続とパラメータ
+     * @return int ; 更新件数
+     * @throws SQLException 失敗した場合
+     */
+    @Benchmark
+    public int updateCached(Session session) throws SQLException {
+        int index = session.nextIndex();
+        DbStatement statement = new DbStatement(session.cache, UPDATE_SQL, session.updateParams.get(index));
+        try {
+            return statement.executeUpdate();
+        } finally {
+            statement.close();
+            if (index == ROWS - 1) {
+                session.connection.commit();
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.benchmark;
+
+import info.baldanders.log.LogFormatter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link LogFormatter} のベンチマーク
+ * <br>フォーマッタは全スレッドで共有し，単一スレッドと複数スレッドで測る。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LogFormatterBenchmark {
+
+    /** フォーマッタ（全スレッドで共有） */
+    private LogFormatter formatter;
+
+    /**
+     * スレッドごとのログレコードと出力先バッファ
+     */
+    @State(Scope.Thread)
+    public static class Records {
+        /** メッセージのみのレコード */
+        LogRecord plain;
+        /** パラメータ付きのレコード */
+        LogRecord parameters;
+        /** 例外付きのレコード */
+        LogRecord thrown;
+        /** 出力先バッファ */
+        StringBuilder buffer;
+
+        /**
+         * レコードを生成する
+         */
+        @Setup
+        public void setUp() {
+            this.plain = newRecord(Level.INFO, "benchmark message");
+            this.parameters = newRecord(Level.WARNING, "user={0}, count={1}");
+            this.parameters.setParameters(new Object[] {"alice", 42});
+            this.thrown = newRecord(Level.SEVERE, "failed");
+            this.thrown.setThrown(new IllegalStateException("benchmark"));
+            this.buffer = new StringBuilder(256);
+        }
+
+        /**
+         * レコードを生成する（呼び出し元は固定）
+         *
+         * @param level   : {@link Level}  : 出力レベル
+         * @param message : {@link String} : メッセージ
+         * @return {@link LogRecord} ; ログレコード
+         */
+        private static LogRecord newRecord(Level level, String message) {
+            LogRecord record = new LogRecord(level, message);
+            record.setSourceClassName(LogFormatterBenchmark.class.getName());
+            record.setSourceMethodName("format");
+            return record;
+        }
+    }
+
+    /**
+     * フォーマッタを生成する
+     */
+    @Setup
+    public void setUp() {
+        this.formatter = new LogFormatter();
+    }
+
+    /**
+     * {@link LogFormatter#format(LogRecord)}（メッセージのみ，単一スレッド）
+     *
+     * @param records : {@link Records} : ログレコード
+     * @return {@link String} ; 整形した文字列
+     */
+    @Benchmark
+    @Threads(1)
+    public String format(Records records) {
+        return this.formatter.format(records.plain);
+    }
+
+    /**
+     * {@link LogFormatter#format(LogRecord)}（パラメータ付き，単一スレッド）
+     *
+     * @param records : {@link Records} : ログレコード
+     * @return {@link String} ; 整形した文字列
+     */
+    @Benchmark
+    @Threads(1)
+    public String formatParameters(Records records) {
+        return this.formatter.format(records.parameters);
+    }
+
+    /**
+     * {@link LogFormatter#format(LogRecord)}（例外付き，単一スレッド）
+     *
+     * @param records : {@link Records} : ログレコード
+     * @return {@link String} ; 整形した文字列
+     */
+    @Benchmark
+    @Threads(1)
+    public String formatThrown(Records records) {
+        return this.formatter.format(records.thrown);
+    }
+
+    /**
+     * {@link LogFormatter#format(LogRecord, StringBuilder)}（バッファに追加，単一スレッド）
+     *
+     * @param records : {@link Records} : ログレコード
+     * @return {@link StringBuilder} ; 出力先バッファ
+     */
+    @Benchmark
+    @Threads(1)
+    public StringBuilder formatAppend(Records records) {
+        records.buffer.setLength(0);
+        return this.formatter.format(records.plain, records.buffer);
+    }
+
+    /**
+     * {@link LogFormatter#format(LogRecord)}（メッセージのみ，4スレッド）
+     *
+     * @param records : {@link Records} : ログレコード
+     * @return {@link String} ; 整形した文字列
+     */
+    @Benchmark
+    @Threads(4)
+    public String formatThreads4(Records records) {
+        return this.formatter.format(records.plain);
+    }
+}
@@ -0,0 +1,152 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.benchmark;
+
+import info.baldanders.Util;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link Util} のベンチマーク
+ * <br>文字列連結・quote・日付変換を測る。
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UtilBenchmark {
+
+    /** 配列の要素数 */
+    @Param({"5", "50"})
+    public int size;
+
+    /** 連結する配列（一部の要素はエスケープが必要） */
+    private Object[] array;
+
+    /** quote する値（エスケープ不要） */
+    private String plain;
+
+    /** quote する値（エスケープが必要） */
+    private String escaped;
+
+    /** 出力先バッファ */
+    private StringBuilder buffer;
+
+    /** 日付 */
+    private Date date;
+
+    /**
+     * データを生成する
+     */
+    @Setup
+    public void setUp() {
+        this.array = new Object[this.size];
+        for (int i = 0; i < this.size; i++) {
+            this.array[i] = (i % 5 == 0) ? "it's \"quoted\" " + i : "value-" + i;
+        }
+        this.plain = "plain value without quotes";
+        this.escaped = "value with \"double\" and 'single' quotes";
+        this.buffer = new StringBuilder(1024);
+        this.date = new Date(1420447765129L);
+    }
+
+    /**
+     * {@link Util#stringJoin(String, Object[], Util.Quote)}（CSV）
+     *
+     * @return {@link String} ; 連結した文字列
+     */
+    @Benchmark
+    public String stringJoinCsv() {
+        return Util.stringJoin(",", this.array, Util.Quote.TYPE_CSV);
+    }
+
+    /**
+     * {@link Util#stringJoin(StringBuilder, String, Object[], Util.Quote)}（CSV，バッファに追加）
+     *
+     * @return {@link StringBuilder} ; 出力先バッファ
+     */
+    @Benchmark
+    public StringBuilder stringJoinCsvAppend() {
+        this.buffer.setLength(0);
+        return Util.stringJoin(this.buffer, ",", this.array, Util.Quote.TYPE_CSV);
+    }
+
+    /**
+     * {@link Util#stringJoin(String, Object[], Util.Quote)}（SQL）
+     *
+     * @return {@link String} ; 連結した文字列
+     */
+    @Benchmark
+    public String stringJoinSql() {
+        return Util.stringJoin(",", this.array, Util.Quote.TYPE_SQL);
+    }
+
+    /**
+     * {@link Util#quoteCsv(Object)}（エスケープ不要）
+     *
+     * @return {@link String} ; quote した文字列
+     */
+    @Benchmark
+    public String quoteCsvPlain() {
+        return Util.quoteCsv(this.plain);
+    }
+
+    /**
+     * {@link Util#quoteCsv(Object)}（エスケープが必要）
+     *
+     * @return {@link String} ; quote した文字列
+     */
+    @Benchmark
+    public String quoteCsvEscaped() {
+        return Util.quoteCsv(this.escaped);
+    }
+
+    /**
+     * {@link Util#quoteCsv(StringBuilder, Object)}（エスケープが必要，バッファに追加）
+     *
+     * @return {@link StringBuilder} ; 出力先バッファ
+     */
+    @Benchmark
+    public StringBuilder quoteCsvAppend() {
+        this.buffer.setLength(0);
+        return Util.quoteCsv(this.buffer, this.escaped);
+    }
+
+    /**
+     * {@link Util#date2String(Date)}
+     *
+     * @return {@link String} ; 日付文字列
+     */
+    @Benchmark
+    public String date2String() {
+        return Util.date2String(this.date);
+    }
+
+    /**
+     * {@link Util#date2String(long)}
+     *
+     * @return {@link String} ; 日付文字列
+     */
+    @Benchmark
+    public String date2StringMillis() {
+        return Util.date2String(this.date.getTime());
+    }
+}
@@ -6,10 +6,13 @@
 package info.baldanders;
 
 import java.io.File;
+import java.io.IOException;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Locale;
+import java.util.TimeZone;
 
 /**
  * 雑多な関数群（utility functions）
@@ -53,27 +56,66 @@ public final class Util {
         if (isNull(array)) {
             return "";
         } else {
-            StringBuilder sb = new StringBuilder();
-            delimiter = null2String(delimiter);
-            if (isBlank(delimiter)) {
-            	delimiter = ",";
+            return stringJoin(new StringBuilder(), delimiter, array, quoteType).toString();
+        }
+    }
+
+    /**
+     * 配列を文字列に変換し結合した結果をバッファに追加する
+     * <br>※文字列に変換できるオブジェクトの配列が前提
+     *
+     * @param sb        : {@link StringBuilder} : 追加先のバッファ
+     * @param delimiter : {@link String}        : 分離文字（{@code null} および空文字列なら "," に変換する）
+     * @param array     : {@link Object}[]      : オブジェクトの配列（{@code null} は空と見なす）
+     * @param quoteType : {@link Util.Quote}    : quote のタイプ
+     * @return {@link StringBuilder} ; 追加先のバッファ
+     */
+    public static StringBuilder stringJoin(StringBuilder sb, String delimiter, Object [] array, Quote quoteType) {
+        try {
+            stringJoin((Appendable)sb, delimiter, array, quoteType);
+        } catch (IOException e) {
+            //StringBuilder では発生しない
+        }
+        return sb;
+    }
+
+    /**
+     * 配列を文字列に変換し結合した結果を出力先に追加する
+     * <br>※文字列に変換できるオブジェクトの配列が前提
+     *
+     * @param out       : {@link Appendable}  : 追加先
+     * @param delimiter : {@link String}      : 分離文字（{@code null} および空文字列なら "," に変換する）
+     * @param array     : {@link Object}[]    : オブジェクトの配列（{@code null} は空と見なす）
+     * @param quoteType : {@link Util.Quote}  : quote のタイプ
+     * @return {@link Appendable} ; 追加先
+     * @throws IOException 追加に失敗した場合
+     */
+    public static Appendable stringJoin(Appendable out, String delimiter, Object [] array, Quote quoteType) throws IOException {
+        if (isNull(array)) {
+            return out;
+        }
+        delimiter = null2String(delimiter);
+        if (isBlank(delimiter)) {
+            delimiter = ",";
+        }
+        //quote の文字（0 なら quote しない）
+        char quote = 0;
+        if (quoteType == Quote.TYPE_SQL) {
+            quote = '\'';
+        } else if (quoteType == Quote.TYPE_CSV) {
+            quote = '"';
+        }
+        for (int i = 0; i < array.length; i++) {
+            if (i > 0) {
+                out.append(delimiter);
             }
-            int count = 0;
-            for (Object str : array) {
-                if (count > 0) {
-                    sb.append(delimiter);
-                }
-                if (quoteType == Quote.TYPE_SQL) {
-                    sb.append(quoteSql(str));
-                } else if (quoteType == Quote.TYPE_CSV) {
-                    sb.append(quoteCsv(str));
-                } else {
-                    sb.append(null2String(str));
-                }
-                count++;
+            if (quote == 0) {
+                out.append(null2String(array[i]));
+            } else {
+                appendQuoted(out, null2String(array[i]), quote);
             }
-            return sb.toString();
         }
+        return out;
     }
 
     /**
@@ -85,9 +127,37 @@ public final class Util {
      * @return {@link String} ; 変換後の文字列
      */
     public static String quoteSql(Object obj) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("'").append(null2String(obj).replace("'", "''")).append("'");
-        return sb.toString();
+        return quoteSql(new StringBuilder(), obj).toString();
+    }
+
+    /**
+     * オブジェクトを文字列に変換しシングルクォートで囲んでバッファに追加する。
+     * また文字列内にシングルクォートがある場合は SQL の形式に従ってエスケープする。
+     *
+     * @param sb  : {@link StringBuilder} : 追加先のバッファ
+     * @param obj : {@link Object}        : インスタンスオブジェクト（{@code null} は空文字列と見なす）
+     * @return {@link StringBuilder} ; 追加先のバッファ
+     */
+    public static StringBuilder quoteSql(StringBuilder sb, Object obj) {
+        try {
+            appendQuoted(sb, null2String(obj), '\'');
+        } catch (IOException e) {
+            //StringBuilder では発生しない
+        }
+        return sb;
+    }
+
+    /**
+     * オブジェクトを文字列に変換しシングルクォートで囲んで出力先に追加する。
+     * また文字列内にシングルクォートがある場合は SQL の形式に従ってエスケープする。
+     *
+     * @param out : {@link Appendable} : 追加先
+     * @param obj : {@link Object}     : インスタンスオブジェクト（{@code null} は空文字列と見なす）
+     * @return {@link Appendable} ; 追加先
+     * @throws IOException 追加に失敗した場合
+     */
+    public static Appendable quoteSql(Appendable out, Object obj) throws IOException {
+        return appendQuoted(out, null2String(obj), '\'');
     }
 
     /**
@@ -99,14 +169,89 @@ public final class Util {
      * @return {@link String} ; 変換後の文字列
      */
     public static String quoteCsv(Object obj) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("\"").append(null2String(obj).replace("\"", "\"\"")).append("\"");
-        return sb.toString();
+        return quoteCsv(new StringBuilder(), obj).toString();
+    }
+
+    /**
+     * オブジェクトを文字列に変換しダブルクォートで囲んでバッファに追加する。
+     * また文字列内にダブルクォートがある場合は CSV の形式に従ってエスケープする。
+     *
+     * @param sb  : {@link StringBuilder} : 追加先のバッファ
+     * @param obj : {@link Object}        : インスタンスオブジェクト（{@code null} は空文字列と見なす）
+     * @return {@link StringBuilder} ; 追加先のバッファ
+     */
+    public static StringBuilder quoteCsv(StringBuilder sb, Object obj) {
+        try {
+            appendQuoted(sb, null2String(obj), '"');
+        } catch (IOException e) {
+            //StringBuilder では発生しない
+        }
+        return sb;
+    }
+
+    /**
+     * オブジェクトを文字列に変換しダブルクォートで囲んで出力先に追加する。
+     * また文字列内にダブルクォートがある場合は CSV の形式に従ってエスケープする。
+     *
+     * @param out : {@link Appendable} : 追加先
+     * @param obj : {@link Object}     : インスタンスオブジェクト（{@code null} は空文字列と見なす）
+     * @return {@link Appendable} ; 追加先
+     * @throws IOException 追加に失敗した場合
+     */
+    public static Appendable quoteCsv(Appendable out, Object obj) throws IOException {
+        return appendQuoted(out, null2String(obj), '"');
+    }
+
+    /**
+     * 文字列を quote 文字で囲んで追加する（文字列内の quote 文字は重ねてエスケープする）
+     * <br>文字列は1度だけ走査し，エスケープが不要な区間はそのまま追加する。
+     *
+     * @param out   : {@link Appendable} : 追加先
+     * @param str   : {@link String}     : 文字列
+     * @param quote : char                : quote 文字
+     * @return {@link Appendable} ; 追加先
+     * @throws IOException 追加に失敗した場合
+     */
+    private static Appendable appendQuoted(Appendable out, String str, char quote) throws IOException {
+        out.append(quote);
+        int start = 0;
+        int length = str.length();
+        for (int i = 0; i < length; i++) {
+            if (str.charAt(i) == quote) {
+                out.append(str, start, i + 1).append(quote);
+                start = i + 1;
+            }
+        }
+        if (start == 0) {
+            out.append(str); //エスケープ不要
+        } else {
+            out.append(str, start, length);
+        }
+        return out.append(quote);
     }
 
     /** 日付変換用フォーマット */
     private static final String datetimeformat = "yyyy-MM-dd'T'HH:mm:ss.SSSZ";
 
+    /**
+     * スレッドごとの日付変換用フォーマッタ（キーはロケール）
+     * <br>{@link SimpleDateFormat} はスレッドセーフではないので，スレッドごとに生成して使い回す。
+     */
+    private static final ThreadLocal<HashMap<Locale, SimpleDateFormat>> dateFormats = new ThreadLocal<HashMap<Locale, SimpleDateFormat>>() {
+        @Override
+        protected HashMap<Locale, SimpleDateFormat> initialValue() {
+            return new HashMap<Locale, SimpleDateFormat>();
+        }
+    };
+
+    /** スレッドごとの日付（epoch ミリ秒の変換用） */
+    private static final ThreadLocal<Date> dates = new ThreadLocal<Date>() {
+        @Override
+        protected Date initialValue() {
+            return new Date(0);
+        }
+    };
+
     /**
      * 日付を文字列に変換する。
      * <br>"2014-12-31T23:59:59.999+0900" 形式に変換。
@@ -130,8 +275,36 @@ public final class Util {
         if (isNull(dt) || isNull(locale)) {
             return "";
         } else {
-            SimpleDateFormat sdf = new SimpleDateFormat(datetimeformat, locale);
-            return sdf.format(dt);
+            return getDateFormat(locale).format(dt);
+        }
+    }
+
+    /**
+     * epoch ミリ秒を文字列に変換する。
+     * <br>"2014-12-31T23:59:59.999+0900" 形式に変換。{@link Date} を生成しない。
+     *
+     * @param millis : long : epoch ミリ秒
+     * @return {@link String} ; "2014-12-31T23:59:59.999+0900" 形式
+     */
+    public static String date2String(long millis) {
+        return date2String(millis, Locale.getDefault());
+    }
+
+    /**
+     * epoch ミリ秒を文字列に変換する（ロケールを指定）。
+     * <br>"2014-12-31T23:59:59.999+0900" 形式に変換。{@link Date} を生成しない。
+     *
+     * @param millis : long            : epoch ミリ秒
+     * @param locale : {@link Locale} : ロケール
+     * @return {@link String} ; "2014-12-31T23:59:59.999+0900" 形式。ロケールが {@code null} なら空文字列を返す
+     */
+    public static String date2String(long millis, Locale locale) {
+        if (isNull(locale)) {
+            return "";
+        } else {
+            Date dt = dates.get();
+            dt.setTime(millis);
+            return getDateFormat(locale).format(dt);
         }
     }
 
@@ -160,14 +333,36 @@ public final class Util {
             return null;
         } else {
             try {
-                SimpleDateFormat sdf = new SimpleDateFormat(datetimeformat, locale);
-                return sdf.parse(str);
+                return getDateFormat(locale).parse(str);
             } catch (ParseException e) {
                 return null;
             }
         }
     }
 
+    /**
+     * 日付変換用フォーマッタを取得する
+     * <br>スレッドごと・ロケールごとに生成したものを使い回す。
+     * タイムゾーンは毎回デフォルトに合わせるので，生成し直した場合と同じ結果になる。
+     *
+     * @param locale : {@link Locale} : ロケール
+     * @return {@link SimpleDateFormat} ; フォーマッタ（呼び出したスレッドでのみ使うこと）
+     */
+    private static SimpleDateFormat getDateFormat(Locale locale) {
+        HashMap<Locale, SimpleDateFormat> formats = dateFormats.get();
+        SimpleDateFormat sdf = formats.get(locale);
+        if (isNull(sdf)) {
+            sdf = new SimpleDateFormat(datetimeformat, locale);
+            formats.put(locale, sdf);
+        } else {
+            TimeZone zone = TimeZone.getDefault();
+            if (!zone.equals(sdf.getTimeZone())) {
+                sdf.setTimeZone(zone);
+            }
+        }
+        return sdf;
+    }
+
     /**
      * 文字列を数値（int）に変換する。
      *
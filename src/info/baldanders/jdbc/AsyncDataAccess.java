@@ -0,0 +1,136 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.jdbc;
+
+import info.baldanders.Util;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 非同期データアクセスクラス
+ * <br>{@link DataAccess} の処理をワーカスレッドで実行し，結果を {@link Future} で返す。
+ * ワーカスレッド数はコネクションプールの最大接続数とする。
+ * 独立した複数のクエリを同時に発行し，まとめて結果を待つことができる。
+ * <br>各処理はワーカスレッドの接続で実行し，処理の終了時に接続をプールに返却する。
+ * 更新系の処理は成功すればコミット，失敗すればロールバックする（呼び出し側のトランザクションには含まれない）。
+ */
+public final class AsyncDataAccess {
+
+    /** データアクセスオブジェクト */
+    private final DataAccess dao;
+
+    /** ワーカスレッド */
+    private final ExecutorService executor;
+
+    /**
+     * コンストラクタ
+     *
+     * @param dao     : {@link DataAccess} : データアクセスオブジェクト
+     * @param threads : int                : ワーカスレッド数（1未満なら1とする）
+     */
+    public AsyncDataAccess(DataAccess dao, int threads) {
+        this.dao = dao;
+        this.executor = Executors.newFixedThreadPool(Math.max(threads, 1), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger(0);
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "AsyncDataAccess-" + this.count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * クエリを非同期に実行する
+     *
+     * @param sql       : {@link String}                         : SQL文
+     * @param paramList : {@link ArrayList}<{@link DbParameter}> : パラメータのリスト（{@code null} 可）
+     * @return {@link Future}<{@link DataSet}> ; 実行結果のデータセット。データベース未接続の場合の結果は {@code null}。
+     */
+    public Future<DataSet> select(final String sql, final ArrayList<DbParameter> paramList) {
+        return this.executor.submit(new Callable<DataSet>() {
+            @Override
+            public DataSet call() throws SQLException {
+                try (DataAccess.Session session = AsyncDataAccess.this.dao.open()) {
+                    DbStatement statement = AsyncDataAccess.this.dao.getStatement(sql, paramList);
+                    if (Util.isNull(statement)) {
+                        return null;
+                    }
+                    try {
+                        return statement.select();
+                    } finally {
+                        statement.close();
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * SQL（DML文）を非同期に実行しコミットする
+     *
+     * @param sql       : {@link String}                         : SQL文
+     * @param paramList : {@link ArrayList}<{@link DbParameter}> : パラメータのリスト（{@code null} 可）
+     * @return {@link Future}<{@link Integer}> ; 更新件数。データベース未接続の場合の結果は {@code 0}。
+     */
+    public Future<Integer> update(final String sql, final ArrayList<DbParameter> paramList) {
+        return this.executor.submit(new Callable<Integer>() {
+            @Override
+            public Integer call() throws SQLException {
+                try (DataAccess.Session session = AsyncDataAccess.this.dao.open()) { //コミットしていなければロールバックされる
+                    DbStatement statement = AsyncDataAccess.this.dao.getStatement(sql, paramList);
+                    if (Util.isNull(statement)) {
+                        return 0;
+                    }
+                    int count;
+                    try {
+                        count = statement.executeUpdate();
+                    } finally {
+                        statement.close();
+                    }
+                    AsyncDataAccess.this.dao.commit();
+                    return count;
+                }
+            }
+        });
+    }
+
+    /**
+     * 任意の処理を非同期に実行する
+     * <br>処理内では {@link DataAccess} をそのまま使える（ワーカスレッドの接続を使う）。
+     * 処理の終了時にコミットされていない更新はロールバックする。
+     *
+     * @param task : {@link Callable}<T> : 処理
+     * @return {@link Future}<T> ; 処理の結果
+     */
+    public <T> Future<T> submit(final Callable<T> task) {
+        return this.executor.submit(new Callable<T>() {
+            @Override
+            public T call() throws Exception {
+                try (DataAccess.Session session = AsyncDataAccess.this.dao.open()) {
+                    return task.call();
+                }
+            }
+        });
+    }
+
+    /**
+     * ワーカスレッドを停止する
+     * <br>実行中・待機中の処理は最後まで実行する。
+     */
+    public void shutdown() {
+        this.executor.shutdown();
+    }
+}
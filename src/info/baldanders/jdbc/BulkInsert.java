@@ -0,0 +1,605 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.jdbc;
+
+import info.baldanders.Util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 一括 INSERT クラス
+ * <br>"INSERT INTO T (...) VALUES (?, ?, ?)" 形式の SQL文を複数行の "VALUES (...),(...),..." に書き換え，
+ * まとめて実行する。1文あたりの行数は次の上限を超えないように決める。
+ * <ul>
+ * <li>行数の上限（{@code maxRows}）</li>
+ * <li>プレースホルダ数の上限（{@code maxParameters}，MariaDB/MySQL は 65535）</li>
+ * <li>パラメータの推定サイズの上限（{@code maxPacketBytes}，サーバの max_allowed_packet より小さくすること）</li>
+ * </ul>
+ * 上限まで詰めた行数と，それに満たない端数を2のべき乗に分けた行数の SQL文のみを使うので，
+ * 準備するステートメントの種類は少なく，{@link StatementCache} があれば再利用される（1文の実行ごとに返却する）。
+ * VALUES 句を見つけられない SQL文（INSERT ... SELECT など）や，VALUES 句の後にプレースホルダがある SQL文は
+ * 書き換えずにバッチ実行する（{@link DbStatement#updateBatch(ArrayList, int)} と同じ）。
+ * {@link DbStatement} を介さずにステートメントを直接実行するが，{@link DataAccess#getBulkInsert(String)} で取得すれば
+ * SQL実行統計とスロークエリログには元の SQL文で1文（バッチ）ごとに記録し（スロークエリログにはパラメータの代わりに行数を出力する），
+ * 実行後は（失敗した場合も）元の SQL文が参照するテーブルのクエリ結果のキャッシュを破棄する。
+ * 行ごとのパラメータの数は SQL文のプレースホルダの数と一致しなければならない（実行前に確認する）。
+ */
+public final class BulkInsert implements AutoCloseable {
+
+    /** 1文あたりの行数の上限（デフォルト） */
+    public static final int DEFAULT_MAX_ROWS = 1000;
+
+    /** 1文あたりのプレースホルダ数の上限（デフォルト） */
+    public static final int DEFAULT_MAX_PARAMETERS = 65535;
+
+    /** 1文あたりのパラメータの推定サイズの上限（デフォルト，バイト） */
+    public static final long DEFAULT_MAX_PACKET_BYTES = 1024 * 1024;
+
+    /** 1行あたりの推定サイズの固定分（バイト） */
+    private static final int ROW_OVERHEAD = 4;
+
+    /** 接続オブジェクト */
+    private final Connection connection;
+
+    /** ステートメントキャッシュ（{@code null} ならこのオブジェクトで保持する） */
+    private final StatementCache cache;
+
+    /** 元の SQL文 */
+    private final String sql;
+
+    /** VALUES 句より前の部分（"INSERT INTO T (...) VALUES "） */
+    private final String head;
+
+    /** 1行分の値（"(?, ?, ?)"） */
+    private final String tuple;
+
+    /** VALUES 句より後の部分（"ON DUPLICATE KEY UPDATE ..." など） */
+    private final String tail;
+
+    /** 複数行に書き換えられる場合は {@code true} */
+    private final boolean rewritable;
+
+    /** 1行あたりのプレースホルダ数（書き換えられない場合は SQL文全体のプレースホルダ数） */
+    private final int parameterCount;
+
+    /** 1文あたりの行数の上限 */
+    private final int maxRows;
+
+    /** 1文あたりのパラメータの推定サイズの上限（バイト） */
+    private final long maxPacketBytes;
+
+    /** 行数ごとの SQL文 */
+    private final HashMap<Integer, String> sqls;
+
+    /** 行数ごとのステートメント（ステートメントキャッシュがない場合） */
+    private final HashMap<Integer, PreparedStatement> statements;
+
+    /** クエリ結果のキャッシュ（{@code null} なら破棄しない） */
+    private ResultCache resultCache;
+
+    /** SQL実行統計（{@code null} なら記録しない） */
+    private StatementMetrics metrics;
+
+    /** スロークエリログ（{@code null} なら出力しない） */
+    private SlowQueryLog slowQueryLog;
+
+    /** 接続の待ち時間（ナノ秒，スロークエリログに使う） */
+    private long connectionWaitNanos;
+
+    /** 実行した文の数 */
+    private long executeCount;
+
+    /**
+     * コンストラクタ（上限はデフォルト）
+     *
+     * @param connection : {@link Connection}     : DB接続オブジェクト
+     * @param cache      : {@link StatementCache} : ステートメントキャッシュ（{@code null} 可）
+     * @param sql        : {@link String}         : SQL文（"INSERT INTO T (...) VALUES (?, ?, ?)"）
+     */
+    public BulkInsert(Connection connection, StatementCache cache, String sql) {
+        this(connection, cache, sql, DEFAULT_MAX_ROWS, DEFAULT_MAX_PARAMETERS, DEFAULT_MAX_PACKET_BYTES);
+    }
+
+    /**
+     * コンストラクタ
+     *
+     * @param connection     : {@link Connection}     : DB接続オブジェクト
+     * @param cache          : {@link StatementCache} : ステートメントキャッシュ（{@code null} 可）
+     * @param sql            : {@link String}         : SQL文（"INSERT INTO T (...) VALUES (?, ?, ?)"）
+     * @param maxRows        : int                    : 1文あたりの行数の上限（1未満なら1）
+     * @param maxParameters  : int                    : 1文あたりのプレースホルダ数の上限（1未満なら1）
+     * @param maxPacketBytes : long                   : 1文あたりのパラメータの推定サイズの上限（バイト）
+     */
+    public BulkInsert(Connection connection, StatementCache cache, String sql, int maxRows, int maxParameters, long maxPacketBytes) {
+        this.connection = connection;
+        this.cache = cache;
+        this.sql = sql;
+        this.sqls = new HashMap<Integer, String>();
+        this.statements = new HashMap<Integer, PreparedStatement>();
+        this.maxPacketBytes = maxPacketBytes;
+        this.executeCount = 0;
+        int[] range = findValues(sql);
+        String rest = Util.isNull(range) ? "" : sql.substring(range[1]);
+        this.rewritable = !Util.isNull(range) && countPlaceholders(rest) == 0;
+        if (!this.rewritable) {
+            //書き換えられない場合はバッチ実行する
+            this.head = sql;
+            this.tuple = "";
+            this.tail = "";
+            this.parameterCount = countPlaceholders(sql);
+            this.maxRows = Math.max(maxRows, 1);
+        } else {
+            this.head = sql.substring(0, range[0]);
+            this.tuple = sql.substring(range[0], range[1]);
+            this.tail = rest;
+            this.parameterCount = countPlaceholders(this.tuple);
+            int limit = Math.max(maxRows, 1);
+            if (this.parameterCount > 0) {
+                limit = Math.min(limit, Math.max(maxParameters, 1) / this.parameterCount);
+            }
+            this.maxRows = Math.max(limit, 1);
+        }
+    }
+
+    /**
+     * クエリ結果のキャッシュを設定する
+     *
+     * @param cache : {@link ResultCache} : クエリ結果のキャッシュ
+     */
+    void setResultCache(ResultCache cache) {
+        this.resultCache = cache;
+    }
+
+    /**
+     * SQL実行統計を設定する
+     *
+     * @param metrics : {@link StatementMetrics} : SQL実行統計（{@code null} なら記録しない）
+     */
+    public void setMetrics(StatementMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * スロークエリログを設定する
+     * <br>パラメータの代わりに1文（バッチ）あたりの行数を出力する。
+     *
+     * @param log                 : {@link SlowQueryLog} : スロークエリログ（{@code null} なら出力しない）
+     * @param connectionWaitNanos : long                 : 接続の待ち時間（ナノ秒）
+     */
+    public void setSlowQueryLog(SlowQueryLog log, long connectionWaitNanos) {
+        this.slowQueryLog = log;
+        this.connectionWaitNanos = connectionWaitNanos;
+    }
+
+    /**
+     * 一括 INSERT を実行する
+     * <br>途中の文で失敗した場合，それまでの文の更新は残る（トランザクションはロールバックすること）。
+     *
+     * @param paramSets : {@link List}<{@link ArrayList}<{@link DbParameter}>> : 行ごとのパラメータのリスト
+     * @return long ; 更新件数の合計。パラメータのリストが {@code null} の場合は {@code 0} を返す。
+     * @exception SQLException 実行に失敗した場合
+     * @exception IllegalArgumentException パラメータのリストが {@code null} またはプレースホルダの数と一致しない行がある場合（何も実行しない）
+     */
+    public long insert(List<ArrayList<DbParameter>> paramSets) throws SQLException {
+        if (Util.isNull(paramSets)) {
+            return 0;
+        }
+        validate(paramSets);
+        try {
+            if (!this.rewritable) {
+                return executeBatch(paramSets);
+            }
+            long total = 0;
+            int size = paramSets.size();
+            int start = 0;
+            while (start < size) {
+                //上限までの行数を求め，上限に満たなければ2のべき乗に切り下げる
+                int rows = 0;
+                long bytes = 0;
+                while (start + rows < size && rows < this.maxRows) {
+                    bytes += estimateBytes(paramSets.get(start + rows));
+                    if (rows > 0 && bytes > this.maxPacketBytes) {
+                        break;
+                    }
+                    rows++;
+                }
+                if (rows < this.maxRows) {
+                    rows = Integer.highestOneBit(rows);
+                }
+                total += execute(paramSets, start, rows);
+                start += rows;
+            }
+            return total;
+        } finally {
+            //途中で失敗しても実行済みの文の更新はあるので破棄する
+            if (!Util.isNull(this.resultCache)) {
+                this.resultCache.invalidate(this.sql);
+            }
+        }
+    }
+
+    /**
+     * 行ごとのパラメータの数を確認する
+     * <br>数が合わない行があると，複数行の文では後の行の値がずれてしまうため実行前に確認する。
+     *
+     * @param paramSets : {@link List}<{@link ArrayList}<{@link DbParameter}>> : 行ごとのパラメータのリスト
+     * @exception IllegalArgumentException パラメータのリストが {@code null} またはプレースホルダの数と一致しない行がある場合
+     */
+    private void validate(List<ArrayList<DbParameter>> paramSets) {
+        for (int i = 0; i < paramSets.size(); i++) {
+            ArrayList<DbParameter> paramList = paramSets.get(i);
+            if (Util.isNull(paramList) || paramList.size() != this.parameterCount) {
+                throw new IllegalArgumentException("パラメータの数がプレースホルダの数（" + this.parameterCount + "）と一致しません。"
+                        + "（" + i + "行目：" + (Util.isNull(paramList) ? "null" : String.valueOf(paramList.size())) + "）");
+            }
+        }
+    }
+
+    /**
+     * 複数行の INSERT を1文実行する
+     *
+     * @param paramSets : {@link List}<{@link ArrayList}<{@link DbParameter}>> : 行ごとのパラメータのリスト
+     * @param start     : int  : 開始位置
+     * @param rows      : int  : 行数
+     * @return int ; 更新件数
+     * @exception SQLException 実行に失敗した場合
+     */
+    private int execute(List<ArrayList<DbParameter>> paramSets, int start, int rows) throws SQLException {
+        long startNanos = System.nanoTime();
+        PreparedStatement statement = null;
+        try {
+            statement = prepare(rows);
+            statement.clearParameters();
+            int index = 1;
+            for (int i = start; i < start + rows; i++) {
+                for (DbParameter param : paramSets.get(i)) {
+                    statement.setObject(index++, param.getValue(), param.getType());
+                }
+            }
+            int count = statement.executeUpdate();
+            this.executeCount++;
+            record(startNanos, count, rows, false);
+            return count;
+        } catch (SQLException e) {
+            record(startNanos, 0, rows, true);
+            throw e;
+        } finally {
+            release(statement);
+        }
+    }
+
+    /**
+     * 書き換えずにバッチ実行する（{@code maxRows} 行ごとに送信する）
+     *
+     * @param paramSets : {@link List}<{@link ArrayList}<{@link DbParameter}>> : 行ごとのパラメータのリスト
+     * @return long ; 更新件数の合計（件数が不明な行は含まない）
+     * @exception SQLException 実行に失敗した場合
+     */
+    private long executeBatch(List<ArrayList<DbParameter>> paramSets) throws SQLException {
+        long startNanos = System.nanoTime();
+        PreparedStatement statement = null;
+        try {
+            statement = prepare(1);
+            statement.clearBatch();
+            long total = 0;
+            int count = 0;
+            for (int i = 0; i < paramSets.size(); i++) {
+                statement.clearParameters();
+                int index = 1;
+                for (DbParameter param : paramSets.get(i)) {
+                    statement.setObject(index++, param.getValue(), param.getType());
+                }
+                statement.addBatch();
+                count++;
+                if (count >= this.maxRows || i == paramSets.size() - 1) {
+                    for (int n : statement.executeBatch()) {
+                        if (n > 0) {
+                            total += n;
+                        }
+                    }
+                    this.executeCount++;
+                    count = 0;
+                }
+            }
+            record(startNanos, total, paramSets.size(), false);
+            return total;
+        } catch (SQLException e) {
+            record(startNanos, 0, paramSets.size(), true);
+            throw e;
+        } finally {
+            release(statement);
+        }
+    }
+
+    /**
+     * 実行結果を SQL実行統計とスロークエリログに記録する
+     *
+     * @param startNanos : long    : 開始時刻（{@link System#nanoTime()}）
+     * @param count      : long    : 更新件数
+     * @param rows       : int     : 1文（バッチ）で送信した行数
+     * @param failed     : boolean : 実行に失敗した場合は {@code true}
+     */
+    private void record(long startNanos, long count, int rows, boolean failed) {
+        long elapsed = System.nanoTime() - startNanos;
+        if (!Util.isNull(this.metrics)) {
+            if (failed) {
+                this.metrics.recordError(this.sql, startNanos);
+            } else {
+                this.metrics.recordElapsed(this.sql, elapsed, count, 0);
+            }
+        }
+        if (!Util.isNull(this.slowQueryLog)) {
+            this.slowQueryLog.checkBatch(this.sql, rows, elapsed, count, this.connectionWaitNanos, failed);
+        }
+    }
+
+    /**
+     * 行数に応じたステートメントを取得する
+     *
+     * @param rows : int : 行数
+     * @return {@link PreparedStatement} ; ステートメント
+     * @exception SQLException ステートメントの取得に失敗した場合
+     */
+    private PreparedStatement prepare(int rows) throws SQLException {
+        String chunkSql = this.sqls.get(rows);
+        if (Util.isNull(chunkSql)) {
+            chunkSql = buildSql(rows);
+            this.sqls.put(rows, chunkSql);
+        }
+        if (!Util.isNull(this.cache)) {
+            return this.cache.prepare(chunkSql);
+        }
+        PreparedStatement statement = this.statements.get(rows);
+        if (Util.isNull(statement)) {
+            statement = this.connection.prepareStatement(chunkSql);
+            this.statements.put(rows, statement);
+        }
+        return statement;
+    }
+
+    /**
+     * 使い終わったステートメントを {@link StatementCache} に返却する
+     * <br>ステートメントキャッシュがない場合はこのオブジェクトで保持し続ける（{@link #close()} で閉じる）。
+     *
+     * @param statement : {@link PreparedStatement} : ステートメント（{@code null} 可）
+     */
+    private void release(PreparedStatement statement) {
+        if (!Util.isNull(this.cache) && !Util.isNull(statement)) {
+            this.cache.release(statement);
+        }
+    }
+
+    /**
+     * 複数行の INSERT 文を組み立てる
+     *
+     * @param rows : int : 行数
+     * @return {@link String} ; SQL文
+     */
+    String buildSql(int rows) {
+        if (rows <= 1) {
+            return this.sql;
+        }
+        StringBuilder sb = new StringBuilder(this.head.length() + (this.tuple.length() + 1) * rows + this.tail.length());
+        sb.append(this.head);
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(this.tuple);
+        }
+        return sb.append(this.tail).toString();
+    }
+
+    /**
+     * 1文あたりの行数の上限を取得する
+     *
+     * @return int ; 行数（書き換えられない SQL文の場合はバッチで一度に送信する行数）
+     */
+    public int getMaxRows() {
+        return this.maxRows;
+    }
+
+    /**
+     * 複数行に書き換えられるか
+     *
+     * @return boolean ; 書き換えられる場合は {@code true}（書き換えられない場合はバッチ実行する）
+     */
+    public boolean isRewritable() {
+        return this.rewritable;
+    }
+
+    /**
+     * 実行した文の数を取得する
+     *
+     * @return long ; 文（バッチ実行の場合はバッチ）の数
+     */
+    public long getExecuteCount() {
+        return this.executeCount;
+    }
+
+    /**
+     * ステートメントを閉じる
+     * <br>{@link StatementCache} のステートメントは閉じない。
+     */
+    @Override
+    public void close() {
+        for (PreparedStatement statement : this.statements.values()) {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                //例外は無視する
+            }
+        }
+        this.statements.clear();
+    }
+
+    /**
+     * 1行分のパラメータの推定サイズを求める
+     *
+     * @param paramList : {@link ArrayList}<{@link DbParameter}> : パラメータのリスト
+     * @return long ; 推定サイズ（バイト）
+     */
+    private static long estimateBytes(ArrayList<DbParameter> paramList) {
+        long bytes = ROW_OVERHEAD;
+        if (!Util.isNull(paramList)) {
+            for (DbParameter param : paramList) {
+                Object value = param.getValue();
+                if (value instanceof String) {
+                    bytes += 4 + 3L * ((String)value).length(); //UTF-8 で最大3バイト
+                } else if (value instanceof byte[]) {
+                    bytes += 4 + ((byte[])value).length;
+                } else {
+                    bytes += 12;
+                }
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * VALUES 句の1行分の値の位置を求める
+     * <br>文字列リテラル・引用符付きの識別子の中は無視する。括弧の中（列名のリストなど）のキーワードも無視する。
+     * MySQL/MariaDB の "VALUE" も VALUES 句とみなす。
+     *
+     * @param sql : {@link String} : SQL文
+     * @return int[] ; 値の開始位置（"("）と終了位置（")" の次）。見つからない場合は {@code null} を返す。
+     */
+    static int[] findValues(String sql) {
+        if (Util.isNull(sql) || !sql.trim().toUpperCase(Locale.ROOT).startsWith("INSERT")) {
+            return null;
+        }
+        String upper = sql.toUpperCase(Locale.ROOT);
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (c == '\'' || c == '"' || c == '`') {
+                i = skipQuoted(sql, i);
+            } else if (c == '(') {
+                //列名のリストなど括弧の中は読み飛ばす
+                i = skipParenthesized(sql, i);
+                if (i < 0) {
+                    return null;
+                }
+            } else if (upper.startsWith("VALUE", i) && (i == 0 || !isIdentifierPart(sql.charAt(i - 1)))
+                    && (i + keywordLength(upper, i) >= length || !isIdentifierPart(sql.charAt(i + keywordLength(upper, i))))) {
+                int open = i + keywordLength(upper, i);
+                while (open < length && Character.isWhitespace(sql.charAt(open))) {
+                    open++;
+                }
+                if (open >= length || sql.charAt(open) != '(') {
+                    return null;
+                }
+                int close = skipParenthesized(sql, open);
+                return (close < 0) ? null : new int[] {open, close};
+            } else {
+                i++;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 括弧で囲まれた部分を読み飛ばす（入れ子の括弧・文字列リテラル・引用符付きの識別子を考慮する）
+     *
+     * @param sql   : {@link String} : SQL文
+     * @param start : int             : 開始の括弧の位置
+     * @return int ; 対応する閉じ括弧の次の位置。閉じ括弧がない場合は {@code -1} を返す。
+     */
+    private static int skipParenthesized(String sql, int start) {
+        int depth = 0;
+        int i = start;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (c == '\'' || c == '"' || c == '`') {
+                i = skipQuoted(sql, i);
+                continue;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+                if (depth == 0) {
+                    return i + 1;
+                }
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    /**
+     * VALUES 句のキーワードの長さ
+     *
+     * @param upper : {@link String} : SQL文（大文字）
+     * @param start : int             : キーワードの位置
+     * @return int ; "VALUES" なら6，"VALUE" なら5
+     */
+    private static int keywordLength(String upper, int start) {
+        return upper.startsWith("VALUES", start) ? 6 : 5;
+    }
+
+    /**
+     * プレースホルダの数を数える（文字列リテラル・引用符付きの識別子の中は除く）
+     *
+     * @param sql : {@link String} : SQL文の一部
+     * @return int ; プレースホルダの数
+     */
+    private static int countPlaceholders(String sql) {
+        int count = 0;
+        int i = 0;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (c == '\'' || c == '"' || c == '`') {
+                i = skipQuoted(sql, i);
+            } else {
+                if (c == '?') {
+                    count++;
+                }
+                i++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 引用符で囲まれた部分を読み飛ばす（引用符を重ねたものはエスケープ）
+     *
+     * @param sql   : {@link String} : SQL文
+     * @param start : int             : 開始の引用符の位置
+     * @return int ; 終了の引用符の次の位置
+     */
+    private static int skipQuoted(String sql, int start) {
+        char quote = sql.charAt(start);
+        int i = start + 1;
+        while (i < sql.length()) {
+            if (sql.charAt(i) == quote) {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            i++;
+        }
+        return sql.length();
+    }
+
+    /**
+     * 識別子に使える文字か
+     *
+     * @param c : char : 文字
+     * @return boolean ; 英数字・"_"・"$" なら {@code true}
+     */
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+}
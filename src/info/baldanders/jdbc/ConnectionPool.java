@@ -0,0 +1,424 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.jdbc;
+
+import info.baldanders.Util;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * コネクションプールクラス
+ * <br>最大接続数を上限として {@link Connection} を貸し出す。
+ * 貸し出し時に接続の有効性を検証し，一定時間使われていない接続は最小接続数まで破棄する。
+ * 貸し出す接続は auto commit しない。
+ * 接続ごとに {@link StatementCache} を持たせることができる。
+ */
+public final class ConnectionPool {
+
+    /**
+     * 待機中の接続情報
+     */
+    private static final class PooledConnection {
+        /** 接続オブジェクト */
+        private final Connection connection;
+        /** 最後に返却された時刻（ミリ秒） */
+        private final long lastUsed;
+
+        /**
+         * コンストラクタ
+         *
+         * @param connection : {@link Connection} : 接続オブジェクト
+         * @param lastUsed   : long               : 最後に返却された時刻（ミリ秒）
+         */
+        private PooledConnection(Connection connection, long lastUsed) {
+            this.connection = connection;
+            this.lastUsed = lastUsed;
+        }
+    }
+
+    /** 接続先 URL */
+    private final String url;
+
+    /** 接続ユーザ */
+    private final String user;
+
+    /** パスワード */
+    private final String password;
+
+    /** 最小接続数 */
+    private final int minSize;
+
+    /** 最大接続数 */
+    private final int maxSize;
+
+    /** 貸し出し待ちのタイムアウト（ミリ秒） */
+    private final long timeout;
+
+    /** 待機中の接続を破棄するまでの時間（ミリ秒，0以下なら破棄しない） */
+    private final long idleTimeout;
+
+    /** 貸し出し時の有効性検証のタイムアウト（秒，0以下なら検証しない） */
+    private final int validationTimeout;
+
+    /** 接続ごとのステートメントキャッシュの最大保持数（0以下ならキャッシュしない） */
+    private final int statementCacheSize;
+
+    /** 接続ごとのステートメントキャッシュ */
+    private final ConcurrentHashMap<Connection, StatementCache> statementCaches;
+
+    /** 破棄した接続のキャッシュヒット回数 */
+    private final AtomicLong retiredHitCount;
+
+    /** 破棄した接続のキャッシュミス回数 */
+    private final AtomicLong retiredMissCount;
+
+    /** 待機中の接続（直近に返却されたものから貸し出す） */
+    private final LinkedBlockingDeque<PooledConnection> idle;
+
+    /** 貸し出し中の接続 */
+    private final Set<Connection> borrowed;
+
+    /** 貸し出し可能数 */
+    private final Semaphore permits;
+
+    /** 生成済みの接続数 */
+    private final AtomicInteger total;
+
+    /** 待機中の接続を破棄するタイマー */
+    private final Timer evictionTimer;
+
+    /** プールが閉じられていれば {@code true} */
+    private volatile boolean closed;
+
+    /**
+     * コンストラクタ
+     * <br>最小接続数分の接続を生成する。
+     *
+     * @param url                : {@link String} : 接続先 URL
+     * @param user               : {@link String} : 接続ユーザ
+     * @param password           : {@link String} : パスワード
+     * @param minSize            : int            : 最小接続数
+     * @param maxSize            : int            : 最大接続数（1未満なら1とする）
+     * @param timeout            : long           : 貸し出し待ちのタイムアウト（ミリ秒）
+     * @param idleTimeout        : long           : 待機中の接続を破棄するまでの時間（ミリ秒，0以下なら破棄しない）
+     * @param validationTimeout  : int            : 貸し出し時の有効性検証のタイムアウト（秒，0以下なら検証しない）
+     * @param statementCacheSize : int            : 接続ごとのステートメントキャッシュの最大保持数（0以下ならキャッシュしない）
+     * @throws SQLException 接続の生成に失敗した場合
+     */
+    public ConnectionPool(String url, String user, String password, int minSize, int maxSize, long timeout, long idleTimeout, int validationTimeout, int statementCacheSize) throws SQLException {
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = Math.max(maxSize, 1);
+        this.minSize = Math.min(Math.max(minSize, 0), this.maxSize);
+        this.timeout = Math.max(timeout, 0);
+        this.idleTimeout = idleTimeout;
+        this.validationTimeout = validationTimeout;
+        this.statementCacheSize = statementCacheSize;
+        this.statementCaches = new ConcurrentHashMap<Connection, StatementCache>();
+        this.retiredHitCount = new AtomicLong(0);
+        this.retiredMissCount = new AtomicLong(0);
+        this.idle = new LinkedBlockingDeque<PooledConnection>();
+        this.borrowed = Collections.newSetFromMap(new ConcurrentHashMap<Connection, Boolean>());
+        this.permits = new Semaphore(this.maxSize, true);
+        this.total = new AtomicInteger(0);
+        this.closed = false;
+
+        //最小接続数分の接続を生成する
+        try {
+            while (this.total.get() < this.minSize) {
+                this.total.incrementAndGet();
+                this.idle.offerLast(new PooledConnection(open(), System.currentTimeMillis()));
+            }
+        } catch (SQLException e) {
+            close();
+            throw e;
+        }
+
+        //待機中の接続を定期的に破棄する
+        if (this.idleTimeout > 0) {
+            long period = Math.max(this.idleTimeout / 2, 1000L);
+            this.evictionTimer = new Timer("ConnectionPool-evictor", true);
+            this.evictionTimer.schedule(new TimerTask() {
+                @Override
+                public void run() {
+                    evictIdle();
+                }
+            }, period, period);
+        } else {
+            this.evictionTimer = null;
+        }
+    }
+
+    /**
+     * 接続を借りる
+     * <br>待機中の接続があれば有効性を検証して貸し出す。
+     * 待機中の接続がなく最大接続数に達していなければ新たに接続を生成する。
+     * 最大接続数に達している場合は返却されるまで待つ。
+     *
+     * @return {@link Connection} ; 接続オブジェクト（auto commit しない）
+     * @throws SQLTimeoutException タイムアウトまでに接続を借りられなかった場合
+     * @throws SQLException プールが閉じられている場合。または接続の生成に失敗した場合
+     */
+    public Connection borrow() throws SQLException {
+        if (this.closed) {
+            throw new SQLException("コネクションプールは閉じられています。");
+        }
+        try {
+            if (!this.permits.tryAcquire(this.timeout, TimeUnit.MILLISECONDS)) {
+                throw new SQLTimeoutException("接続の取得がタイムアウトしました。（" + this.timeout + "ms）");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("接続の取得が中断されました。", e);
+        }
+        try {
+            Connection connection = null;
+            PooledConnection entry;
+            while (Util.isNull(connection) && !Util.isNull(entry = this.idle.pollFirst())) {
+                if (validate(entry.connection)) {
+                    connection = entry.connection;
+                } else {
+                    discard(entry.connection); //無効な接続は破棄する
+                }
+            }
+            if (Util.isNull(connection)) {
+                this.total.incrementAndGet();
+                try {
+                    connection = open();
+                } catch (SQLException e) {
+                    this.total.decrementAndGet();
+                    throw e;
+                }
+            }
+            this.borrowed.add(connection);
+            return connection;
+        } catch (SQLException e) {
+            this.permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * 接続を返却する
+     * <br>プールが閉じられている場合や接続が閉じられている場合は破棄する。
+     * このプールから借りていない接続の場合は何もしない。
+     *
+     * @param connection : {@link Connection} : 接続オブジェクト
+     */
+    public void release(Connection connection) {
+        if (Util.isNull(connection) || !this.borrowed.remove(connection)) {
+            return;
+        }
+        try {
+            if (this.closed || connection.isClosed()) {
+                discard(connection);
+            } else {
+                this.idle.offerFirst(new PooledConnection(connection, System.currentTimeMillis()));
+            }
+        } catch (SQLException e) {
+            discard(connection);
+        } finally {
+            this.permits.release();
+        }
+    }
+
+    /**
+     * プールを閉じる
+     * <br>待機中の接続はすべて閉じる。貸し出し中の接続は返却時に閉じる。
+     */
+    public void close() {
+        this.closed = true;
+        if (!Util.isNull(this.evictionTimer)) {
+            this.evictionTimer.cancel();
+        }
+        PooledConnection entry;
+        while (!Util.isNull(entry = this.idle.pollFirst())) {
+            discard(entry.connection);
+        }
+    }
+
+    /**
+     * 一定時間使われていない接続を破棄する
+     * <br>最小接続数を下回る場合は接続を補充する。
+     */
+    void evictIdle() {
+        long limit = System.currentTimeMillis() - this.idleTimeout;
+        Iterator<PooledConnection> it = this.idle.descendingIterator(); //古いものから
+        while (it.hasNext() && this.total.get() > this.minSize) {
+            PooledConnection entry = it.next();
+            if (entry.lastUsed < limit && this.idle.removeLastOccurrence(entry)) {
+                discard(entry.connection);
+            }
+        }
+        while (!this.closed) {
+            if (this.total.incrementAndGet() > this.minSize) {
+                this.total.decrementAndGet();
+                break;
+            }
+            try {
+                this.idle.offerLast(new PooledConnection(open(), System.currentTimeMillis()));
+            } catch (SQLException e) {
+                this.total.decrementAndGet();
+                break;
+            }
+        }
+    }
+
+    /**
+     * 接続を生成する
+     *
+     * @return {@link Connection} ; 接続オブジェクト（auto commit しない）
+     * @throws SQLException 接続の生成に失敗した場合
+     */
+    private Connection open() throws SQLException {
+        Connection connection = DriverManager.getConnection(this.url, this.user, this.password);
+        connection.setAutoCommit(false); //トランザクションの開始（auto commit しない）
+        if (this.statementCacheSize > 0) {
+            this.statementCaches.put(connection, new StatementCache(connection, this.statementCacheSize));
+        }
+        return connection;
+    }
+
+    /**
+     * 接続の有効性を検証する
+     *
+     * @param connection : {@link Connection} : 接続オブジェクト
+     * @return boolean ; 有効なら {@code true}
+     */
+    private boolean validate(Connection connection) {
+        try {
+            if (connection.isClosed()) {
+                return false;
+            } else if (this.validationTimeout > 0) {
+                return connection.isValid(this.validationTimeout);
+            } else {
+                return true;
+            }
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 接続を破棄する
+     *
+     * @param connection : {@link Connection} : 接続オブジェクト
+     */
+    private void discard(Connection connection) {
+        this.total.decrementAndGet();
+        StatementCache cache = this.statementCaches.remove(connection);
+        if (!Util.isNull(cache)) {
+            this.retiredHitCount.addAndGet(cache.getHitCount());
+            this.retiredMissCount.addAndGet(cache.getMissCount());
+            cache.close();
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            //close の例外は無視する
+        }
+    }
+
+    /**
+     * 接続先 URL を取得する
+     *
+     * @return {@link String} ; 接続先 URL
+     */
+    public String getUrl() {
+        return this.url;
+    }
+
+    /**
+     * 貸し出し中の接続数を取得する
+     *
+     * @return int ; 貸し出し中の接続数
+     */
+    public int getActiveCount() {
+        return this.borrowed.size();
+    }
+
+    /**
+     * 待機中の接続数を取得する
+     *
+     * @return int ; 待機中の接続数
+     */
+    public int getIdleCount() {
+        return this.idle.size();
+    }
+
+    /**
+     * 最大接続数を取得する
+     *
+     * @return int ; 最大接続数
+     */
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+
+    /**
+     * 最小接続数を取得する
+     *
+     * @return int ; 最小接続数
+     */
+    public int getMinSize() {
+        return this.minSize;
+    }
+
+    /**
+     * 接続のステートメントキャッシュを取得する
+     *
+     * @param connection : {@link Connection} : このプールから借りた接続オブジェクト
+     * @return {@link StatementCache} ; キャッシュしない設定の場合やこのプールの接続でない場合は {@code null} を返す。
+     */
+    public StatementCache getStatementCache(Connection connection) {
+        if (Util.isNull(connection)) {
+            return null;
+        } else {
+            return this.statementCaches.get(connection);
+        }
+    }
+
+    /**
+     * ステートメントキャッシュにヒットした回数を取得する
+     *
+     * @return long ; 全接続（破棄済みを含む）のヒット回数の合計
+     */
+    public long getStatementCacheHitCount() {
+        long count = this.retiredHitCount.get();
+        for (StatementCache cache : this.statementCaches.values()) {
+            count += cache.getHitCount();
+        }
+        return count;
+    }
+
+    /**
+     * ステートメントキャッシュにヒットしなかった回数を取得する
+     *
+     * @return long ; 全接続（破棄済みを含む）のミス回数の合計
+     */
+    public long getStatementCacheMissCount() {
+        long count = this.retiredMissCount.get();
+        for (StatementCache cache : this.statementCaches.values()) {
+            count += cache.getMissCount();
+        }
+        return count;
+    }
+}
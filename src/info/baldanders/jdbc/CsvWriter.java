@@ -0,0 +1,375 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.jdbc;
+
+import info.baldanders.Util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.sql.SQLException;
+
+/**
+ * CSV形式の出力クラス
+ * <br>クエリ結果を {@link Writer} または {@link WritableByteChannel} に直接書き出す。
+ * 文字列を組み立てずに固定サイズのバッファを使い回すので，{@link DataCursor} と組み合わせると
+ * クエリ結果の件数によらずメモリ使用量は一定となる。
+ * <ul>
+ * <li>区切り文字は ","，行末は {@code line.separator}（{@link DataSet#toString()} と同じ）</li>
+ * <li>値に ","，"\""，改行が含まれる場合のみダブルクォートで囲む（全て囲むことも可）</li>
+ * <li>{@code null} は空の値とする</li>
+ * </ul>
+ * 全て囲む場合の出力は {@link DataSet#toString()} と同じになる。
+ */
+public final class CsvWriter implements Closeable {
+
+    /** バッファサイズ（文字数） */
+    private static final int BUFFER_SIZE = 8192;
+
+    /** 改行コード */
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+    /** 出力先（文字ストリームの場合） */
+    private final Writer writer;
+
+    /** 出力先（チャネルの場合） */
+    private final WritableByteChannel channel;
+
+    /** 文字コード変換（チャネルの場合） */
+    private final CharsetEncoder encoder;
+
+    /** 変換後のバッファ（チャネルの場合） */
+    private final ByteBuffer bytes;
+
+    /** 出力前のバッファ */
+    private final char[] buffer;
+
+    /** 出力前のバッファ（変換用） */
+    private final CharBuffer chars;
+
+    /** バッファ内の文字数 */
+    private int length;
+
+    /** 全ての値をダブルクォートで囲むか */
+    private final boolean quoteAll;
+
+    /** 出力した行数（見出し行を除く） */
+    private long rowCount;
+
+    /**
+     * コンストラクタ（文字ストリームに出力）
+     *
+     * @param writer   : {@link Writer} : 出力先
+     * @param quoteAll : boolean         : 全ての値をダブルクォートで囲むなら {@code true}（必要な値のみなら {@code false}）
+     */
+    public CsvWriter(Writer writer, boolean quoteAll) {
+        this.writer = writer;
+        this.channel = null;
+        this.encoder = null;
+        this.bytes = null;
+        this.buffer = new char[BUFFER_SIZE];
+        this.chars = null;
+        this.length = 0;
+        this.quoteAll = quoteAll;
+        this.rowCount = 0;
+    }
+
+    /**
+     * コンストラクタ（チャネルに出力）
+     *
+     * @param channel  : {@link WritableByteChannel} : 出力先
+     * @param charset  : {@link Charset}             : 文字コード（{@code null} なら UTF-8）
+     * @param quoteAll : boolean                      : 全ての値をダブルクォートで囲むなら {@code true}（必要な値のみなら {@code false}）
+     */
+    public CsvWriter(WritableByteChannel channel, Charset charset, boolean quoteAll) {
+        this.writer = null;
+        this.channel = channel;
+        this.encoder = (Util.isNull(charset) ? Charset.forName("UTF-8") : charset).newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.buffer = new char[BUFFER_SIZE];
+        this.chars = CharBuffer.wrap(this.buffer);
+        this.bytes = ByteBuffer.allocate((int)Math.ceil(BUFFER_SIZE * this.encoder.maxBytesPerChar()));
+        this.length = 0;
+        this.quoteAll = quoteAll;
+        this.rowCount = 0;
+    }
+
+    /**
+     * 見出し行（カラム名）を出力する
+     *
+     * @param cursor : {@link DataCursor} : カーソル（{@code null} なら何もしない）
+     * @throws IOException 出力に失敗した場合
+     */
+    public void writeHeader(DataCursor cursor) throws IOException {
+        if (Util.isNull(cursor)) {
+            return;
+        }
+        for (int col = 1; col <= cursor.sizeColumn(); col++) {
+            if (col > 1) {
+                append(',');
+            }
+            writeField(cursor.getColumnName(col));
+        }
+        appendString(LINE_SEPARATOR, 0, LINE_SEPARATOR.length());
+    }
+
+    /**
+     * 見出し行（カラム名）を出力する
+     *
+     * @param ds : {@link DataSet} : クエリ結果（{@code null} なら何もしない）
+     * @throws IOException 出力に失敗した場合
+     */
+    public void writeHeader(DataSet ds) throws IOException {
+        if (Util.isNull(ds)) {
+            return;
+        }
+        for (int col = 1; col <= ds.sizeColumn(); col++) {
+            if (col > 1) {
+                append(',');
+            }
+            writeField(ds.geColumnName(col));
+        }
+        appendString(LINE_SEPARATOR, 0, LINE_SEPARATOR.length());
+    }
+
+    /**
+     * 1行出力する
+     *
+     * @param row : {@link DataRow} : 行データ（{@code null} またはカラムデータが {@code null} なら空行）
+     * @throws IOException 出力に失敗した場合
+     */
+    public void writeRow(DataRow row) throws IOException {
+        if (!Util.isNull(row)) {
+            for (int col = 1; col <= row.size(); col++) {
+                if (col > 1) {
+                    append(',');
+                }
+                writeField(row.get(col));
+            }
+        }
+        appendString(LINE_SEPARATOR, 0, LINE_SEPARATOR.length());
+        this.rowCount++;
+    }
+
+    /**
+     * カーソルの残りの行を全て出力する
+     * <br>行データ（{@link DataRow}）を生成せずにクエリ結果から直接出力する。
+     * 最後の行まで出力するとカーソルは閉じられる。
+     *
+     * @param cursor : {@link DataCursor} : カーソル（{@code null} なら何もしない）
+     * @return long ; 出力した行数
+     * @throws SQLException 結果の取得に失敗した場合
+     * @throws IOException 出力に失敗した場合
+     */
+    public long write(DataCursor cursor) throws SQLException, IOException {
+        if (Util.isNull(cursor)) {
+            return 0;
+        }
+        long count = 0;
+        int columnCount = cursor.sizeColumn();
+        while (cursor.next()) {
+            for (int col = 1; col <= columnCount; col++) {
+                if (col > 1) {
+                    append(',');
+                }
+                writeField(cursor.getString(col));
+            }
+            appendString(LINE_SEPARATOR, 0, LINE_SEPARATOR.length());
+            count++;
+        }
+        this.rowCount += count;
+        return count;
+    }
+
+    /**
+     * クエリ結果の全ての行を出力する
+     *
+     * @param ds : {@link DataSet} : クエリ結果（{@code null} なら何もしない）
+     * @return long ; 出力した行数
+     * @throws IOException 出力に失敗した場合
+     */
+    public long write(DataSet ds) throws IOException {
+        if (Util.isNull(ds)) {
+            return 0;
+        }
+        int count = ds.sizeRow();
+        for (int rowNum = 1; rowNum <= count; rowNum++) {
+            writeRow(ds.getRow(rowNum));
+        }
+        return count;
+    }
+
+    /**
+     * 出力した行数を取得する
+     *
+     * @return long ; 出力した行数（見出し行を除く）
+     */
+    public long getRowCount() {
+        return this.rowCount;
+    }
+
+    /**
+     * バッファの内容を出力先に書き出す
+     *
+     * @throws IOException 出力に失敗した場合
+     */
+    public void flush() throws IOException {
+        flushBuffer(false);
+        if (!Util.isNull(this.writer)) {
+            this.writer.flush();
+        }
+    }
+
+    /**
+     * バッファの内容を書き出して出力先を閉じる
+     * @see java.io.Closeable#close()
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flushBuffer(true);
+        } finally {
+            if (!Util.isNull(this.writer)) {
+                this.writer.close();
+            } else {
+                this.channel.close();
+            }
+        }
+    }
+
+    /**
+     * 値を1つ出力する
+     *
+     * @param value : {@link String} : 値（{@code null} は空の値）
+     * @throws IOException 出力に失敗した場合
+     */
+    private void writeField(String value) throws IOException {
+        if (Util.isNull(value)) {
+            if (this.quoteAll) {
+                append('"');
+                append('"');
+            }
+        } else if (this.quoteAll || needsQuote(value)) {
+            append('"');
+            int start = 0;
+            int pos;
+            while ((pos = value.indexOf('"', start)) >= 0) {
+                appendString(value, start, pos + 1);
+                append('"'); //ダブルクォートを重ねる
+                start = pos + 1;
+            }
+            appendString(value, start, value.length());
+            append('"');
+        } else {
+            appendString(value, 0, value.length());
+        }
+    }
+
+    /**
+     * ダブルクォートで囲む必要があるか
+     *
+     * @param value : {@link String} : 値
+     * @return boolean ; ","，"\""，改行を含む場合は {@code true}
+     */
+    private static boolean needsQuote(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\r' || c == '\n') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 1文字をバッファに追加する
+     *
+     * @param c : char : 文字
+     * @throws IOException 出力に失敗した場合
+     */
+    private void append(char c) throws IOException {
+        if (this.length == this.buffer.length) {
+            flushBuffer(false);
+        }
+        this.buffer[this.length++] = c;
+    }
+
+    /**
+     * 文字列の一部をバッファに追加する
+     *
+     * @param str   : {@link String} : 文字列
+     * @param start : int             : 開始位置
+     * @param end   : int             : 終了位置（この位置の文字は含まない）
+     * @throws IOException 出力に失敗した場合
+     */
+    private void appendString(String str, int start, int end) throws IOException {
+        while (start < end) {
+            if (this.length == this.buffer.length) {
+                flushBuffer(false);
+            }
+            int n = Math.min(end - start, this.buffer.length - this.length);
+            str.getChars(start, start + n, this.buffer, this.length);
+            this.length += n;
+            start += n;
+        }
+    }
+
+    /**
+     * バッファの内容を出力先に書き出す
+     * <br>チャネルの場合，サロゲートペアの前半など変換できずに残った文字はバッファの先頭に移す。
+     *
+     * @param endOfInput : boolean : 最後の書き出しなら {@code true}
+     * @throws IOException 出力に失敗した場合
+     */
+    private void flushBuffer(boolean endOfInput) throws IOException {
+        if (!Util.isNull(this.writer)) {
+            this.writer.write(this.buffer, 0, this.length);
+            this.length = 0;
+            return;
+        }
+        this.chars.limit(this.length).position(0);
+        while (true) {
+            CoderResult result = this.encoder.encode(this.chars, this.bytes, endOfInput);
+            if (result.isOverflow()) {
+                writeBytes();
+            } else if (result.isUnderflow()) {
+                break;
+            } else {
+                result.throwException();
+            }
+        }
+        if (endOfInput) {
+            while (this.encoder.flush(this.bytes).isOverflow()) {
+                writeBytes();
+            }
+        }
+        writeBytes();
+        int remaining = this.chars.remaining();
+        System.arraycopy(this.buffer, this.chars.position(), this.buffer, 0, remaining);
+        this.length = remaining;
+        this.chars.clear();
+    }
+
+    /**
+     * 変換後のバッファをチャネルに書き出す
+     *
+     * @throws IOException 出力に失敗した場合
+     */
+    private void writeBytes() throws IOException {
+        this.bytes.flip();
+        while (this.bytes.hasRemaining()) {
+            this.channel.write(this.bytes);
+        }
+        this.bytes.clear();
+    }
+}
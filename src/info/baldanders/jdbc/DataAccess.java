@@ -10,30 +10,95 @@ import info.baldanders.Util;
 import java.io.IOException;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
 import java.util.ArrayList;
+import java.util.Properties;
 
 /**
  * データアクセスクラス（with JDBC Driver）
- * <br>簡単な singleton class として実装する
+ * <br>簡単な singleton class として実装する。
+ * 接続は {@link ConnectionPool} から借り，スレッドごとに保持する。
+ * {@link #commit()} と {@link #rollback()} はトランザクションを確定するだけで，接続は返却しない。
+ * 借りた接続は {@link #release()} でプールに返却する（参照のみのスレッドも含む）。
+ * {@link #open()} を try-with-resources で使えば，範囲を抜けるときに返却する。
+ * 参照用レプリカ（{@code replica.urls}）を指定した場合，トランザクション外の参照系クエリはレプリカに振り分ける（{@link ReplicaRouter}）。
+ * 返却後は，それまでに取得した {@link DbStatement} を使用しないこと。
  */
 public final class DataAccess {
 
+    /** JDBC ドライバクラス（デフォルト） */
+    public static final String DEFAULT_DRIVER = "org.mariadb.jdbc.Driver";
+
     /** データアクセスオブジェクト */
     private static DataAccess instance = null;
 
-    /** 接続オブジェクト */
-    private Connection connection;
+    /** コネクションプール */
+    private ConnectionPool pool;
+
+    /** スレッドごとに借りている接続オブジェクト */
+    private final ThreadLocal<Connection> connection;
+
+    /** スレッドごとに借りているレプリカの接続オブジェクト */
+    private final ThreadLocal<Connection> readConnection;
+
+    /** スレッドごとに借りているレプリカの接続のプール */
+    private final ThreadLocal<ConnectionPool> readPool;
+
+    /** スレッドごとのプライマリの接続を借りるまでの待ち時間（ナノ秒） */
+    private final ThreadLocal<Long> connectionWait;
+
+    /** スレッドごとのレプリカの接続を借りるまでの待ち時間（ナノ秒） */
+    private final ThreadLocal<Long> readConnectionWait;
+
+    /** 参照系クエリの振り分け（{@code null} ならレプリカを使わない） */
+    private ReplicaRouter router;
+
+    /** 一括 INSERT の1文あたりの行数の上限 */
+    private int bulkMaxRows;
+
+    /** 一括 INSERT の1文あたりのプレースホルダ数の上限 */
+    private int bulkMaxParameters;
+
+    /** 一括 INSERT の1文あたりのパラメータの推定サイズの上限（バイト） */
+    private long bulkMaxPacketBytes;
+
+    /** 非同期データアクセスオブジェクト */
+    private AsyncDataAccess async;
+
+    /** クエリ結果のキャッシュ（{@code null} ならキャッシュしない） */
+    private ResultCache resultCache;
+
+    /** SQL実行統計（{@code null} なら記録しない） */
+    private StatementMetrics metrics;
+
+    /** スロークエリログ（{@code null} なら出力しない） */
+    private SlowQueryLog slowQueryLog;
 
     /**
      * コンストラクタ（singleton なので private として実装）
      */
-    private DataAccess() { this.connection = null; }
+    private DataAccess() {
+        this.pool = null;
+        this.connection = new ThreadLocal<Connection>();
+        this.readConnection = new ThreadLocal<Connection>();
+        this.readPool = new ThreadLocal<ConnectionPool>();
+        this.connectionWait = new ThreadLocal<Long>();
+        this.readConnectionWait = new ThreadLocal<Long>();
+        this.router = null;
+        this.bulkMaxRows = BulkInsert.DEFAULT_MAX_ROWS;
+        this.bulkMaxParameters = BulkInsert.DEFAULT_MAX_PARAMETERS;
+        this.bulkMaxPacketBytes = BulkInsert.DEFAULT_MAX_PACKET_BYTES;
+        this.async = null;
+        this.resultCache = null;
+        this.metrics = null;
+        this.slowQueryLog = null;
+    }
 
     /**
      * DataAccess インスタンスの取得とデータベース接続
-     * <br>mariaDB JDBC Driver を使用。
+     * <br>接続情報はプロパティファイル（dataAccess.properties）から取得する。
+     * JDBC ドライバは {@code driver} で指定する（既定は mariaDB JDBC Driver）。
      * <br>https://mariadb.com/kb/en/mariadb/client-libraries/mariadb-java-client/
      *
      * @return {@link DataAccess} ; 接続済みのインスタンス
@@ -44,21 +109,271 @@ public final class DataAccess {
      */
     public synchronized static DataAccess getInstance() throws ClassNotFoundException, SQLException, IllegalArgumentException, IOException {
         if (Util.isNull(instance)) {
-            instance = new DataAccess();
+            instance = newInstance(DataAccessProperties.getProperties());
+            if (!Util.isNull(instance.metrics)) {
+                instance.metrics.register();
+            }
+        }
+        return instance;
+    }
 
-            //接続情報の取得
-            String url = DataAccessProperties.get("url");
-            String user = DataAccessProperties.get("user");
-            String password = DataAccessProperties.get("password");
+    /**
+     * DataAccess インスタンスの生成とデータベース接続
+     * <br>{@link #getInstance()} とは別のインスタンスを生成する（SQL実行統計は JMX に登録しない）。
+     * 別のデータベースに接続する場合やテストで使い，使い終わったら {@link #shutdown()} で破棄する。
+     *
+     * @param properties : {@link Properties} : 接続情報（dataAccess.properties と同じキー）
+     * @return {@link DataAccess} ; 接続済みのインスタンス
+     * @throws ClassNotFoundException JDBC ドライバの登録に失敗した場合
+     * @throws SQLException データベースの接続に失敗した場合
+     */
+    public static DataAccess newInstance(Properties properties) throws ClassNotFoundException, SQLException {
+        DataAccess dao = new DataAccess();
 
-            //ドライバクラスを登録する
-            Class.forName("org.mariadb.jdbc.Driver"); //mariaDB JDBC Driver
+        //接続情報の取得
+        String url = properties.getProperty("url");
+        String user = properties.getProperty("user");
+        String password = properties.getProperty("password");
 
-            //接続オブジェクトの取得
-            instance.connection = DriverManager.getConnection(url, user, password);
-            instance.connection.setAutoCommit(false); //トランザクションの開始（auto commit しない）
+        //ドライバクラスを登録する
+        String driver = Util.null2String(properties.getProperty("driver")).trim();
+        Class.forName(Util.isBlank(driver) ? DEFAULT_DRIVER : driver);
+
+        //コネクションプールの生成
+        int minSize = DataAccessProperties.getInteger(properties, "pool.minSize", 1); //最小接続数
+        int maxSize = DataAccessProperties.getInteger(properties, "pool.maxSize", 10); //最大接続数
+        int timeout = DataAccessProperties.getInteger(properties, "pool.timeout", 30000); //貸し出し待ちのタイムアウト（ミリ秒）
+        int idleTimeout = DataAccessProperties.getInteger(properties, "pool.idleTimeout", 600000); //待機中の接続を破棄するまでの時間（ミリ秒）
+        int validationTimeout = DataAccessProperties.getInteger(properties, "pool.validationTimeout", 5); //有効性検証のタイムアウト（秒）
+        int statementCacheSize = DataAccessProperties.getInteger(properties, "pool.statementCacheSize", 64); //接続ごとのステートメントキャッシュ数
+        dao.pool = new ConnectionPool(url, user, password, minSize, maxSize, timeout, idleTimeout, validationTimeout, statementCacheSize);
+        //参照用レプリカ（接続できなくても起動できるよう最小接続数は0とする）
+        String replicaUrls = Util.null2String(properties.getProperty("replica.urls")).trim();
+        if (!Util.isBlank(replicaUrls)) {
+            String replicaUser = Util.isBlank(properties.getProperty("replica.user")) ? user : properties.getProperty("replica.user");
+            String replicaPassword = Util.isBlank(properties.getProperty("replica.password")) ? password : properties.getProperty("replica.password");
+            ArrayList<ConnectionPool> replicas = new ArrayList<ConnectionPool>();
+            for (String replicaUrl : replicaUrls.split(",")) {
+                if (!Util.isBlank(replicaUrl)) {
+                    replicas.add(new ConnectionPool(replicaUrl.trim(), replicaUser, replicaPassword, 0, maxSize, timeout, idleTimeout, validationTimeout, statementCacheSize));
+                }
+            }
+            String balance = Util.null2String(properties.getProperty("replica.balance")).trim(); //振り分け方
+            int maxLag = DataAccessProperties.getInteger(properties, "replica.maxLagMillis", 10000); //遅延のしきい値（ミリ秒）
+            int checkInterval = DataAccessProperties.getInteger(properties, "replica.checkInterval", 5000); //状態を確認する間隔（ミリ秒）
+            dao.router = new ReplicaRouter(replicas, Util.isBlank(balance) ? null : ReplicaRouter.Balance.valueOf(balance),
+                    properties.getProperty("replica.lagQuery"), maxLag, checkInterval);
+        }
+        //クエリ結果のキャッシュ
+        int cacheBytes = DataAccessProperties.getInteger(properties, "resultCache.maxBytes", 0); //推定サイズの上限（0ならキャッシュしない）
+        if (cacheBytes > 0) {
+            int cacheTtl = DataAccessProperties.getInteger(properties, "resultCache.ttl", 60000); //保持期間（ミリ秒）
+            dao.resultCache = new ResultCache(cacheBytes, cacheTtl, properties.getProperty("resultCache.tables"));
+        }
+        //SQL実行統計
+        if (Util.string2Boolean(properties.getProperty("metrics.enabled"))) {
+            int maxStatements = DataAccessProperties.getInteger(properties, "metrics.maxStatements", 1000); //統計を取る SQL 文の数の上限
+            dao.metrics = new StatementMetrics(maxStatements);
+        }
+        //スロークエリログ
+        int slowThreshold = DataAccessProperties.getInteger(properties, "slowQuery.thresholdMillis", 0); //しきい値（ミリ秒，0なら出力しない）
+        if (slowThreshold > 0) {
+            int sampleRate = DataAccessProperties.getInteger(properties, "slowQuery.sampleRate", 1); //何件に1件出力するか
+            int maxPerSecond = DataAccessProperties.getInteger(properties, "slowQuery.maxPerSecond", 10); //1秒あたりの最大出力件数
+            dao.slowQueryLog = new SlowQueryLog(slowThreshold, sampleRate, maxPerSecond);
+        }
+        //一括 INSERT の1文あたりの上限
+        dao.bulkMaxRows = DataAccessProperties.getInteger(properties, "bulkInsert.maxRows", BulkInsert.DEFAULT_MAX_ROWS); //行数
+        dao.bulkMaxParameters = DataAccessProperties.getInteger(properties, "bulkInsert.maxParameters", BulkInsert.DEFAULT_MAX_PARAMETERS); //プレースホルダ数
+        dao.bulkMaxPacketBytes = DataAccessProperties.getInteger(properties, "bulkInsert.maxPacketBytes", (int)BulkInsert.DEFAULT_MAX_PACKET_BYTES); //パラメータの推定サイズ（バイト）
+        //ステートメントの close 漏れ検出
+        DbStatement.setLeakDetection(Util.string2Boolean(properties.getProperty("statement.leakDetection")));
+        return dao;
+    }
+
+    /**
+     * インスタンスを破棄する
+     * <br>非同期データアクセスを止め，プライマリとレプリカのコネクションプールを閉じる。
+     * 各スレッドは事前に {@link #release()} しておくこと（貸し出し中の接続は返却時に閉じる）。
+     */
+    public synchronized void shutdown() {
+        if (!Util.isNull(this.async)) {
+            this.async.shutdown();
+            this.async = null;
+        }
+        if (!Util.isNull(this.router)) {
+            this.router.close();
+        }
+        if (!Util.isNull(this.pool)) {
+            this.pool.close();
+        }
+    }
+
+    /**
+     * コネクションプールの取得
+     *
+     * @return {@link ConnectionPool} ; データベース未接続の場合は {@code null} を返す。
+     */
+    public ConnectionPool getPool() {
+        return this.pool;
+    }
+
+    /**
+     * クエリ結果のキャッシュの取得
+     *
+     * @return {@link ResultCache} ; キャッシュしない設定の場合は {@code null} を返す。
+     */
+    public ResultCache getResultCache() {
+        return this.resultCache;
+    }
+
+    /**
+     * SQL実行統計の取得
+     *
+     * @return {@link StatementMetrics} ; 記録しない設定の場合は {@code null} を返す。
+     */
+    public StatementMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * スロークエリログの取得
+     *
+     * @return {@link SlowQueryLog} ; 出力しない設定の場合は {@code null} を返す。
+     */
+    public SlowQueryLog getSlowQueryLog() {
+        return this.slowQueryLog;
+    }
+
+    /**
+     * 参照系クエリの振り分けの取得
+     *
+     * @return {@link ReplicaRouter} ; レプリカを使わない設定の場合は {@code null} を返す。
+     */
+    public ReplicaRouter getReplicaRouter() {
+        return this.router;
+    }
+
+    /**
+     * 非同期データアクセスオブジェクトの取得
+     * <br>ワーカスレッド数はコネクションプールの最大接続数とする。
+     *
+     * @return {@link AsyncDataAccess} ; データベース未接続の場合は {@code null} を返す。
+     */
+    public synchronized AsyncDataAccess getAsync() {
+        if (Util.isNull(this.pool)) {
+            return null;
+        } else if (Util.isNull(this.async)) {
+            this.async = new AsyncDataAccess(this, this.pool.getMaxSize());
+        }
+        return this.async;
+    }
+
+    /**
+     * 現在のスレッドの接続オブジェクトを取得する
+     * <br>接続を借りていなければプールから借りる。
+     *
+     * @return {@link Connection} ; データベース未接続の場合は {@code null} を返す。
+     * @throws SQLException 接続の取得に失敗した場合
+     */
+    private Connection getConnection() throws SQLException {
+        if (Util.isNull(this.pool)) {
+            return null;
+        } else {
+            Connection conn = this.connection.get();
+            if (Util.isNull(conn)) {
+                long start = System.nanoTime();
+                conn = this.pool.borrow();
+                this.connection.set(conn);
+                this.connectionWait.set(System.nanoTime() - start);
+            }
+            return conn;
+        }
+    }
+
+    /**
+     * 現在のスレッドのレプリカの接続オブジェクトを取得する
+     * <br>接続を借りていなければ振り分け先のレプリカから借りる。
+     * 貸し出し待ちがタイムアウトしたレプリカは飛ばし，接続に失敗したレプリカは振り分けの対象から外す。
+     *
+     * @return {@link Connection} ; 借りられるレプリカがない場合は {@code null} を返す。
+     */
+    private Connection getReadConnection() {
+        Connection conn = this.readConnection.get();
+        if (!Util.isNull(conn)) {
+            return conn;
+        }
+        for (int attempt = 0; attempt < this.router.getReplicaCount(); attempt++) {
+            ConnectionPool replica = this.router.select();
+            if (Util.isNull(replica)) {
+                break;
+            }
+            long start = System.nanoTime();
+            try {
+                conn = replica.borrow();
+            } catch (SQLTimeoutException e) {
+                continue; //混んでいるレプリカは飛ばす
+            } catch (SQLException e) {
+                this.router.markDown(replica, e);
+                continue;
+            }
+            this.readConnection.set(conn);
+            this.readPool.set(replica);
+            this.readConnectionWait.set(System.nanoTime() - start);
+            return conn;
+        }
+        return null;
+    }
+
+    /**
+     * 現在のスレッドの接続の利用範囲を開始する
+     * <br>返した {@link Session} を close すると {@link #release()} を呼ぶ。
+     * <pre>
+     * try (DataAccess.Session session = dao.open()) {
+     *     ...
+     *     dao.commit();
+     * }
+     * </pre>
+     *
+     * @return {@link Session} ; 接続の利用範囲
+     */
+    public Session open() {
+        return new Session();
+    }
+
+    /**
+     * 現在のスレッドの接続をプールに返却する
+     * <br>未確定のトランザクションはロールバックする。
+     * レプリカの接続も返却する。接続を借りていなければ何もしない。
+     */
+    public void release() {
+        if (!Util.isNull(this.resultCache)) {
+            this.resultCache.endTransaction(false);
+        }
+        Connection conn = this.connection.get();
+        if (!Util.isNull(conn)) {
+            this.connection.remove();
+            this.connectionWait.remove();
+            try {
+                conn.rollback();
+            } catch (SQLException e) {
+                //ロールバックの例外は無視する
+            }
+            this.pool.release(conn);
+        }
+        Connection readConn = this.readConnection.get();
+        if (!Util.isNull(readConn)) {
+            ConnectionPool replica = this.readPool.get();
+            this.readConnection.remove();
+            this.readPool.remove();
+            this.readConnectionWait.remove();
+            try {
+                readConn.rollback();
+            } catch (SQLException e) {
+                //ロールバックの例外は無視する
+            }
+            replica.release(readConn);
         }
-        return instance;
     }
 
     /**
@@ -69,44 +384,70 @@ public final class DataAccess {
      * @throws SQLException データベース情報の取得に失敗した場合
      */
     public String getDbInfo() throws SQLException {
-        if (Util.isNull(this.connection)) {
+        if (Util.isNull(this.pool)) {
             return "";
         } else {
-            StringBuilder sb = new StringBuilder();
-            DatabaseMetaData dbmd = this.connection.getMetaData();
-            sb.append("    DB Server URL: ").append(dbmd.getURL()).append(System.getProperty("line.separator"));
-            sb.append("DB Server Product: ").append(dbmd.getDatabaseProductVersion()).append(System.getProperty("line.separator"));
-            sb.append(" DB Server Driver: ").append(dbmd.getDriverName()).append(" ").append(dbmd.getDriverVersion());
-            return sb.toString();
+            //接続を借りていなければ一時的に借りる
+            Connection conn = this.connection.get();
+            boolean borrowed = Util.isNull(conn);
+            if (borrowed) {
+                conn = this.pool.borrow();
+            }
+            try {
+                StringBuilder sb = new StringBuilder();
+                DatabaseMetaData dbmd = conn.getMetaData();
+                sb.append("    DB Server URL: ").append(dbmd.getURL()).append(System.getProperty("line.separator"));
+                sb.append("DB Server Product: ").append(dbmd.getDatabaseProductVersion()).append(System.getProperty("line.separator"));
+                sb.append(" DB Server Driver: ").append(dbmd.getDriverName()).append(" ").append(dbmd.getDriverVersion());
+                return sb.toString();
+            } finally {
+                if (borrowed) {
+                    this.pool.release(conn);
+                }
+            }
         }
     }
 
     /**
      * トランザクションのコミット
+     * <br>接続は返却しない（続けて同じ接続を使える）。
      *
      * @return データベースに接続していない場合は {@code false}。コミットが実行されたら {@code true}。
      * @throws SQLException コミット時の致命的エラー
      */
     public boolean commit() throws SQLException {
-        if (Util.isNull(this.connection)) {
+        if (Util.isNull(this.pool)) {
             return false;
         } else {
-            this.connection.commit();
+            Connection conn = this.connection.get();
+            if (!Util.isNull(conn)) {
+                conn.commit();
+                if (!Util.isNull(this.resultCache)) {
+                    this.resultCache.endTransaction(true);
+                }
+            }
             return true;
         }
     }
 
     /**
      * トランザクションのロールバック
+     * <br>接続は返却しない（続けて同じ接続を使える）。
      *
      * @return データベースに接続していない場合は {@code false}。ロールバックが実行されたら {@code true}。
      * @throws SQLException ロールバック時の致命的エラー
      */
     public boolean rollback() throws SQLException {
-        if (Util.isNull(this.connection)) {
+        if (Util.isNull(this.pool)) {
             return false;
         } else {
-            this.connection.rollback();
+            Connection conn = this.connection.get();
+            if (!Util.isNull(conn)) {
+                conn.rollback();
+            }
+            if (!Util.isNull(this.resultCache)) {
+                this.resultCache.endTransaction(false);
+            }
             return true;
         }
     }
@@ -124,6 +465,10 @@ public final class DataAccess {
 
     /**
      * SQL実行ステートメントの取得
+     * <br>ステートメントキャッシュが有効な場合，同じ SQL 文にはキャッシュ済みのステートメントを再利用する。
+     * レプリカを使う設定の場合，現在のスレッドがプライマリの接続を借りていなければ（トランザクション外であれば），
+     * 参照系クエリ（{@link ReplicaRouter#isReadQuery(String)}）はレプリカで実行する。
+     * 借りられるレプリカがない場合はプライマリで実行する。
      *
      * @param sql        : {@link String}                         : SQL文
      * @param paramList  : {@link ArrayList}<{@link DbParameter}> : パラメータのリスト。{@code null} または空の配列の場合はパラメータをセットしない。
@@ -131,10 +476,112 @@ public final class DataAccess {
      * @exception SQLException ステートメントの生成に失敗した場合
      */
     public DbStatement getStatement(String sql, ArrayList<DbParameter> paramList) throws SQLException {
-        if (Util.isNull(this.connection)) {
+        if (!Util.isNull(this.router) && Util.isNull(this.connection.get()) && ReplicaRouter.isReadQuery(sql)) {
+            Connection conn = getReadConnection();
+            if (!Util.isNull(conn)) {
+                return createStatement(conn, this.readPool.get(), sql, paramList);
+            }
+        }
+        return getPrimaryStatement(sql, paramList);
+    }
+
+    /**
+     * SQL実行ステートメントの取得（プライマリで実行）
+     * <br>参照系クエリでもレプリカに振り分けない。直前の更新結果を読む場合などに使う。
+     *
+     * @param sql        : {@link String}                         : SQL文
+     * @param paramList  : {@link ArrayList}<{@link DbParameter}> : パラメータのリスト。{@code null} または空の配列の場合はパラメータをセットしない。
+     * @return {@link DbStatement} ; データベースに接続していない場合は {@code null}。
+     * @exception SQLException ステートメントの生成に失敗した場合
+     */
+    public DbStatement getPrimaryStatement(String sql, ArrayList<DbParameter> paramList) throws SQLException {
+        Connection conn = getConnection();
+        if (Util.isNull(conn)) {
             return null;
         } else {
-            return new DbStatement(this.connection, sql, paramList);
+            return createStatement(conn, this.pool, sql, paramList);
+        }
+    }
+
+    /**
+     * 一括 INSERT の取得（プライマリで実行）
+     * <br>1文あたりの上限は {@code bulkInsert.*} で指定する。
+     *
+     * @param sql : {@link String} : SQL文（"INSERT INTO T (...) VALUES (?, ?, ?)"）
+     * @return {@link BulkInsert} ; データベースに接続していない場合は {@code null}。
+     * @exception SQLException 接続の取得に失敗した場合
+     */
+    public BulkInsert getBulkInsert(String sql) throws SQLException {
+        Connection conn = getConnection();
+        if (Util.isNull(conn)) {
+            return null;
+        }
+        BulkInsert bulk = new BulkInsert(conn, this.pool.getStatementCache(conn), sql, this.bulkMaxRows, this.bulkMaxParameters, this.bulkMaxPacketBytes);
+        if (!Util.isNull(this.resultCache)) {
+            bulk.setResultCache(this.resultCache);
+        }
+        if (!Util.isNull(this.metrics)) {
+            bulk.setMetrics(this.metrics);
+        }
+        if (!Util.isNull(this.slowQueryLog)) {
+            Long wait = this.connectionWait.get();
+            bulk.setSlowQueryLog(this.slowQueryLog, Util.isNull(wait) ? 0 : wait.longValue());
+        }
+        return bulk;
+    }
+
+    /**
+     * SQL実行ステートメントの生成
+     * <br>レプリカで実行する場合は，クエリ結果のキャッシュから取得はするが結果をキャッシュしない
+     * （レプリカの遅延で古い結果をキャッシュし，有効期限まで返し続けるのを防ぐ）。
+     *
+     * @param conn       : {@link Connection}                     : 接続オブジェクト
+     * @param pool       : {@link ConnectionPool}                 : 接続を借りたプール
+     * @param sql        : {@link String}                         : SQL文
+     * @param paramList  : {@link ArrayList}<{@link DbParameter}> : パラメータのリスト
+     * @return {@link DbStatement} ; SQL実行ステートメント
+     * @exception SQLException ステートメントの生成に失敗した場合
+     */
+    private DbStatement createStatement(Connection conn, ConnectionPool pool, String sql, ArrayList<DbParameter> paramList) throws SQLException {
+        StatementCache cache = pool.getStatementCache(conn);
+        DbStatement statement;
+        if (Util.isNull(cache)) {
+            statement = new DbStatement(conn, sql, paramList);
+        } else {
+            statement = new DbStatement(cache, sql, paramList);
+        }
+        boolean primary = (pool == this.pool);
+        if (!Util.isNull(this.resultCache)) {
+            statement.setResultCache(this.resultCache, sql, paramList, primary);
+        }
+        if (!Util.isNull(this.metrics)) {
+            statement.setMetrics(this.metrics, sql);
+        }
+        if (!Util.isNull(this.slowQueryLog)) {
+            Long wait = primary ? this.connectionWait.get() : this.readConnectionWait.get();
+            statement.setSlowQueryLog(this.slowQueryLog, sql, paramList, Util.isNull(wait) ? 0 : wait.longValue());
+        }
+        return statement;
+    }
+
+    /**
+     * 現在のスレッドの接続の利用範囲（{@link DataAccess#open()} で取得する）
+     * <br>close 時に {@link DataAccess#release()} を呼ぶ。未確定のトランザクションはロールバックされる。
+     */
+    public final class Session implements AutoCloseable {
+
+        /**
+         * コンストラクタ
+         */
+        private Session() {
+        }
+
+        /**
+         * 現在のスレッドの接続をプールに返却する
+         */
+        @Override
+        public void close() {
+            release();
         }
     }
 }
@@ -42,6 +42,68 @@ public final class DataAccessProperties {
             return properties.getProperty(key);
         }
     }
+
+    /**
+     * プロパティ値を数値（int）として取得する
+     *
+     * @param key          : {@link String} : キーワード
+     * @param defaultValue : int            : デフォルト値
+     * @return int ; キーワードに対する値。
+     *               値が存在しない場合や数値に変換できない場合はデフォルト値を返す
+     * @throws IllegalArgumentException プロパティファイルが存在しない場合
+     * @throws IOException プロパティファイルの内容が正しくない場合
+     */
+    public static int getInteger(String key, int defaultValue) throws IllegalArgumentException, IOException {
+        return toInteger(get(key), defaultValue);
+    }
+
+    /**
+     * プロパティ値を数値（int）として取得する
+     *
+     * @param properties   : {@link Properties} : プロパティ
+     * @param key          : {@link String}     : キーワード
+     * @param defaultValue : int                : デフォルト値
+     * @return int ; キーワードに対する値。
+     *               値が存在しない場合や数値に変換できない場合はデフォルト値を返す
+     */
+    static int getInteger(Properties properties, String key, int defaultValue) {
+        return toInteger(properties.getProperty(key), defaultValue);
+    }
+
+    /**
+     * プロパティファイルの内容を取得する
+     *
+     * @return {@link Properties} ; プロパティ（複製）
+     * @throws IllegalArgumentException プロパティファイルが存在しない場合
+     * @throws IOException プロパティファイルの内容が正しくない場合
+     */
+    static Properties getProperties() throws IllegalArgumentException, IOException {
+        importFile(); //プロパティファイルをインポート
+        Properties copy = new Properties();
+        copy.putAll(properties);
+        return copy;
+    }
+
+    /**
+     * 文字列を数値（int）に変換する
+     *
+     * @param value        : {@link String} : 文字列（{@code null} 可）
+     * @param defaultValue : int             : デフォルト値
+     * @return int ; 変換した値。空の場合や数値に変換できない場合はデフォルト値を返す
+     */
+    private static int toInteger(String value, int defaultValue) {
+        value = Util.null2String(value).trim();
+        if (Util.isBlank(value)) {
+            return defaultValue;
+        } else {
+            try {
+                return Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                return defaultValue;
+            }
+        }
+    }
+
     /**
      * プロパティファイルからプロパティ情報を取得する
      * <br>ファイルの読み込みは最初の1回のみ行われる
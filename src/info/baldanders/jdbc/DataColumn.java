@@ -0,0 +1,908 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.jdbc;
+
+import info.baldanders.Util;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+
+/**
+ * SQLクエリ結果の列データクラス
+ * <br>カラムのタイプ（{@link java.sql.Types}）に応じた配列に1列分のデータを格納する。
+ * {@code null} はビットマップで保持する。
+ * 行位置は 1,2,... で指定すること（zero origin ではない）。
+ * <br>集計・抽出（{@link #selectRange}, {@link #sum}, {@link #min}, {@link #max}, {@link #groupCount} 等）は列単位で配列を走査する。
+ * 対象行は {@link BitSet} で指定し，ビット位置を行番号（1,2,...）とする。{@code null} なら全行を対象とする。
+ */
+public abstract class DataColumn {
+
+    /** 配列の初期サイズ */
+    protected static final int INITIAL_CAPACITY = 16;
+
+    /** カラムのタイプ（{@link java.sql.Types}） */
+    private final int sqlType;
+
+    /** 格納済みの行数 */
+    protected int size;
+
+    /** {@code null} のビットマップ（1ビット1行） */
+    private long [] nulls;
+
+    /** {@code null} の数 */
+    protected int nullCount;
+
+    /**
+     * コンストラクタ
+     *
+     * @param sqlType : int : カラムのタイプ（{@link java.sql.Types}）
+     */
+    protected DataColumn(int sqlType) {
+        this.sqlType = sqlType;
+        this.size = 0;
+        this.nulls = new long[(INITIAL_CAPACITY + 63) >>> 6];
+        this.nullCount = 0;
+    }
+
+    /**
+     * カラムのタイプに応じた列データを生成する
+     * <br>整数型は int/long，浮動小数点型は double，日付時刻型はミリ秒（long）の配列に格納する。
+     * それ以外（DECIMAL 等）は文字列の配列に格納する。
+     *
+     * @param sqlType : int     : カラムのタイプ（{@link java.sql.Types}）
+     * @param signed  : boolean : 符号付きなら {@code true}（符号なし整数は一段大きい型に格納する）
+     * @return {@link DataColumn} ; 列データ
+     */
+    public static DataColumn create(int sqlType, boolean signed) {
+        switch (sqlType) {
+        case Types.TINYINT:
+        case Types.SMALLINT:
+            return new IntColumn(sqlType);
+        case Types.INTEGER:
+            return signed ? new IntColumn(sqlType) : new LongColumn(sqlType);
+        case Types.BIGINT:
+            return signed ? new LongColumn(sqlType) : new StringColumn(sqlType);
+        case Types.REAL:
+        case Types.FLOAT:
+        case Types.DOUBLE:
+            return new DoubleColumn(sqlType);
+        case Types.DATE:
+        case Types.TIME:
+        case Types.TIMESTAMP:
+            return new DateTimeColumn(sqlType);
+        default:
+            return new StringColumn(sqlType);
+        }
+    }
+
+    /**
+     * クエリ結果の現在行から値を取得し末尾に追加する
+     *
+     * @param rs     : {@link ResultSet} : クエリ結果
+     * @param colNum : int               : カラム番号（1,2,...）
+     * @throws SQLException カラムの値の取得に失敗した場合
+     */
+    public abstract void read(ResultSet rs, int colNum) throws SQLException;
+
+    /**
+     * 指定行の値を文字列で取得する
+     *
+     * @param rowNum : int : 行番号（1,2,...）
+     * @return {@link String} ; 値が {@code null} または指定行番号が範囲外の場合は {@code null} を返す。
+     */
+    public abstract String getString(int rowNum);
+
+    /**
+     * 指定行の値を int で取得する
+     *
+     * @param rowNum : int : 行番号（1,2,...）
+     * @return int ; 値が {@code null} または指定行番号が範囲外の場合は {@code 0} を返す。
+     */
+    public int getInt(int rowNum) {
+        return Util.string2Integer(getString(rowNum));
+    }
+
+    /**
+     * 指定行の値を long で取得する
+     *
+     * @param rowNum : int : 行番号（1,2,...）
+     * @return long ; 値が {@code null} または指定行番号が範囲外の場合は {@code 0} を返す。
+     *                数値に変換できない場合も {@code 0} を返す。
+     */
+    public long getLong(int rowNum) {
+        String str = Util.null2String(getString(rowNum)).trim();
+        try {
+            return Long.parseLong(str);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * 指定行の値を double で取得する
+     *
+     * @param rowNum : int : 行番号（1,2,...）
+     * @return double ; 値が {@code null} または指定行番号が範囲外の場合は {@code 0} を返す。
+     *                  数値に変換できない場合も {@code 0} を返す。
+     */
+    public double getDouble(int rowNum) {
+        String str = Util.null2String(getString(rowNum)).trim();
+        try {
+            return Double.parseDouble(str);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * カラムのタイプを取得する
+     *
+     * @return int ; カラムのタイプ（{@link java.sql.Types}）
+     */
+    public int getType() {
+        return this.sqlType;
+    }
+
+    /**
+     * 格納済みの行数を取得する
+     *
+     * @return int ; 行数
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * 指定行の値が {@code null} か
+     *
+     * @param rowNum : int : 行番号（1,2,...）
+     * @return boolean ; 値が {@code null} なら {@code true}。指定行番号が範囲外の場合も {@code true} を返す。
+     */
+    public boolean isNull(int rowNum) {
+        if (!inRange(rowNum)) {
+            return true;
+        } else {
+            return isNullAt(rowNum - 1);
+        }
+    }
+
+    /**
+     * 配列を格納済みの行数に切り詰める
+     * <br>派生クラスは値の配列を切り詰めたうえで，このメソッドを呼ぶこと。
+     */
+    public void trimToSize() {
+        this.nulls = Arrays.copyOf(this.nulls, Math.max((this.size + 63) >>> 6, 1));
+    }
+
+    /**
+     * 指定範囲の値を持つ行を抽出する
+     *
+     * @param min  : double         : 最小値（この値を含む）
+     * @param max  : double         : 最大値（この値を含む）
+     * @param rows : {@link BitSet} : 対象行（{@code null} なら全行）
+     * @return {@link BitSet} ; 該当する行（{@code null} の行は含まない）
+     */
+    public BitSet selectRange(double min, double max, BitSet rows) {
+        BitSet result = new BitSet(this.size + 1);
+        for (int row = nextRow(rows, 0); row > 0; row = nextRow(rows, row)) {
+            if (!isNull(row)) {
+                double value = getDouble(row);
+                if (min <= value && value <= max) {
+                    result.set(row);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 指定値と一致する行を抽出する
+     * <br>値の文字列表現で比較する。
+     *
+     * @param value : {@link String} : 値（{@code null} なら {@code null} の行を抽出する）
+     * @param rows  : {@link BitSet} : 対象行（{@code null} なら全行）
+     * @return {@link BitSet} ; 該当する行
+     */
+    public BitSet selectEquals(String value, BitSet rows) {
+        BitSet result = new BitSet(this.size + 1);
+        for (int row = nextRow(rows, 0); row > 0; row = nextRow(rows, row)) {
+            if (Util.isNull(value) ? isNull(row) : value.equals(getString(row))) {
+                result.set(row);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * {@code null} でない値の数を数える
+     *
+     * @param rows : {@link BitSet} : 対象行（{@code null} なら全行）
+     * @return int ; {@code null} でない値の数
+     */
+    public int count(BitSet rows) {
+        if (Util.isNull(rows)) {
+            return this.size - this.nullCount;
+        }
+        int count = 0;
+        for (int row = nextRow(rows, 0); row > 0; row = nextRow(rows, row)) {
+            if (!isNull(row)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 値の合計を求める
+     *
+     * @param rows : {@link BitSet} : 対象行（{@code null} なら全行）
+     * @return double ; 合計値（{@code null} の行は除く）
+     */
+    public double sum(BitSet rows) {
+        double sum = 0;
+        for (int row = nextRow(rows, 0); row > 0; row = nextRow(rows, row)) {
+            sum += getDouble(row);
+        }
+        return sum;
+    }
+
+    /**
+     * 値の合計を整数で求める
+     *
+     * @param rows : {@link BitSet} : 対象行（{@code null} なら全行）
+     * @return long ; 合計値（{@code null} の行は除く）
+     */
+    public long sumLong(BitSet rows) {
+        long sum = 0;
+        for (int row = nextRow(rows, 0); row > 0; row = nextRow(rows, row)) {
+            sum += getLong(row);
+        }
+        return sum;
+    }
+
+    /**
+     * 値の最小値を求める
+     *
+     * @param rows : {@link BitSet} : 対象行（{@code null} なら全行）
+     * @return double ; 最小値（{@code null} の行は除く）。該当する値がなければ {@link Double#NaN} を返す。
+     */
+    public double min(BitSet rows) {
+        double min = Double.NaN;
+        for (int row = nextRow(rows, 0); row > 0; row = nextRow(rows, row)) {
+            if (!isNull(row)) {
+                double value = getDouble(row);
+                if (Double.isNaN(min) || value < min) {
+                    min = value;
+                }
+            }
+        }
+        return min;
+    }
+
+    /**
+     * 値の最大値を求める
+     *
+     * @param rows : {@link BitSet} : 対象行（{@code null} なら全行）
+     * @return double ; 最大値（{@code null} の行は除く）。該当する値がなければ {@link Double#NaN} を返す。
+     */
+    public double max(BitSet rows) {
+        double max = Double.NaN;
+        for (int row = nextRow(rows, 0); row > 0; row = nextRow(rows, row)) {
+            if (!isNull(row)) {
+                double value = getDouble(row);
+                if (Double.isNaN(max) || value > max) {
+                    max = value;
+                }
+            }
+        }
+        return max;
+    }
+
+    /**
+     * 値ごとの行数を数える
+     * <br>値の昇順（数値・日付時刻型は値の順，それ以外は文字列の順）に格納する。
+     * {@code null} の行はキー {@code null} で先頭に格納する。
+     *
+     * @param rows : {@link BitSet} : 対象行（{@code null} なら全行）
+     * @return {@link LinkedHashMap}<{@link String}, {@link Integer}> ; 値の文字列表現ごとの行数（値の昇順）。
+     *                                                                  {@code null} の行はキー {@code null} で数える。
+     */
+    public LinkedHashMap<String, Integer> groupCount(BitSet rows) {
+        //値を集めて整列し，同じ値の連続を数える（文字列の昇順）
+        String [] work = new String[this.size];
+        int length = 0;
+        int nullRows = 0;
+        for (int row = nextRow(rows, 0); row > 0; row = nextRow(rows, row)) {
+            String value = getString(row);
+            if (Util.isNull(value)) {
+                nullRows++;
+            } else {
+                work[length++] = value;
+            }
+        }
+        Arrays.sort(work, 0, length);
+        LinkedHashMap<String, Integer> result = newGroupCount(nullRows);
+        for (int i = 0; i < length; ) {
+            int j = i + 1;
+            while (j < length && work[j].equals(work[i])) {
+                j++;
+            }
+            result.put(work[i], j - i);
+            i = j;
+        }
+        return result;
+    }
+
+    /**
+     * 対象行のうち指定行の次の行を取得する
+     *
+     * @param rows   : {@link BitSet} : 対象行（{@code null} なら全行）
+     * @param rowNum : int            : 行番号（最初の行を取得する場合は {@code 0}）
+     * @return int ; 次の行番号。次の行がなければ {@code -1} を返す。
+     */
+    protected int nextRow(BitSet rows, int rowNum) {
+        int next = Util.isNull(rows) ? rowNum + 1 : rows.nextSetBit(rowNum + 1);
+        return (0 < next && next <= this.size) ? next : -1;
+    }
+
+    /**
+     * 指定インデックスの値が {@code null} か（範囲チェックなし）
+     *
+     * @param index : int : インデックス（0,1,...）
+     * @return boolean ; 値が {@code null} なら {@code true}
+     */
+    protected final boolean isNullAt(int index) {
+        return (this.nulls[index >>> 6] & (1L << index)) != 0;
+    }
+
+    /**
+     * 値ごとの行数を数えた結果を生成する
+     * <br>{@code null} の行数が {@code 0} より大きければキー {@code null} で先頭に格納する。
+     *
+     * @param nullRows : int : {@code null} の行数
+     * @return {@link LinkedHashMap}<{@link String}, {@link Integer}> ; 結果
+     */
+    protected static LinkedHashMap<String, Integer> newGroupCount(int nullRows) {
+        LinkedHashMap<String, Integer> result = new LinkedHashMap<String, Integer>();
+        if (nullRows > 0) {
+            result.put(null, nullRows);
+        }
+        return result;
+    }
+
+    /**
+     * 行番号が範囲内か
+     *
+     * @param rowNum : int : 行番号（1,2,...）
+     * @return boolean ; 範囲内なら {@code true}
+     */
+    protected boolean inRange(int rowNum) {
+        return (0 < rowNum && rowNum <= this.size);
+    }
+
+    /**
+     * 末尾に行を追加する
+     * <br>派生クラスは必要に応じて配列を拡張したうえで値を格納し，このメソッドを呼ぶこと。
+     *
+     * @param isNull : boolean : 値が {@code null} なら {@code true}
+     */
+    protected void append(boolean isNull) {
+        int index = this.size;
+        if ((index >>> 6) >= this.nulls.length) {
+            this.nulls = Arrays.copyOf(this.nulls, this.nulls.length << 1);
+        }
+        if (isNull) {
+            this.nulls[index >>> 6] |= (1L << index);
+            this.nullCount++;
+        }
+        this.size++;
+    }
+
+    /**
+     * 整数（int）の列データ
+     */
+    static final class IntColumn extends DataColumn {
+        /** 値 */
+        private int [] values;
+
+        IntColumn(int sqlType) {
+            super(sqlType);
+            this.values = new int[INITIAL_CAPACITY];
+        }
+
+        @Override
+        public void read(ResultSet rs, int colNum) throws SQLException {
+            if (this.size == this.values.length) {
+                this.values = Arrays.copyOf(this.values, Math.max(this.values.length << 1, INITIAL_CAPACITY));
+            }
+            this.values[this.size] = rs.getInt(colNum);
+            append(rs.wasNull());
+        }
+
+        @Override
+        public String getString(int rowNum) {
+            return isNull(rowNum) ? null : Integer.toString(this.values[rowNum-1]);
+        }
+
+        @Override
+        public int getInt(int rowNum) {
+            return inRange(rowNum) ? this.values[rowNum-1] : 0;
+        }
+
+        @Override
+        public long getLong(int rowNum) {
+            return getInt(rowNum);
+        }
+
+        @Override
+        public double getDouble(int rowNum) {
+            return getInt(rowNum);
+        }
+
+        @Override
+        public void trimToSize() {
+            this.values = Arrays.copyOf(this.values, this.size);
+            super.trimToSize();
+        }
+
+        @Override
+        public BitSet selectRange(double min, double max, BitSet rows) {
+            BitSet result = new BitSet(this.size + 1);
+            if (Util.isNull(rows)) {
+                final int [] values = this.values;
+                final boolean noNull = (this.nullCount == 0);
+                for (int i = 0; i < this.size; i++) {
+                    int value = values[i];
+                    if (min <= value && value <= max && (noNull || !isNullAt(i))) {
+                        result.set(i+1);
+                    }
+                }
+            } else {
+                for (int row = nextRow(rows, 0); row > 0; row = nextRow(rows, row)) {
+                    int value = this.values[row-1];
+                    if (min <= value && value <= max && !isNullAt(row-1)) {
+                        result.set(row);
+                    }
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public double sum(BitSet rows) {
+            return sumLong(rows);
+        }
+
+        @Override
+        public long sumLong(BitSet rows) {
+            long sum = 0; //null の値は 0 で格納されている
+            if (Util.isNull(rows)) {
+                final int [] values = this.values;
+                for (int i = 0; i < this.size; i++) {
+                    sum += values[i];
+                }
+            } else {
+                for (int row = nextRow(rows, 0); row > 0; row = nextRow(rows, row)) {
+                    sum += this.values[row-1];
+                }
+            }
+            return sum;
+        }
+
+        @Override
+        public double min(BitSet rows) {
+            if (Util.isNull(rows) && this.nullCount == 0 && this.size > 0) {
+                final int [] values = this.values;
+                int min = Integer.MAX_VALUE;
+                for (int i = 0; i < this.size; i++) {
+                    min = Math.min(min, values[i]);
+                }
+                return min;
+            } else {
+                return super.min(rows);
+            }
+        }
+
+        @Override
+        public double max(BitSet rows) {
+            if (Util.isNull(rows) && this.nullCount == 0 && this.size > 0) {
+                final int [] values = this.values;
+                int max = Integer.MIN_VALUE;
+                for (int i = 0; i < this.size; i++) {
+                    max = Math.max(max, values[i]);
+                }
+                return max;
+            } else {
+                return super.max(rows);
+            }
+        }
+
+        @Override
+        public LinkedHashMap<String, Integer> groupCount(BitSet rows) {
+            //値を集めて整列し，同じ値の連続を数える（値の昇順）
+            int [] work = new int[this.size];
+            int length = 0;
+            int nullRows = 0;
+            for (int row = nextRow(rows, 0); row > 0; row = nextRow(rows, row)) {
+                if (isNullAt(row-1)) {
+                    nullRows++;
+                } else {
+                    work[length++] = this.values[row-1];
+                }
+            }
+            Arrays.sort(work, 0, length);
+            LinkedHashMap<String, Integer> result = newGroupCount(nullRows);
+            for (int i = 0; i < length; ) {
+                int j = i + 1;
+                while (j < length && work[j] == work[i]) {
+                    j++;
+                }
+                result.put(Integer.toString(work[i]), j - i);
+                i = j;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 整数（long）の列データ
+     */
+    static class LongColumn extends DataColumn {
+        /** 値 */
+        protected long [] values;
+
+        LongColumn(int sqlType) {
+            super(sqlType);
+            this.values = new long[INITIAL_CAPACITY];
+        }
+
+        @Override
+        public void read(ResultSet rs, int colNum) throws SQLException {
+            if (this.size == this.values.length) {
+                this.values = Arrays.copyOf(this.values, Math.max(this.values.length << 1, INITIAL_CAPACITY));
+            }
+            this.values[this.size] = rs.getLong(colNum);
+            append(rs.wasNull());
+        }
+
+        @Override
+        public String getString(int rowNum) {
+            return isNull(rowNum) ? null : format(this.values[rowNum-1]);
+        }
+
+        /**
+         * 値を文字列に変換する
+         *
+         * @param value : long : 値
+         * @return {@link String} ; 値の文字列表現
+         */
+        protected String format(long value) {
+            return Long.toString(value);
+        }
+
+        @Override
+        public int getInt(int rowNum) {
+            return (int)getLong(rowNum);
+        }
+
+        @Override
+        public long getLong(int rowNum) {
+            return inRange(rowNum) ? this.values[rowNum-1] : 0;
+        }
+
+        @Override
+        public double getDouble(int rowNum) {
+            return getLong(rowNum);
+        }
+
+        @Override
+        public void trimToSize() {
+            this.values = Arrays.copyOf(this.values, this.size);
+            super.trimToSize();
+        }
+
+        @Override
+        public BitSet selectRange(double min, double max, BitSet rows) {
+            BitSet result = new BitSet(this.size + 1);
+            if (Util.isNull(rows)) {
+                final long [] values = this.values;
+                final boolean noNull = (this.nullCount == 0);
+                for (int i = 0; i < this.size; i++) {
+                    long value = values[i];
+                    if (min <= value && value <= max && (noNull || !isNullAt(i))) {
+                        result.set(i+1);
+                    }
+                }
+            } else {
+                for (int row = nextRow(rows, 0); row > 0; row = nextRow(rows, row)) {
+                    long value = this.values[row-1];
+                    if (min <= value && value <= max && !isNullAt(row-1)) {
+                        result.set(row);
+                    }
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public double sum(BitSet rows) {
+            return sumLong(rows);
+        }
+
+        @Override
+        public long sumLong(BitSet rows) {
+            long sum = 0; //null の値は 0 で格納されている
+            if (Util.isNull(rows)) {
+                final long [] values = this.values;
+                for (int i = 0; i < this.size; i++) {
+                    sum += values[i];
+                }
+            } else {
+                for (int row = nextRow(rows, 0); row > 0; row = nextRow(rows, row)) {
+                    sum += this.values[row-1];
+                }
+            }
+            return sum;
+        }
+
+        @Override
+        public double min(BitSet rows) {
+            if (Util.isNull(rows) && this.nullCount == 0 && this.size > 0) {
+                final long [] values = this.values;
+                long min = Long.MAX_VALUE;
+                for (int i = 0; i < this.size; i++) {
+                    min = Math.min(min, values[i]);
+                }
+                return min;
+            } else {
+                return super.min(rows);
+            }
+        }
+
+        @Override
+        public double max(BitSet rows) {
+            if (Util.isNull(rows) && this.nullCount == 0 && this.size > 0) {
+                final long [] values = this.values;
+                long max = Long.MIN_VALUE;
+                for (int i = 0; i < this.size; i++) {
+                    max = Math.max(max, values[i]);
+                }
+                return max;
+            } else {
+                return super.max(rows);
+            }
+        }
+
+        @Override
+        public LinkedHashMap<String, Integer> groupCount(BitSet rows) {
+            //値を集めて整列し，同じ値の連続を数える（値の昇順）
+            long [] work = new long[this.size];
+            int length = 0;
+            int nullRows = 0;
+            for (int row = nextRow(rows, 0); row > 0; row = nextRow(rows, row)) {
+                if (isNullAt(row-1)) {
+                    nullRows++;
+                } else {
+                    work[length++] = this.values[row-1];
+                }
+            }
+            Arrays.sort(work, 0, length);
+            LinkedHashMap<String, Integer> result = newGroupCount(nullRows);
+            for (int i = 0; i < length; ) {
+                int j = i + 1;
+                while (j < length && work[j] == work[i]) {
+                    j++;
+                }
+                result.put(format(work[i]), j - i);
+                i = j;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 日付時刻の列データ
+     * <br>エポックからのミリ秒（long）で格納する。
+     */
+    static final class DateTimeColumn extends LongColumn {
+
+        DateTimeColumn(int sqlType) {
+            super(sqlType);
+        }
+
+        @Override
+        public void read(ResultSet rs, int colNum) throws SQLException {
+            java.util.Date value;
+            switch (getType()) {
+            case Types.DATE:
+                value = rs.getDate(colNum);
+                break;
+            case Types.TIME:
+                value = rs.getTime(colNum);
+                break;
+            default:
+                value = rs.getTimestamp(colNum);
+                break;
+            }
+            if (this.size == this.values.length) {
+                this.values = Arrays.copyOf(this.values, Math.max(this.values.length << 1, INITIAL_CAPACITY));
+            }
+            this.values[this.size] = Util.isNull(value) ? 0 : value.getTime();
+            append(Util.isNull(value));
+        }
+
+        @Override
+        protected String format(long millis) {
+            switch (getType()) {
+            case Types.DATE:
+                return new Date(millis).toString();
+            case Types.TIME:
+                return new Time(millis).toString();
+            default:
+                return new Timestamp(millis).toString();
+            }
+        }
+    }
+
+    /**
+     * 浮動小数点数（double）の列データ
+     */
+    static final class DoubleColumn extends DataColumn {
+        /** 値 */
+        private double [] values;
+
+        DoubleColumn(int sqlType) {
+            super(sqlType);
+            this.values = new double[INITIAL_CAPACITY];
+        }
+
+        @Override
+        public void read(ResultSet rs, int colNum) throws SQLException {
+            if (this.size == this.values.length) {
+                this.values = Arrays.copyOf(this.values, Math.max(this.values.length << 1, INITIAL_CAPACITY));
+            }
+            this.values[this.size] = rs.getDouble(colNum);
+            append(rs.wasNull());
+        }
+
+        @Override
+        public String getString(int rowNum) {
+            return isNull(rowNum) ? null : Double.toString(this.values[rowNum-1]);
+        }
+
+        @Override
+        public int getInt(int rowNum) {
+            return (int)getDouble(rowNum);
+        }
+
+        @Override
+        public long getLong(int rowNum) {
+            return (long)getDouble(rowNum);
+        }
+
+        @Override
+        public double getDouble(int rowNum) {
+            return inRange(rowNum) ? this.values[rowNum-1] : 0;
+        }
+
+        @Override
+        public void trimToSize() {
+            this.values = Arrays.copyOf(this.values, this.size);
+            super.trimToSize();
+        }
+
+        @Override
+        public BitSet selectRange(double min, double max, BitSet rows) {
+            BitSet result = new BitSet(this.size + 1);
+            if (Util.isNull(rows)) {
+                final double [] values = this.values;
+                final boolean noNull = (this.nullCount == 0);
+                for (int i = 0; i < this.size; i++) {
+                    double value = values[i];
+                    if (min <= value && value <= max && (noNull || !isNullAt(i))) {
+                        result.set(i+1);
+                    }
+                }
+            } else {
+                for (int row = nextRow(rows, 0); row > 0; row = nextRow(rows, row)) {
+                    double value = this.values[row-1];
+                    if (min <= value && value <= max && !isNullAt(row-1)) {
+                        result.set(row);
+                    }
+                }
+            }
+            return result;
+        }
+
+        @Override
+        public double sum(BitSet rows) {
+            double sum = 0; //null の値は 0 で格納されている
+            if (Util.isNull(rows)) {
+                final double [] values = this.values;
+                for (int i = 0; i < this.size; i++) {
+                    sum += values[i];
+                }
+            } else {
+                for (int row = nextRow(rows, 0); row > 0; row = nextRow(rows, row)) {
+                    sum += this.values[row-1];
+                }
+            }
+            return sum;
+        }
+
+        @Override
+        public long sumLong(BitSet rows) {
+            return (long)sum(rows);
+        }
+
+        @Override
+        public LinkedHashMap<String, Integer> groupCount(BitSet rows) {
+            //値を集めて整列し，同じ値の連続を数える（値の昇順）
+            double [] work = new double[this.size];
+            int length = 0;
+            int nullRows = 0;
+            for (int row = nextRow(rows, 0); row > 0; row = nextRow(rows, row)) {
+                if (isNullAt(row-1)) {
+                    nullRows++;
+                } else {
+                    work[length++] = this.values[row-1];
+                }
+            }
+            Arrays.sort(work, 0, length);
+            LinkedHashMap<String, Integer> result = newGroupCount(nullRows);
+            for (int i = 0; i < length; ) {
+                int j = i + 1;
+                while (j < length && Double.compare(work[j], work[i]) == 0) {
+                    j++;
+                }
+                result.put(Double.toString(work[i]), j - i);
+                i = j;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * 文字列の列データ
+     */
+    static final class StringColumn extends DataColumn {
+        /** 値 */
+        private String [] values;
+
+        StringColumn(int sqlType) {
+            super(sqlType);
+            this.values = new String[INITIAL_CAPACITY];
+        }
+
+        @Override
+        public void read(ResultSet rs, int colNum) throws SQLException {
+            if (this.size == this.values.length) {
+                this.values = Arrays.copyOf(this.values, Math.max(this.values.length << 1, INITIAL_CAPACITY));
+            }
+            String value = rs.getString(colNum);
+            this.values[this.size] = value;
+            append(Util.isNull(value));
+        }
+
+        @Override
+        public String getString(int rowNum) {
+            return inRange(rowNum) ? this.values[rowNum-1] : null;
+        }
+
+        @Override
+        public void trimToSize() {
+            this.values = Arrays.copyOf(this.values, this.size);
+            super.trimToSize();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.jdbc;
+
+import info.baldanders.Util;
+
+import java.io.Closeable;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+
+/**
+ * SQLクエリ結果のカーソルクラス
+ * <br>{@link DataSet} と異なりクエリ結果を保持せず，前方向に1行ずつ取得する。
+ * 最後の行まで取得するとクエリ結果を閉じる。
+ * 途中で取得をやめる場合は {@link #close()} を呼ぶこと。
+ */
+public final class DataCursor implements Closeable {
+
+    /** クエリ結果 */
+    private ResultSet rs;
+
+    /** カラム数 */
+    private int columnCount;
+
+    /** カラムのタイプ（{@link java.sql.Types}） */
+    private ArrayList<Integer> columnType;
+
+    /** カラム名 */
+    private ArrayList<String> columnName;
+
+    /** 取得済みの行数 */
+    private int rowCount;
+
+    /**
+     * コンストラクタ
+     *
+     * @param rs : {@link ResultSet} : クエリ結果
+     * @throws SQLException テーブル情報の取得に失敗した場合
+     */
+    public DataCursor(ResultSet rs) throws SQLException {
+        this.rs = rs;
+        this.columnCount = 0;
+        this.columnType = new ArrayList<Integer>();
+        this.columnName = new ArrayList<String>();
+        this.rowCount = 0;
+        if (!Util.isNull(rs)) {
+            //テーブル情報の取得
+            ResultSetMetaData metaData = rs.getMetaData();
+            this.columnCount = metaData.getColumnCount();
+            for (int col = 0; col < this.columnCount; col++) {
+                this.columnType.add(metaData.getColumnType(col+1));
+                this.columnName.add(metaData.getColumnName(col+1));
+            }
+        }
+    }
+
+    /**
+     * 次の行を取得する
+     *
+     * @return {@link DataRow} ; 行データ。
+     *                            最後の行まで取得済みの場合またはカーソルが閉じられている場合は {@code null} を返す。
+     * @throws SQLException 結果の取得に失敗した場合
+     */
+    public DataRow fetch() throws SQLException {
+        if (next()) {
+            return new DataRow(this.rs, this.columnCount);
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * 次の行に進める（行データを生成しない）
+     * <br>現在行の値は {@link #getString(int)} で取得する。
+     *
+     * @return boolean ; 次の行があれば {@code true}。
+     *                   最後の行まで取得済みの場合またはカーソルが閉じられている場合は {@code false} を返す。
+     * @throws SQLException 結果の取得に失敗した場合
+     */
+    boolean next() throws SQLException {
+        if (Util.isNull(this.rs)) {
+            return false;
+        } else if (this.rs.next()) {
+            this.rowCount++;
+            return true;
+        } else {
+            close(); //最後の行まで取得したら閉じる
+            return false;
+        }
+    }
+
+    /**
+     * 現在行の指定カラムのデータ（文字列）を取得する
+     *
+     * @param  colNum : int : カラム番号（1,2,...）
+     * @return {@link String} ; カラムデータ。カーソルが閉じられている場合は {@code null} を返す。
+     * @throws SQLException 値の取得に失敗した場合
+     */
+    String getString(int colNum) throws SQLException {
+        if (Util.isNull(this.rs)) {
+            return null;
+        } else {
+            return this.rs.getString(colNum);
+        }
+    }
+
+    /**
+     * カーソルを閉じる
+     */
+    @Override
+    public void close() {
+        if (!Util.isNull(this.rs)) {
+            try {
+                this.rs.close();
+            } catch (SQLException e) {
+                //例外は無視する
+            }
+            this.rs = null;
+        }
+    }
+
+    /**
+     * カーソルが閉じられているか
+     *
+     * @return boolean ; 閉じられていれば {@code true}
+     */
+    public boolean isClosed() {
+        return Util.isNull(this.rs);
+    }
+
+    /**
+     * 取得済みの行数を取得する
+     *
+     * @return int ; {@link #fetch()} で取得した行数
+     */
+    public int getRowCount() {
+        return this.rowCount;
+    }
+
+    /**
+     * データのカラム数を取得する
+     *
+     * @return int ; データのカラム数（クエリ結果のメタデータから取得した値）
+     */
+    public int sizeColumn() {
+        return this.columnCount;
+    }
+
+    /**
+     * 指定カラムのタイプを取得する
+     *
+     * @param  colNum : int : カラム番号（1,2,...）
+     * @return {@link java.sql.Types} ; カラムのタイプ
+     *                                  指定カラム番号が範囲外の場合は {@code Types.NULL} を返す。
+     */
+    public int getColumnType(int colNum) {
+        if (colNum < 1 || sizeColumn() < colNum) {
+            return Types.NULL;
+        } else {
+            return this.columnType.get(colNum-1);
+        }
+    }
+
+    /**
+     * 指定カラムの名前を取得する
+     *
+     * @param  colNum : int : カラム番号（1,2,...）
+     * @return {@link String} ; カラム名
+     *                          指定カラム番号が範囲外の場合は {@code null} を返す。
+     */
+    public String getColumnName(int colNum) {
+        if (colNum < 1 || sizeColumn() < colNum) {
+            return null;
+        } else {
+            return this.columnName.get(colNum-1);
+        }
+    }
+}
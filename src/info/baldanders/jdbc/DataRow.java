@@ -45,6 +45,15 @@ public final class DataRow {
         }
     }
 
+    /**
+     * コンストラクタ（複製）
+     *
+     * @param src : {@link DataRow} : 複製元の行データ
+     */
+    DataRow(DataRow src) {
+        this.column = Util.isNull(src.column) ? null : new ArrayList<String>(src.column);
+    }
+
     /**
      * 行データをクリアする
      */
@@ -55,19 +64,6 @@ public final class DataRow {
         }
     }
 
-    /**
-     * finalize
-     * <br>行データをクリアする
-     */
-    @Override
-    protected void finalize() throws Throwable {
-        try {
-            super.finalize();
-        } finally {
-            clear(); //データベースを閉じる
-        }
-    }
-
     /**
      * データのカラム数を取得する
      *
@@ -144,4 +140,18 @@ public final class DataRow {
             return Util.stringJoin(",", toArray(), Util.Quote.TYPE_CSV);
         }
     }
+
+    /**
+     * 行を丸ごと CSV 形式でバッファに追加する（{@link #toString()} と同じ内容）
+     *
+     * @param sb : {@link StringBuilder} : 追加先のバッファ
+     * @return {@link StringBuilder} ; 追加先のバッファ
+     */
+    StringBuilder appendTo(StringBuilder sb) {
+        if (Util.isNull(this.column)) {
+            return sb;
+        } else {
+            return Util.stringJoin(sb, ",", toArray(), Util.Quote.TYPE_CSV);
+        }
+    }
 }
@@ -10,14 +10,16 @@ import info.baldanders.Util;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Types;
 import java.util.ArrayList;
 
 /**
  * SQLクエリ結果のデータセットクラス
  * <br>SQLクエリ結果を2次元配列 row に格納する。
  * 行位置は 1,2,... で指定すること（zero origin ではない）。
+ * <br>使い終わったら {@link #close()} で解放すること（try-with-resources 可）。
  */
-public final class DataSet {
+public final class DataSet implements AutoCloseable {
 
     /** クエリ結果（row:column の2次元配列） */
     private ArrayList<DataRow> row;
@@ -67,6 +69,26 @@ public final class DataSet {
         }
     }
 
+    /**
+     * データセットを複製する
+     * <br>行データも複製するので，複製元と複製先は互いに影響しない。
+     *
+     * @return {@link DataSet} ; 複製したデータセット
+     */
+    public DataSet copy() {
+        DataSet ds = new DataSet();
+        ds.columnCount = this.columnCount;
+        ds.columnType = Util.isNull(this.columnType) ? null : new ArrayList<Integer>(this.columnType);
+        ds.columnName = Util.isNull(this.columnName) ? null : new ArrayList<String>(this.columnName);
+        if (!Util.isNull(this.row)) {
+            ds.row = new ArrayList<DataRow>(this.row.size());
+            for (DataRow dataRow : this.row) {
+                ds.row.add(new DataRow(dataRow));
+            }
+        }
+        return ds;
+    }
+
     /**
      * テーブル情報の取得
      *
@@ -109,16 +131,12 @@ public final class DataSet {
     }
 
     /**
-     * finalize
+     * データセットを閉じる
      * <br>データセットをクリアする
      */
     @Override
-    protected void finalize() throws Throwable {
-        try {
-            super.finalize();
-        } finally {
-            clear(); //データベースを閉じる
-        }
+    public void close() {
+        clear();
     }
 
     /**
@@ -151,7 +169,7 @@ public final class DataSet {
      *                                  指定カラム番号が範囲外の場合は {@code Types.NULL} を返す。
      */
     public int geColumnType(int colNum) {
-        if (Common.isNull(this.columnType)) {
+        if (Util.isNull(this.columnType)) {
             return Types.NULL;
         } else if (colNum < 1 || sizeColumn() < colNum) {
             return Types.NULL;
@@ -168,7 +186,7 @@ public final class DataSet {
      *                          指定カラム番号が範囲外の場合は {@code null} を返す。
      */
     public String geColumnName(int colNum) {
-        if (Common.isNull(this.columnType)) {
+        if (Util.isNull(this.columnType)) {
             return null;
         } else if (colNum < 1 || sizeColumn() < colNum) {
             return null;
@@ -205,8 +223,9 @@ public final class DataSet {
             return "";
         } else {
             StringBuilder sb = new StringBuilder();
+            String lineSeparator = System.getProperty("line.separator");
             for (DataRow rowData: this.row) {
-                sb.append(rowData.toString()).append(System.getProperty("line.separator"));
+                rowData.appendTo(sb).append(lineSeparator);
             }
             return sb.toString();
         }
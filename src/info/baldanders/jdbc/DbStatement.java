@@ -8,6 +8,7 @@ package info.baldanders.jdbc;
 import info.baldanders.Util;
 
 import java.sql.Connection;
+import java.sql.ParameterMetaData;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -16,17 +17,67 @@ import java.util.ArrayList;
 /**
  * SQL実行ステートメントクラス
  * <br>{@link java.sql.PreparedStatement} を使用
+ * <br>使い終わったら {@link #close()} で閉じること（try-with-resources 可）。
+ * close されずに破棄されたステートメントは，次のステートメントの生成時に閉じる（キャッシュ済みのステートメントは返却する）。
+ * close 漏れの検出を有効にすると（{@link #setLeakDetection(boolean)}），あわせて生成箇所をログに出力する。
  */
-public final class DbStatement {
+public final class DbStatement implements AutoCloseable {
+
+    /** カーソル取得時のフェッチサイズ（デフォルト） */
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
+    /** バッチ実行時に一度に送信するパラメータセット数（デフォルト） */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
 
     /** SQL実行ステートメント */
     private PreparedStatement statement;
 
+    /** ステートメントを取得した {@link StatementCache}（{@code null} ならキャッシュしていない） */
+    private StatementCache cache;
+
+    /** close 漏れの追跡情報 */
+    private StatementLeakDetector.Tracker tracker;
+
+    /** クエリ結果のキャッシュ（{@code null} ならキャッシュしない） */
+    private ResultCache resultCache;
+
+    /** 実行結果をクエリ結果のキャッシュに格納する場合は {@code true}（{@code false} なら取得のみ） */
+    private boolean resultCacheStore;
+
+    /** SQL文（キャッシュのキー，破棄および実行統計に使う） */
+    private String sql;
+
+    /** SQL実行統計（{@code null} なら記録しない） */
+    private StatementMetrics metrics;
+
+    /** スロークエリログ（{@code null} なら出力しない） */
+    private SlowQueryLog slowQueryLog;
+
+    /** 接続の待ち時間（ナノ秒，スロークエリログに使う） */
+    private long connectionWaitNanos;
+
+    /** セット済みのパラメータのリスト（キャッシュのキーおよびスロークエリログに使う） */
+    private ArrayList<DbParameter> paramList;
+
+    /** {@link #paramList} が呼び出し側のリストを参照している場合は {@code true}（変更する前に複製する） */
+    private boolean paramListShared;
+
+    /**
+     * close 漏れの検出の有効・無効を設定する
+     * <br>有効にすると生成ごとにスタックトレースを記録するため，開発・検証時のみ有効にすること。
+     *
+     * @param enabled : boolean : 有効なら {@code true}
+     */
+    public static void setLeakDetection(boolean enabled) {
+        StatementLeakDetector.setEnabled(enabled);
+    }
+
     /**
      * コンストラクタ
      */
     public DbStatement() {
         this.statement = null;
+        this.cache = null;
     }
 
     /**
@@ -52,6 +103,22 @@ public final class DbStatement {
         createStatement(connection, sql, paramList);
     }
 
+    /**
+     * コンストラクタ（キャッシュ済みのステートメントを使用）
+     * <br>{@link #close()} するとステートメントを閉じずにキャッシュに返却する。
+     *
+     * @param cache     : {@link StatementCache} : ステートメントキャッシュ
+     * @param sql       : {@link String} : SQL文
+     * @param paramList : {@link ArrayList}<{@link DbParameter}> : パラメータのリスト
+     * @exception SQLException ステートメントの取得に失敗した場合。またはパラメータのセットに失敗した場合
+     */
+    public DbStatement(StatementCache cache, String sql, ArrayList<DbParameter> paramList) throws SQLException {
+        this.statement = cache.prepare(sql);
+        this.cache = cache;
+        this.tracker = StatementLeakDetector.track(this, this.statement, cache);
+        bind(paramList);
+    }
+
     /**
      * ステートメントの生成
      *
@@ -66,10 +133,45 @@ public final class DbStatement {
             close();
         }
         this.statement = connection.prepareStatement(sql);
+        this.cache = null;
+        this.tracker = StatementLeakDetector.track(this, this.statement, null);
+        setParameters(paramList);
+    }
+
+    /**
+     * パラメータをセットし直す
+     * <br>セット済みのパラメータをクリアしてから新たなパラメータのリストをセットする。
+     * ステートメントを再利用して別のパラメータで実行する場合に使う。
+     * 渡したリストは複製せずに実行時まで参照する（クエリ結果のキャッシュのキーとスロークエリログに使う）ので，実行するまで変更しないこと。
+     *
+     * @param paramList : {@link ArrayList}<{@link DbParameter}> : パラメータのリスト。{@code null} または空の配列の場合はクリアのみ行う。
+     * @return boolean ; ステートメントが {@code null} の場合は {@code false} を返す。パラメータがセットできれば {@code true} を返す。
+     * @exception SQLException パラメータのセットに失敗した場合
+     */
+    public boolean bind(ArrayList<DbParameter> paramList) throws SQLException {
+        if (Util.isNull(this.statement)) {
+            return false;
+        } else {
+            this.statement.clearParameters();
+            setParameters(paramList);
+            this.paramList = paramList;
+            this.paramListShared = true;
+            return true;
+        }
+    }
+
+    /**
+     * パラメータのリストをセットする
+     *
+     * @param paramList : {@link ArrayList}<{@link DbParameter}> : パラメータのリスト。{@code null} または空の配列の場合はパラメータをセットしない。
+     * @return void
+     * @exception SQLException パラメータのセットに失敗した場合
+     */
+    private void setParameters(ArrayList<DbParameter> paramList) throws SQLException {
         if (!Util.isNull(paramList)) {
             int index = 1;
             for (DbParameter param: paramList) {
-                setParameter(index, param);
+                this.statement.setObject(index, param.getValue(), param.getType());
                 index++;
             }
         }
@@ -88,50 +190,333 @@ public final class DbStatement {
             return false;
         } else {
             this.statement.setObject(index, param.getValue(), param.getType());
+            if (!Util.isNull(this.resultCache) || !Util.isNull(this.slowQueryLog)) {
+                if (Util.isNull(this.paramList)) {
+                    this.paramList = new ArrayList<DbParameter>();
+                } else if (this.paramListShared) {
+                    this.paramList = new ArrayList<DbParameter>(this.paramList); //呼び出し側のリストは変更しない
+                }
+                this.paramListShared = false;
+                while (this.paramList.size() < index) {
+                    this.paramList.add(null);
+                }
+                this.paramList.set(index-1, param);
+            }
             return true;
         }
     }
 
+    /**
+     * クエリ結果のキャッシュを設定する
+     *
+     * @param cache     : {@link ResultCache}                    : クエリ結果のキャッシュ
+     * @param sql       : {@link String}                         : SQL文
+     * @param paramList : {@link ArrayList}<{@link DbParameter}> : セット済みのパラメータのリスト
+     * @param store     : boolean                                : 実行結果をキャッシュする場合は {@code true}（{@code false} なら取得のみ）
+     */
+    void setResultCache(ResultCache cache, String sql, ArrayList<DbParameter> paramList, boolean store) {
+        this.resultCache = cache;
+        this.resultCacheStore = store;
+        this.sql = sql;
+        this.paramList = paramList;
+        this.paramListShared = true;
+    }
+
+    /**
+     * SQL実行統計を設定する
+     * <br>{@link DataAccess} を使わずに生成したステートメントの実行も記録できる。
+     *
+     * @param metrics : {@link StatementMetrics} : SQL実行統計（{@code null} なら記録しない）
+     * @param sql     : {@link String}           : 記録に使う SQL文
+     */
+    public void setMetrics(StatementMetrics metrics, String sql) {
+        this.metrics = metrics;
+        this.sql = sql;
+    }
+
+    /**
+     * スロークエリログを設定する
+     * <br>{@link DataAccess} を使わずに生成したステートメントの実行も出力できる。
+     *
+     * @param log                 : {@link SlowQueryLog}                   : スロークエリログ（{@code null} なら出力しない）
+     * @param sql                 : {@link String}                         : 出力する SQL文
+     * @param paramList           : {@link ArrayList}<{@link DbParameter}> : セット済みのパラメータのリスト
+     * @param connectionWaitNanos : long                                   : 接続の待ち時間（ナノ秒）
+     */
+    public void setSlowQueryLog(SlowQueryLog log, String sql, ArrayList<DbParameter> paramList, long connectionWaitNanos) {
+        this.slowQueryLog = log;
+        this.sql = sql;
+        this.paramList = paramList;
+        this.paramListShared = true;
+        this.connectionWaitNanos = connectionWaitNanos;
+    }
+
+    /**
+     * 実行結果を記録する
+     *
+     * @param elapsed : long : 実行時間（ナノ秒）
+     * @param rows    : long : 取得・更新した行数
+     * @param bytes   : long : {@link DataSet} に展開したデータの推定サイズ（バイト）
+     */
+    private void record(long elapsed, long rows, long bytes) {
+        record(elapsed, rows, bytes, 0);
+    }
+
+    /**
+     * 実行結果を記録する
+     *
+     * @param elapsed    : long : 実行時間（ナノ秒）
+     * @param rows       : long : 取得・更新した行数
+     * @param bytes      : long : {@link DataSet} に展開したデータの推定サイズ（バイト）
+     * @param batchCount : int  : バッチ実行したパラメータのリストの数（バッチ実行でなければ0）
+     */
+    private void record(long elapsed, long rows, long bytes, int batchCount) {
+        if (!Util.isNull(this.metrics)) {
+            this.metrics.recordElapsed(this.sql, elapsed, rows, bytes);
+        }
+        checkSlowQuery(elapsed, rows, batchCount, false);
+    }
+
+    /**
+     * 失敗した実行を記録する
+     *
+     * @param start : long : 開始時刻（{@link System#nanoTime()}）
+     */
+    private void recordError(long start) {
+        recordError(start, 0);
+    }
+
+    /**
+     * 失敗した実行を記録する
+     *
+     * @param start      : long : 開始時刻（{@link System#nanoTime()}）
+     * @param batchCount : int  : バッチ実行したパラメータのリストの数（バッチ実行でなければ0）
+     */
+    private void recordError(long start, int batchCount) {
+        if (!Util.isNull(this.metrics)) {
+            this.metrics.recordError(this.sql, start);
+        }
+        checkSlowQuery(System.nanoTime() - start, 0, batchCount, true);
+    }
+
+    /**
+     * スロークエリログに出力するか判定する
+     * <br>バッチ実行の場合はセット済みのパラメータではなくパラメータのリストの数を出力する。
+     *
+     * @param elapsed    : long    : 実行時間（ナノ秒）
+     * @param rows       : long    : 取得・更新した行数
+     * @param batchCount : int     : バッチ実行したパラメータのリストの数（バッチ実行でなければ0）
+     * @param failed     : boolean : 実行に失敗した場合は {@code true}
+     */
+    private void checkSlowQuery(long elapsed, long rows, int batchCount, boolean failed) {
+        if (Util.isNull(this.slowQueryLog)) {
+            return;
+        } else if (batchCount > 0) {
+            this.slowQueryLog.checkBatch(this.sql, batchCount, elapsed, rows, this.connectionWaitNanos, failed);
+        } else {
+            this.slowQueryLog.check(this.sql, this.paramList, elapsed, rows, this.connectionWaitNanos, failed);
+        }
+    }
+
+    /**
+     * 更新した SQL 文が参照するテーブルのキャッシュを破棄する
+     */
+    private void invalidateCache() {
+        if (!Util.isNull(this.resultCache)) {
+            this.resultCache.invalidate(this.sql);
+        }
+    }
+
     /**
      * ステートメントを閉じる
+     * <br>キャッシュ済みのステートメントの場合は閉じずにキャッシュに返却する（開いている結果セットは閉じる）。
      */
+    @Override
     public void close() {
         if (!Util.isNull(this.statement)) {
-            try {
-                this.statement.close();
-            } catch (SQLException e) {
-                //例外は無視する
+            if (!Util.isNull(this.cache)) { //キャッシュ済みのステートメントは返却する
+                this.cache.release(this.statement);
+                this.cache = null;
+            } else {
+                try {
+                    this.statement.close();
+                } catch (SQLException e) {
+                    //例外は無視する
+                }
             }
             this.statement = null;
         }
+        if (!Util.isNull(this.tracker)) {
+            this.tracker.clean();
+            this.tracker = null;
+        }
     }
 
     /**
-     * finalize
-     * <br>ステートメントを閉じる
+     * クエリを実行する
+     * <br>クエリ結果のキャッシュが設定されていれば，キャッシュの結果を返す（または結果をキャッシュする）。
+     * キャッシュの結果を返した場合は SQL実行統計に記録しない。
+     *
+     * @return {@link DataSet} ; 実行結果のデータセット。
+     *                            ステートメントが {@code null} の場合は {@code null} を返す。
+     * @exception SQLException クエリに失敗した場合
      */
-    @Override
-    protected void finalize() throws Throwable {
+    public DataSet select() throws SQLException {
+        if (Util.isNull(this.statement)) {
+            return null;
+        } else if (!Util.isNull(this.resultCache) && this.resultCache.isCacheable(this.sql)) {
+            //キャッシュにあればそれを返す
+            DataSet ds = this.resultCache.get(this.sql, this.paramList);
+            if (Util.isNull(ds)) {
+                ds = executeQuery(this.resultCacheStore);
+            }
+            return ds;
+        } else {
+            return executeQuery(false);
+        }
+    }
+
+    /**
+     * クエリを実行し {@link DataSet} に展開する
+     * <br>推定サイズは SQL実行統計に記録する場合かキャッシュする場合のみ，一度だけ計算する（実行時間には含めない）。
+     *
+     * @param cacheable : boolean : 結果をキャッシュする場合は {@code true}
+     * @return {@link DataSet} ; 実行結果のデータセット
+     * @exception SQLException クエリに失敗した場合
+     */
+    private DataSet executeQuery(boolean cacheable) throws SQLException {
+        long generation = cacheable ? this.resultCache.getGeneration() : 0;
+        long start = System.nanoTime();
+        DataSet ds;
         try {
-            super.finalize();
-        } finally {
-            close(); //ステートメントを閉じる
+            ds = new DataSet(this.statement.executeQuery());
+        } catch (SQLException e) {
+            recordError(start);
+            throw e;
+        }
+        long elapsed = System.nanoTime() - start;
+        long bytes = 0;
+        if (cacheable || !Util.isNull(this.metrics)) {
+            bytes = ResultCache.estimateBytes(ds);
+        }
+        record(elapsed, ds.sizeRow(), bytes);
+        if (cacheable) {
+            this.resultCache.put(this.sql, this.paramList, ds, generation, bytes);
         }
+        return ds;
     }
 
     /**
-     * クエリを実行する
+     * クエリを実行する（型付き）
+     * <br>カラムのタイプに応じた型で列ごとに格納する。
      *
-     * @return {@link DataSet} ; 実行結果のデータセット。
-     *                            ステートメントが {@code null} の場合は {@code null} を返す。
+     * @return {@link TypedDataSet} ; 実行結果のデータセット。
+     *                                 ステートメントが {@code null} の場合は {@code null} を返す。
      * @exception SQLException クエリに失敗した場合
      */
-    public DataSet select() throws SQLException {
+    public TypedDataSet selectTyped() throws SQLException {
         if (Util.isNull(this.statement)) {
             return null;
         } else {
-        	ResultSet rs = this.statement.executeQuery();
-            return new DataSet(rs);
+            long start = System.nanoTime();
+            try {
+                ResultSet rs = this.statement.executeQuery();
+                try {
+                    TypedDataSet ds = new TypedDataSet(rs);
+                    record(System.nanoTime() - start, ds.sizeRow(), 0);
+                    return ds;
+                } finally {
+                    rs.close();
+                }
+            } catch (SQLException e) {
+                recordError(start);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * クエリを実行しカーソルを取得する（フェッチサイズは {@link #DEFAULT_FETCH_SIZE}）
+     *
+     * @return {@link DataCursor} ; 実行結果のカーソル。
+     *                               ステートメントが {@code null} の場合は {@code null} を返す。
+     * @exception SQLException クエリに失敗した場合
+     */
+    public DataCursor selectCursor() throws SQLException {
+        return selectCursor(DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * クエリを実行しカーソルを取得する
+     * <br>クエリ結果を {@link DataSet} に展開せず，1行ずつ取得する。
+     * フェッチサイズ分の行のみを受信するため，クエリ結果の件数によらずメモリ使用量は一定となる。
+     * （フェッチサイズの扱いは JDBC ドライバに依存する）
+     * SQL実行統計にはクエリの実行（最初の行を取得するまで）の時間のみ記録する。
+     *
+     * @param fetchSize : int : フェッチサイズ（0以下ならドライバのデフォルト）
+     * @return {@link DataCursor} ; 実行結果のカーソル。
+     *                               ステートメントが {@code null} の場合は {@code null} を返す。
+     * @exception SQLException クエリに失敗した場合
+     */
+    public DataCursor selectCursor(int fetchSize) throws SQLException {
+        if (Util.isNull(this.statement)) {
+            return null;
+        }
+        long start = System.nanoTime();
+        try {
+            DataCursor cursor = openCursor(fetchSize);
+            record(System.nanoTime() - start, 0, 0);
+            return cursor;
+        } catch (SQLException e) {
+            recordError(start);
+            throw e;
+        }
+    }
+
+    /**
+     * クエリを実行しカーソルを取得する（SQL実行統計に記録しない）
+     *
+     * @param fetchSize : int : フェッチサイズ（0以下ならドライバのデフォルト）
+     * @return {@link DataCursor} ; 実行結果のカーソル
+     * @exception SQLException クエリに失敗した場合
+     */
+    private DataCursor openCursor(int fetchSize) throws SQLException {
+        this.statement.setFetchSize(Math.max(fetchSize, 0));
+        ResultSet rs = this.statement.executeQuery();
+        return new DataCursor(rs);
+    }
+
+    /**
+     * クエリを実行し1行ずつ処理する
+     * <br>SQL実行統計には全ての行を処理し終えるまでの時間と行数を記録する。
+     *
+     * @param handler   : {@link RowHandler} : 行データ処理
+     * @param fetchSize : int                : フェッチサイズ（0以下ならドライバのデフォルト）
+     * @return int ; 処理した行数。ステートメントまたは行データ処理が {@code null} の場合は {@code 0} を返す。
+     * @exception SQLException クエリに失敗した場合。または行データの処理に失敗した場合
+     */
+    public int select(RowHandler handler, int fetchSize) throws SQLException {
+        if (Util.isNull(handler) || Util.isNull(this.statement)) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        try {
+            DataCursor cursor = openCursor(fetchSize);
+            try {
+                DataRow row;
+                while (!Util.isNull(row = cursor.fetch())) {
+                    if (!handler.handle(row)) {
+                        break;
+                    }
+                }
+                record(System.nanoTime() - start, cursor.getRowCount(), 0);
+                return cursor.getRowCount();
+            } finally {
+                cursor.close();
+            }
+        } catch (SQLException e) {
+            recordError(start);
+            throw e;
         }
     }
 
@@ -145,7 +530,7 @@ public final class DbStatement {
         if (Util.isNull(this.statement)) {
             return false;
         } else {
-            int res = this.statement.executeUpdate();
+            int res = executeUpdate();
             if (res > 0) {
                 return true;
             } else {
@@ -154,6 +539,30 @@ public final class DbStatement {
         }
     }
 
+    /**
+     * SQL（DML文）を実行し更新件数を取得する
+     *
+     * @return int ; 更新件数。ステートメントが {@code null} の場合は {@code 0} を返す。
+     * @exception SQLException ; 実行に失敗した場合
+     */
+    public int executeUpdate() throws SQLException {
+        if (Util.isNull(this.statement)) {
+            return 0;
+        } else {
+            long start = System.nanoTime();
+            int res;
+            try {
+                res = this.statement.executeUpdate();
+            } catch (SQLException e) {
+                recordError(start);
+                throw e;
+            }
+            record(System.nanoTime() - start, res, 0);
+            invalidateCache();
+            return res;
+        }
+    }
+
     /**
      * SQL（DML文）を実行する（別名）
      *
@@ -173,4 +582,129 @@ public final class DbStatement {
     public Boolean delete() throws SQLException {
         return update();
     }
+
+    /**
+     * SQL（DML文）をバッチ実行する（バッチサイズは {@link #DEFAULT_BATCH_SIZE}）
+     *
+     * @param paramSets : {@link ArrayList}<{@link ArrayList}<{@link DbParameter}>> : パラメータのリストの集合
+     * @return {@link ArrayList}<int[]> ; バッチごとの更新件数（{@link PreparedStatement#executeBatch()} の結果）。
+     *                                     ステートメントまたはパラメータのリストの集合が {@code null} の場合は空のリストを返す。
+     * @exception SQLException ; 実行に失敗した場合
+     */
+    public ArrayList<int[]> updateBatch(ArrayList<ArrayList<DbParameter>> paramSets) throws SQLException {
+        return updateBatch(paramSets, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * SQL（DML文）をバッチ実行する
+     * <br>パラメータのリストごとに {@link PreparedStatement#addBatch()} し，
+     * バッチサイズに達するごとにまとめて送信する。
+     * 前のパラメータが残らないよう，パラメータのリストごとにクリアしてからセットする。
+     * パラメータの数が合わないリストがあれば，何も送信せずに例外を投げる。
+     *
+     * @param paramSets : {@link ArrayList}<{@link ArrayList}<{@link DbParameter}>> : パラメータのリストの集合
+     * @param batchSize : int : 一度に送信するパラメータのリストの数（1未満なら1とする）
+     * @return {@link ArrayList}<int[]> ; バッチごとの更新件数（{@link PreparedStatement#executeBatch()} の結果）。
+     *                                     ステートメントまたはパラメータのリストの集合が {@code null} の場合は空のリストを返す。
+     * @exception SQLException ; 実行に失敗した場合
+     * @exception IllegalArgumentException パラメータのリストが {@code null} またはプレースホルダの数と一致しないものがある場合
+     */
+    public ArrayList<int[]> updateBatch(ArrayList<ArrayList<DbParameter>> paramSets, int batchSize) throws SQLException {
+        ArrayList<int[]> result = new ArrayList<int[]>();
+        if (Util.isNull(this.statement) || Util.isNull(paramSets)) {
+            return result;
+        }
+        validate(paramSets);
+        if (batchSize < 1) {
+            batchSize = 1;
+        }
+        long start = System.nanoTime();
+        try {
+            this.statement.clearBatch();
+            int count = 0;
+            for (ArrayList<DbParameter> paramList: paramSets) {
+                this.statement.clearParameters();
+                setParameters(paramList);
+                this.statement.addBatch();
+                count++;
+                if (count >= batchSize) {
+                    result.add(this.statement.executeBatch());
+                    count = 0;
+                }
+            }
+            if (count > 0) {
+                result.add(this.statement.executeBatch());
+            }
+        } catch (SQLException e) {
+            recordError(start, Math.max(paramSets.size(), 1));
+            throw e;
+        }
+        if (!Util.isNull(this.metrics) || !Util.isNull(this.slowQueryLog)) {
+            long rows = 0;
+            for (int[] counts : result) {
+                for (int n : counts) {
+                    if (n > 0) {
+                        rows += n;
+                    }
+                }
+            }
+            record(System.nanoTime() - start, rows, 0, Math.max(paramSets.size(), 1));
+        }
+        invalidateCache();
+        return result;
+    }
+
+    /**
+     * バッチ実行するパラメータの数を確認する
+     * <br>プレースホルダの数はステートメントのメタデータから取得する。
+     * 取得できない JDBC ドライバでは最初のパラメータのリストの数に揃っていることを確認する。
+     *
+     * @param paramSets : {@link ArrayList}<{@link ArrayList}<{@link DbParameter}>> : パラメータのリストの集合
+     * @exception IllegalArgumentException パラメータのリストが {@code null} またはプレースホルダの数と一致しないものがある場合
+     */
+    private void validate(ArrayList<ArrayList<DbParameter>> paramSets) {
+        int parameterCount = -1;
+        try {
+            ParameterMetaData metaData = this.statement.getParameterMetaData();
+            if (!Util.isNull(metaData)) {
+                parameterCount = metaData.getParameterCount();
+            }
+        } catch (SQLException e) {
+            //取得できなければ最初のパラメータのリストに合わせる
+        }
+        for (int i = 0; i < paramSets.size(); i++) {
+            ArrayList<DbParameter> paramList = paramSets.get(i);
+            if (!Util.isNull(paramList) && parameterCount < 0) {
+                parameterCount = paramList.size();
+            }
+            if (Util.isNull(paramList) || paramList.size() != parameterCount) {
+                throw new IllegalArgumentException("パラメータの数がプレースホルダの数（" + parameterCount + "）と一致しません。"
+                        + "（" + i + "番目：" + (Util.isNull(paramList) ? "null" : String.valueOf(paramList.size())) + "）");
+            }
+        }
+    }
+
+    /**
+     * SQL（DML文）をバッチ実行する（別名）
+     *
+     * @param paramSets : {@link ArrayList}<{@link ArrayList}<{@link DbParameter}>> : パラメータのリストの集合
+     * @param batchSize : int : 一度に送信するパラメータのリストの数（1未満なら1とする）
+     * @return {@link ArrayList}<int[]> ; バッチごとの更新件数
+     * @exception SQLException ; 実行に失敗した場合
+     */
+    public ArrayList<int[]> insertBatch(ArrayList<ArrayList<DbParameter>> paramSets, int batchSize) throws SQLException {
+        return updateBatch(paramSets, batchSize);
+    }
+
+    /**
+     * SQL（DML文）をバッチ実行する（別名）
+     *
+     * @param paramSets : {@link ArrayList}<{@link ArrayList}<{@link DbParameter}>> : パラメータのリストの集合
+     * @param batchSize : int : 一度に送信するパラメータのリストの数（1未満なら1とする）
+     * @return {@link ArrayList}<int[]> ; バッチごとの更新件数
+     * @exception SQLException ; 実行に失敗した場合
+     */
+    public ArrayList<int[]> deleteBatch(ArrayList<ArrayList<DbParameter>> paramSets, int batchSize) throws SQLException {
+        return updateBatch(paramSets, batchSize);
+    }
 }
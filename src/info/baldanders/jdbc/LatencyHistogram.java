@@ -0,0 +1,156 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.jdbc;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 実行時間のヒストグラム（ロックなし）
+ * <br>2のべき乗ごとの区間をさらに {@link #SUB_BUCKET_COUNT} 等分した対数線形の区間で件数を数える。
+ * 値の相対誤差は 1/{@link #SUB_BUCKET_COUNT}（約3%）以内で，1ナノ秒から約18分まで扱える（それ以上は最後の区間に数える）。
+ * 記録は配列要素のアトミックな加算のみなので，複数スレッドから同時に記録できる。
+ */
+final class LatencyHistogram {
+
+    /** 2のべき乗ごとの区間の分割数のビット数 */
+    private static final int SUB_BUCKET_BITS = 5;
+
+    /** 2のべき乗ごとの区間の分割数 */
+    static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /** 扱う値の上限（2のべき乗の指数） */
+    private static final int MAX_EXPONENT = 40;
+
+    /** 区間の数 */
+    static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    /** 区間ごとの件数 */
+    private final AtomicLongArray counts;
+
+    /** 最大値 */
+    private final AtomicLong max;
+
+    /**
+     * コンストラクタ
+     */
+    LatencyHistogram() {
+        this.counts = new AtomicLongArray(BUCKET_COUNT);
+        this.max = new AtomicLong(0);
+    }
+
+    /**
+     * 値を記録する
+     *
+     * @param value : long : 値（ナノ秒，負の値は0とする）
+     */
+    void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        this.counts.incrementAndGet(indexOf(value));
+        long current;
+        while (value > (current = this.max.get())) {
+            if (this.max.compareAndSet(current, value)) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * 区間ごとの件数の複製を取得する
+     * <br>記録中の値があれば含まれない場合がある。
+     *
+     * @return long[] ; 区間ごとの件数
+     */
+    long[] getCounts() {
+        long[] copy = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = this.counts.get(i);
+        }
+        return copy;
+    }
+
+    /**
+     * 最大値を取得する
+     *
+     * @return long ; 最大値（ナノ秒）
+     */
+    long getMax() {
+        return this.max.get();
+    }
+
+    /**
+     * 記録をクリアする
+     */
+    void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            this.counts.set(i, 0);
+        }
+        this.max.set(0);
+    }
+
+    /**
+     * パーセンタイル値を求める
+     *
+     * @param counts   : long[] : 区間ごとの件数（{@link #getCounts()}）
+     * @param quantile : double : 分位（0.5, 0.99 など）
+     * @param max      : long   : 最大値（区間の上限がこれを超える場合はこの値とする）
+     * @return long ; パーセンタイル値（その値を含む区間の上限，件数が0なら0）
+     */
+    static long percentile(long[] counts, double quantile, long max) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max((long)Math.ceil(quantile * total), 1);
+        long cumulative = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulative += counts[i];
+            if (cumulative >= rank) {
+                return Math.min(upperBoundOf(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     * 値の区間を求める
+     *
+     * @param value : long : 値（0以上）
+     * @return int ; 区間の番号
+     */
+    static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int)value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent >= MAX_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+        int sub = (int)(value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + sub;
+    }
+
+    /**
+     * 区間の上限を求める
+     *
+     * @param index : int : 区間の番号
+     * @return long ; 区間に含まれる最大の値
+     */
+    static long upperBoundOf(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int exponent = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+        long sub = index % SUB_BUCKET_COUNT;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        return (1L << exponent) + sub * width + width - 1;
+    }
+}
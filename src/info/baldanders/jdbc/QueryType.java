@@ -0,0 +1,59 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.jdbc;
+
+import info.baldanders.Util;
+
+import java.util.Locale;
+
+/**
+ * SQL文の種類の判別クラス
+ * <br>レプリカへの振り分け（{@link ReplicaRouter}）とクエリ結果のキャッシュ（{@link ResultCache}）で同じ判別を使う。
+ */
+final class QueryType {
+
+    /**
+     * コンストラクタ（static 関数群なので private として実装）
+     */
+    private QueryType() {}
+
+    /**
+     * 参照系クエリか
+     * <br>先頭の空白・コメント・括弧を除いた最初のキーワードが SELECT または WITH で，
+     * 行ロック（FOR UPDATE, FOR SHARE, LOCK IN SHARE MODE）や INTO を含まないものを参照系とする。
+     *
+     * @param sql : {@link String} : SQL文
+     * @return boolean ; 参照系クエリなら {@code true}
+     */
+    static boolean isRead(String sql) {
+        if (Util.isNull(sql)) {
+            return false;
+        }
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c) || c == '(') {
+                i++;
+            } else if (sql.startsWith("/*", i)) {
+                int end = sql.indexOf("*/", i + 2);
+                i = (end < 0) ? length : end + 2;
+            } else if (sql.startsWith("--", i)) {
+                int end = sql.indexOf('\n', i + 2);
+                i = (end < 0) ? length : end + 1;
+            } else {
+                break;
+            }
+        }
+        String upper = sql.substring(i).toUpperCase(Locale.ROOT);
+        if (!upper.startsWith("SELECT") && !upper.startsWith("WITH")) {
+            return false;
+        }
+        String normalized = " " + upper.replaceAll("\\s+", " ") + " ";
+        return !normalized.contains(" FOR UPDATE") && !normalized.contains(" FOR SHARE")
+                && !normalized.contains(" LOCK IN SHARE MODE") && !normalized.contains(" INTO ");
+    }
+}
@@ -0,0 +1,324 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.jdbc;
+
+import info.baldanders.Util;
+import info.baldanders.log.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * 参照系クエリの振り分けクラス
+ * <br>複数の参照用レプリカ（{@link ConnectionPool}）から，参照系クエリに使う接続先を選ぶ。
+ * <ul>
+ * <li>振り分け方は順番（{@link Balance#ROUND_ROBIN}）または貸し出し中の接続数が最小のもの（{@link Balance#LEAST_LOADED}）</li>
+ * <li>定期的に各レプリカに接続し，接続できない場合や遅延がしきい値を超えた場合は振り分けの対象から外す（回復すれば戻す）</li>
+ * <li>対象のレプリカがない場合は {@code null} を返すので，呼び出し側はプライマリを使う</li>
+ * </ul>
+ * 遅延は {@code lagQuery} の結果（秒）で判定する。結果に "Seconds_Behind_Master" カラムがあればその値
+ * （MariaDB の "SHOW SLAVE STATUS"），なければ最初のカラムの値を使い，{@code NULL} はレプリケーション停止中とみなす。
+ */
+public final class ReplicaRouter {
+
+    /**
+     * 振り分け方
+     */
+    public static enum Balance {
+        /** 順番に振り分ける */
+        ROUND_ROBIN,
+        /** 貸し出し中の接続数が最小のものに振り分ける */
+        LEAST_LOADED
+    }
+
+    /** logger */
+    private static final Logger logger = LoggerFactory.getLogger("jdbc.ReplicaRouter");
+
+    /** 遅延を表すカラム名（MariaDB の "SHOW SLAVE STATUS"） */
+    private static final String LAG_COLUMN = "Seconds_Behind_Master";
+
+    /** レプリカ */
+    private final Replica[] replicas;
+
+    /** 振り分け方 */
+    private final Balance balance;
+
+    /** 遅延を取得する SQL文（空なら遅延を判定しない） */
+    private final String lagQuery;
+
+    /** 遅延のしきい値（ミリ秒） */
+    private final long maxLagMillis;
+
+    /** 次に振り分けるレプリカ（順番に振り分ける場合） */
+    private final AtomicInteger next;
+
+    /** 定期確認用タイマ */
+    private final Timer timer;
+
+    /**
+     * レプリカの状態
+     */
+    private static final class Replica {
+        /** コネクションプール */
+        final ConnectionPool pool;
+        /** 振り分けの対象なら {@code true} */
+        volatile boolean healthy;
+        /** 直近の遅延（ミリ秒，不明なら -1） */
+        volatile long lagMillis;
+
+        /**
+         * コンストラクタ
+         *
+         * @param pool : {@link ConnectionPool} : コネクションプール
+         */
+        Replica(ConnectionPool pool) {
+            this.pool = pool;
+            this.healthy = true;
+            this.lagMillis = -1;
+        }
+    }
+
+    /**
+     * コンストラクタ
+     *
+     * @param pools         : {@link ArrayList}<{@link ConnectionPool}> : レプリカのコネクションプール
+     * @param balance       : {@link Balance}                           : 振り分け方（{@code null} なら {@link Balance#ROUND_ROBIN}）
+     * @param lagQuery      : {@link String}                            : 遅延（秒）を取得する SQL文（{@code null} または空なら遅延を判定しない）
+     * @param maxLagMillis  : long                                      : 遅延のしきい値（ミリ秒）
+     * @param checkInterval : long                                      : 状態を確認する間隔（ミリ秒，0以下なら定期確認しない）
+     */
+    public ReplicaRouter(ArrayList<ConnectionPool> pools, Balance balance, String lagQuery, long maxLagMillis, long checkInterval) {
+        this.replicas = new Replica[pools.size()];
+        for (int i = 0; i < this.replicas.length; i++) {
+            this.replicas[i] = new Replica(pools.get(i));
+        }
+        this.balance = Util.isNull(balance) ? Balance.ROUND_ROBIN : balance;
+        this.lagQuery = Util.null2String(lagQuery).trim();
+        this.maxLagMillis = Math.max(maxLagMillis, 0);
+        this.next = new AtomicInteger(0);
+        if (checkInterval > 0 && this.replicas.length > 0) {
+            this.timer = new Timer("ReplicaRouter-checker", true);
+            this.timer.schedule(new TimerTask() {
+                @Override
+                public void run() {
+                    check();
+                }
+            }, checkInterval, checkInterval);
+        } else {
+            this.timer = null;
+        }
+    }
+
+    /**
+     * 参照系クエリの接続先を選ぶ
+     *
+     * @return {@link ConnectionPool} ; レプリカのコネクションプール。対象のレプリカがない場合は {@code null} を返す。
+     */
+    public ConnectionPool select() {
+        int size = this.replicas.length;
+        if (size == 0) {
+            return null;
+        }
+        if (this.balance == Balance.LEAST_LOADED) {
+            Replica selected = null;
+            for (Replica replica : this.replicas) {
+                if (replica.healthy && (Util.isNull(selected) || replica.pool.getActiveCount() < selected.pool.getActiveCount())) {
+                    selected = replica;
+                }
+            }
+            return Util.isNull(selected) ? null : selected.pool;
+        }
+        int start = this.next.getAndIncrement() & Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            Replica replica = this.replicas[(start + i) % size];
+            if (replica.healthy) {
+                return replica.pool;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * レプリカを振り分けの対象から外す
+     * <br>接続に失敗した場合などに呼び出す。次の確認で回復していれば対象に戻す。
+     *
+     * @param pool  : {@link ConnectionPool} : レプリカのコネクションプール
+     * @param cause : {@link Throwable}      : 原因（{@code null} 可）
+     */
+    public void markDown(ConnectionPool pool, Throwable cause) {
+        for (Replica replica : this.replicas) {
+            if (replica.pool == pool) {
+                setHealthy(replica, false, "connection failed", cause);
+            }
+        }
+    }
+
+    /**
+     * 各レプリカの状態を確認する
+     * <br>接続して遅延を取得し，振り分けの対象にするかどうかを決める。
+     * 貸し出し待ちがタイムアウトした場合（レプリカが混んでいる場合）は状態を変えない。
+     */
+    public void check() {
+        for (Replica replica : this.replicas) {
+            Connection conn;
+            try {
+                conn = replica.pool.borrow();
+            } catch (SQLTimeoutException e) {
+                continue;
+            } catch (SQLException e) {
+                replica.lagMillis = -1;
+                setHealthy(replica, false, "connection failed", e);
+                continue;
+            }
+            try {
+                long lag = measureLag(conn);
+                replica.lagMillis = lag;
+                if (lag > this.maxLagMillis) {
+                    setHealthy(replica, false, (lag == Long.MAX_VALUE) ? "replication stopped" : "replication lag " + lag + "ms", null);
+                } else {
+                    setHealthy(replica, true, null, null);
+                }
+            } catch (SQLException e) {
+                replica.lagMillis = -1;
+                setHealthy(replica, false, "lag query failed", e);
+            } finally {
+                try {
+                    conn.rollback();
+                } catch (SQLException e) {
+                    //ロールバックの例外は無視する
+                }
+                replica.pool.release(conn);
+            }
+        }
+    }
+
+    /**
+     * レプリカの遅延を取得する
+     *
+     * @param conn : {@link Connection} : レプリカの接続オブジェクト
+     * @return long ; 遅延（ミリ秒）。遅延を判定しない場合や結果が空の場合は 0，レプリケーション停止中は {@link Long#MAX_VALUE}
+     * @throws SQLException 遅延の取得に失敗した場合
+     */
+    private long measureLag(Connection conn) throws SQLException {
+        if (this.lagQuery.isEmpty()) {
+            return 0;
+        }
+        Statement stmt = conn.createStatement();
+        try {
+            ResultSet rs = stmt.executeQuery(this.lagQuery);
+            if (!rs.next()) {
+                return 0;
+            }
+            int column = 1;
+            for (int col = 1; col <= rs.getMetaData().getColumnCount(); col++) {
+                if (LAG_COLUMN.equalsIgnoreCase(rs.getMetaData().getColumnLabel(col))) {
+                    column = col;
+                    break;
+                }
+            }
+            double seconds = rs.getDouble(column);
+            if (rs.wasNull()) {
+                return Long.MAX_VALUE;
+            }
+            return (long)(seconds * 1000);
+        } finally {
+            stmt.close();
+        }
+    }
+
+    /**
+     * レプリカの状態を変更する（変わった場合はログに出力する）
+     *
+     * @param replica : {@link Replica}   : レプリカ
+     * @param healthy : boolean            : 振り分けの対象なら {@code true}
+     * @param reason  : {@link String}    : 対象から外す理由
+     * @param cause   : {@link Throwable} : 対象から外す原因の例外（{@code null} 可）
+     */
+    private void setHealthy(Replica replica, boolean healthy, String reason, Throwable cause) {
+        if (replica.healthy == healthy) {
+            return;
+        }
+        replica.healthy = healthy;
+        if (healthy) {
+            logger.log(Level.INFO, "replica is back in rotation: " + replica.pool.getUrl());
+        } else {
+            logger.log(Level.WARNING, "replica is out of rotation: " + replica.pool.getUrl() + " (" + reason + ")", cause);
+        }
+    }
+
+    /**
+     * レプリカ数を取得する
+     *
+     * @return int ; レプリカ数（振り分けの対象外のものを含む）
+     */
+    public int getReplicaCount() {
+        return this.replicas.length;
+    }
+
+    /**
+     * 振り分けの対象のレプリカ数を取得する
+     *
+     * @return int ; レプリカ数
+     */
+    public int getHealthyCount() {
+        int count = 0;
+        for (Replica replica : this.replicas) {
+            if (replica.healthy) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * レプリカの直近の遅延を取得する
+     *
+     * @param pool : {@link ConnectionPool} : レプリカのコネクションプール
+     * @return long ; 遅延（ミリ秒）。不明な場合は -1
+     */
+    public long getLagMillis(ConnectionPool pool) {
+        for (Replica replica : this.replicas) {
+            if (replica.pool == pool) {
+                return replica.lagMillis;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 定期確認を止め，全レプリカのコネクションプールを閉じる
+     */
+    public void close() {
+        if (!Util.isNull(this.timer)) {
+            this.timer.cancel();
+        }
+        for (Replica replica : this.replicas) {
+            replica.pool.close();
+        }
+    }
+
+    /**
+     * 参照系クエリ（レプリカで実行できる SQL文）か
+     * <br>先頭の空白・コメント・括弧を除いた最初のキーワードが SELECT または WITH で，
+     * 行ロック（FOR UPDATE, FOR SHARE, LOCK IN SHARE MODE）や INTO を含まないものを参照系とする。
+     * 更新を伴う関数の呼び出しなどは判別できないので，その場合は {@link DataAccess#getPrimaryStatement(String, ArrayList)} を使うこと。
+     *
+     * @param sql : {@link String} : SQL文
+     * @return boolean ; 参照系クエリなら {@code true}
+     */
+    public static boolean isReadQuery(String sql) {
+        return QueryType.isRead(sql);
+    }
+}
@@ -0,0 +1,717 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.jdbc;
+
+import info.baldanders.Util;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * クエリ結果のキャッシュクラス
+ * <br>SQL 文とパラメータの値をキーとして {@link DataSet} を保持する。
+ * 保持するデータの推定サイズの合計が上限を超えた場合は最も長く使われていないものから破棄する（LRU）。
+ * 保持期間（TTL）を過ぎたものは使わない。
+ * <br>更新系の SQL を実行すると，同じテーブルを参照するキャッシュを破棄する。
+ * 更新したスレッドではコミット（またはロールバック）までキャッシュを使わず，コミット時にも改めて破棄する。
+ * <br>参照するテーブルを確実に特定できない SQL 文（サブクエリ，UNION，WITH，未知の文など）は，
+ * SELECT 文ならキャッシュせず，更新系ならキャッシュをすべて破棄する（{@link #parseTables(String)}）。
+ * <br>キャッシュから返す {@link DataSet} は複製なので，呼び出し側で変更・クリアしてもよい。
+ */
+public final class ResultCache {
+
+    /**
+     * キャッシュのキー
+     */
+    private static final class Key {
+        /** SQL文 */
+        private final String sql;
+        /** パラメータの値 */
+        private final Object [] values;
+        /** パラメータのタイプ */
+        private final int [] types;
+        /** ハッシュ値 */
+        private final int hash;
+
+        /**
+         * コンストラクタ
+         *
+         * @param sql       : {@link String}                         : SQL文
+         * @param paramList : {@link ArrayList}<{@link DbParameter}> : パラメータのリスト（{@code null} 可）
+         */
+        private Key(String sql, ArrayList<DbParameter> paramList) {
+            int size = Util.isNull(paramList) ? 0 : paramList.size();
+            this.sql = sql;
+            this.values = new Object[size];
+            this.types = new int[size];
+            for (int i = 0; i < size; i++) {
+                DbParameter param = paramList.get(i);
+                this.values[i] = Util.isNull(param) ? null : param.getValue();
+                this.types[i] = Util.isNull(param) ? Types.NULL : param.getType();
+            }
+            this.hash = (sql.hashCode() * 31 + Arrays.hashCode(this.values)) * 31 + Arrays.hashCode(this.types);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            } else if (!(obj instanceof Key)) {
+                return false;
+            } else {
+                Key other = (Key)obj;
+                return this.hash == other.hash && this.sql.equals(other.sql)
+                        && Arrays.equals(this.values, other.values) && Arrays.equals(this.types, other.types);
+            }
+        }
+    }
+
+    /**
+     * キャッシュのエントリ
+     */
+    private static final class Entry {
+        /** クエリ結果 */
+        private final DataSet data;
+        /** 推定サイズ（バイト） */
+        private final long bytes;
+        /** 有効期限（ミリ秒） */
+        private final long expires;
+        /** 参照するテーブル */
+        private final Set<String> tables;
+
+        /**
+         * コンストラクタ
+         *
+         * @param data    : {@link DataSet}                : クエリ結果
+         * @param bytes   : long                           : 推定サイズ（バイト）
+         * @param expires : long                           : 有効期限（ミリ秒）
+         * @param tables  : {@link Set}<{@link String}>    : 参照するテーブル
+         */
+        private Entry(DataSet data, long bytes, long expires, Set<String> tables) {
+            this.data = data;
+            this.bytes = bytes;
+            this.expires = expires;
+            this.tables = tables;
+        }
+    }
+
+    /** すべてのテーブルを表す未確定の更新の印（テーブル名は空にならない） */
+    private static final String ALL_TABLES = "";
+
+    /** テーブル参照の後に続くキーワード（別名とみなさない） */
+    private static final Set<String> clauseKeywords = new HashSet<String>(Arrays.asList(
+            "AS", "ON", "USING", "WHERE", "JOIN", "INNER", "LEFT", "RIGHT", "OUTER", "CROSS", "NATURAL", "STRAIGHT_JOIN", "FULL",
+            "GROUP", "ORDER", "HAVING", "LIMIT", "OFFSET", "FETCH", "WINDOW", "PROCEDURE", "INTO", "FOR", "LOCK",
+            "UNION", "EXCEPT", "INTERSECT", "MINUS", "SET", "VALUES", "VALUE", "SELECT", "PARTITION", "USE", "FORCE", "IGNORE",
+            "RETURNING"));
+
+    /** 保持するデータの推定サイズの上限（バイト） */
+    private final long maxBytes;
+
+    /** 保持期間（ミリ秒，0以下なら無期限） */
+    private final long ttl;
+
+    /** キャッシュ対象のテーブル（空ならすべて） */
+    private final Set<String> cacheableTables;
+
+    /** エントリ（アクセス順） */
+    private final LinkedHashMap<Key, Entry> entries;
+
+    /** テーブルごとのエントリのキー */
+    private final HashMap<String, HashSet<Key>> tableIndex;
+
+    /** 保持しているデータの推定サイズの合計（バイト） */
+    private long totalBytes;
+
+    /** 破棄の世代（キャッシュを破棄するたびに増える） */
+    private long generation;
+
+    /** キャッシュにヒットした回数 */
+    private final AtomicLong hitCount;
+
+    /** キャッシュにヒットしなかった回数 */
+    private final AtomicLong missCount;
+
+    /** スレッドごとの未確定の更新で参照したテーブル */
+    private final ThreadLocal<HashSet<String>> pendingTables;
+
+    /**
+     * コンストラクタ
+     *
+     * @param maxBytes        : long           : 保持するデータの推定サイズの上限（バイト）
+     * @param ttl             : long           : 保持期間（ミリ秒，0以下なら無期限）
+     * @param cacheableTables : {@link String} : キャッシュ対象のテーブル（カンマ区切り，{@code null} または空文字列ならすべて）
+     */
+    public ResultCache(long maxBytes, long ttl, String cacheableTables) {
+        this.maxBytes = maxBytes;
+        this.ttl = ttl;
+        this.cacheableTables = new HashSet<String>();
+        for (String table : Util.null2String(cacheableTables).split(",")) {
+            if (!Util.isBlank(table.trim())) {
+                this.cacheableTables.add(normalizeTable(table));
+            }
+        }
+        this.entries = new LinkedHashMap<Key, Entry>(16, 0.75f, true);
+        this.tableIndex = new HashMap<String, HashSet<Key>>();
+        this.totalBytes = 0;
+        this.generation = 0;
+        this.hitCount = new AtomicLong(0);
+        this.missCount = new AtomicLong(0);
+        this.pendingTables = new ThreadLocal<HashSet<String>>();
+    }
+
+    /**
+     * SQL 文の結果をキャッシュできるか
+     * <br>SELECT 文で，参照するテーブルを特定でき，それがすべてキャッシュ対象であり，
+     * 現在のスレッドに未確定の更新がない場合にキャッシュできる。
+     * 行ロック（FOR UPDATE 等）や INTO を含む SELECT 文は参照系とみなさない（{@link ReplicaRouter#isReadQuery(String)} と同じ判別）。
+     *
+     * @param sql : {@link String} : SQL文
+     * @return boolean ; キャッシュできれば {@code true}
+     */
+    public boolean isCacheable(String sql) {
+        if (Util.isBlank(sql) || !Util.isNull(this.pendingTables.get())) {
+            return false;
+        } else if (!sql.trim().toUpperCase().startsWith("SELECT") || !QueryType.isRead(sql)) {
+            return false;
+        } else {
+            Set<String> tables = parseTables(sql);
+            return !Util.isNull(tables) && !tables.isEmpty()
+                    && (this.cacheableTables.isEmpty() || this.cacheableTables.containsAll(tables));
+        }
+    }
+
+    /**
+     * キャッシュからクエリ結果を取得する
+     *
+     * @param sql       : {@link String}                         : SQL文
+     * @param paramList : {@link ArrayList}<{@link DbParameter}> : パラメータのリスト（{@code null} 可）
+     * @return {@link DataSet} ; クエリ結果の複製。キャッシュにない場合や期限切れの場合は {@code null} を返す。
+     */
+    public DataSet get(String sql, ArrayList<DbParameter> paramList) {
+        Key key = new Key(sql, paramList);
+        DataSet data = null;
+        synchronized (this) {
+            Entry entry = this.entries.get(key);
+            if (!Util.isNull(entry)) {
+                if (this.ttl > 0 && entry.expires < System.currentTimeMillis()) {
+                    remove(key); //期限切れ
+                } else {
+                    data = entry.data;
+                }
+            }
+        }
+        if (Util.isNull(data)) {
+            this.missCount.incrementAndGet();
+            return null;
+        } else {
+            this.hitCount.incrementAndGet();
+            return data.copy();
+        }
+    }
+
+    /**
+     * 破棄の世代を取得する
+     * <br>クエリの実行前に取得し，{@link #put(String, ArrayList, DataSet, long)} に渡す。
+     *
+     * @return long ; 破棄の世代
+     */
+    public synchronized long getGeneration() {
+        return this.generation;
+    }
+
+    /**
+     * クエリ結果をキャッシュする
+     * <br>キャッシュするのは複製なので，引数のデータセットは呼び出し側でそのまま使ってよい。
+     * 推定サイズが上限を超える場合や，参照するテーブルを特定できない場合はキャッシュしない。
+     * クエリの実行中にキャッシュが破棄された（世代が変わった）場合も，古い結果の可能性があるのでキャッシュしない。
+     *
+     * @param sql        : {@link String}                         : SQL文
+     * @param paramList  : {@link ArrayList}<{@link DbParameter}> : パラメータのリスト（{@code null} 可）
+     * @param data       : {@link DataSet}                        : クエリ結果
+     * @param generation : long                                   : クエリの実行前に取得した破棄の世代
+     */
+    public void put(String sql, ArrayList<DbParameter> paramList, DataSet data, long generation) {
+        if (Util.isNull(data)) {
+            return;
+        }
+        put(sql, paramList, data, generation, estimateBytes(data));
+    }
+
+    /**
+     * クエリ結果をキャッシュする（推定サイズを計算済み）
+     *
+     * @param sql        : {@link String}                         : SQL文
+     * @param paramList  : {@link ArrayList}<{@link DbParameter}> : パラメータのリスト（{@code null} 可）
+     * @param data       : {@link DataSet}                        : クエリ結果
+     * @param generation : long                                   : クエリの実行前に取得した破棄の世代
+     * @param bytes      : long                                   : {@link #estimateBytes(DataSet)} で計算した推定サイズ
+     */
+    void put(String sql, ArrayList<DbParameter> paramList, DataSet data, long generation, long bytes) {
+        if (Util.isNull(data) || bytes > this.maxBytes) {
+            return;
+        }
+        Set<String> tables = parseTables(sql);
+        if (Util.isNull(tables) || tables.isEmpty()) {
+            return; //破棄できないのでキャッシュしない
+        }
+        Key key = new Key(sql, paramList);
+        Entry entry = new Entry(data.copy(), bytes, System.currentTimeMillis() + this.ttl, tables);
+        synchronized (this) {
+            if (generation != this.generation) {
+                return; //クエリの実行中に破棄された
+            }
+            remove(key);
+            this.entries.put(key, entry);
+            this.totalBytes += bytes;
+            for (String table : tables) {
+                HashSet<Key> keys = this.tableIndex.get(table);
+                if (Util.isNull(keys)) {
+                    keys = new HashSet<Key>();
+                    this.tableIndex.put(table, keys);
+                }
+                keys.add(key);
+            }
+            //上限を超えた分を古いものから破棄する
+            while (this.totalBytes > this.maxBytes && !this.entries.isEmpty()) {
+                remove(this.entries.keySet().iterator().next());
+            }
+        }
+    }
+
+    /**
+     * 更新系の SQL 文が参照するテーブルのキャッシュを破棄する
+     * <br>現在のスレッドはコミット（またはロールバック）まで {@link #isCacheable(String)} が {@code false} になる。
+     * テーブルが特定できない場合はすべて破棄する。
+     *
+     * @param sql : {@link String} : SQL文
+     */
+    public void invalidate(String sql) {
+        Set<String> tables = parseTables(Util.null2String(sql));
+        HashSet<String> pending = this.pendingTables.get();
+        if (Util.isNull(pending)) {
+            pending = new HashSet<String>();
+            this.pendingTables.set(pending);
+        }
+        if (Util.isNull(tables) || tables.isEmpty()) {
+            pending.add(ALL_TABLES);
+            clear();
+        } else {
+            pending.addAll(tables);
+            invalidateTables(tables);
+        }
+    }
+
+    /**
+     * 現在のスレッドのトランザクションを終了する
+     * <br>コミットした場合は，トランザクション中に更新したテーブルのキャッシュを改めて破棄する。
+     *
+     * @param committed : boolean : コミットした場合は {@code true}
+     */
+    public void endTransaction(boolean committed) {
+        HashSet<String> pending = this.pendingTables.get();
+        if (!Util.isNull(pending)) {
+            this.pendingTables.remove();
+            if (committed) {
+                if (pending.isEmpty() || pending.contains(ALL_TABLES)) {
+                    clear();
+                } else {
+                    invalidateTables(pending);
+                }
+            }
+        }
+    }
+
+    /**
+     * 指定テーブルを参照するキャッシュを破棄する
+     *
+     * @param tables : {@link Set}<{@link String}> : テーブル名
+     */
+    public synchronized void invalidateTables(Set<String> tables) {
+        this.generation++;
+        for (String table : tables) {
+            HashSet<Key> keys = this.tableIndex.get(normalizeTable(table));
+            if (!Util.isNull(keys)) {
+                for (Key key : new ArrayList<Key>(keys)) {
+                    remove(key);
+                }
+            }
+        }
+    }
+
+    /**
+     * キャッシュをすべて破棄する
+     */
+    public synchronized void clear() {
+        this.generation++;
+        this.entries.clear();
+        this.tableIndex.clear();
+        this.totalBytes = 0;
+    }
+
+    /**
+     * エントリを破棄する（ロックを取得してから呼ぶこと）
+     *
+     * @param key : {@link Key} : キー
+     */
+    private void remove(Key key) {
+        Entry entry = this.entries.remove(key);
+        if (!Util.isNull(entry)) {
+            this.totalBytes -= entry.bytes;
+            for (String table : entry.tables) {
+                HashSet<Key> keys = this.tableIndex.get(table);
+                if (!Util.isNull(keys)) {
+                    keys.remove(key);
+                    if (keys.isEmpty()) {
+                        this.tableIndex.remove(table);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * SQL 文が参照するテーブル名を抽出する
+     * <br>字句に分けて（文字列リテラル・コメントは除く）次の形式のみを解析する。
+     * <ul>
+     * <li>SELECT 文の FROM 句・JOIN 句のテーブル（別名・カンマ区切り可）。サブクエリ，UNION などを含む場合は特定できないとみなす</li>
+     * <li>INSERT/REPLACE [INTO] T，UPDATE T [, ...] SET，DELETE FROM T [, ...]，TRUNCATE [TABLE] T，ALTER TABLE T，DROP TABLE T [, ...]</li>
+     * </ul>
+     *
+     * @param sql : {@link String} : SQL文
+     * @return {@link Set}<{@link String}> ; テーブル名（大文字，スキーマ名なし）。特定できない場合は {@code null} を返す。
+     */
+    public static Set<String> parseTables(String sql) {
+        if (Util.isNull(sql)) {
+            return null;
+        }
+        ArrayList<String> tokens = tokenize(sql);
+        if (tokens.isEmpty()) {
+            return null;
+        }
+        HashSet<String> tables = new HashSet<String>();
+        String command = tokens.get(0).toUpperCase(Locale.ROOT);
+        int pos = 1;
+        if (command.equals("SELECT")) {
+            int depth = 0;
+            while (pos < tokens.size()) {
+                String token = tokens.get(pos).toUpperCase(Locale.ROOT);
+                pos++;
+                if (token.equals("(")) {
+                    depth++;
+                } else if (token.equals(")")) {
+                    depth--;
+                } else if (token.equals("SELECT") || token.equals("UNION") || token.equals("EXCEPT") || token.equals("INTERSECT") || token.equals("MINUS")) {
+                    return null; //サブクエリ・集合演算
+                } else if (token.equals("FROM") || token.equals("JOIN") || token.equals("STRAIGHT_JOIN")) {
+                    if (depth != 0) {
+                        return null; //関数の引数など
+                    }
+                    pos = parseTableList(tokens, pos, tables);
+                    if (pos < 0) {
+                        return null;
+                    }
+                }
+            }
+            return tables;
+        } else if (command.equals("INSERT") || command.equals("REPLACE")) {
+            pos = skipKeywords(tokens, pos, "LOW_PRIORITY", "DELAYED", "HIGH_PRIORITY", "IGNORE");
+            pos = skipKeywords(tokens, pos, "INTO");
+            return (pos < tokens.size() && isIdentifier(tokens.get(pos))) ? singleton(tables, tokens.get(pos)) : null;
+        } else if (command.equals("UPDATE")) {
+            pos = parseTableList(tokens, skipKeywords(tokens, pos, "LOW_PRIORITY", "IGNORE"), tables);
+            return (pos >= 0 && pos < tokens.size() && tokens.get(pos).equalsIgnoreCase("SET")) ? tables : null;
+        } else if (command.equals("DELETE")) {
+            pos = skipKeywords(tokens, pos, "LOW_PRIORITY", "QUICK", "IGNORE");
+            if (pos >= tokens.size() || !tokens.get(pos).equalsIgnoreCase("FROM")) {
+                return null; //複数テーブルの DELETE
+            }
+            pos = parseTableList(tokens, pos + 1, tables);
+            if (pos < 0) {
+                return null;
+            }
+            String next = (pos < tokens.size()) ? tokens.get(pos).toUpperCase(Locale.ROOT) : ";";
+            return (next.equals(";") || next.equals("WHERE") || next.equals("ORDER") || next.equals("LIMIT")) ? tables : null;
+        } else if (command.equals("TRUNCATE")) {
+            pos = skipKeywords(tokens, pos, "TABLE");
+            return (pos < tokens.size() && isIdentifier(tokens.get(pos))) ? singleton(tables, tokens.get(pos)) : null;
+        } else if (command.equals("ALTER")) {
+            pos = skipKeywords(tokens, pos, "ONLINE", "IGNORE");
+            if (pos >= tokens.size() || !tokens.get(pos).equalsIgnoreCase("TABLE")) {
+                return null;
+            }
+            pos++;
+            return (pos < tokens.size() && isIdentifier(tokens.get(pos))) ? singleton(tables, tokens.get(pos)) : null;
+        } else if (command.equals("DROP")) {
+            pos = skipKeywords(tokens, pos, "TEMPORARY");
+            if (pos >= tokens.size() || !tokens.get(pos).equalsIgnoreCase("TABLE")) {
+                return null;
+            }
+            pos++;
+            if (pos + 1 < tokens.size() && tokens.get(pos).equalsIgnoreCase("IF") && tokens.get(pos + 1).equalsIgnoreCase("EXISTS")) {
+                pos += 2;
+            }
+            while (pos < tokens.size() && isIdentifier(tokens.get(pos))) {
+                tables.add(normalizeTable(tokens.get(pos)));
+                pos++;
+                if (pos < tokens.size() && tokens.get(pos).equals(",")) {
+                    pos++;
+                } else {
+                    break;
+                }
+            }
+            return tables.isEmpty() ? null : tables;
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * テーブル参照のリスト（"T1 [AS] A1, T2 A2, ..."）を解析する
+     *
+     * @param tokens : {@link ArrayList}<{@link String}> : 字句
+     * @param pos    : int                               : 開始位置
+     * @param tables : {@link Set}<{@link String}>        : 抽出したテーブル名の格納先
+     * @return int ; リストの次の位置。テーブル名でないもの（サブクエリなど）がある場合は -1 を返す。
+     */
+    private static int parseTableList(ArrayList<String> tokens, int pos, Set<String> tables) {
+        while (true) {
+            if (pos >= tokens.size() || !isIdentifier(tokens.get(pos))) {
+                return -1;
+            }
+            tables.add(normalizeTable(tokens.get(pos)));
+            pos++;
+            //別名
+            if (pos < tokens.size() && tokens.get(pos).equalsIgnoreCase("AS")) {
+                pos++;
+                if (pos >= tokens.size() || !isIdentifier(tokens.get(pos))) {
+                    return -1;
+                }
+                pos++;
+            } else if (pos < tokens.size() && isIdentifier(tokens.get(pos)) && !clauseKeywords.contains(tokens.get(pos).toUpperCase(Locale.ROOT))) {
+                pos++;
+            }
+            if (pos < tokens.size() && tokens.get(pos).equals(",")) {
+                pos++;
+            } else {
+                return pos;
+            }
+        }
+    }
+
+    /**
+     * 指定のキーワードを読み飛ばす
+     *
+     * @param tokens   : {@link ArrayList}<{@link String}> : 字句
+     * @param pos      : int                               : 開始位置
+     * @param keywords : {@link String}...                  : 読み飛ばすキーワード（大文字）
+     * @return int ; キーワードの次の位置
+     */
+    private static int skipKeywords(ArrayList<String> tokens, int pos, String... keywords) {
+        List<String> list = Arrays.asList(keywords);
+        while (pos < tokens.size() && list.contains(tokens.get(pos).toUpperCase(Locale.ROOT))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    /**
+     * テーブル名をひとつ加えたセットを返す
+     *
+     * @param tables : {@link Set}<{@link String}> : 格納先
+     * @param table  : {@link String}               : テーブル名
+     * @return {@link Set}<{@link String}> ; 格納先
+     */
+    private static Set<String> singleton(Set<String> tables, String table) {
+        tables.add(normalizeTable(table));
+        return tables;
+    }
+
+    /**
+     * SQL 文を字句に分ける
+     * <br>空白・コメントは除き，文字列リテラルは "'" ひとつに置き換える。
+     * 識別子は "." でつないだものをひとつにまとめる（引用符は残す）。それ以外の記号は1文字ずつに分ける。
+     *
+     * @param sql : {@link String} : SQL文
+     * @return {@link ArrayList}<{@link String}> ; 字句
+     */
+    private static ArrayList<String> tokenize(String sql) {
+        ArrayList<String> tokens = new ArrayList<String>();
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '#' || sql.startsWith("--", i)) {
+                int end = sql.indexOf('\n', i);
+                i = (end < 0) ? length : end + 1;
+            } else if (sql.startsWith("/*", i)) {
+                int end = sql.indexOf("*/", i + 2);
+                i = (end < 0) ? length : end + 2;
+            } else if (c == '\'') {
+                i = skipQuoted(sql, i);
+                tokens.add("'");
+            } else if (c == '`' || c == '"' || isWordPart(c)) {
+                int start = i;
+                while (true) {
+                    char d = sql.charAt(i);
+                    if (d == '`' || d == '"') {
+                        i = skipQuoted(sql, i);
+                    } else {
+                        while (i < length && isWordPart(sql.charAt(i))) {
+                            i++;
+                        }
+                    }
+                    if (i + 1 < length && sql.charAt(i) == '.' && (sql.charAt(i + 1) == '`' || sql.charAt(i + 1) == '"' || isWordPart(sql.charAt(i + 1)))) {
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                tokens.add(sql.substring(start, i));
+            } else {
+                tokens.add(String.valueOf(c));
+                i++;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * 引用符で囲まれた部分を読み飛ばす（引用符を重ねたもの，"\" の後の文字はエスケープ）
+     *
+     * @param sql   : {@link String} : SQL文
+     * @param start : int             : 開始の引用符の位置
+     * @return int ; 終了の引用符の次の位置
+     */
+    private static int skipQuoted(String sql, int start) {
+        char quote = sql.charAt(start);
+        int i = start + 1;
+        while (i < sql.length()) {
+            char c = sql.charAt(i);
+            if (c == '\\' && quote == '\'') {
+                i += 2;
+            } else if (c == quote) {
+                if (i + 1 < sql.length() && sql.charAt(i + 1) == quote) {
+                    i += 2;
+                } else {
+                    return i + 1;
+                }
+            } else {
+                i++;
+            }
+        }
+        return sql.length();
+    }
+
+    /**
+     * 識別子（またはキーワード）を構成する文字か
+     *
+     * @param c : char : 文字
+     * @return boolean ; 英数字・"_"・"$" なら {@code true}
+     */
+    private static boolean isWordPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+
+    /**
+     * 字句が識別子か（数値・記号・文字列リテラル・空の引用符付き識別子でない）
+     *
+     * @param token : {@link String} : 字句
+     * @return boolean ; 識別子なら {@code true}
+     */
+    private static boolean isIdentifier(String token) {
+        char c = token.charAt(0);
+        if (c == '`' || c == '"') {
+            return !Util.isBlank(normalizeTable(token));
+        } else {
+            return Character.isLetter(c) || c == '_' || c == '$';
+        }
+    }
+
+    /**
+     * テーブル名を正規化する
+     *
+     * @param table : {@link String} : テーブル名
+     * @return {@link String} ; 大文字，引用符・スキーマ名なしのテーブル名
+     */
+    private static String normalizeTable(String table) {
+        String name = table.trim().replace("`", "").replace("\"", "");
+        int pos = name.lastIndexOf('.');
+        return ((pos < 0) ? name : name.substring(pos + 1)).toUpperCase();
+    }
+
+    /**
+     * データセットの推定サイズを求める
+     *
+     * @param data : {@link DataSet} : データセット
+     * @return long ; 推定サイズ（バイト）
+     */
+    static long estimateBytes(DataSet data) {
+        long bytes = 64;
+        for (int rowNum = 1; rowNum <= data.sizeRow(); rowNum++) {
+            DataRow row = data.getRow(rowNum);
+            bytes += 48 + 8 * row.size();
+            for (int colNum = 1; colNum <= row.size(); colNum++) {
+                String value = row.get(colNum);
+                if (!Util.isNull(value)) {
+                    bytes += 40 + 2 * value.length();
+                }
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * キャッシュしているクエリ結果の数を取得する
+     *
+     * @return int ; クエリ結果の数
+     */
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * キャッシュしているデータの推定サイズの合計を取得する
+     *
+     * @return long ; 推定サイズ（バイト）
+     */
+    public synchronized long getBytes() {
+        return this.totalBytes;
+    }
+
+    /**
+     * キャッシュにヒットした回数を取得する
+     *
+     * @return long ; ヒット回数
+     */
+    public long getHitCount() {
+        return this.hitCount.get();
+    }
+
+    /**
+     * キャッシュにヒットしなかった回数を取得する
+     *
+     * @return long ; ミス回数
+     */
+    public long getMissCount() {
+        return this.missCount.get();
+    }
+}
@@ -0,0 +1,24 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.jdbc;
+
+import java.sql.SQLException;
+
+/**
+ * 行データ処理インタフェース
+ * <br>{@link DbStatement#select(RowHandler, int)} でクエリ結果を1行ずつ受け取る。
+ */
+public interface RowHandler {
+
+    /**
+     * 行データを処理する
+     *
+     * @param row : {@link DataRow} : 行データ
+     * @return boolean ; 次の行を続けて処理する場合は {@code true}。処理を中断する場合は {@code false}。
+     * @throws SQLException 行データの処理に失敗した場合
+     */
+    boolean handle(DataRow row) throws SQLException;
+}
@@ -0,0 +1,201 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.jdbc;
+
+import info.baldanders.Util;
+import info.baldanders.log.LazyLogger;
+
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * スロークエリログクラス
+ * <br>実行時間がしきい値を超えた {@link DbStatement} の実行を logger "jdbc.SlowQuery" に WARNING で出力する。
+ * 出力内容は SQL 文・パラメータ・実行時間・行数・接続の待ち時間。
+ * 障害時に出力自体が負荷にならないよう，以下のサンプリングを行う。
+ * <ul>
+ * <li>しきい値を超えた実行の {@code sampleRate} 件に1件のみ出力する</li>
+ * <li>1秒あたり {@code maxPerSecond} 件を超えた分は出力しない</li>
+ * </ul>
+ * しきい値の判定は比較1回のみで，メッセージはハンドラが出力するときに組み立てる。
+ */
+public final class SlowQueryLog {
+
+    /** logger 名 */
+    public static final String LOGGER_NAME = "jdbc.SlowQuery";
+
+    /** logger */
+    private static final LazyLogger logger = LazyLogger.getLogger(LOGGER_NAME);
+
+    /** しきい値（ナノ秒） */
+    private final long thresholdNanos;
+
+    /** 何件に1件出力するか */
+    private final int sampleRate;
+
+    /** 1秒あたりの最大出力件数 */
+    private final int maxPerSecond;
+
+    /** しきい値を超えた件数 */
+    private final AtomicLong slowCount;
+
+    /** 出力した件数 */
+    private final AtomicLong loggedCount;
+
+    /** 出力件数を数えている1秒間の開始時刻（秒） */
+    private final AtomicLong windowSecond;
+
+    /** 1秒間の出力件数 */
+    private final AtomicLong windowCount;
+
+    /**
+     * パラメータの文字列表現（出力時に組み立てる）
+     */
+    private static final class Parameters {
+        /** パラメータの値 */
+        private final Object[] values;
+
+        /**
+         * コンストラクタ
+         *
+         * @param paramList : {@link ArrayList}<{@link DbParameter}> : パラメータのリスト
+         */
+        Parameters(ArrayList<DbParameter> paramList) {
+            this.values = new Object[paramList.size()];
+            for (int i = 0; i < this.values.length; i++) {
+                DbParameter param = paramList.get(i);
+                this.values[i] = Util.isNull(param) ? null : param.getValue();
+            }
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder("[");
+            Util.stringJoin(sb, ", ", this.values, Util.Quote.TYPE_SQL);
+            return sb.append(']').toString();
+        }
+    }
+
+    /**
+     * コンストラクタ
+     *
+     * @param thresholdMillis : long : しきい値（ミリ秒）
+     * @param sampleRate      : int  : 何件に1件出力するか（1未満なら1）
+     * @param maxPerSecond    : int  : 1秒あたりの最大出力件数（1未満なら1）
+     */
+    public SlowQueryLog(long thresholdMillis, int sampleRate, int maxPerSecond) {
+        this.thresholdNanos = Math.max(thresholdMillis, 0) * 1000000L;
+        this.sampleRate = Math.max(sampleRate, 1);
+        this.maxPerSecond = Math.max(maxPerSecond, 1);
+        this.slowCount = new AtomicLong(0);
+        this.loggedCount = new AtomicLong(0);
+        this.windowSecond = new AtomicLong(0);
+        this.windowCount = new AtomicLong(0);
+    }
+
+    /**
+     * 実行時間がしきい値を超えていれば出力する
+     * <br>パラメータの値は出力すると決まったときにのみ複製する（しきい値未満ならリストを参照しない）。
+     *
+     * @param sql         : {@link String}                         : SQL文
+     * @param paramList   : {@link ArrayList}<{@link DbParameter}> : パラメータのリスト（{@code null} 可）
+     * @param elapsed     : long                                   : 実行時間（ナノ秒）
+     * @param rows        : long                                   : 取得・更新した行数
+     * @param waitNanos   : long                                   : 接続の待ち時間（ナノ秒）
+     * @param failed      : boolean                                : 実行に失敗した場合は {@code true}
+     * @return boolean ; 出力した場合は {@code true}
+     */
+    public boolean check(String sql, ArrayList<DbParameter> paramList, long elapsed, long rows, long waitNanos, boolean failed) {
+        if (!sample(elapsed)) {
+            return false;
+        }
+        logger.logv(Level.WARNING, "slow query{}: {}ms, rows={}, wait={}ms, sql={}, params={}",
+                failed ? " (failed)" : "", elapsed / 1000 / 1000.0, rows, waitNanos / 1000 / 1000.0, sql,
+                Util.isNull(paramList) ? "[]" : new Parameters(paramList));
+        return true;
+    }
+
+    /**
+     * バッチ実行の実行時間がしきい値を超えていれば出力する
+     * <br>パラメータの代わりにパラメータのリストの数を出力する。
+     *
+     * @param sql        : {@link String} : SQL文
+     * @param batchCount : int             : パラメータのリストの数
+     * @param elapsed    : long            : 実行時間（ナノ秒）
+     * @param rows       : long            : 更新した行数
+     * @param waitNanos  : long            : 接続の待ち時間（ナノ秒）
+     * @param failed     : boolean         : 実行に失敗した場合は {@code true}
+     * @return boolean ; 出力した場合は {@code true}
+     */
+    public boolean checkBatch(String sql, int batchCount, long elapsed, long rows, long waitNanos, boolean failed) {
+        if (!sample(elapsed)) {
+            return false;
+        }
+        logger.logv(Level.WARNING, "slow query{}: {}ms, rows={}, wait={}ms, sql={}, batch={}",
+                failed ? " (failed)" : "", elapsed / 1000 / 1000.0, rows, waitNanos / 1000 / 1000.0, sql, batchCount);
+        return true;
+    }
+
+    /**
+     * しきい値とサンプリングで出力するかを決める
+     *
+     * @param elapsed : long : 実行時間（ナノ秒）
+     * @return boolean ; 出力する場合は {@code true}
+     */
+    private boolean sample(long elapsed) {
+        if (elapsed < this.thresholdNanos) {
+            return false;
+        }
+        long count = this.slowCount.incrementAndGet();
+        if (count % this.sampleRate != 0 || !acquire()) {
+            return false;
+        }
+        this.loggedCount.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * 1秒あたりの出力件数の枠を取る
+     *
+     * @return boolean ; 枠が残っていれば {@code true}
+     */
+    private boolean acquire() {
+        long second = System.nanoTime() / 1000000000L;
+        long current = this.windowSecond.get();
+        if (second != current && this.windowSecond.compareAndSet(current, second)) {
+            this.windowCount.set(0);
+        }
+        return this.windowCount.incrementAndGet() <= this.maxPerSecond;
+    }
+
+    /**
+     * しきい値を取得する
+     *
+     * @return long ; しきい値（ミリ秒）
+     */
+    public long getThresholdMillis() {
+        return this.thresholdNanos / 1000000L;
+    }
+
+    /**
+     * しきい値を超えた件数を取得する
+     *
+     * @return long ; しきい値を超えた件数（出力しなかったものを含む）
+     */
+    public long getSlowCount() {
+        return this.slowCount.get();
+    }
+
+    /**
+     * 出力した件数を取得する
+     *
+     * @return long ; 出力した件数
+     */
+    public long getLoggedCount() {
+        return this.loggedCount.get();
+    }
+}
@@ -0,0 +1,197 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.jdbc;
+
+import info.baldanders.Util;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link PreparedStatement} のキャッシュクラス
+ * <br>接続ごとに SQL 文をキーとして {@link PreparedStatement} を保持する（LRU）。
+ * 最大数を超えた場合は最も長く使われていないステートメントを閉じて破棄する。
+ * <br>{@link #prepare(String)} で取得したステートメントは使用中として扱い，{@link #release(PreparedStatement)} で返却する。
+ * 使用中のステートメントと同じ SQL 文を取得した場合は，キャッシュしない新しいステートメントを返す。
+ * 使用中のステートメントが破棄の対象になった場合は，返却時に閉じる。
+ */
+public final class StatementCache {
+
+    /** 接続オブジェクト */
+    private final Connection connection;
+
+    /** 最大保持数 */
+    private final int maxSize;
+
+    /** SQL 文をキーとするステートメント（アクセス順） */
+    private final LinkedHashMap<String, PreparedStatement> statements;
+
+    /** 使用中のキャッシュ済みステートメントと SQL 文 */
+    private final IdentityHashMap<PreparedStatement, String> inUse;
+
+    /** キャッシュにヒットした回数 */
+    private final AtomicLong hitCount;
+
+    /** キャッシュにヒットしなかった回数 */
+    private final AtomicLong missCount;
+
+    /**
+     * コンストラクタ
+     *
+     * @param connection : {@link Connection} : 接続オブジェクト
+     * @param maxSize    : int                : 最大保持数（1未満なら1とする）
+     */
+    public StatementCache(Connection connection, int maxSize) {
+        this.connection = connection;
+        this.maxSize = Math.max(maxSize, 1);
+        this.hitCount = new AtomicLong(0);
+        this.missCount = new AtomicLong(0);
+        this.inUse = new IdentityHashMap<PreparedStatement, String>();
+        this.statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() > StatementCache.this.maxSize) {
+                    //使用中なら返却時に閉じる
+                    if (Util.isNull(StatementCache.this.inUse.remove(eldest.getValue()))) {
+                        closeStatement(eldest.getValue());
+                    }
+                    return true;
+                } else {
+                    return false;
+                }
+            }
+        };
+    }
+
+    /**
+     * ステートメントを取得する
+     * <br>キャッシュにあればそれを返し，なければ生成してキャッシュする。
+     * キャッシュにあっても使用中であれば，キャッシュしない新しいステートメントを返す。
+     * 使い終わったら {@link #release(PreparedStatement)} で返却すること。
+     *
+     * @param sql : {@link String} : SQL文
+     * @return {@link PreparedStatement} ; ステートメント
+     * @throws SQLException ステートメントの生成に失敗した場合
+     */
+    public synchronized PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement statement = this.statements.get(sql);
+        if (!Util.isNull(statement) && !statement.isClosed()) {
+            if (this.inUse.containsKey(statement)) {
+                //使用中ならキャッシュしないステートメントを返す
+                this.missCount.incrementAndGet();
+                return this.connection.prepareStatement(sql);
+            }
+            this.hitCount.incrementAndGet();
+        } else {
+            this.missCount.incrementAndGet();
+            statement = this.connection.prepareStatement(sql);
+            this.statements.put(sql, statement);
+        }
+        this.inUse.put(statement, sql);
+        return statement;
+    }
+
+    /**
+     * ステートメントを返却する
+     * <br>キャッシュ済みのステートメントは開いている結果セットを閉じ，パラメータ・バッチ・フェッチサイズを戻して再利用に備える。
+     * キャッシュしていないステートメント（使用中に取得したもの，破棄の対象になったもの）は閉じる。
+     *
+     * @param statement : {@link PreparedStatement} : {@link #prepare(String)} で取得したステートメント
+     */
+    public synchronized void release(PreparedStatement statement) {
+        if (Util.isNull(statement)) {
+            return;
+        }
+        String sql = this.inUse.remove(statement);
+        if (Util.isNull(sql)) {
+            closeStatement(statement);
+            return;
+        }
+        try {
+            ResultSet rs = statement.getResultSet();
+            if (!Util.isNull(rs)) {
+                rs.close();
+            }
+            statement.clearParameters();
+            statement.clearBatch();
+            statement.setFetchSize(0);
+        } catch (SQLException e) {
+            //再利用できないので破棄する
+            if (this.statements.get(sql) == statement) {
+                this.statements.remove(sql);
+            }
+            closeStatement(statement);
+        }
+    }
+
+    /**
+     * キャッシュしているステートメントをすべて閉じる
+     */
+    public synchronized void close() {
+        for (PreparedStatement statement : this.statements.values()) {
+            closeStatement(statement);
+        }
+        this.statements.clear();
+        this.inUse.clear();
+    }
+
+    /**
+     * ステートメントを閉じる
+     *
+     * @param statement : {@link PreparedStatement} : ステートメント
+     */
+    private static void closeStatement(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            //例外は無視する
+        }
+    }
+
+    /**
+     * キャッシュしているステートメント数を取得する
+     *
+     * @return int ; ステートメント数
+     */
+    public synchronized int size() {
+        return this.statements.size();
+    }
+
+    /**
+     * 最大保持数を取得する
+     *
+     * @return int ; 最大保持数
+     */
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+
+    /**
+     * キャッシュにヒットした回数を取得する
+     *
+     * @return long ; ヒット回数
+     */
+    public long getHitCount() {
+        return this.hitCount.get();
+    }
+
+    /**
+     * キャッシュにヒットしなかった回数を取得する
+     *
+     * @return long ; ミス回数
+     */
+    public long getMissCount() {
+        return this.missCount.get();
+    }
+}
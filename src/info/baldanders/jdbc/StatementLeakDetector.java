@@ -0,0 +1,142 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.jdbc;
+
+import info.baldanders.Util;
+import info.baldanders.log.LoggerFactory;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * {@link DbStatement} の close 漏れ検出クラス
+ * <br>{@link PhantomReference} で {@link DbStatement} を追跡し，
+ * close されずに破棄されたものがあればステートメントを閉じる
+ * （{@link StatementCache} のステートメントはキャッシュに返却する）。
+ * 破棄の確認は新たなステートメントを追跡するときに行う。
+ * <br>検出の有効・無効によらず常に追跡する。
+ * 検出が有効な場合のみ生成箇所を記録し，破棄されたときにログに出力する。
+ */
+final class StatementLeakDetector {
+
+    /**
+     * 追跡情報
+     */
+    static final class Tracker extends PhantomReference<DbStatement> {
+        /** 追跡対象のステートメント */
+        private final PreparedStatement statement;
+        /** ステートメントを取得したキャッシュ（{@code null} ならキャッシュしていない） */
+        private final StatementCache cache;
+        /** 生成箇所（検出が無効なら {@code null}） */
+        private final Throwable allocationSite;
+
+        /**
+         * コンストラクタ
+         *
+         * @param owner     : {@link DbStatement}       : 追跡対象
+         * @param statement : {@link PreparedStatement} : 追跡対象のステートメント
+         * @param cache     : {@link StatementCache}    : ステートメントを取得したキャッシュ（{@code null} 可）
+         */
+        private Tracker(DbStatement owner, PreparedStatement statement, StatementCache cache) {
+            super(owner, queue);
+            this.statement = statement;
+            this.cache = cache;
+            this.allocationSite = enabled ? new Throwable("DbStatement の生成箇所") : null;
+        }
+
+        /**
+         * 追跡を終了する（close された場合）
+         */
+        void clean() {
+            trackers.remove(this);
+            clear();
+        }
+    }
+
+    /** 検出が有効なら {@code true} */
+    private static volatile boolean enabled = false;
+
+    /** 破棄された {@link DbStatement} の通知先 */
+    private static final ReferenceQueue<DbStatement> queue = new ReferenceQueue<DbStatement>();
+
+    /** 追跡中の情報（追跡情報自体が破棄されないように保持する） */
+    private static final Set<Tracker> trackers = Collections.newSetFromMap(new ConcurrentHashMap<Tracker, Boolean>());
+
+    /** logger */
+    private static final Logger logger = LoggerFactory.getLogger("jdbc.StatementLeakDetector");
+
+    /**
+     * コンストラクタ（static 関数群なので private として実装）
+     */
+    private StatementLeakDetector() {}
+
+    /**
+     * 検出の有効・無効を設定する
+     *
+     * @param flag : boolean : 有効なら {@code true}
+     */
+    static void setEnabled(boolean flag) {
+        enabled = flag;
+    }
+
+    /**
+     * 検出が有効か
+     *
+     * @return boolean ; 有効なら {@code true}
+     */
+    static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * ステートメントの追跡を開始する
+     * <br>あわせて破棄済みのステートメントを確認する。
+     *
+     * @param owner     : {@link DbStatement}       : 追跡対象
+     * @param statement : {@link PreparedStatement} : 追跡対象のステートメント
+     * @param cache     : {@link StatementCache}    : ステートメントを取得したキャッシュ（{@code null} 可）
+     * @return {@link Tracker} ; 追跡情報
+     */
+    static Tracker track(DbStatement owner, PreparedStatement statement, StatementCache cache) {
+        expunge();
+        Tracker tracker = new Tracker(owner, statement, cache);
+        trackers.add(tracker);
+        return tracker;
+    }
+
+    /**
+     * close されずに破棄されたステートメントを閉じる（キャッシュのステートメントは返却する）
+     * <br>生成箇所を記録していればログに出力する。
+     */
+    static void expunge() {
+        Reference<? extends DbStatement> ref;
+        while (!Util.isNull(ref = queue.poll())) {
+            Tracker tracker = (Tracker)ref;
+            if (trackers.remove(tracker)) {
+                if (!Util.isNull(tracker.allocationSite)) {
+                    logger.log(Level.WARNING, "DbStatement が close されずに破棄されました。", tracker.allocationSite);
+                }
+                if (!Util.isNull(tracker.cache)) {
+                    tracker.cache.release(tracker.statement);
+                } else {
+                    try {
+                        tracker.statement.close();
+                    } catch (SQLException e) {
+                        //例外は無視する
+                    }
+                }
+            }
+        }
+    }
+}
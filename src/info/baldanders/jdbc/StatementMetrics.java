@@ -0,0 +1,396 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.jdbc;
+
+import info.baldanders.Util;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * SQL実行統計クラス
+ * <br>正規化した SQL 文（空白をまとめ，文字列・数値のリテラルを "?" に置き換えたもの）ごとに，
+ * 実行回数・失敗回数・行数・{@link DataSet} に展開したデータの推定サイズ・実行時間のヒストグラムを記録する。
+ * 記録はアトミックな加算のみでロックを取らないので，常時有効にしておける。
+ * {@link DataAccess} から取得した {@link DbStatement} の実行は自動で記録する（{@code metrics.enabled=true} の場合）。
+ * 統計は {@link #snapshot()} または JMX（{@link #OBJECT_NAME}）で参照する。
+ * SQL 文の数が上限を超えた場合，新しい SQL 文は "(other)" にまとめて記録する。
+ */
+public final class StatementMetrics implements StatementMetricsMXBean {
+
+    /** JMX の登録名 */
+    public static final String OBJECT_NAME = "info.baldanders.jdbc:type=StatementMetrics";
+
+    /** 上限を超えた SQL 文をまとめる名前 */
+    static final String OTHER = "(other)";
+
+    /** 正規化前の SQL 文を覚えておく数（SQL 文の数の上限に対する倍率） */
+    private static final int RAW_SQL_FACTOR = 4;
+
+    /** SQL 文の数の上限 */
+    private final int maxStatements;
+
+    /** 正規化した SQL 文ごとの統計 */
+    private final ConcurrentHashMap<String, Entry> entries;
+
+    /** 正規化前の SQL 文ごとの統計（正規化を省くため） */
+    private final ConcurrentHashMap<String, Entry> rawEntries;
+
+    /**
+     * SQL 文ごとの統計
+     */
+    private static final class Entry {
+        /** SQL文（正規化済み） */
+        final String sql;
+        /** 実行回数 */
+        final AtomicLong count = new AtomicLong(0);
+        /** 失敗した回数 */
+        final AtomicLong errorCount = new AtomicLong(0);
+        /** 行数の合計 */
+        final AtomicLong rows = new AtomicLong(0);
+        /** 推定サイズの合計 */
+        final AtomicLong bytes = new AtomicLong(0);
+        /** 実行時間の合計 */
+        final AtomicLong totalNanos = new AtomicLong(0);
+        /** 実行時間のヒストグラム */
+        final LatencyHistogram histogram = new LatencyHistogram();
+
+        /**
+         * コンストラクタ
+         *
+         * @param sql : {@link String} : SQL文（正規化済み）
+         */
+        Entry(String sql) {
+            this.sql = sql;
+        }
+
+        /**
+         * スナップショットを作成する
+         *
+         * @return {@link StatementStats} ; 統計
+         */
+        StatementStats toStats() {
+            long[] counts = this.histogram.getCounts();
+            long max = this.histogram.getMax();
+            return new StatementStats(this.sql, this.count.get(), this.errorCount.get(), this.rows.get(), this.bytes.get(),
+                    this.totalNanos.get(), max, LatencyHistogram.percentile(counts, 0.5, max),
+                    LatencyHistogram.percentile(counts, 0.99, max), LatencyHistogram.percentile(counts, 0.999, max));
+        }
+    }
+
+    /**
+     * コンストラクタ
+     *
+     * @param maxStatements : int : 統計を取る SQL 文の数の上限（1未満なら1000）
+     */
+    public StatementMetrics(int maxStatements) {
+        this.maxStatements = (maxStatements < 1) ? 1000 : maxStatements;
+        this.entries = new ConcurrentHashMap<String, Entry>();
+        this.rawEntries = new ConcurrentHashMap<String, Entry>();
+    }
+
+    /**
+     * 実行結果を記録する
+     *
+     * @param sql        : {@link String} : SQL文（正規化前）
+     * @param startNanos : long            : 開始時刻（{@link System#nanoTime()}）
+     * @param rows       : long            : 取得・更新した行数
+     * @param bytes      : long            : {@link DataSet} に展開したデータの推定サイズ（バイト）
+     */
+    public void record(String sql, long startNanos, long rows, long bytes) {
+        recordElapsed(sql, System.nanoTime() - startNanos, rows, bytes);
+    }
+
+    /**
+     * 実行結果を記録する（実行時間を計測済み）
+     *
+     * @param sql     : {@link String} : SQL文（正規化前）
+     * @param elapsed : long            : 実行時間（ナノ秒）
+     * @param rows    : long            : 取得・更新した行数
+     * @param bytes   : long            : {@link DataSet} に展開したデータの推定サイズ（バイト）
+     */
+    void recordElapsed(String sql, long elapsed, long rows, long bytes) {
+        Entry entry = getEntry(sql);
+        entry.count.incrementAndGet();
+        entry.totalNanos.addAndGet(elapsed);
+        entry.histogram.record(elapsed);
+        if (rows > 0) {
+            entry.rows.addAndGet(rows);
+        }
+        if (bytes > 0) {
+            entry.bytes.addAndGet(bytes);
+        }
+    }
+
+    /**
+     * 失敗した実行を記録する
+     *
+     * @param sql        : {@link String} : SQL文（正規化前）
+     * @param startNanos : long            : 開始時刻（{@link System#nanoTime()}）
+     */
+    public void recordError(String sql, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        Entry entry = getEntry(sql);
+        entry.count.incrementAndGet();
+        entry.errorCount.incrementAndGet();
+        entry.totalNanos.addAndGet(elapsed);
+        entry.histogram.record(elapsed);
+    }
+
+    /**
+     * SQL 文の統計を取得する
+     *
+     * @param sql : {@link String} : SQL文（正規化前または正規化済み）
+     * @return {@link StatementStats} ; 統計。記録がない場合は {@code null} を返す。
+     */
+    public StatementStats get(String sql) {
+        Entry entry = this.rawEntries.get(Util.null2String(sql));
+        if (Util.isNull(entry)) {
+            entry = this.entries.get(normalize(sql));
+        }
+        return Util.isNull(entry) ? null : entry.toStats();
+    }
+
+    /**
+     * 全 SQL 文の統計を取得する
+     *
+     * @return {@link ArrayList}<{@link StatementStats}> ; 統計（実行時間の合計の降順）
+     */
+    public ArrayList<StatementStats> snapshot() {
+        ArrayList<StatementStats> list = new ArrayList<StatementStats>();
+        for (Entry entry : this.entries.values()) {
+            list.add(entry.toStats());
+        }
+        Collections.sort(list, new Comparator<StatementStats>() {
+            @Override
+            public int compare(StatementStats o1, StatementStats o2) {
+                return (o1.getTotalNanos() < o2.getTotalNanos()) ? 1 : ((o1.getTotalNanos() == o2.getTotalNanos()) ? 0 : -1);
+            }
+        });
+        return list;
+    }
+
+    /**
+     * 統計を取っている SQL 文の数を取得する
+     * @see info.baldanders.jdbc.StatementMetricsMXBean#getStatementCount()
+     */
+    @Override
+    public int getStatementCount() {
+        return this.entries.size();
+    }
+
+    /**
+     * 全 SQL 文の実行回数の合計を取得する
+     * @see info.baldanders.jdbc.StatementMetricsMXBean#getExecutionCount()
+     */
+    @Override
+    public long getExecutionCount() {
+        long count = 0;
+        for (Entry entry : this.entries.values()) {
+            count += entry.count.get();
+        }
+        return count;
+    }
+
+    /**
+     * 全 SQL 文の失敗した回数の合計を取得する
+     * @see info.baldanders.jdbc.StatementMetricsMXBean#getErrorCount()
+     */
+    @Override
+    public long getErrorCount() {
+        long count = 0;
+        for (Entry entry : this.entries.values()) {
+            count += entry.errorCount.get();
+        }
+        return count;
+    }
+
+    /**
+     * SQL 文ごとの統計を取得する
+     * @see info.baldanders.jdbc.StatementMetricsMXBean#getStatements()
+     */
+    @Override
+    public StatementStats[] getStatements() {
+        ArrayList<StatementStats> list = snapshot();
+        return list.toArray(new StatementStats[list.size()]);
+    }
+
+    /**
+     * 実行時間の合計が大きい SQL 文の統計を取得する
+     * @see info.baldanders.jdbc.StatementMetricsMXBean#getTopStatements(int)
+     */
+    @Override
+    public StatementStats[] getTopStatements(int limit) {
+        ArrayList<StatementStats> list = snapshot();
+        int size = Math.max(Math.min(limit, list.size()), 0);
+        return list.subList(0, size).toArray(new StatementStats[size]);
+    }
+
+    /**
+     * 統計をクリアする
+     * @see info.baldanders.jdbc.StatementMetricsMXBean#reset()
+     */
+    @Override
+    public void reset() {
+        this.rawEntries.clear();
+        this.entries.clear();
+    }
+
+    /**
+     * JMX に登録する（{@link #OBJECT_NAME}）
+     * <br>登録済みの場合は置き換える。
+     *
+     * @return boolean ; 登録できた場合は {@code true}
+     */
+    public boolean register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+            return true;
+        } catch (JMException e) {
+            return false;
+        } catch (SecurityException e) {
+            return false;
+        }
+    }
+
+    /**
+     * JMX の登録を解除する
+     *
+     * @return boolean ; 解除できた場合は {@code true}
+     */
+    public boolean unregister() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+                return true;
+            }
+            return false;
+        } catch (JMException e) {
+            return false;
+        } catch (SecurityException e) {
+            return false;
+        }
+    }
+
+    /**
+     * SQL 文の統計を取得する（なければ作る）
+     *
+     * @param sql : {@link String} : SQL文（正規化前）
+     * @return {@link Entry} ; 統計
+     */
+    private Entry getEntry(String sql) {
+        sql = Util.null2String(sql);
+        Entry entry = this.rawEntries.get(sql);
+        if (!Util.isNull(entry)) {
+            return entry;
+        }
+        String normalized = normalize(sql);
+        entry = this.entries.get(normalized);
+        if (Util.isNull(entry)) {
+            if (this.entries.size() >= this.maxStatements) {
+                normalized = OTHER; //上限を超えたらまとめる
+            }
+            Entry newEntry = new Entry(normalized);
+            entry = this.entries.putIfAbsent(normalized, newEntry);
+            if (Util.isNull(entry)) {
+                entry = newEntry;
+            }
+        }
+        if (this.rawEntries.size() < this.maxStatements * RAW_SQL_FACTOR) {
+            this.rawEntries.put(sql, entry);
+        }
+        return entry;
+    }
+
+    /**
+     * SQL 文を正規化する
+     * <br>連続する空白を1文字にまとめ，文字列・数値のリテラルを "?" に置き換え，末尾の ";" を取り除く。
+     *
+     * @param sql : {@link String} : SQL文（{@code null} は空文字列と見なす）
+     * @return {@link String} ; 正規化した SQL 文
+     */
+    static String normalize(String sql) {
+        sql = Util.null2String(sql);
+        int length = sql.length();
+        StringBuilder sb = new StringBuilder(length);
+        boolean space = false;
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                space = true;
+                i++;
+                continue;
+            }
+            if (space && sb.length() > 0) {
+                sb.append(' ');
+            }
+            space = false;
+            if (c == '\'') {
+                //文字列リテラル（'' はエスケープ）
+                i++;
+                while (i < length) {
+                    if (sql.charAt(i) == '\'') {
+                        if (i + 1 < length && sql.charAt(i + 1) == '\'') {
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                i++;
+                sb.append('?');
+            } else if (c == '"' || c == '`') {
+                //識別子はそのまま
+                int end = sql.indexOf(c, i + 1);
+                end = (end < 0) ? length : end + 1;
+                sb.append(sql, i, end);
+                i = end;
+            } else if (Character.isDigit(c) && (sb.length() == 0 || !isIdentifierPart(sb.charAt(sb.length() - 1)))) {
+                //数値リテラル
+                while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                sb.append('?');
+            } else {
+                sb.append(c);
+                i++;
+            }
+        }
+        int end = sb.length();
+        while (end > 0 && (sb.charAt(end - 1) == ';' || sb.charAt(end - 1) == ' ')) {
+            end--;
+        }
+        sb.setLength(end);
+        return sb.toString();
+    }
+
+    /**
+     * 識別子に使える文字か
+     *
+     * @param c : char : 文字
+     * @return boolean ; 英数字・"_"・"$" なら {@code true}
+     */
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+    }
+}
@@ -0,0 +1,55 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.jdbc;
+
+/**
+ * SQL実行統計の JMX インタフェース
+ * <br>{@link StatementMetrics#OBJECT_NAME} で登録する。
+ * @see StatementMetrics
+ */
+public interface StatementMetricsMXBean {
+
+    /**
+     * 統計を取っている SQL 文の数を取得する
+     *
+     * @return int ; SQL 文（正規化済み）の数
+     */
+    int getStatementCount();
+
+    /**
+     * 全 SQL 文の実行回数の合計を取得する
+     *
+     * @return long ; 実行回数（失敗を含む）
+     */
+    long getExecutionCount();
+
+    /**
+     * 全 SQL 文の失敗した回数の合計を取得する
+     *
+     * @return long ; 失敗した回数
+     */
+    long getErrorCount();
+
+    /**
+     * SQL 文ごとの統計を取得する
+     *
+     * @return {@link StatementStats}[] ; 統計（実行時間の合計の降順）
+     */
+    StatementStats[] getStatements();
+
+    /**
+     * 実行時間の合計が大きい SQL 文の統計を取得する
+     *
+     * @param limit : int : 件数
+     * @return {@link StatementStats}[] ; 統計（実行時間の合計の降順）
+     */
+    StatementStats[] getTopStatements(int limit);
+
+    /**
+     * 統計をクリアする
+     */
+    void reset();
+}
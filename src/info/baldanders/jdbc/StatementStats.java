@@ -0,0 +1,185 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.jdbc;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * SQL文ごとの実行統計（スナップショット）
+ * <br>{@link StatementMetrics#snapshot()} で取得する。取得時点の値の複製なので変化しない。
+ * 各値は個別に読み取るため，記録中の実行があると値どうしが厳密には一致しない場合がある。
+ */
+public final class StatementStats {
+
+    /** SQL文（正規化済み） */
+    private final String sql;
+
+    /** 実行回数（失敗を含む） */
+    private final long count;
+
+    /** 失敗した回数 */
+    private final long errorCount;
+
+    /** 取得・更新した行数の合計 */
+    private final long rows;
+
+    /** {@link DataSet} に展開したデータの推定サイズの合計（バイト） */
+    private final long bytes;
+
+    /** 実行時間の合計（ナノ秒） */
+    private final long totalNanos;
+
+    /** 実行時間の最大値（ナノ秒） */
+    private final long maxNanos;
+
+    /** 実行時間の 50 パーセンタイル（ナノ秒） */
+    private final long p50Nanos;
+
+    /** 実行時間の 99 パーセンタイル（ナノ秒） */
+    private final long p99Nanos;
+
+    /** 実行時間の 99.9 パーセンタイル（ナノ秒） */
+    private final long p999Nanos;
+
+    /**
+     * コンストラクタ
+     *
+     * @param sql        : {@link String} : SQL文（正規化済み）
+     * @param count      : long            : 実行回数
+     * @param errorCount : long            : 失敗した回数
+     * @param rows       : long            : 取得・更新した行数の合計
+     * @param bytes      : long            : {@link DataSet} に展開したデータの推定サイズの合計（バイト）
+     * @param totalNanos : long            : 実行時間の合計（ナノ秒）
+     * @param maxNanos   : long            : 実行時間の最大値（ナノ秒）
+     * @param p50Nanos   : long            : 実行時間の 50 パーセンタイル（ナノ秒）
+     * @param p99Nanos   : long            : 実行時間の 99 パーセンタイル（ナノ秒）
+     * @param p999Nanos  : long            : 実行時間の 99.9 パーセンタイル（ナノ秒）
+     */
+    @ConstructorProperties({"sql", "count", "errorCount", "rows", "bytes", "totalNanos", "maxNanos", "p50Nanos", "p99Nanos", "p999Nanos"})
+    public StatementStats(String sql, long count, long errorCount, long rows, long bytes, long totalNanos, long maxNanos, long p50Nanos, long p99Nanos, long p999Nanos) {
+        this.sql = sql;
+        this.count = count;
+        this.errorCount = errorCount;
+        this.rows = rows;
+        this.bytes = bytes;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+        this.p50Nanos = p50Nanos;
+        this.p99Nanos = p99Nanos;
+        this.p999Nanos = p999Nanos;
+    }
+
+    /**
+     * SQL文を取得する
+     *
+     * @return {@link String} ; SQL文（正規化済み）
+     */
+    public String getSql() {
+        return this.sql;
+    }
+
+    /**
+     * 実行回数を取得する
+     *
+     * @return long ; 実行回数（失敗を含む）
+     */
+    public long getCount() {
+        return this.count;
+    }
+
+    /**
+     * 失敗した回数を取得する
+     *
+     * @return long ; 失敗した回数
+     */
+    public long getErrorCount() {
+        return this.errorCount;
+    }
+
+    /**
+     * 取得・更新した行数の合計を取得する
+     *
+     * @return long ; 行数の合計（カーソルで取得した行は {@link DbStatement#select(RowHandler, int)} の場合のみ数える）
+     */
+    public long getRows() {
+        return this.rows;
+    }
+
+    /**
+     * {@link DataSet} に展開したデータの推定サイズの合計を取得する
+     *
+     * @return long ; 推定サイズ（バイト）
+     */
+    public long getBytes() {
+        return this.bytes;
+    }
+
+    /**
+     * 実行時間の合計を取得する
+     *
+     * @return long ; 実行時間（ナノ秒）
+     */
+    public long getTotalNanos() {
+        return this.totalNanos;
+    }
+
+    /**
+     * 実行時間の平均を取得する
+     *
+     * @return long ; 実行時間（ナノ秒，実行回数が0なら0）
+     */
+    public long getMeanNanos() {
+        return (this.count == 0) ? 0 : this.totalNanos / this.count;
+    }
+
+    /**
+     * 実行時間の最大値を取得する
+     *
+     * @return long ; 実行時間（ナノ秒）
+     */
+    public long getMaxNanos() {
+        return this.maxNanos;
+    }
+
+    /**
+     * 実行時間の 50 パーセンタイルを取得する
+     *
+     * @return long ; 実行時間（ナノ秒，相対誤差約3%）
+     */
+    public long getP50Nanos() {
+        return this.p50Nanos;
+    }
+
+    /**
+     * 実行時間の 99 パーセンタイルを取得する
+     *
+     * @return long ; 実行時間（ナノ秒，相対誤差約3%）
+     */
+    public long getP99Nanos() {
+        return this.p99Nanos;
+    }
+
+    /**
+     * 実行時間の 99.9 パーセンタイルを取得する
+     *
+     * @return long ; 実行時間（ナノ秒，相対誤差約3%）
+     */
+    public long getP999Nanos() {
+        return this.p999Nanos;
+    }
+
+    /**
+     * 文字列変換
+     *
+     * @return {@link String} ; 統計の概要（時間はマイクロ秒）
+     */
+    @Override
+    public String toString() {
+        return "count=" + this.count + ", errors=" + this.errorCount + ", rows=" + this.rows + ", bytes=" + this.bytes
+                + ", mean=" + getMeanNanos() / 1000 + "us, p50=" + this.p50Nanos / 1000 + "us, p99=" + this.p99Nanos / 1000
+                + "us, p999=" + this.p999Nanos / 1000 + "us, max=" + this.maxNanos / 1000 + "us : " + this.sql;
+    }
+}
@@ -0,0 +1,332 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.jdbc;
+
+import info.baldanders.Util;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+
+/**
+ * SQLクエリ結果のデータセットクラス（型付き）
+ * <br>{@link DataSet} と異なり，カラムのタイプに応じた型で列ごとに格納する（{@link DataColumn}）。
+ * 数値や日付時刻を文字列に変換しないので，変換コストとメモリ使用量を抑えられる。
+ * 行位置・カラム位置は 1,2,... で指定すること（zero origin ではない）。
+ * <br>列ごとに連続した配列で保持するので，抽出・集計は列単位で行う。
+ * 対象行は {@link BitSet} で指定し，ビット位置を行番号（1,2,...）とする。{@code null} なら全行を対象とする。
+ */
+public final class TypedDataSet {
+
+    /** 列データ */
+    private ArrayList<DataColumn> column;
+
+    /** カラム名 */
+    private ArrayList<String> columnName;
+
+    /** 行数 */
+    private int rowCount;
+
+    /**
+     * コンストラクタ
+     */
+    public TypedDataSet() {
+        this.column = new ArrayList<DataColumn>();
+        this.columnName = new ArrayList<String>();
+        this.rowCount = 0;
+    }
+
+    /**
+     * コンストラクタ
+     *
+     * @param rs : {@link ResultSet} : クエリ結果
+     * @throws SQLException テーブル情報の取得に失敗した場合。または結果の取得に失敗した場合。
+     */
+    public TypedDataSet(ResultSet rs) throws SQLException {
+        this();
+        if (!Util.isNull(rs)) {
+            //テーブル情報の取得
+            ResultSetMetaData metaData = rs.getMetaData();
+            int columnCount = metaData.getColumnCount();
+            for (int col = 0; col < columnCount; col++) {
+                this.column.add(DataColumn.create(metaData.getColumnType(col+1), metaData.isSigned(col+1)));
+                this.columnName.add(metaData.getColumnName(col+1));
+            }
+            //カラムデータを取得する
+            DataColumn [] columns = this.column.toArray(new DataColumn[columnCount]);
+            while (rs.next()) {
+                for (int col = 0; col < columnCount; col++) {
+                    columns[col].read(rs, col+1);
+                }
+                this.rowCount++;
+            }
+            //余分な領域を解放する
+            for (DataColumn col : columns) {
+                col.trimToSize();
+            }
+        }
+    }
+
+    /**
+     * データの行数を取得する
+     *
+     * @return int ; データの行数
+     */
+    public int sizeRow() {
+        return this.rowCount;
+    }
+
+    /**
+     * データのカラム数を取得する
+     *
+     * @return int ; データのカラム数（クエリ結果のメタデータから取得した値）
+     */
+    public int sizeColumn() {
+        return this.column.size();
+    }
+
+    /**
+     * 指定カラムの列データを取得する
+     *
+     * @param  colNum : int : カラム番号（1,2,...）
+     * @return {@link DataColumn} ; 指定カラム番号が範囲外の場合は {@code null} を返す。
+     */
+    public DataColumn getColumn(int colNum) {
+        if (colNum < 1 || sizeColumn() < colNum) {
+            return null;
+        } else {
+            return this.column.get(colNum-1);
+        }
+    }
+
+    /**
+     * 指定カラムのタイプを取得する
+     *
+     * @param  colNum : int : カラム番号（1,2,...）
+     * @return {@link java.sql.Types} ; カラムのタイプ
+     *                                  指定カラム番号が範囲外の場合は {@code Types.NULL} を返す。
+     */
+    public int getColumnType(int colNum) {
+        DataColumn col = getColumn(colNum);
+        return Util.isNull(col) ? Types.NULL : col.getType();
+    }
+
+    /**
+     * 指定カラムの名前を取得する
+     *
+     * @param  colNum : int : カラム番号（1,2,...）
+     * @return {@link String} ; カラム名
+     *                          指定カラム番号が範囲外の場合は {@code null} を返す。
+     */
+    public String getColumnName(int colNum) {
+        if (colNum < 1 || sizeColumn() < colNum) {
+            return null;
+        } else {
+            return this.columnName.get(colNum-1);
+        }
+    }
+
+    /**
+     * 指定位置の値が {@code null} か
+     *
+     * @param rowNum : int : 行番号（1,2,...）
+     * @param colNum : int : カラム番号（1,2,...）
+     * @return boolean ; 値が {@code null} なら {@code true}。指定位置が範囲外の場合も {@code true} を返す。
+     */
+    public boolean isNull(int rowNum, int colNum) {
+        DataColumn col = getColumn(colNum);
+        return Util.isNull(col) ? true : col.isNull(rowNum);
+    }
+
+    /**
+     * 指定位置の値を int で取得する
+     *
+     * @param rowNum : int : 行番号（1,2,...）
+     * @param colNum : int : カラム番号（1,2,...）
+     * @return int ; 値が {@code null} または指定位置が範囲外の場合は {@code 0} を返す。
+     */
+    public int getInt(int rowNum, int colNum) {
+        DataColumn col = getColumn(colNum);
+        return Util.isNull(col) ? 0 : col.getInt(rowNum);
+    }
+
+    /**
+     * 指定位置の値を long で取得する
+     *
+     * @param rowNum : int : 行番号（1,2,...）
+     * @param colNum : int : カラム番号（1,2,...）
+     * @return long ; 値が {@code null} または指定位置が範囲外の場合は {@code 0} を返す。
+     */
+    public long getLong(int rowNum, int colNum) {
+        DataColumn col = getColumn(colNum);
+        return Util.isNull(col) ? 0 : col.getLong(rowNum);
+    }
+
+    /**
+     * 指定位置の値を double で取得する
+     *
+     * @param rowNum : int : 行番号（1,2,...）
+     * @param colNum : int : カラム番号（1,2,...）
+     * @return double ; 値が {@code null} または指定位置が範囲外の場合は {@code 0} を返す。
+     */
+    public double getDouble(int rowNum, int colNum) {
+        DataColumn col = getColumn(colNum);
+        return Util.isNull(col) ? 0 : col.getDouble(rowNum);
+    }
+
+    /**
+     * 指定位置の値を文字列で取得する
+     *
+     * @param rowNum : int : 行番号（1,2,...）
+     * @param colNum : int : カラム番号（1,2,...）
+     * @return {@link String} ; 値が {@code null} または指定位置が範囲外の場合は {@code null} を返す。
+     */
+    public String getString(int rowNum, int colNum) {
+        DataColumn col = getColumn(colNum);
+        return Util.isNull(col) ? null : col.getString(rowNum);
+    }
+
+    /**
+     * 指定位置の値を日付時刻で取得する
+     * <br>日付時刻型以外のカラムは long 値をミリ秒とみなす。
+     *
+     * @param rowNum : int : 行番号（1,2,...）
+     * @param colNum : int : カラム番号（1,2,...）
+     * @return {@link Timestamp} ; 値が {@code null} または指定位置が範囲外の場合は {@code null} を返す。
+     */
+    public Timestamp getTimestamp(int rowNum, int colNum) {
+        if (isNull(rowNum, colNum)) {
+            return null;
+        } else {
+            return new Timestamp(getLong(rowNum, colNum));
+        }
+    }
+
+    /**
+     * 指定カラムが指定範囲の値を持つ行を抽出する
+     *
+     * @param colNum : int            : カラム番号（1,2,...）
+     * @param min    : double         : 最小値（この値を含む）
+     * @param max    : double         : 最大値（この値を含む）
+     * @param rows   : {@link BitSet} : 対象行（{@code null} なら全行）
+     * @return {@link BitSet} ; 該当する行。指定カラム番号が範囲外の場合は空を返す。
+     */
+    public BitSet selectRange(int colNum, double min, double max, BitSet rows) {
+        DataColumn col = getColumn(colNum);
+        return Util.isNull(col) ? new BitSet() : col.selectRange(min, max, rows);
+    }
+
+    /**
+     * 指定カラムが指定値と一致する行を抽出する
+     * <br>値の文字列表現で比較する。
+     *
+     * @param colNum : int            : カラム番号（1,2,...）
+     * @param value  : {@link String} : 値（{@code null} なら {@code null} の行を抽出する）
+     * @param rows   : {@link BitSet} : 対象行（{@code null} なら全行）
+     * @return {@link BitSet} ; 該当する行。指定カラム番号が範囲外の場合は空を返す。
+     */
+    public BitSet selectEquals(int colNum, String value, BitSet rows) {
+        DataColumn col = getColumn(colNum);
+        return Util.isNull(col) ? new BitSet() : col.selectEquals(value, rows);
+    }
+
+    /**
+     * 指定カラムの {@code null} でない値の数を数える
+     *
+     * @param colNum : int            : カラム番号（1,2,...）
+     * @param rows   : {@link BitSet} : 対象行（{@code null} なら全行）
+     * @return int ; 値の数。指定カラム番号が範囲外の場合は {@code 0} を返す。
+     */
+    public int count(int colNum, BitSet rows) {
+        DataColumn col = getColumn(colNum);
+        return Util.isNull(col) ? 0 : col.count(rows);
+    }
+
+    /**
+     * 指定カラムの値の合計を求める
+     *
+     * @param colNum : int            : カラム番号（1,2,...）
+     * @param rows   : {@link BitSet} : 対象行（{@code null} なら全行）
+     * @return double ; 合計値。指定カラム番号が範囲外の場合は {@code 0} を返す。
+     */
+    public double sum(int colNum, BitSet rows) {
+        DataColumn col = getColumn(colNum);
+        return Util.isNull(col) ? 0 : col.sum(rows);
+    }
+
+    /**
+     * 指定カラムの値の合計を整数で求める
+     *
+     * @param colNum : int            : カラム番号（1,2,...）
+     * @param rows   : {@link BitSet} : 対象行（{@code null} なら全行）
+     * @return long ; 合計値。指定カラム番号が範囲外の場合は {@code 0} を返す。
+     */
+    public long sumLong(int colNum, BitSet rows) {
+        DataColumn col = getColumn(colNum);
+        return Util.isNull(col) ? 0 : col.sumLong(rows);
+    }
+
+    /**
+     * 指定カラムの値の最小値を求める
+     *
+     * @param colNum : int            : カラム番号（1,2,...）
+     * @param rows   : {@link BitSet} : 対象行（{@code null} なら全行）
+     * @return double ; 最小値。該当する値がない場合や指定カラム番号が範囲外の場合は {@link Double#NaN} を返す。
+     */
+    public double min(int colNum, BitSet rows) {
+        DataColumn col = getColumn(colNum);
+        return Util.isNull(col) ? Double.NaN : col.min(rows);
+    }
+
+    /**
+     * 指定カラムの値の最大値を求める
+     *
+     * @param colNum : int            : カラム番号（1,2,...）
+     * @param rows   : {@link BitSet} : 対象行（{@code null} なら全行）
+     * @return double ; 最大値。該当する値がない場合や指定カラム番号が範囲外の場合は {@link Double#NaN} を返す。
+     */
+    public double max(int colNum, BitSet rows) {
+        DataColumn col = getColumn(colNum);
+        return Util.isNull(col) ? Double.NaN : col.max(rows);
+    }
+
+    /**
+     * 指定カラムの値ごとの行数を数える
+     * <br>カラムのタイプによらず値の昇順に格納し，{@code null} の行は先頭に格納する（{@link DataColumn#groupCount(BitSet)}）。
+     *
+     * @param colNum : int            : カラム番号（1,2,...）
+     * @param rows   : {@link BitSet} : 対象行（{@code null} なら全行）
+     * @return {@link LinkedHashMap}<{@link String}, {@link Integer}> ; 値の文字列表現ごとの行数（{@code null} の行はキー {@code null}）。
+     *                                                                  指定カラム番号が範囲外の場合は空を返す。
+     */
+    public LinkedHashMap<String, Integer> groupCount(int colNum, BitSet rows) {
+        DataColumn col = getColumn(colNum);
+        return Util.isNull(col) ? new LinkedHashMap<String, Integer>() : col.groupCount(rows);
+    }
+
+    /**
+     * 文字列変換<br>CSV形式に変換する
+     *
+     * @return {@link String} ; クエリ結果が空の場合は空文字列を返す。
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        Object [] cells = new Object[sizeColumn()];
+        for (int row = 1; row <= this.rowCount; row++) {
+            for (int col = 1; col <= cells.length; col++) {
+                cells[col-1] = getString(row, col);
+            }
+            sb.append(Util.stringJoin(",", cells, Util.Quote.TYPE_CSV)).append(System.getProperty("line.separator"));
+        }
+        return sb.toString();
+    }
+}
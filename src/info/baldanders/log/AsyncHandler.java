@@ -0,0 +1,345 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.log;
+
+import info.baldanders.Util;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * 非同期出力 Handler クラス（継承クラス）
+ * <br>{@link #publish(LogRecord)} はログレコードをリングバッファに積むだけで，
+ * 整形および出力は単一のバックグラウンドスレッドが委譲先のハンドラに対して行う。
+ * バッファが満杯の場合の動作は {@link OverflowPolicy} で指定する。
+ * JVM 終了時にはバッファに残ったレコードを出力してから閉じる。
+ * @see java.util.logging.Handler
+ */
+public class AsyncHandler extends Handler {
+
+    /**
+     * バッファが満杯の場合の動作
+     */
+    public enum OverflowPolicy {
+        /** 空きができるまで待つ */
+        BLOCK,
+        /** 指定レベル未満のレコードは捨てる（指定レベル以上は待つ） */
+        DROP,
+        /** 指定した割合でのみ待って出力し，それ以外は捨てる */
+        SAMPLE
+    }
+
+    /** 満杯時・空き待ち時の待機時間（ナノ秒） */
+    private static final long WAIT_NANOS = 100000L;
+
+    /** 出力スレッドの最大休止時間（ナノ秒） */
+    private static final long IDLE_NANOS = 100000000L;
+
+    /** 委譲先のハンドラ */
+    private final Handler[] targets;
+
+    /** リングバッファ */
+    private final LogRingBuffer buffer;
+
+    /** 満杯時の動作 */
+    private final OverflowPolicy policy;
+
+    /** DROP 時にこのレベル未満を捨てる */
+    private final Level dropLevel;
+
+    /** SAMPLE 時に出力する割合（N件に1件） */
+    private final int sampleRate;
+
+    /** SAMPLE 用カウンタ */
+    private final AtomicLong sampleCounter;
+
+    /** 捨てたレコード数 */
+    private final AtomicLong droppedCount;
+
+    /** 出力スレッドが休止中かどうか */
+    private final AtomicBoolean sleeping;
+
+    /** 閉じたかどうか */
+    private volatile boolean closed;
+
+    /** 出力スレッド */
+    private final Thread writer;
+
+    /** シャットダウンフック */
+    private final Thread shutdownHook;
+
+    /**
+     * コンストラクタ
+     *
+     * @param targets    : {@link Handler}[]       : 委譲先のハンドラ
+     * @param bufferSize : int                    : バッファサイズ（2のべき乗に切り上げる）
+     * @param policy     : {@link OverflowPolicy} : 満杯時の動作（null なら BLOCK）
+     * @param dropLevel  : {@link Level}          : DROP 時にこのレベル未満を捨てる（null なら INFO）
+     * @param sampleRate : int                    : SAMPLE 時に出力する割合（N件に1件，1未満なら1）
+     */
+    public AsyncHandler(Handler[] targets, int bufferSize, OverflowPolicy policy, Level dropLevel, int sampleRate) {
+        this.targets = targets.clone();
+        this.buffer = new LogRingBuffer(Math.max(bufferSize, 2));
+        this.policy = Util.isNull(policy) ? OverflowPolicy.BLOCK : policy;
+        this.dropLevel = Util.isNull(dropLevel) ? Level.INFO : dropLevel;
+        this.sampleRate = Math.max(sampleRate, 1);
+        this.sampleCounter = new AtomicLong(0);
+        this.droppedCount = new AtomicLong(0);
+        this.sleeping = new AtomicBoolean(false);
+        this.closed = false;
+        //出力レベル（委譲先で最も低いレベル）
+        updateLevel();
+        //出力スレッド
+        this.writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                drainLoop();
+            }
+        }, "AsyncHandler-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+        //JVM 終了時に残りを出力する
+        this.shutdownHook = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                close();
+            }
+        }, "AsyncHandler-shutdown");
+        try {
+            Runtime.getRuntime().addShutdownHook(this.shutdownHook);
+        } catch (IllegalStateException e) {
+            //シャットダウン中なら何もしない
+        } catch (SecurityException e) {
+            //登録できない場合は何もしない
+        }
+    }
+
+    /**
+     * 出力レベルを委譲先で最も低いレベルにする
+     * <br>委譲先のハンドラの出力レベルを変更した場合に呼び出す。
+     */
+    public void updateLevel() {
+        Level level = Level.OFF;
+        for (Handler target : this.targets) {
+            if (target.getLevel().intValue() < level.intValue()) {
+                level = target.getLevel();
+            }
+        }
+        setLevel(level);
+    }
+
+    /**
+     * ログレコードを出力キューに積む
+     * @see java.util.logging.Handler#publish(java.util.logging.LogRecord)
+     */
+    @Override
+    public void publish(LogRecord record) {
+        if (Util.isNull(record) || !isLoggable(record)) {
+            return;
+        }
+        //呼び出し元のクラス・メソッド名は出力スレッドでは推定できないので，ここで確定させる
+        record.getSourceClassName();
+        if (this.closed) {
+            publishTargets(record); //閉じた後は直接出力する
+            return;
+        }
+        if (!this.buffer.offer(record)) {
+            if (!waitForSpace(record)) {
+                this.droppedCount.incrementAndGet();
+                return;
+            }
+        }
+        if (this.closed) {
+            //積んでいる間に閉じられた場合，出力スレッドは終了しているかもしれないので呼び出し元のスレッドで出力する
+            drainAfterClose();
+            return;
+        }
+        wakeUp();
+    }
+
+    /**
+     * バッファが満杯の場合の処理
+     *
+     * @param record : {@link LogRecord} : ログレコード
+     * @return boolean ; 積めた場合は true，捨てた場合は false
+     */
+    private boolean waitForSpace(LogRecord record) {
+        switch (this.policy) {
+        case DROP:
+            if (record.getLevel().intValue() < this.dropLevel.intValue()) {
+                return false;
+            }
+            break;
+        case SAMPLE:
+            if (this.sampleCounter.getAndIncrement() % this.sampleRate != 0) {
+                return false;
+            }
+            break;
+        default:
+            break;
+        }
+        while (!this.buffer.offer(record)) {
+            if (this.closed) {
+                publishTargets(record);
+                return true;
+            }
+            wakeUp();
+            LockSupport.parkNanos(WAIT_NANOS);
+        }
+        return true;
+    }
+
+    /**
+     * 休止中の出力スレッドを起こす
+     */
+    private void wakeUp() {
+        if (this.sleeping.get() && this.sleeping.compareAndSet(true, false)) {
+            LockSupport.unpark(this.writer);
+        }
+    }
+
+    /**
+     * 出力スレッドの処理
+     */
+    private void drainLoop() {
+        while (true) {
+            boolean written = false;
+            LogRecord record;
+            while (!Util.isNull(record = this.buffer.poll())) {
+                publishTargets(record);
+                written = true;
+            }
+            if (written) {
+                flushTargets();
+            }
+            if (this.closed && this.buffer.isEmpty()) {
+                break;
+            }
+            //休止する前にもう一度確認する
+            this.sleeping.set(true);
+            if (this.buffer.isEmpty() && !this.closed) {
+                LockSupport.parkNanos(this, IDLE_NANOS);
+            }
+            this.sleeping.set(false);
+        }
+    }
+
+    /**
+     * 閉じた後にバッファに残っているレコードを呼び出し元のスレッドで出力する
+     * <br>出力スレッドの終了を待ってから読み出すので，バッファの読み出しは常に単一スレッドとなる。
+     */
+    private void drainAfterClose() {
+        if (Thread.currentThread() == this.writer) {
+            return; //出力スレッドは終了する前にバッファを空にする
+        }
+        boolean interrupted = false;
+        while (this.writer.isAlive()) {
+            try {
+                this.writer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        synchronized (this.buffer) {
+            boolean written = false;
+            LogRecord record;
+            while (!Util.isNull(record = this.buffer.poll())) {
+                publishTargets(record);
+                written = true;
+            }
+            if (written) {
+                flushTargets();
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 委譲先のハンドラに出力する
+     *
+     * @param record : {@link LogRecord} : ログレコード
+     */
+    private void publishTargets(LogRecord record) {
+        for (Handler target : this.targets) {
+            target.publish(record);
+        }
+    }
+
+    /**
+     * 委譲先のハンドラをフラッシュする
+     */
+    private void flushTargets() {
+        for (Handler target : this.targets) {
+            target.flush();
+        }
+    }
+
+    /**
+     * バッファに積まれたレコードをすべて出力してフラッシュする
+     * @see java.util.logging.Handler#flush()
+     */
+    @Override
+    public void flush() {
+        //バッファが空になり，出力スレッドが休止するまで待つ
+        while (!(this.buffer.isEmpty() && this.sleeping.get()) && this.writer.isAlive()) {
+            wakeUp();
+            LockSupport.parkNanos(WAIT_NANOS);
+        }
+        flushTargets();
+    }
+
+    /**
+     * バッファに積まれたレコードをすべて出力してから委譲先のハンドラを閉じる
+     * @see java.util.logging.Handler#close()
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+        }
+        LockSupport.unpark(this.writer);
+        drainAfterClose(); //出力スレッドの終了を待ち，その後に積まれたものを出力する
+        if (Thread.currentThread() != this.shutdownHook) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(this.shutdownHook);
+            } catch (IllegalStateException e) {
+                //シャットダウン中なら何もしない
+            } catch (SecurityException e) {
+                //何もしない
+            }
+        }
+        for (Handler target : this.targets) {
+            target.close();
+        }
+    }
+
+    /**
+     * 捨てたレコード数を取得する
+     *
+     * @return long ; レコード数
+     */
+    public long getDroppedCount() {
+        return this.droppedCount.get();
+    }
+
+    /**
+     * バッファに積まれているレコード数（概数）を取得する
+     *
+     * @return int ; レコード数
+     */
+    public int getQueueSize() {
+        return this.buffer.size();
+    }
+}
@@ -0,0 +1,390 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.log;
+
+import info.baldanders.Util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * バイナリ形式ログの変換クラス
+ * <br>{@link BinaryLogHandler} が出力したバイナリ形式のログを {@link LogFormatter} と同じ形式の文字列に変換する。
+ * 時刻はこのクラスを実行する環境のタイムゾーンで出力するので，必要に応じて -Duser.timezone を指定すること。
+ * <blockquote>java info.baldanders.log.BinaryLogDecoder 入力ファイル [出力ファイル]</blockquote>
+ * @see BinaryLogHandler
+ */
+public final class BinaryLogDecoder {
+
+    /** 標準のレベル */
+    private static final Level[] LEVELS = {
+        Level.OFF, Level.SEVERE, Level.WARNING, Level.INFO, Level.CONFIG, Level.FINE, Level.FINER, Level.FINEST, Level.ALL
+    };
+
+    /** 入力 */
+    private final DataInputStream in;
+
+    /** 整形用フォーマッタ */
+    private final Formatter formatter;
+
+    /** 定義済みの文字列（番号 - {@link BinaryLogHandler#REF_FIRST_ID} がインデックス） */
+    private final ArrayList<String> strings;
+
+    /** 直前のレコードの時刻 */
+    private long lastMillis;
+
+    /**
+     * 独自レベル（標準以外のレベルを復元する）
+     */
+    private static final class DecodedLevel extends Level {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * コンストラクタ
+         *
+         * @param name  : {@link String} : レベル名
+         * @param value : int             : レベル値
+         */
+        DecodedLevel(String name, int value) {
+            super(name, value);
+        }
+    }
+
+    /**
+     * 例外情報（出力時の文字列とスタックトレースの各行を復元する）
+     * <br>スタックトレースは {@link StackTraceElement} ではなく出力時の文字列で保持し，
+     * {@link LogFormatter} はそれをそのまま出力する。
+     */
+    static final class DecodedThrowable extends Throwable {
+        private static final long serialVersionUID = 1L;
+
+        /** 出力時の文字列 */
+        private final String str;
+
+        /** スタックトレースの各行 */
+        private final String[] frames;
+
+        /**
+         * コンストラクタ
+         *
+         * @param str    : {@link String}   : 出力時の文字列
+         * @param frames : {@link String}[] : スタックトレースの各行
+         */
+        DecodedThrowable(String str, String[] frames) {
+            super(str);
+            this.str = str;
+            this.frames = frames;
+        }
+
+        @Override
+        public synchronized Throwable fillInStackTrace() {
+            return this;
+        }
+
+        @Override
+        public String toString() {
+            return this.str;
+        }
+
+        /**
+         * スタックトレースの各行を取得する
+         *
+         * @return {@link String}[] ; スタックトレースの各行
+         */
+        String[] getFrames() {
+            return this.frames;
+        }
+    }
+
+    /**
+     * コンストラクタ
+     *
+     * @param in        : {@link InputStream} : 入力
+     * @param formatter : {@link Formatter}   : 整形用フォーマッタ（null なら {@link LogFormatter}）
+     */
+    public BinaryLogDecoder(InputStream in, Formatter formatter) {
+        this.in = new DataInputStream(new BufferedInputStream(in, 64 * 1024));
+        this.formatter = Util.isNull(formatter) ? new LogFormatter() : formatter;
+        this.strings = new ArrayList<String>();
+        this.lastMillis = 0;
+    }
+
+    /**
+     * 次のレコードを読み込む
+     * <br>末尾が途中で切れている場合（異常終了時など）はそこで終わりとする。
+     *
+     * @return {@link LogRecord} ; ログレコード（終わりなら null）
+     * @throws IOException 読み込みに失敗した場合，または形式が正しくない場合
+     */
+    public LogRecord read() throws IOException {
+        try {
+            while (true) {
+                int tag = this.in.read();
+                if (tag < 0) {
+                    return null;
+                } else if (tag == BinaryLogHandler.MAGIC[0]) {
+                    readHeader();
+                } else if (tag == BinaryLogHandler.FRAME_STRING) {
+                    int id = (int)readVarLong();
+                    String str = readString();
+                    int index = id - BinaryLogHandler.REF_FIRST_ID;
+                    while (this.strings.size() <= index) {
+                        this.strings.add(null);
+                    }
+                    this.strings.set(index, str);
+                } else if (tag == BinaryLogHandler.FRAME_RECORD) {
+                    return readRecord();
+                } else {
+                    throw new IOException("unknown frame: " + tag);
+                }
+            }
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    /**
+     * すべてのレコードを文字列に変換して出力する
+     *
+     * @param out : {@link Writer} : 出力先
+     * @return int ; 変換したレコード数
+     * @throws IOException 読み込み・出力に失敗した場合
+     */
+    public int decode(Writer out) throws IOException {
+        int count = 0;
+        LogRecord record;
+        while (!Util.isNull(record = read())) {
+            out.write(this.formatter.format(record));
+            count++;
+        }
+        out.flush();
+        return count;
+    }
+
+    /**
+     * 入力を閉じる
+     *
+     * @throws IOException 閉じられない場合
+     */
+    public void close() throws IOException {
+        this.in.close();
+    }
+
+    /**
+     * セッションの先頭を読み込む（先頭の1バイトは読み込み済み）
+     *
+     * @throws IOException 形式が正しくない場合
+     */
+    private void readHeader() throws IOException {
+        for (int i = 1; i < BinaryLogHandler.MAGIC.length; i++) {
+            if (this.in.readUnsignedByte() != BinaryLogHandler.MAGIC[i]) {
+                throw new IOException("invalid header");
+            }
+        }
+        int version = this.in.readUnsignedByte();
+        if (version != BinaryLogHandler.VERSION) {
+            throw new IOException("unsupported version: " + version);
+        }
+        this.strings.clear();
+        this.lastMillis = 0;
+    }
+
+    /**
+     * レコードフレームを読み込む（先頭の1バイトは読み込み済み）
+     *
+     * @return {@link LogRecord} ; ログレコード
+     * @throws IOException 形式が正しくない場合
+     */
+    private LogRecord readRecord() throws IOException {
+        int flags = this.in.readUnsignedByte();
+        long millis = this.lastMillis + unzigzag(readVarLong());
+        this.lastMillis = millis;
+        String levelName = readRef();
+        int levelValue = (int)unzigzag(readVarLong());
+        int threadId = (int)readVarLong();
+        String className = readRef();
+        String methodName = readRef();
+        String message = readRef();
+        Object[] parameters = null;
+        if ((flags & BinaryLogHandler.FLAG_PARAMETERS) != 0) {
+            parameters = new Object[(int)readVarLong()];
+            for (int i = 0; i < parameters.length; i++) {
+                parameters[i] = readParameter();
+            }
+        }
+        LogRecord record;
+        if ((flags & BinaryLogHandler.FLAG_TEMPLATE) != 0) {
+            record = new TemplateLogRecord(toLevel(levelName, levelValue), message, parameters);
+        } else {
+            record = new LogRecord(toLevel(levelName, levelValue), message);
+            record.setParameters(parameters);
+        }
+        record.setMillis(millis);
+        record.setThreadID(threadId);
+        record.setSourceClassName(className);
+        record.setSourceMethodName(methodName);
+        if ((flags & BinaryLogHandler.FLAG_THROWN) != 0) {
+            String str = readString();
+            String[] frames = new String[(int)readVarLong()];
+            for (int i = 0; i < frames.length; i++) {
+                frames[i] = readRef();
+            }
+            record.setThrown(new DecodedThrowable(str, frames));
+        }
+        return record;
+    }
+
+    /**
+     * レベルを復元する
+     *
+     * @param name  : {@link String} : レベル名
+     * @param value : int             : レベル値
+     * @return {@link Level} ; レベル（標準のレベルならその定数）
+     */
+    private static Level toLevel(String name, int value) {
+        for (Level level : LEVELS) {
+            if (level.intValue() == value && level.getName().equals(name)) {
+                return level;
+            }
+        }
+        return new DecodedLevel(name, value);
+    }
+
+    /**
+     * パラメータを読み込む
+     *
+     * @return {@link Object} ; パラメータ
+     * @throws IOException 形式が正しくない場合
+     */
+    private Object readParameter() throws IOException {
+        int type = this.in.readUnsignedByte();
+        switch (type) {
+        case BinaryLogHandler.TYPE_NULL:
+            return null;
+        case BinaryLogHandler.TYPE_INT:
+            return Integer.valueOf((int)unzigzag(readVarLong()));
+        case BinaryLogHandler.TYPE_LONG:
+            return Long.valueOf(unzigzag(readVarLong()));
+        case BinaryLogHandler.TYPE_FLOAT:
+            return Float.valueOf(Float.intBitsToFloat((int)readVarLong()));
+        case BinaryLogHandler.TYPE_DOUBLE:
+            return Double.valueOf(Double.longBitsToDouble(this.in.readLong()));
+        case BinaryLogHandler.TYPE_BOOLEAN:
+            return Boolean.valueOf(this.in.readUnsignedByte() != 0);
+        case BinaryLogHandler.TYPE_STRING:
+            return readString();
+        case BinaryLogHandler.TYPE_DATE:
+            return new Date(unzigzag(readVarLong()));
+        case BinaryLogHandler.TYPE_BIGDECIMAL:
+            return new BigDecimal(readString());
+        case BinaryLogHandler.TYPE_BIGINTEGER:
+            return new BigInteger(readString());
+        default:
+            throw new IOException("unknown parameter type: " + type);
+        }
+    }
+
+    /**
+     * 文字列参照を読み込む
+     *
+     * @return {@link String} ; 文字列
+     * @throws IOException 形式が正しくない場合
+     */
+    private String readRef() throws IOException {
+        int ref = (int)readVarLong();
+        if (ref == BinaryLogHandler.REF_NULL) {
+            return null;
+        } else if (ref == BinaryLogHandler.REF_INLINE) {
+            return readString();
+        }
+        int index = ref - BinaryLogHandler.REF_FIRST_ID;
+        if (index >= this.strings.size() || Util.isNull(this.strings.get(index))) {
+            throw new IOException("undefined string: " + ref);
+        }
+        return this.strings.get(index);
+    }
+
+    /**
+     * 文字列（長さ + UTF-8）を読み込む
+     *
+     * @return {@link String} ; 文字列
+     * @throws IOException 形式が正しくない場合
+     */
+    private String readString() throws IOException {
+        byte[] bytes = new byte[(int)readVarLong()];
+        this.in.readFully(bytes);
+        return new String(bytes, "UTF-8");
+    }
+
+    /**
+     * 可変長の符号なし整数を読み込む
+     *
+     * @return long ; 値
+     * @throws IOException 形式が正しくない場合
+     */
+    private long readVarLong() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = this.in.readUnsignedByte();
+            value |= (long)(b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("malformed number");
+    }
+
+    /**
+     * zigzag 符号化の復元
+     *
+     * @param value : long : 符号化した値
+     * @return long ; 値
+     */
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * バイナリ形式ログを変換する
+     *
+     * @param args : {@link String}[] : 入力ファイル [出力ファイル（省略時は標準出力）]
+     * @throws IOException 読み込み・出力に失敗した場合
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: java " + BinaryLogDecoder.class.getName() + " <binary log file> [output file]");
+            System.exit(1);
+        }
+        BinaryLogDecoder decoder = new BinaryLogDecoder(new FileInputStream(args[0]), null);
+        Writer out = (args.length > 1) ? new BufferedWriter(new OutputStreamWriter(new FileOutputStream(args[1])))
+                : new BufferedWriter(new OutputStreamWriter(System.out));
+        try {
+            decoder.decode(out);
+        } finally {
+            decoder.close();
+            if (args.length > 1) {
+                out.close();
+            } else {
+                out.flush();
+            }
+        }
+    }
+}
@@ -0,0 +1,475 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.log;
+
+import info.baldanders.Util;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.MissingResourceException;
+import java.util.ResourceBundle;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * バイナリ形式出力 Handler クラス（継承クラス）
+ * <br>ログレコードを文字列に整形せず，コンパクトなバイナリ形式のフレームとして出力する。
+ * クラス名・メソッド名・レベル名・スタックトレースの各行・メッセージ（テンプレート）は番号に置き換え（初出時のみ文字列を出力する），
+ * パラメータは型を保ったまま出力する。
+ * パラメータのないメッセージは組み立て済みの文字列であることが多い（毎回異なる）ため，番号を割り当てずに埋め込みで出力する。
+ * {@link #MAX_INTERNED_LENGTH} を超える長さの文字列も埋め込みで出力する。
+ * 文字列への整形は {@link BinaryLogDecoder} でオフラインで行う（{@link LogFormatter} と同じ形式になる）。
+ * <br>形式：
+ * <ul>
+ * <li>セッションの先頭："BLOG" + バージョン（1バイト）。追記した場合は番号の割り当てと時刻の基準がリセットされる</li>
+ * <li>文字列定義フレーム：{@link #FRAME_STRING} + 番号 + 文字列</li>
+ * <li>レコードフレーム：{@link #FRAME_RECORD} + フラグ + 時刻の差分 + レベル + スレッドID + クラス名 + メソッド名 + メッセージ
+ *     [+ パラメータ数 + パラメータ...] [+ 例外の文字列 + スタックトレースの行数 + 各行の文字列...]</li>
+ * </ul>
+ * 数値は可変長（7ビットずつ），符号付きの値は zigzag 符号化する。
+ * 文字列参照は 0 が null，1 がその場に文字列（長さ + UTF-8）を埋め込むことを，2以上が定義済みの番号を表す。
+ * @see BinaryLogDecoder
+ */
+public class BinaryLogHandler extends Handler {
+
+    /** セッションの先頭を表すマジックナンバー */
+    static final byte[] MAGIC = {'B', 'L', 'O', 'G'};
+
+    /** 形式のバージョン */
+    static final int VERSION = 1;
+
+    /** 文字列定義フレーム */
+    static final int FRAME_STRING = 1;
+
+    /** レコードフレーム */
+    static final int FRAME_RECORD = 2;
+
+    /** フラグ：パラメータあり */
+    static final int FLAG_PARAMETERS = 0x01;
+
+    /** フラグ：例外情報あり */
+    static final int FLAG_THROWN = 0x02;
+
+    /** フラグ：メッセージが "{}" 形式のテンプレート（{@link LazyLogger} による出力） */
+    static final int FLAG_TEMPLATE = 0x04;
+
+    /** 文字列参照：null */
+    static final int REF_NULL = 0;
+
+    /** 文字列参照：埋め込み */
+    static final int REF_INLINE = 1;
+
+    /** 文字列参照：定義済み番号の開始 */
+    static final int REF_FIRST_ID = 2;
+
+    /** パラメータの型：null */
+    static final int TYPE_NULL = 0;
+    /** パラメータの型：int（Byte, Short, Integer） */
+    static final int TYPE_INT = 1;
+    /** パラメータの型：long */
+    static final int TYPE_LONG = 2;
+    /** パラメータの型：float */
+    static final int TYPE_FLOAT = 3;
+    /** パラメータの型：double */
+    static final int TYPE_DOUBLE = 4;
+    /** パラメータの型：boolean */
+    static final int TYPE_BOOLEAN = 5;
+    /** パラメータの型：文字列（その他のオブジェクトは文字列に変換する） */
+    static final int TYPE_STRING = 6;
+    /** パラメータの型：日付 */
+    static final int TYPE_DATE = 7;
+    /** パラメータの型：{@link BigDecimal} */
+    static final int TYPE_BIGDECIMAL = 8;
+    /** パラメータの型：{@link BigInteger} */
+    static final int TYPE_BIGINTEGER = 9;
+
+    /** 番号を割り当てる文字列の最大数（超えた後の初出の文字列は埋め込みで出力する） */
+    private static final int MAX_INTERNED = 65536;
+
+    /** 番号を割り当てる文字列の最大長（超える文字列は埋め込みで出力する） */
+    private static final int MAX_INTERNED_LENGTH = 1024;
+
+    /** 出力先 */
+    private OutputStream out;
+
+    /** 割り当て済みの番号 */
+    private final HashMap<String, Integer> interned;
+
+    /** 直前のレコードの時刻 */
+    private long lastMillis;
+
+    /** フレームの組み立て用バッファ */
+    private byte[] frame;
+
+    /** フレームの長さ */
+    private int length;
+
+    /**
+     * コンストラクタ
+     *
+     * @param pattern : {@link String} : ファイル名のパターン（"%h", "%t" 等は {@link java.util.logging.FileHandler} と同じ）
+     * @param append  : boolean         : 追記モード
+     * @throws IOException ファイルを開けない場合
+     */
+    public BinaryLogHandler(String pattern, boolean append) throws IOException {
+        this(openFile(MappedFileHandler.generateFile(Util.null2String(pattern), 0, 1), append));
+    }
+
+    /**
+     * コンストラクタ
+     *
+     * @param out : {@link OutputStream} : 出力先
+     * @throws IOException 出力に失敗した場合
+     */
+    public BinaryLogHandler(OutputStream out) throws IOException {
+        this.out = new BufferedOutputStream(out, 64 * 1024);
+        this.interned = new HashMap<String, Integer>();
+        this.lastMillis = 0;
+        this.frame = new byte[256];
+        this.length = 0;
+        this.out.write(MAGIC);
+        this.out.write(VERSION);
+    }
+
+    /**
+     * ファイルを開く
+     *
+     * @param file   : {@link File} : ファイル
+     * @param append : boolean       : 追記モード
+     * @return {@link OutputStream} ; 出力先
+     * @throws IOException ファイルを開けない場合
+     */
+    private static OutputStream openFile(File file, boolean append) throws IOException {
+        File parent = file.getAbsoluteFile().getParentFile();
+        if (!Util.isNull(parent) && !parent.exists()) {
+            parent.mkdirs();
+        }
+        return new FileOutputStream(file, append);
+    }
+
+    /**
+     * ログレコードを出力する
+     * @see java.util.logging.Handler#publish(java.util.logging.LogRecord)
+     */
+    @Override
+    public synchronized void publish(LogRecord record) {
+        if (Util.isNull(this.out) || !isLoggable(record)) {
+            return;
+        }
+        try {
+            //文字列定義フレーム（初出の文字列のみ）
+            String className = record.getSourceClassName();
+            String methodName = record.getSourceMethodName();
+            int classRef = intern(className);
+            int methodRef = intern(methodName);
+            boolean isTemplate = record instanceof TemplateLogRecord;
+            String message;
+            Object[] parameters;
+            if (isTemplate) {
+                //"{}" 形式のテンプレートは組み立てずにテンプレートと引数のまま出力する
+                message = ((TemplateLogRecord)record).getTemplate();
+                parameters = ((TemplateLogRecord)record).getArguments();
+            } else {
+                message = getMessage(record);
+                parameters = record.getParameters();
+            }
+            boolean hasParameters = !Util.isNull(parameters) && parameters.length > 0;
+            //テンプレートとパラメータ付きのメッセージのみ番号を割り当てる（組み立て済みのメッセージで表を埋めないため）
+            int messageRef = (isTemplate || hasParameters) ? intern(message) : (Util.isNull(message) ? REF_NULL : REF_INLINE);
+            Level level = record.getLevel();
+            int levelRef = intern(level.getName());
+            Throwable thrown = record.getThrown();
+            int thrownRef = Util.isNull(thrown) ? REF_NULL : REF_INLINE;
+            StackTraceElement[] traces = Util.isNull(thrown) ? null : thrown.getStackTrace();
+            String[] traceLines = null;
+            int[] traceRefs = null;
+            if (!Util.isNull(traces)) {
+                //スタックトレースの各行は出力時の文字列のまま番号を割り当てる（実行環境による表記の違いを保つため）
+                traceLines = new String[traces.length];
+                traceRefs = new int[traces.length];
+                for (int i = 0; i < traces.length; i++) {
+                    traceLines[i] = traces[i].toString();
+                    traceRefs[i] = intern(traceLines[i]);
+                }
+            }
+            //レコードフレーム
+            this.length = 0;
+            writeByte(FRAME_RECORD);
+            writeByte((hasParameters ? FLAG_PARAMETERS : 0) | (thrownRef != REF_NULL ? FLAG_THROWN : 0) | (isTemplate ? FLAG_TEMPLATE : 0));
+            writeVarLong(zigzag(record.getMillis() - this.lastMillis));
+            writeRef(levelRef, level.getName());
+            writeVarLong(zigzag(level.intValue()));
+            writeVarLong(record.getThreadID());
+            writeRef(classRef, className);
+            writeRef(methodRef, methodName);
+            writeRef(messageRef, message);
+            if (hasParameters) {
+                writeVarLong(parameters.length);
+                for (Object parameter : parameters) {
+                    writeParameter(parameter);
+                }
+            }
+            if (thrownRef != REF_NULL) {
+                writeString(thrown.toString());
+                writeVarLong(traceRefs.length);
+                for (int i = 0; i < traceRefs.length; i++) {
+                    writeRef(traceRefs[i], traceLines[i]);
+                }
+            }
+            this.out.write(this.frame, 0, this.length);
+            //時刻の基準は出力できた後に更新する（出力に失敗したレコードの時刻を基準にしないため）
+            this.lastMillis = record.getMillis();
+        } catch (IOException e) {
+            reportError(null, e, ErrorManager.WRITE_FAILURE);
+        } catch (RuntimeException e) {
+            reportError(null, e, ErrorManager.FORMAT_FAILURE);
+        }
+    }
+
+    /**
+     * メッセージ（テンプレート）を取得する
+     * <br>リソースバンドルがあればローカライズしたものを返す。
+     *
+     * @param record : {@link LogRecord} : ログレコード
+     * @return {@link String} ; メッセージ
+     */
+    private static String getMessage(LogRecord record) {
+        String message = record.getMessage();
+        ResourceBundle bundle = record.getResourceBundle();
+        if (!Util.isNull(bundle) && !Util.isNull(message)) {
+            try {
+                return bundle.getString(message);
+            } catch (MissingResourceException e) {
+                return message;
+            }
+        }
+        return message;
+    }
+
+    /**
+     * 文字列に番号を割り当てる
+     * <br>初出の文字列であれば文字列定義フレームを出力する。
+     * 割り当て済みの番号が {@link #MAX_INTERNED} に達した後，または文字列が {@link #MAX_INTERNED_LENGTH} より長い場合は，
+     * 初出の文字列に番号を割り当てない。
+     * 番号は文字列定義フレームを出力できた後に登録する（出力に失敗した番号を参照しないため）。
+     *
+     * @param str : {@link String} : 文字列
+     * @return int ; 文字列参照（null なら {@link #REF_NULL}，割り当てない場合は {@link #REF_INLINE}）
+     * @throws IOException 出力に失敗した場合
+     */
+    private int intern(String str) throws IOException {
+        if (Util.isNull(str)) {
+            return REF_NULL;
+        }
+        Integer id = this.interned.get(str);
+        if (!Util.isNull(id)) {
+            return id;
+        } else if (this.interned.size() >= MAX_INTERNED || str.length() > MAX_INTERNED_LENGTH) {
+            return REF_INLINE;
+        }
+        int newId = this.interned.size() + REF_FIRST_ID;
+        this.length = 0;
+        writeByte(FRAME_STRING);
+        writeVarLong(newId);
+        writeString(str);
+        this.out.write(this.frame, 0, this.length);
+        this.interned.put(str, newId);
+        return newId;
+    }
+
+    /**
+     * 文字列参照を書き込む
+     *
+     * @param ref : int             : 文字列参照
+     * @param str : {@link String} : 文字列（埋め込みの場合）
+     */
+    private void writeRef(int ref, String str) {
+        writeVarLong(ref);
+        if (ref == REF_INLINE) {
+            writeString(str);
+        }
+    }
+
+    /**
+     * パラメータを書き込む
+     *
+     * @param parameter : {@link Object} : パラメータ
+     */
+    private void writeParameter(Object parameter) {
+        if (Util.isNull(parameter)) {
+            writeByte(TYPE_NULL);
+        } else if (parameter instanceof Integer || parameter instanceof Short || parameter instanceof Byte) {
+            writeByte(TYPE_INT);
+            writeVarLong(zigzag(((Number)parameter).intValue()));
+        } else if (parameter instanceof Long) {
+            writeByte(TYPE_LONG);
+            writeVarLong(zigzag((Long)parameter));
+        } else if (parameter instanceof Float) {
+            writeByte(TYPE_FLOAT);
+            writeVarLong(Float.floatToIntBits((Float)parameter) & 0xffffffffL);
+        } else if (parameter instanceof Double) {
+            writeByte(TYPE_DOUBLE);
+            writeFixedLong(Double.doubleToLongBits((Double)parameter));
+        } else if (parameter instanceof Boolean) {
+            writeByte(TYPE_BOOLEAN);
+            writeByte(((Boolean)parameter) ? 1 : 0);
+        } else if (parameter instanceof Date) {
+            writeByte(TYPE_DATE);
+            writeVarLong(zigzag(((Date)parameter).getTime()));
+        } else if (parameter instanceof BigDecimal) {
+            writeByte(TYPE_BIGDECIMAL);
+            writeString(parameter.toString());
+        } else if (parameter instanceof BigInteger) {
+            writeByte(TYPE_BIGINTEGER);
+            writeString(parameter.toString());
+        } else if (parameter instanceof Object[]) {
+            writeByte(TYPE_STRING);
+            writeString(Arrays.deepToString((Object[])parameter));
+        } else {
+            writeByte(TYPE_STRING);
+            writeString(parameter.toString());
+        }
+    }
+
+    /**
+     * 1バイト書き込む
+     *
+     * @param value : int : 値
+     */
+    private void writeByte(int value) {
+        if (this.length == this.frame.length) {
+            byte[] newFrame = new byte[this.frame.length << 1];
+            System.arraycopy(this.frame, 0, newFrame, 0, this.length);
+            this.frame = newFrame;
+        }
+        this.frame[this.length++] = (byte)value;
+    }
+
+    /**
+     * 符号なし整数を可変長で書き込む
+     *
+     * @param value : long : 値
+     */
+    private void writeVarLong(long value) {
+        while ((value & ~0x7fL) != 0) {
+            writeByte((int)((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        writeByte((int)value);
+    }
+
+    /**
+     * 整数を固定長（8バイト）で書き込む
+     *
+     * @param value : long : 値
+     */
+    private void writeFixedLong(long value) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            writeByte((int)(value >>> shift));
+        }
+    }
+
+    /**
+     * 文字列を書き込む（長さ + UTF-8）
+     *
+     * @param str : {@link String} : 文字列
+     */
+    private void writeString(String str) {
+        int len = str.length();
+        //バイト数を求める
+        int bytes = 0;
+        for (int i = 0; i < len; i++) {
+            char ch = str.charAt(i);
+            if (ch < 0x80) {
+                bytes += 1;
+            } else if (ch < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(ch) && i + 1 < len && Character.isLowSurrogate(str.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else if (Character.isSurrogate(ch)) {
+                bytes += 1; //不正なサロゲートは '?' にする
+            } else {
+                bytes += 3;
+            }
+        }
+        writeVarLong(bytes);
+        for (int i = 0; i < len; i++) {
+            char ch = str.charAt(i);
+            if (ch < 0x80) {
+                writeByte(ch);
+            } else if (ch < 0x800) {
+                writeByte(0xc0 | (ch >> 6));
+                writeByte(0x80 | (ch & 0x3f));
+            } else if (Character.isHighSurrogate(ch) && i + 1 < len && Character.isLowSurrogate(str.charAt(i + 1))) {
+                int cp = Character.toCodePoint(ch, str.charAt(++i));
+                writeByte(0xf0 | (cp >> 18));
+                writeByte(0x80 | ((cp >> 12) & 0x3f));
+                writeByte(0x80 | ((cp >> 6) & 0x3f));
+                writeByte(0x80 | (cp & 0x3f));
+            } else if (Character.isSurrogate(ch)) {
+                writeByte('?');
+            } else {
+                writeByte(0xe0 | (ch >> 12));
+                writeByte(0x80 | ((ch >> 6) & 0x3f));
+                writeByte(0x80 | (ch & 0x3f));
+            }
+        }
+    }
+
+    /**
+     * zigzag 符号化
+     *
+     * @param value : long : 値
+     * @return long ; 符号化した値
+     */
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * 出力をフラッシュする
+     * @see java.util.logging.Handler#flush()
+     */
+    @Override
+    public synchronized void flush() {
+        if (Util.isNull(this.out)) {
+            return;
+        }
+        try {
+            this.out.flush();
+        } catch (IOException e) {
+            reportError(null, e, ErrorManager.FLUSH_FAILURE);
+        }
+    }
+
+    /**
+     * 出力を閉じる
+     * @see java.util.logging.Handler#close()
+     */
+    @Override
+    public synchronized void close() {
+        if (Util.isNull(this.out)) {
+            return;
+        }
+        try {
+            this.out.close();
+        } catch (IOException e) {
+            reportError(null, e, ErrorManager.CLOSE_FAILURE);
+        }
+        this.out = null;
+    }
+}
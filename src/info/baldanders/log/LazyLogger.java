@@ -0,0 +1,527 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.log;
+
+import info.baldanders.Util;
+
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * 遅延評価付きの Logger ラッパクラス
+ * <br>{@link LoggerFactory} から取得した {@link Logger} に対して，
+ * {@link MessageSupplier} および "{}" 形式のテンプレートによる出力メソッドを提供する。
+ * 出力レベルが無効な場合はレベルの判定（{@link Logger#isLoggable(Level)}）のみで戻り，メッセージの生成もオブジェクトの生成もしない。
+ * テンプレートの組み立てはハンドラがレコードを出力するときに行う。
+ * <br>引数が3つまでのメソッドは固定長の引数なので，出力レベルが無効な場合は配列を生成しない
+ * （有効な場合はレコードに渡す配列を生成する）。可変長引数の {@link #logv(Level, String, Object...)} は呼び出しのたびに配列が生成される。
+ * プリミティブ型の引数はオートボクシングされるので，頻繁に呼ばれる箇所では {@link #isLoggable(Level)} で判定してから呼び出すこと。
+ * <br>引数は参照のままレコードに渡し，組み立ては出力時（{@link AsyncHandler} を使う場合はワーカスレッド）に行う。
+ * 呼び出し後に変更される可変オブジェクトを引数にする場合は，呼び出し側で文字列にしてから渡すこと。
+ * <blockquote>
+ * private static final LazyLogger log = LazyLogger.getLogger("jdbc.DataAccess");<br>
+ * log.fine("rows={} sql={}", count, sql);<br>
+ * log.finest(new MessageSupplier() { public String get() { return ds.toString(); } });
+ * </blockquote>
+ */
+public final class LazyLogger {
+
+    /** 呼び出し元の推定で読み飛ばすクラス名 */
+    private static final String SELF = LazyLogger.class.getName();
+
+    /** 委譲先の logger */
+    private final Logger logger;
+
+    /**
+     * コンストラクタ
+     *
+     * @param logger : {@link Logger} : 委譲先の logger
+     */
+    public LazyLogger(Logger logger) {
+        this.logger = logger;
+    }
+
+    /**
+     * {@link LazyLogger} インスタンスの取得
+     *
+     * @param name : {@link String} : logger 名
+     * @return {@link LazyLogger} インスタンス
+     * @see LoggerFactory#getLogger(String)
+     */
+    public static LazyLogger getLogger(String name) {
+        return new LazyLogger(LoggerFactory.getLogger(name));
+    }
+
+    /**
+     * {@link LazyLogger} インスタンスの取得（レベル指定あり）
+     *
+     * @param name  : {@link String} : logger 名
+     * @param level : {@link Level}  : 出力レベル
+     * @return {@link LazyLogger} インスタンス
+     * @see LoggerFactory#getLogger(String, Level)
+     */
+    public static LazyLogger getLogger(String name, Level level) {
+        return new LazyLogger(LoggerFactory.getLogger(name, level));
+    }
+
+    /**
+     * 委譲先の logger を取得する
+     *
+     * @return {@link Logger} ; logger
+     */
+    public Logger getLogger() {
+        return this.logger;
+    }
+
+    /**
+     * 出力レベルが有効かどうか
+     *
+     * @param level : {@link Level} : 出力レベル
+     * @return boolean ; 有効なら true
+     */
+    public boolean isLoggable(Level level) {
+        return this.logger.isLoggable(level);
+    }
+
+    /**
+     * ログを出力する
+     *
+     * @param level   : {@link Level}  : 出力レベル
+     * @param message : {@link String} : メッセージ
+     */
+    public void log(Level level, String message) {
+        if (this.logger.isLoggable(level)) {
+            publish(new LogRecord(level, message));
+        }
+    }
+
+    /**
+     * ログを出力する（{@link MessageSupplier} でメッセージを生成する）
+     *
+     * @param level    : {@link Level}           : 出力レベル
+     * @param supplier : {@link MessageSupplier} : メッセージの生成
+     */
+    public void log(Level level, MessageSupplier supplier) {
+        if (this.logger.isLoggable(level)) {
+            publish(new LogRecord(level, supplier.get()));
+        }
+    }
+
+    /**
+     * ログを出力する（{@link MessageSupplier} でメッセージを生成する，例外情報付き）
+     *
+     * @param level    : {@link Level}           : 出力レベル
+     * @param thrown   : {@link Throwable}       : 例外
+     * @param supplier : {@link MessageSupplier} : メッセージの生成
+     */
+    public void log(Level level, Throwable thrown, MessageSupplier supplier) {
+        if (this.logger.isLoggable(level)) {
+            LogRecord record = new LogRecord(level, supplier.get());
+            record.setThrown(thrown);
+            publish(record);
+        }
+    }
+
+    /**
+     * ログを出力する（テンプレート，引数1つ）
+     *
+     * @param level    : {@link Level}  : 出力レベル
+     * @param template : {@link String} : テンプレート（"{}" を引数で置き換える）
+     * @param arg      : {@link Object} : 引数
+     */
+    public void log(Level level, String template, Object arg) {
+        if (this.logger.isLoggable(level)) {
+            publish(new TemplateLogRecord(level, template, new Object[] {arg}));
+        }
+    }
+
+    /**
+     * ログを出力する（テンプレート，引数2つ）
+     *
+     * @param level    : {@link Level}  : 出力レベル
+     * @param template : {@link String} : テンプレート（"{}" を引数で置き換える）
+     * @param arg1     : {@link Object} : 引数1
+     * @param arg2     : {@link Object} : 引数2
+     */
+    public void log(Level level, String template, Object arg1, Object arg2) {
+        if (this.logger.isLoggable(level)) {
+            publish(new TemplateLogRecord(level, template, new Object[] {arg1, arg2}));
+        }
+    }
+
+    /**
+     * ログを出力する（テンプレート，引数3つ）
+     *
+     * @param level    : {@link Level}  : 出力レベル
+     * @param template : {@link String} : テンプレート（"{}" を引数で置き換える）
+     * @param arg1     : {@link Object} : 引数1
+     * @param arg2     : {@link Object} : 引数2
+     * @param arg3     : {@link Object} : 引数3
+     */
+    public void log(Level level, String template, Object arg1, Object arg2, Object arg3) {
+        if (this.logger.isLoggable(level)) {
+            publish(new TemplateLogRecord(level, template, new Object[] {arg1, arg2, arg3}));
+        }
+    }
+
+    /**
+     * ログを出力する（テンプレート，可変長引数）
+     * <br>呼び出し時に引数の配列が生成される。
+     *
+     * @param level    : {@link Level}    : 出力レベル
+     * @param template : {@link String}   : テンプレート（"{}" を引数で置き換える）
+     * @param args     : {@link Object}[] : 引数（置き換えに使われない最後の引数が例外なら例外情報とする）
+     */
+    public void logv(Level level, String template, Object... args) {
+        if (this.logger.isLoggable(level)) {
+            publish(new TemplateLogRecord(level, template, args));
+        }
+    }
+
+    /**
+     * @param message : {@link String} : メッセージ
+     * @see #log(Level, String)
+     */
+    public void severe(String message) {
+        log(Level.SEVERE, message);
+    }
+
+    /**
+     * @param supplier : {@link MessageSupplier} : メッセージの生成
+     * @see #log(Level, MessageSupplier)
+     */
+    public void severe(MessageSupplier supplier) {
+        log(Level.SEVERE, supplier);
+    }
+
+    /**
+     * @param template : {@link String} : テンプレート
+     * @param arg      : {@link Object} : 引数
+     * @see #log(Level, String, Object)
+     */
+    public void severe(String template, Object arg) {
+        log(Level.SEVERE, template, arg);
+    }
+
+    /**
+     * @param template : {@link String} : テンプレート
+     * @param arg1     : {@link Object} : 引数1
+     * @param arg2     : {@link Object} : 引数2
+     * @see #log(Level, String, Object, Object)
+     */
+    public void severe(String template, Object arg1, Object arg2) {
+        log(Level.SEVERE, template, arg1, arg2);
+    }
+
+    /**
+     * @param template : {@link String} : テンプレート
+     * @param arg1     : {@link Object} : 引数1
+     * @param arg2     : {@link Object} : 引数2
+     * @param arg3     : {@link Object} : 引数3
+     * @see #log(Level, String, Object, Object, Object)
+     */
+    public void severe(String template, Object arg1, Object arg2, Object arg3) {
+        log(Level.SEVERE, template, arg1, arg2, arg3);
+    }
+
+    /**
+     * @param message : {@link String} : メッセージ
+     * @see #log(Level, String)
+     */
+    public void warning(String message) {
+        log(Level.WARNING, message);
+    }
+
+    /**
+     * @param supplier : {@link MessageSupplier} : メッセージの生成
+     * @see #log(Level, MessageSupplier)
+     */
+    public void warning(MessageSupplier supplier) {
+        log(Level.WARNING, supplier);
+    }
+
+    /**
+     * @param template : {@link String} : テンプレート
+     * @param arg      : {@link Object} : 引数
+     * @see #log(Level, String, Object)
+     */
+    public void warning(String template, Object arg) {
+        log(Level.WARNING, template, arg);
+    }
+
+    /**
+     * @param template : {@link String} : テンプレート
+     * @param arg1     : {@link Object} : 引数1
+     * @param arg2     : {@link Object} : 引数2
+     * @see #log(Level, String, Object, Object)
+     */
+    public void warning(String template, Object arg1, Object arg2) {
+        log(Level.WARNING, template, arg1, arg2);
+    }
+
+    /**
+     * @param template : {@link String} : テンプレート
+     * @param arg1     : {@link Object} : 引数1
+     * @param arg2     : {@link Object} : 引数2
+     * @param arg3     : {@link Object} : 引数3
+     * @see #log(Level, String, Object, Object, Object)
+     */
+    public void warning(String template, Object arg1, Object arg2, Object arg3) {
+        log(Level.WARNING, template, arg1, arg2, arg3);
+    }
+
+    /**
+     * @param message : {@link String} : メッセージ
+     * @see #log(Level, String)
+     */
+    public void info(String message) {
+        log(Level.INFO, message);
+    }
+
+    /**
+     * @param supplier : {@link MessageSupplier} : メッセージの生成
+     * @see #log(Level, MessageSupplier)
+     */
+    public void info(MessageSupplier supplier) {
+        log(Level.INFO, supplier);
+    }
+
+    /**
+     * @param template : {@link String} : テンプレート
+     * @param arg      : {@link Object} : 引数
+     * @see #log(Level, String, Object)
+     */
+    public void info(String template, Object arg) {
+        log(Level.INFO, template, arg);
+    }
+
+    /**
+     * @param template : {@link String} : テンプレート
+     * @param arg1     : {@link Object} : 引数1
+     * @param arg2     : {@link Object} : 引数2
+     * @see #log(Level, String, Object, Object)
+     */
+    public void info(String template, Object arg1, Object arg2) {
+        log(Level.INFO, template, arg1, arg2);
+    }
+
+    /**
+     * @param template : {@link String} : テンプレート
+     * @param arg1     : {@link Object} : 引数1
+     * @param arg2     : {@link Object} : 引数2
+     * @param arg3     : {@link Object} : 引数3
+     * @see #log(Level, String, Object, Object, Object)
+     */
+    public void info(String template, Object arg1, Object arg2, Object arg3) {
+        log(Level.INFO, template, arg1, arg2, arg3);
+    }
+
+    /**
+     * @param message : {@link String} : メッセージ
+     * @see #log(Level, String)
+     */
+    public void config(String message) {
+        log(Level.CONFIG, message);
+    }
+
+    /**
+     * @param supplier : {@link MessageSupplier} : メッセージの生成
+     * @see #log(Level, MessageSupplier)
+     */
+    public void config(MessageSupplier supplier) {
+        log(Level.CONFIG, supplier);
+    }
+
+    /**
+     * @param template : {@link String} : テンプレート
+     * @param arg      : {@link Object} : 引数
+     * @see #log(Level, String, Object)
+     */
+    public void config(String template, Object arg) {
+        log(Level.CONFIG, template, arg);
+    }
+
+    /**
+     * @param template : {@link String} : テンプレート
+     * @param arg1     : {@link Object} : 引数1
+     * @param arg2     : {@link Object} : 引数2
+     * @see #log(Level, String, Object, Object)
+     */
+    public void config(String template, Object arg1, Object arg2) {
+        log(Level.CONFIG, template, arg1, arg2);
+    }
+
+    /**
+     * @param template : {@link String} : テンプレート
+     * @param arg1     : {@link Object} : 引数1
+     * @param arg2     : {@link Object} : 引数2
+     * @param arg3     : {@link Object} : 引数3
+     * @see #log(Level, String, Object, Object, Object)
+     */
+    public void config(String template, Object arg1, Object arg2, Object arg3) {
+        log(Level.CONFIG, template, arg1, arg2, arg3);
+    }
+
+    /**
+     * @param message : {@link String} : メッセージ
+     * @see #log(Level, String)
+     */
+    public void fine(String message) {
+        log(Level.FINE, message);
+    }
+
+    /**
+     * @param supplier : {@link MessageSupplier} : メッセージの生成
+     * @see #log(Level, MessageSupplier)
+     */
+    public void fine(MessageSupplier supplier) {
+        log(Level.FINE, supplier);
+    }
+
+    /**
+     * @param template : {@link String} : テンプレート
+     * @param arg      : {@link Object} : 引数
+     * @see #log(Level, String, Object)
+     */
+    public void fine(String template, Object arg) {
+        log(Level.FINE, template, arg);
+    }
+
+    /**
+     * @param template : {@link String} : テンプレート
+     * @param arg1     : {@link Object} : 引数1
+     * @param arg2     : {@link Object} : 引数2
+     * @see #log(Level, String, Object, Object)
+     */
+    public void fine(String template, Object arg1, Object arg2) {
+        log(Level.FINE, template, arg1, arg2);
+    }
+
+    /**
+     * @param template : {@link String} : テンプレート
+     * @param arg1     : {@link Object} : 引数1
+     * @param arg2     : {@link Object} : 引数2
+     * @param arg3     : {@link Object} : 引数3
+     * @see #log(Level, String, Object, Object, Object)
+     */
+    public void fine(String template, Object arg1, Object arg2, Object arg3) {
+        log(Level.FINE, template, arg1, arg2, arg3);
+    }
+
+    /**
+     * @param message : {@link String} : メッセージ
+     * @see #log(Level, String)
+     */
+    public void finer(String message) {
+        log(Level.FINER, message);
+    }
+
+    /**
+     * @param supplier : {@link MessageSupplier} : メッセージの生成
+     * @see #log(Level, MessageSupplier)
+     */
+    public void finer(MessageSupplier supplier) {
+        log(Level.FINER, supplier);
+    }
+
+    /**
+     * @param template : {@link String} : テンプレート
+     * @param arg      : {@link Object} : 引数
+     * @see #log(Level, String, Object)
+     */
+    public void finer(String template, Object arg) {
+        log(Level.FINER, template, arg);
+    }
+
+    /**
+     * @param template : {@link String} : テンプレート
+     * @param arg1     : {@link Object} : 引数1
+     * @param arg2     : {@link Object} : 引数2
+     * @see #log(Level, String, Object, Object)
+     */
+    public void finer(String template, Object arg1, Object arg2) {
+        log(Level.FINER, template, arg1, arg2);
+    }
+
+    /**
+     * @param template : {@link String} : テンプレート
+     * @param arg1     : {@link Object} : 引数1
+     * @param arg2     : {@link Object} : 引数2
+     * @param arg3     : {@link Object} : 引数3
+     * @see #log(Level, String, Object, Object, Object)
+     */
+    public void finer(String template, Object arg1, Object arg2, Object arg3) {
+        log(Level.FINER, template, arg1, arg2, arg3);
+    }
+
+    /**
+     * @param message : {@link String} : メッセージ
+     * @see #log(Level, String)
+     */
+    public void finest(String message) {
+        log(Level.FINEST, message);
+    }
+
+    /**
+     * @param supplier : {@link MessageSupplier} : メッセージの生成
+     * @see #log(Level, MessageSupplier)
+     */
+    public void finest(MessageSupplier supplier) {
+        log(Level.FINEST, supplier);
+    }
+
+    /**
+     * @param template : {@link String} : テンプレート
+     * @param arg      : {@link Object} : 引数
+     * @see #log(Level, String, Object)
+     */
+    public void finest(String template, Object arg) {
+        log(Level.FINEST, template, arg);
+    }
+
+    /**
+     * @param template : {@link String} : テンプレート
+     * @param arg1     : {@link Object} : 引数1
+     * @param arg2     : {@link Object} : 引数2
+     * @see #log(Level, String, Object, Object)
+     */
+    public void finest(String template, Object arg1, Object arg2) {
+        log(Level.FINEST, template, arg1, arg2);
+    }
+
+    /**
+     * @param template : {@link String} : テンプレート
+     * @param arg1     : {@link Object} : 引数1
+     * @param arg2     : {@link Object} : 引数2
+     * @param arg3     : {@link Object} : 引数3
+     * @see #log(Level, String, Object, Object, Object)
+     */
+    public void finest(String template, Object arg1, Object arg2, Object arg3) {
+        log(Level.FINEST, template, arg1, arg2, arg3);
+    }
+
+    /**
+     * ログレコードを出力する
+     * <br>呼び出し元のクラス名・メソッド名はこのクラスを除いて推定する。
+     *
+     * @param record : {@link LogRecord} : ログレコード
+     */
+    private void publish(LogRecord record) {
+        StackTraceElement[] traces = new Throwable().getStackTrace();
+        for (StackTraceElement trace : traces) {
+            if (!SELF.equals(trace.getClassName())) {
+                record.setSourceClassName(trace.getClassName());
+                record.setSourceMethodName(trace.getMethodName());
+                break;
+            }
+        }
+        if (Util.isNull(record.getLoggerName())) {
+            record.setLoggerName(this.logger.getName());
+        }
+        this.logger.log(record);
+    }
+}
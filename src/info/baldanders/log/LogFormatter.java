@@ -7,17 +7,74 @@ package info.baldanders.log;
 
 import info.baldanders.Util;
 
+import java.text.FieldPosition;
+import java.text.SimpleDateFormat;
 import java.util.Date;
+import java.util.Locale;
 import java.util.logging.Formatter;
 import java.util.logging.Level;
 import java.util.logging.LogRecord;
 
 /**
  * Formatter クラス（継承クラス）
+ * <br>スレッドごとにバッファと時刻文字列のキャッシュを持つので，ロックなしで複数スレッドから使用できる。
  * @see java.util.logging.Formatter
  */
 public class LogFormatter extends Formatter {
 
+    /** 改行文字 */
+    private static final String LINE_SEPARATOR = System.getProperty("line.separator");
+
+    /** 時刻のフォーマット（{@link Util#date2String(Date)} と同じ） */
+    private static final String DATETIME_FORMAT = "yyyy-MM-dd'T'HH:mm:ss.SSSZ";
+
+    /** スレッドごとのバッファを使い回す上限サイズ（これを超えたら作り直す） */
+    private static final int MAX_BUFFER_SIZE = 64 * 1024;
+
+    /** 出力レベルのタグ（{@link Level} の標準レベル） */
+    private static final Level[] LEVELS = {
+        Level.SEVERE, Level.WARNING, Level.INFO, Level.CONFIG, Level.FINE, Level.FINER, Level.FINEST
+    };
+
+    /** 出力レベルのタグ（{@link #LEVELS} に対応） */
+    private static final String[] LEVEL_TAGS = {
+        "[SEVERE ] : ", "[WARNING] : ", "[INFO   ] : ", "[CONFIG ] : ", "[FINE   ] : ", "[FINER  ] : ", "[FINEST ] : "
+    };
+
+    /**
+     * スレッドごとの作業領域
+     */
+    private static final class Context {
+        /** 出力バッファ */
+        StringBuilder buffer = new StringBuilder(256);
+        /** 時刻フォーマッタ */
+        final SimpleDateFormat dateFormat = new SimpleDateFormat(DATETIME_FORMAT, Locale.getDefault());
+        /** 時刻フォーマッタ用の日付 */
+        final Date date = new Date(0);
+        /** 時刻フォーマッタの出力先 */
+        final StringBuffer dateBuffer = new StringBuffer(32);
+        /** 時刻フォーマッタ用 */
+        final FieldPosition fieldPosition = new FieldPosition(0);
+        /** キャッシュしている時刻（秒単位） */
+        long cachedSecond = Long.MIN_VALUE;
+        /** キャッシュしている時刻（ミリ秒単位，ミリ秒部分を分割できない場合に使う） */
+        long cachedMillis = Long.MIN_VALUE;
+        /** 時刻文字列のミリ秒より前の部分（"2015-01-05T17:49:25."） */
+        final StringBuilder prefix = new StringBuilder(32);
+        /** 時刻文字列のミリ秒より後の部分（"+0900"） */
+        final StringBuilder suffix = new StringBuilder(16);
+        /** ミリ秒部分を分割できるかどうか */
+        boolean splittable = false;
+    }
+
+    /** スレッドごとの作業領域 */
+    private final ThreadLocal<Context> context = new ThreadLocal<Context>() {
+        @Override
+        protected Context initialValue() {
+            return new Context();
+        }
+    };
+
     /**
      * ログレコードをフォーマット
      * <br>ログレコードを以下の形式に整形する。
@@ -25,47 +82,150 @@ public class LogFormatter extends Formatter {
      * @see java.util.logging.Formatter#format(java.util.logging.LogRecord)
      */
     @Override
-    public synchronized String format(LogRecord record) {
-        final StringBuffer msg = new StringBuffer(128);
+    public String format(LogRecord record) {
+        Context ctx = this.context.get();
+        StringBuilder msg = ctx.buffer;
+        msg.setLength(0);
+        format(record, msg);
+        String str = msg.toString();
+        if (msg.capacity() > MAX_BUFFER_SIZE) {
+            ctx.buffer = new StringBuilder(256); //大きくなりすぎたバッファは保持しない
+        }
+        return str;
+    }
 
+    /**
+     * ログレコードをフォーマットしてバッファに追加する
+     * <br>形式は {@link #format(LogRecord)} と同じ。
+     *
+     * @param record : {@link LogRecord}     : ログレコード
+     * @param msg    : {@link StringBuilder} : 出力先バッファ
+     * @return {@link StringBuilder} ; 出力先バッファ
+     */
+    public StringBuilder format(LogRecord record, StringBuilder msg) {
         //時刻
-        msg.append(Util.date2String(new Date(record.getMillis()))).append(" ");
+        appendTimestamp(record.getMillis(), msg);
+        msg.append(' ');
         //出力レベル
-        Level level = record.getLevel();
-        if (level == Level.SEVERE) {
-            msg.append("[SEVERE ] : ");
-        } else if (level == Level.WARNING) {
-            msg.append("[WARNING] : ");
-        } else if (level == Level.INFO) {
-            msg.append("[INFO   ] : ");
-        } else if (level == Level.CONFIG) {
-            msg.append("[CONFIG ] : ");
-        } else if (level == Level.FINE) {
-            msg.append("[FINE   ] : ");
-        } else if (level == Level.FINER) {
-            msg.append("[FINER  ] : ");
-        } else if (level == Level.FINEST) {
-            msg.append("[FINEST ] : ");
-        } else {
-            msg.append("[").append(level.getName()).append("] : ");
-        }
+        appendLevel(record.getLevel(), msg);
         //スレッドID
         msg.append("Thread(").append(record.getThreadID()).append(") : ");
         //クラス名
-        msg.append(Util.null2String(record.getSourceClassName())).append(" ");
+        msg.append(Util.null2String(record.getSourceClassName())).append(' ');
         //メソッド名
-        msg.append("(").append(Util.null2String(record.getSourceMethodName())).append(") : ");
+        msg.append('(').append(Util.null2String(record.getSourceMethodName())).append(") : ");
         //メッセージ
-        msg.append(formatMessage(record)).append(System.getProperty("line.separator"));
+        Object[] parameters = record.getParameters();
+        if (Util.isNull(record.getResourceBundle()) && (Util.isNull(parameters) || parameters.length == 0)) {
+            msg.append(record.getMessage()); //整形不要（ロックを避けるため formatMessage を呼ばない）
+        } else {
+            msg.append(formatMessage(record));
+        }
+        msg.append(LINE_SEPARATOR);
         //例外情報の出力（もしあれば）
         Throwable throwable = record.getThrown();
         if (!Util.isNull(throwable)) {
-            msg.append(throwable.toString()).append(System.getProperty("line.separator"));
-            for (StackTraceElement trace : throwable.getStackTrace()) {
-                msg.append('\t').append(trace.toString()).append(System.getProperty("line.separator"));
+            msg.append(throwable.toString()).append(LINE_SEPARATOR);
+            if (throwable instanceof BinaryLogDecoder.DecodedThrowable) {
+                //バイナリ形式ログから復元した例外情報（出力時の文字列のまま）
+                for (String frame : ((BinaryLogDecoder.DecodedThrowable)throwable).getFrames()) {
+                    msg.append('\t').append(frame).append(LINE_SEPARATOR);
+                }
+            } else {
+                for (StackTraceElement trace : throwable.getStackTrace()) {
+                    msg.append('\t').append(trace.toString()).append(LINE_SEPARATOR);
+                }
+            }
+        }
+        return msg;
+    }
 
+    /**
+     * 出力レベルのタグを追加する
+     *
+     * @param level : {@link Level}         : 出力レベル
+     * @param msg   : {@link StringBuilder} : 出力先バッファ
+     */
+    private static void appendLevel(Level level, StringBuilder msg) {
+        for (int i = 0; i < LEVELS.length; i++) {
+            if (level == LEVELS[i]) {
+                msg.append(LEVEL_TAGS[i]);
+                return;
             }
         }
-        return msg.toString();
+        msg.append('[').append(level.getName()).append("] : ");
+    }
+
+    /**
+     * 時刻文字列を追加する
+     * <br>ミリ秒より前と後の部分を秒単位でキャッシュし，ミリ秒部分のみ毎回出力する。
+     *
+     * @param millis : long                   : 時刻（1970-01-01T00:00:00Z からのミリ秒）
+     * @param msg    : {@link StringBuilder} : 出力先バッファ
+     */
+    private void appendTimestamp(long millis, StringBuilder msg) {
+        Context ctx = this.context.get();
+        long second = millis / 1000;
+        if (millis % 1000 < 0) {
+            second--; //1970年より前
+        }
+        int milli = (int)(millis - second * 1000);
+        if (ctx.splittable && second == ctx.cachedSecond) {
+            msg.append(ctx.prefix);
+            appendMillis(milli, msg);
+            msg.append(ctx.suffix);
+            return;
+        }
+        if (!ctx.splittable && millis == ctx.cachedMillis) {
+            msg.append(ctx.prefix);
+            return;
+        }
+        //時刻を整形してキャッシュする
+        ctx.date.setTime(millis);
+        ctx.dateBuffer.setLength(0);
+        ctx.dateFormat.format(ctx.date, ctx.dateBuffer, ctx.fieldPosition);
+        ctx.prefix.setLength(0);
+        ctx.suffix.setLength(0);
+        int dot = ctx.dateBuffer.lastIndexOf(".");
+        ctx.splittable = dot >= 0 && dot + 4 <= ctx.dateBuffer.length() && isMillis(ctx.dateBuffer, dot + 1, milli);
+        if (ctx.splittable) {
+            ctx.cachedSecond = second;
+            ctx.cachedMillis = Long.MIN_VALUE;
+            ctx.prefix.append(ctx.dateBuffer, 0, dot + 1);
+            ctx.suffix.append(ctx.dateBuffer, dot + 4, ctx.dateBuffer.length());
+            msg.append(ctx.prefix);
+            appendMillis(milli, msg);
+            msg.append(ctx.suffix);
+        } else {
+            //ミリ秒部分が ASCII 数字でない場合などはミリ秒単位でキャッシュする
+            ctx.cachedSecond = Long.MIN_VALUE;
+            ctx.cachedMillis = millis;
+            ctx.prefix.append(ctx.dateBuffer);
+            msg.append(ctx.prefix);
+        }
+    }
+
+    /**
+     * ミリ秒部分（3桁）を追加する
+     *
+     * @param milli : int                    : ミリ秒（0～999）
+     * @param msg   : {@link StringBuilder} : 出力先バッファ
+     */
+    private static void appendMillis(int milli, StringBuilder msg) {
+        msg.append((char)('0' + milli / 100)).append((char)('0' + milli / 10 % 10)).append((char)('0' + milli % 10));
+    }
+
+    /**
+     * 文字列の指定位置がミリ秒（3桁の ASCII 数字）かどうか
+     *
+     * @param str   : {@link CharSequence} : 文字列
+     * @param start : int                   : 開始位置
+     * @param milli : int                   : ミリ秒（0～999）
+     * @return boolean ; ミリ秒なら true
+     */
+    private static boolean isMillis(CharSequence str, int start, int milli) {
+        return str.charAt(start) == (char)('0' + milli / 100)
+                && str.charAt(start + 1) == (char)('0' + milli / 10 % 10)
+                && str.charAt(start + 2) == (char)('0' + milli % 10);
     }
 }
@@ -0,0 +1,126 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.log;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.logging.LogRecord;
+
+/**
+ * {@link LogRecord} 用のリングバッファクラス
+ * <br>固定長・ロックフリーのキュー。
+ * 書き込み（{@link #offer(LogRecord)}）は複数スレッドから行えるが，
+ * 読み出し（{@link #poll()}）は単一スレッドから行うこと。
+ */
+final class LogRingBuffer {
+
+    /** インデックス用マスク（容量 - 1） */
+    private final int mask;
+
+    /** レコード格納領域 */
+    private final AtomicReferenceArray<LogRecord> slots;
+
+    /** 各スロットのシーケンス番号 */
+    private final AtomicLongArray sequences;
+
+    /** 次に書き込む位置 */
+    private final AtomicLong tail;
+
+    /** 次に読み出す位置（読み出しスレッドのみが更新する） */
+    private volatile long head;
+
+    /**
+     * コンストラクタ
+     *
+     * @param capacity : int : 容量（2のべき乗に切り上げる）
+     */
+    LogRingBuffer(int capacity) {
+        int size = 1;
+        while (size < capacity && size < (1 << 30)) {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+        this.slots = new AtomicReferenceArray<LogRecord>(size);
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            this.sequences.set(i, i);
+        }
+        this.tail = new AtomicLong(0);
+        this.head = 0;
+    }
+
+    /**
+     * レコードを追加する
+     *
+     * @param record : {@link LogRecord} : ログレコード
+     * @return boolean ; 追加できた場合は true，バッファが満杯の場合は false
+     */
+    boolean offer(LogRecord record) {
+        long pos = this.tail.get();
+        while (true) {
+            int index = (int)(pos & this.mask);
+            long diff = this.sequences.get(index) - pos;
+            if (diff == 0) {
+                if (this.tail.compareAndSet(pos, pos + 1)) {
+                    this.slots.lazySet(index, record);
+                    this.sequences.lazySet(index, pos + 1);
+                    return true;
+                }
+                pos = this.tail.get();
+            } else if (diff < 0) {
+                return false; //満杯
+            } else {
+                pos = this.tail.get(); //他スレッドに先を越された
+            }
+        }
+    }
+
+    /**
+     * レコードを取り出す
+     *
+     * @return {@link LogRecord} ; ログレコード（バッファが空なら null）
+     */
+    LogRecord poll() {
+        long pos = this.head;
+        int index = (int)(pos & this.mask);
+        if (this.sequences.get(index) != pos + 1) {
+            return null; //空または書き込み途中
+        }
+        LogRecord record = this.slots.get(index);
+        this.slots.lazySet(index, null);
+        this.sequences.lazySet(index, pos + this.mask + 1);
+        this.head = pos + 1;
+        return record;
+    }
+
+    /**
+     * バッファが空かどうか
+     *
+     * @return boolean ; 空なら true
+     */
+    boolean isEmpty() {
+        return this.tail.get() == this.head;
+    }
+
+    /**
+     * 格納されているレコード数（概数）を取得する
+     *
+     * @return int ; レコード数
+     */
+    int size() {
+        return (int)Math.max(this.tail.get() - this.head, 0);
+    }
+
+    /**
+     * 容量を取得する
+     *
+     * @return int ; 容量
+     */
+    int capacity() {
+        return this.mask + 1;
+    }
+}
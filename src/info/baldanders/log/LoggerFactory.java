@@ -8,8 +8,14 @@ package info.baldanders.log;
 import info.baldanders.Util;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.FileHandler;
+import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -23,11 +29,38 @@ import javax.naming.NamingException;
 public final class LoggerFactory {
 
     /** file logging handler */
-    private static FileHandler fileHandler;
+    private static Handler fileHandler;
 
     /** console logging handler */
     private static ConsoleHandler consoleHandler;
 
+    /** async logging handler（非同期モードの場合のみ） */
+    private static AsyncHandler asyncHandler;
+
+    /** 構成済みの logger（キーは logger 名） */
+    private static final ConcurrentHashMap<String, Logger> loggers = new ConcurrentHashMap<String, Logger>();
+
+    /** 直近にレベル指定ありで取得した logger 名（再読み込み時に出力レベルを差し替えない） */
+    private static final Set<String> explicitLevels = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    /** プロパティファイルから取得した logger ごとの出力レベル（キーは logger 名） */
+    private static final ConcurrentHashMap<String, Level> configuredLevels = new ConcurrentHashMap<String, Level>();
+
+    /** プロパティファイルから取得した出力レベル */
+    private static volatile Level defaultLevel;
+
+    /** 出力頻度の制限（1秒あたりの件数，0 なら制限なし） */
+    private static volatile double rateLimit;
+
+    /** 出力頻度の制限（最大連続件数） */
+    private static volatile int rateBurst;
+
+    /** 重複抑止の時間（ミリ秒，0 なら抑止なし） */
+    private static volatile long repeatWindow;
+
+    /** プロパティファイルの更新確認用タイマ（再読み込みモードの場合のみ） */
+    private static Timer watcher;
+
     /** アプリケーション名 */
     private static String appName;
 
@@ -41,7 +74,15 @@ public final class LoggerFactory {
             int count = Util.string2Integer(LoggerProperties.get("java.util.logging.FileHandler.count")); //最大バイト数
             boolean append = Util.string2Boolean(LoggerProperties.get("java.util.logging.FileHandler.append")); //追記モード
             //ハンドラを生成
-            fileHandler = new FileHandler(pattern, limit, count, append);
+            if (Util.string2Boolean(LoggerProperties.get("info.baldanders.log.BinaryLogHandler.enabled"))) {
+                //バイナリ形式で出力する（BinaryLogDecoder で文字列に変換する）
+                String binaryPattern = LoggerProperties.get("info.baldanders.log.BinaryLogHandler.pattern");
+                fileHandler = new BinaryLogHandler(Util.isBlank(binaryPattern) ? "%h/java.blog" : binaryPattern, append);
+            } else if (Util.string2Boolean(LoggerProperties.get("info.baldanders.log.MappedFileHandler.enabled"))) {
+                fileHandler = new MappedFileHandler(pattern, limit, count, append); //メモリマップドファイルに出力する
+            } else {
+                fileHandler = new FileHandler(pattern, limit, count, append);
+            }
             consoleHandler = new ConsoleHandler();
             //出力レベル
             fileHandler.setLevel(getLevel4File());
@@ -49,6 +90,10 @@ public final class LoggerFactory {
             //フォーマットの指定
             fileHandler.setFormatter(new LogFormatter());
             consoleHandler.setFormatter(new LogFormatter());
+            //非同期モード
+            if (Util.string2Boolean(LoggerProperties.get("info.baldanders.log.AsyncHandler.enabled"))) {
+                asyncHandler = createAsyncHandler();
+            }
         } catch (SecurityException e) {
             fileHandler = null;
             consoleHandler = null;
@@ -56,6 +101,14 @@ public final class LoggerFactory {
             fileHandler = null;
             consoleHandler = null;
         }
+        //出力レベル
+        defaultLevel = getLevel();
+        //出力頻度の制限
+        rateLimit = Util.string2Integer(LoggerProperties.get("info.baldanders.log.RateLimitFilter.rate"));
+        rateBurst = Util.string2Integer(LoggerProperties.get("info.baldanders.log.RateLimitFilter.burst"));
+        repeatWindow = Util.string2Integer(LoggerProperties.get("info.baldanders.log.RateLimitFilter.window"));
+        //再読み込みモード
+        startWatcher(Util.string2Integer(LoggerProperties.get("info.baldanders.log.LoggerProperties.reloadInterval")));
         //アプリケーション名を取得（末尾にピリオドを付加する）
         try {
             InitialContext ctx = new InitialContext();
@@ -77,31 +130,204 @@ public final class LoggerFactory {
 
     /**
      * {@link Logger} インスタンスの取得（レベル指定あり）
+     * <br>構成済みの logger はキャッシュから返す。
+     * 同名の logger は同じインスタンスなので，取得のたびに出力レベルを指定レベル（指定がなければプロパティファイルの値）にする。
+     * プロパティファイルの値は "logger 名.level" があればその値，なければファイル出力用と標準エラー出力用で優先順位の低いほう。
      *
      * @param name  : {@link String} : logger 名
-     * @param level : {@link Level}  : 出力レベル
+     * @param level : {@link Level}  : 出力レベル（null ならプロパティファイルの値）
      * @return {@link Logger} インスタンス
      */
     public static Logger getLogger(String name, Level level) {
-        Logger logger = Logger.getLogger(appName + name);
-        //ハンドラを追加
-        if (!Util.isNull(fileHandler)) {
-            logger.addHandler(fileHandler);
+        String key = String.valueOf(name);
+        Logger logger = loggers.get(key);
+        if (Util.isNull(logger)) {
+            logger = configureLogger(key, name);
         }
-        if (!Util.isNull(consoleHandler)) {
-            logger.addHandler(consoleHandler);
-        }
-        //出力レベル
         if (Util.isNull(level)) {
-            level = getLevel(); //レベルの指定がない場合はプロパティファイルから取得する
+            explicitLevels.remove(key);
+            level = configuredLevels.get(key); //レベルの指定がない場合はプロパティファイルから取得する
+        } else {
+            explicitLevels.add(key);
+        }
+        if (logger.getLevel() != level) {
+            logger.setLevel(level);
+        }
+        return logger;
+    }
+
+    /**
+     * {@link Logger} インスタンスを構成してキャッシュする
+     * <br>ハンドラは同じ logger に対して1度だけ追加する。出力レベルは呼び出し側で設定する。
+     *
+     * @param key  : {@link String} : キャッシュのキー
+     * @param name : {@link String} : logger 名
+     * @return {@link Logger} インスタンス
+     */
+    private static synchronized Logger configureLogger(String key, String name) {
+        Logger logger = loggers.get(key);
+        if (!Util.isNull(logger)) {
+            return logger; //他スレッドが構成済み
+        }
+        logger = Logger.getLogger(appName + name);
+        //ハンドラを追加
+        if (!Util.isNull(asyncHandler)) {
+            addHandler(logger, asyncHandler);
+        } else if (!Util.isNull(fileHandler)) {
+            addHandler(logger, fileHandler);
         }
-        logger.setLevel(level);
+        if (!Util.isNull(consoleHandler) && Util.isNull(asyncHandler)) {
+            addHandler(logger, consoleHandler);
+        }
+        //プロパティファイルの出力レベル
+        configuredLevels.put(key, getLevel(name));
         //親 logger に送信しない
         logger.setUseParentHandlers(false);
+        //出力頻度の制限
+        if ((rateLimit > 0 || repeatWindow > 0) && !(logger.getFilter() instanceof RateLimitFilter)) {
+            logger.setFilter(new RateLimitFilter(logger, rateLimit, rateBurst, repeatWindow));
+        }
 
+        loggers.put(key, logger);
         return logger;
     }
 
+    /**
+     * プロパティファイルを再読み込みして出力レベル等を反映する
+     * <br>ハンドラと構成済みの logger はそのまま使い，次の値のみを差し替える。
+     * <ul>
+     * <li>ファイル出力・標準エラー出力のハンドラ（非同期モードの場合は非同期出力のハンドラも）の出力レベル</li>
+     * <li>直近にレベル指定なしで取得した logger の出力レベル（"logger 名.level" の指定も反映する）</li>
+     * <li>出力頻度の制限（{@link RateLimitFilter}）</li>
+     * </ul>
+     * 出力先やハンドラの種類（非同期・メモリマップドファイル・バイナリ形式）の変更は再起動するまで反映されない。
+     * 出力時の判定（{@link Logger#isLoggable(Level)}，{@link Handler#isLoggable(java.util.logging.LogRecord)}）は
+     * volatile なレベル値を参照するだけなので，再読み込み中もロックされない。
+     *
+     * @return boolean ; 再読み込みできた場合は true（失敗した場合は何も変更しない）
+     */
+    public static synchronized boolean reload() {
+        if (!LoggerProperties.reload()) {
+            return false;
+        }
+        //ハンドラの出力レベル
+        if (!Util.isNull(fileHandler)) {
+            fileHandler.setLevel(getLevel4File());
+        }
+        if (!Util.isNull(consoleHandler)) {
+            consoleHandler.setLevel(getLevel4Console());
+        }
+        if (!Util.isNull(asyncHandler)) {
+            asyncHandler.updateLevel(); //委譲先のレベルに合わせる
+        }
+        //logger の出力レベル
+        defaultLevel = getLevel();
+        //出力頻度の制限
+        double newRateLimit = Util.string2Integer(LoggerProperties.get("info.baldanders.log.RateLimitFilter.rate"));
+        int newRateBurst = Util.string2Integer(LoggerProperties.get("info.baldanders.log.RateLimitFilter.burst"));
+        long newRepeatWindow = Util.string2Integer(LoggerProperties.get("info.baldanders.log.RateLimitFilter.window"));
+        boolean filterChanged = (newRateLimit != rateLimit || newRateBurst != rateBurst || newRepeatWindow != repeatWindow);
+        rateLimit = newRateLimit;
+        rateBurst = newRateBurst;
+        repeatWindow = newRepeatWindow;
+        for (String key : loggers.keySet()) {
+            Logger logger = loggers.get(key);
+            Level newLevel = getLevel(key);
+            configuredLevels.put(key, newLevel);
+            if (!explicitLevels.contains(key) && logger.getLevel() != newLevel) {
+                logger.setLevel(newLevel);
+            }
+            if (filterChanged && (Util.isNull(logger.getFilter()) || logger.getFilter() instanceof RateLimitFilter)) {
+                logger.setFilter((rateLimit > 0 || repeatWindow > 0) ? new RateLimitFilter(logger, rateLimit, rateBurst, repeatWindow) : null);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * プロパティファイルの更新確認を開始する
+     * <br>指定間隔でプロパティファイルの更新時刻を確認し，更新されていれば {@link #reload()} を呼び出す。
+     * プロパティファイルがファイルシステム上にない（jar 内など）場合は何もしない。
+     * 監視対象は1ファイルの更新時刻だけなので，ディレクトリ単位で監視する {@link java.nio.file.WatchService}
+     * （プラットフォームによってはそれ自体がポーリングで実装される）は使わずにタイマで確認する。
+     *
+     * @param interval : long : 確認間隔（ミリ秒，0 以下なら確認しない）
+     */
+    private static synchronized void startWatcher(long interval) {
+        if (interval <= 0 || !Util.isNull(watcher) || Util.isNull(LoggerProperties.getFile())) {
+            return;
+        }
+        watcher = new Timer("LoggerProperties-watcher", true);
+        watcher.schedule(new TimerTask() {
+            @Override
+            public void run() {
+                if (LoggerProperties.isModified()) {
+                    reload();
+                }
+            }
+        }, interval, interval);
+    }
+
+    /**
+     * ハンドラを追加する（追加済みなら何もしない）
+     *
+     * @param logger  : {@link Logger}  : logger
+     * @param handler : {@link Handler} : ハンドラ
+     */
+    private static void addHandler(Logger logger, Handler handler) {
+        for (Handler attached : logger.getHandlers()) {
+            if (attached == handler) {
+                return;
+            }
+        }
+        logger.addHandler(handler);
+    }
+
+    /**
+     * 非同期出力ハンドラを生成する
+     * <br>ファイル出力・標準エラー出力のハンドラを委譲先とする。
+     *
+     * @return {@link AsyncHandler} ; 非同期出力ハンドラ
+     */
+    private static AsyncHandler createAsyncHandler() {
+        int bufferSize = Util.string2Integer(LoggerProperties.get("info.baldanders.log.AsyncHandler.bufferSize")); //バッファサイズ
+        if (bufferSize <= 0) {
+            bufferSize = 8192;
+        }
+        AsyncHandler.OverflowPolicy policy = AsyncHandler.OverflowPolicy.BLOCK; //満杯時の動作
+        try {
+            policy = AsyncHandler.OverflowPolicy.valueOf(Util.null2String(LoggerProperties.get("info.baldanders.log.AsyncHandler.overflow")).trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            //なにもしない
+        }
+        Level dropLevel = Level.INFO; //DROP 時に捨てるレベルの境界
+        try {
+            dropLevel = Level.parse(LoggerProperties.get("info.baldanders.log.AsyncHandler.dropLevel"));
+        } catch (Exception e) {
+            //なにもしない
+        }
+        int sampleRate = Util.string2Integer(LoggerProperties.get("info.baldanders.log.AsyncHandler.sampleRate")); //SAMPLE 時の割合
+        return new AsyncHandler(new Handler[] {fileHandler, consoleHandler}, bufferSize, policy, dropLevel, sampleRate);
+    }
+
+    /**
+     * プロパティファイルから logger ごとの出力レベルを取得する
+     *
+     * @param name : {@link String} : logger 名
+     * @return {@link Level} ; "logger 名.level" の値。指定がない（または正しくない）場合は {@link #defaultLevel} を返す。
+     */
+    private static Level getLevel(String name) {
+        String value = LoggerProperties.get(name + ".level");
+        if (!Util.isBlank(value)) {
+            try {
+                return Level.parse(value.trim());
+            } catch (IllegalArgumentException e) {
+                //なにもしない
+            }
+        }
+        return defaultLevel;
+    }
+
     /**
      * プロパティファイルから出力レベルを取得する
      *
@@ -7,8 +7,11 @@ package info.baldanders.log;
 
 import info.baldanders.Util;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
 import java.util.Properties;
 import java.util.logging.LogManager;
 
@@ -20,8 +23,11 @@ public final class LoggerProperties {
     /** プロパティファイル名 */
     private static final String propertyFileName  = "logger.properties";
 
-    /** プロパティのインスタンス */
-    private static Properties properties = null;
+    /** プロパティのインスタンス（再読み込み時はインスタンスごと差し替える） */
+    private static volatile Properties properties = null;
+
+    /** 読み込んだプロパティファイルの更新時刻 */
+    private static volatile long lastModified = 0;
 
     /**
      * プロパティ値を取得する
@@ -41,8 +47,12 @@ public final class LoggerProperties {
             LogManager defaults = LogManager.getLogManager();
             //プロパティファイルをインポート
             try {
-                importFile();
-                return properties.getProperty(key, defaults.getProperty(key));
+                Properties current = properties;
+                if (Util.isNull(current)) {
+                    importFile();
+                    current = properties;
+                }
+                return current.getProperty(key, defaults.getProperty(key));
             } catch (IllegalArgumentException e) {
                 return defaults.getProperty(key); //デフォルトの値を取得
             } catch (IOException e) {
@@ -60,25 +70,86 @@ public final class LoggerProperties {
      */
     private synchronized static void importFile() throws IllegalArgumentException, IOException {
         if (Util.isNull(properties)) {
-            InputStream inStream = null;
-            properties = new Properties();
-            try {
-                //プロパティファイルを読み込む
-                inStream = LoggerProperties.class.getResourceAsStream(propertyFileName);
-                if (Util.isNull(inStream)) {
-                    throw new IllegalArgumentException("プロパティファイルの読み込みに失敗しました。" + propertyFileName + "の存在を確認してください。");
-                }
-                //プロパティをセットする
-                properties.load(inStream);
-            } catch (IOException e) {
-                throw e;
-            } finally {
-                if (inStream != null) {
-                    try {
-                        inStream.close();
-                    } catch (IOException e) {
-                        //close の例外は無視する
-                    }
+            properties = new Properties(); //読み込みに失敗した場合は空のプロパティとする
+            properties = load();
+        }
+    }
+
+    /**
+     * プロパティファイルを再読み込みする
+     * <br>読み込んだプロパティはインスタンスごと差し替えるので，{@link #get(String)} はロックなしで
+     * 差し替え前か差し替え後のどちらかの値を返す。
+     *
+     * @return boolean ; 再読み込みできた場合は true（失敗した場合は以前のプロパティのまま）
+     */
+    public synchronized static boolean reload() {
+        try {
+            properties = load();
+            return true;
+        } catch (IllegalArgumentException e) {
+            return false;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * プロパティファイルが前回の読み込み後に更新されたかどうか
+     *
+     * @return boolean ; 更新されていれば true（ファイルシステム上にない場合は false）
+     */
+    public static boolean isModified() {
+        File file = getFile();
+        return !Util.isNull(file) && file.lastModified() != lastModified;
+    }
+
+    /**
+     * プロパティファイルを取得する
+     *
+     * @return {@link File} ; プロパティファイル（jar 内などファイルシステム上にない場合は null）
+     */
+    public static File getFile() {
+        URL url = LoggerProperties.class.getResource(propertyFileName);
+        if (Util.isNull(url) || !"file".equals(url.getProtocol())) {
+            return null;
+        }
+        try {
+            return new File(url.toURI());
+        } catch (URISyntaxException e) {
+            return null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * プロパティファイルを読み込む
+     *
+     * @return {@link Properties} ; プロパティ
+     * @throws IllegalArgumentException プロパティファイルが存在しない場合
+     * @throws IOException プロパティファイルの内容が正しくない場合
+     */
+    private static Properties load() throws IllegalArgumentException, IOException {
+        InputStream inStream = null;
+        Properties props = new Properties();
+        File file = getFile();
+        long modified = Util.isNull(file) ? 0 : file.lastModified();
+        try {
+            //プロパティファイルを読み込む
+            inStream = LoggerProperties.class.getResourceAsStream(propertyFileName);
+            if (Util.isNull(inStream)) {
+                throw new IllegalArgumentException("プロパティファイルの読み込みに失敗しました。" + propertyFileName + "の存在を確認してください。");
+            }
+            //プロパティをセットする
+            props.load(inStream);
+            lastModified = modified;
+            return props;
+        } finally {
+            if (inStream != null) {
+                try {
+                    inStream.close();
+                } catch (IOException e) {
+                    //close の例外は無視する
                 }
             }
         }
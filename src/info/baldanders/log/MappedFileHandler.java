@@ -0,0 +1,388 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.log;
+
+import info.baldanders.Util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UnsupportedEncodingException;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.logging.ErrorManager;
+import java.util.logging.Formatter;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+/**
+ * メモリマップドファイル出力 Handler クラス（継承クラス）
+ * <br>ログファイルを一定サイズ（セグメント）ごとにあらかじめ確保してメモリにマップし，
+ * 整形したレコードをマップした領域に直接書き込む。
+ * 書き込んだ内容は OS のページキャッシュに載るので，レコードごとに fsync しなくてもプロセスが異常終了しても失われない。
+ * <br>ファイル名のパターン，最大バイト数，世代数，追記モードは {@link java.util.logging.FileHandler} と同じ意味を持つ。
+ * 最大バイト数を超える場合は世代をずらして新しいファイルに切り替える（0 なら切り替えずに同じファイルを延長する）。
+ * 閉じる際には確保した領域のうち書き込んでいない部分を切り詰める。
+ * @see java.util.logging.FileHandler
+ */
+public class MappedFileHandler extends Handler {
+
+    /** 最大バイト数の指定がない場合のセグメントサイズ */
+    private static final int DEFAULT_SEGMENT_SIZE = 4 * 1024 * 1024;
+
+    /** ファイル名のパターン */
+    private final String pattern;
+
+    /** 最大バイト数（0 なら制限なし） */
+    private final int limit;
+
+    /** 世代数 */
+    private final int count;
+
+    /** セグメントサイズ */
+    private final int segmentSize;
+
+    /** 現在のファイル */
+    private RandomAccessFile file;
+
+    /** 現在のファイルのチャネル */
+    private FileChannel channel;
+
+    /** マップしている領域 */
+    private MappedByteBuffer mapped;
+
+    /** マップしている領域のファイル内の開始位置 */
+    private long base;
+
+    /** 文字エンコーダ */
+    private CharsetEncoder encoder;
+
+    /** 整形用バッファ（{@link LogFormatter} の場合） */
+    private final StringBuilder buffer;
+
+    /**
+     * コンストラクタ
+     *
+     * @param pattern : {@link String} : ファイル名のパターン（{@link java.util.logging.FileHandler} と同じ書式）
+     * @param limit   : int             : 最大バイト数（0 なら制限なし）
+     * @param count   : int             : 世代数（1未満なら1）
+     * @param append  : boolean         : 追記モード
+     * @throws IOException ファイルを開けない場合
+     */
+    public MappedFileHandler(String pattern, int limit, int count, boolean append) throws IOException {
+        if (Util.isBlank(pattern)) {
+            throw new IllegalArgumentException("pattern is empty");
+        }
+        this.pattern = pattern;
+        this.limit = Math.max(limit, 0);
+        this.count = Math.max(count, 1);
+        this.segmentSize = (this.limit > 0) ? this.limit : DEFAULT_SEGMENT_SIZE;
+        this.buffer = new StringBuilder(256);
+        this.encoder = newEncoder(Charset.defaultCharset());
+        setFormatter(new LogFormatter());
+        open(append);
+    }
+
+    /**
+     * 文字エンコーディングを設定する
+     * @see java.util.logging.Handler#setEncoding(java.lang.String)
+     */
+    @Override
+    public synchronized void setEncoding(String encoding) throws SecurityException, UnsupportedEncodingException {
+        super.setEncoding(encoding);
+        this.encoder = newEncoder(Util.isNull(encoding) ? Charset.defaultCharset() : Charset.forName(encoding));
+    }
+
+    /**
+     * ログレコードを出力する
+     * @see java.util.logging.Handler#publish(java.util.logging.LogRecord)
+     */
+    @Override
+    public synchronized void publish(LogRecord record) {
+        if (Util.isNull(this.mapped) || !isLoggable(record)) {
+            return;
+        }
+        CharSequence msg;
+        try {
+            Formatter formatter = getFormatter();
+            if (formatter instanceof LogFormatter) {
+                this.buffer.setLength(0);
+                msg = ((LogFormatter)formatter).format(record, this.buffer);
+            } else {
+                msg = formatter.format(record);
+            }
+        } catch (Exception e) {
+            reportError(null, e, ErrorManager.FORMAT_FAILURE);
+            return;
+        }
+        try {
+            write(msg);
+        } catch (IOException e) {
+            reportError(null, e, ErrorManager.WRITE_FAILURE);
+        }
+    }
+
+    /**
+     * 文字列を書き込む
+     * <br>現在の領域に収まらない場合はファイルを切り替える（または領域を延長する）。
+     *
+     * @param msg : {@link CharSequence} : 文字列
+     * @throws IOException ファイルの切り替えに失敗した場合
+     */
+    private void write(CharSequence msg) throws IOException {
+        int start = this.mapped.position();
+        if (encode(msg)) {
+            return;
+        }
+        //収まらなかった部分を取り消して次の領域に書き込む
+        clearTail(start);
+        this.mapped.position(start);
+        int needed = (int)Math.ceil(msg.length() * (double)this.encoder.maxBytesPerChar());
+        if (this.limit > 0 && this.base + start > 0) {
+            rotate(needed);
+        } else {
+            remap(this.base + start, needed);
+        }
+        if (!encode(msg)) {
+            throw new IOException("failed to write log record");
+        }
+    }
+
+    /**
+     * 文字列をエンコードしてマップした領域に書き込む
+     *
+     * @param msg : {@link CharSequence} : 文字列
+     * @return boolean ; すべて書き込めた場合は true，領域が足りない場合は false
+     */
+    private boolean encode(CharSequence msg) {
+        this.encoder.reset();
+        CharBuffer in = CharBuffer.wrap(msg);
+        CoderResult result = this.encoder.encode(in, this.mapped, true);
+        if (result.isOverflow()) {
+            return false;
+        }
+        return !this.encoder.flush(this.mapped).isOverflow();
+    }
+
+    /**
+     * マップした領域に書き込まれた内容は OS が反映するので何もしない
+     * @see java.util.logging.Handler#flush()
+     */
+    @Override
+    public void flush() {
+        //何もしない
+    }
+
+    /**
+     * ディスクに書き出してからファイルを閉じる
+     * <br>確保した領域のうち書き込んでいない部分は切り詰める。
+     * @see java.util.logging.Handler#close()
+     */
+    @Override
+    public synchronized void close() {
+        try {
+            closeFile();
+        } catch (IOException e) {
+            reportError(null, e, ErrorManager.CLOSE_FAILURE);
+        }
+    }
+
+    /**
+     * 世代 0 のファイルを開く
+     *
+     * @param append : boolean : 追記モード
+     * @throws IOException ファイルを開けない場合
+     */
+    private void open(boolean append) throws IOException {
+        File target = generateFile(0);
+        File parent = target.getAbsoluteFile().getParentFile();
+        if (!Util.isNull(parent) && !parent.exists()) {
+            parent.mkdirs();
+        }
+        this.file = new RandomAccessFile(target, "rw");
+        this.channel = this.file.getChannel();
+        long end = append ? findEnd() : 0;
+        if (!append) {
+            this.file.setLength(0);
+        }
+        if (this.limit > 0 && end >= this.limit) {
+            this.base = end; //既存の内容を残したまま切り替える
+            rotate(0);
+        } else {
+            remap(end, 0);
+        }
+    }
+
+    /**
+     * 既存ファイルの書き込み済みの末尾を探す
+     * <br>異常終了した場合は確保したままの領域（0 で埋まっている）が末尾に残っているので，それを除く。
+     *
+     * @return long ; 書き込み済みの末尾の位置
+     * @throws IOException 読み込みに失敗した場合
+     */
+    private long findEnd() throws IOException {
+        long length = this.channel.size();
+        long start = Math.max(length - this.segmentSize, 0);
+        if (length == 0) {
+            return 0;
+        }
+        MappedByteBuffer tail = this.channel.map(FileChannel.MapMode.READ_ONLY, start, length - start);
+        int pos = tail.limit();
+        while (pos > 0 && tail.get(pos - 1) == 0) {
+            pos--;
+        }
+        return start + pos;
+    }
+
+    /**
+     * 領域をマップし直す
+     *
+     * @param position : long : ファイル内の開始位置
+     * @param needed   : int  : 必要なバイト数（残りのセグメントより大きければそのサイズで確保する）
+     * @throws IOException マップに失敗した場合
+     */
+    private void remap(long position, int needed) throws IOException {
+        long size = (this.limit > 0) ? this.limit - position : this.segmentSize; //最大バイト数を超えて確保しない
+        this.base = position;
+        this.mapped = this.channel.map(FileChannel.MapMode.READ_WRITE, position, Math.max(size, needed));
+    }
+
+    /**
+     * ファイルを切り替える
+     * <br>世代をひとつずつずらし，新しい世代 0 のファイルを開く。
+     *
+     * @param needed : int : 必要なバイト数
+     * @throws IOException ファイルの切り替えに失敗した場合
+     */
+    private void rotate(int needed) throws IOException {
+        closeFile();
+        for (int gen = this.count - 2; gen >= 0; gen--) {
+            File from = generateFile(gen);
+            if (from.exists()) {
+                File to = generateFile(gen + 1);
+                if (to.exists()) {
+                    to.delete();
+                }
+                from.renameTo(to);
+            }
+        }
+        File target = generateFile(0);
+        if (target.exists()) {
+            target.delete(); //世代数が1の場合
+        }
+        this.file = new RandomAccessFile(target, "rw");
+        this.channel = this.file.getChannel();
+        remap(0, needed);
+    }
+
+    /**
+     * 現在のファイルを閉じる
+     *
+     * @throws IOException ファイルを閉じられない場合
+     */
+    private void closeFile() throws IOException {
+        if (Util.isNull(this.file)) {
+            return;
+        }
+        try {
+            long end = this.base;
+            if (!Util.isNull(this.mapped)) {
+                end += this.mapped.position();
+                this.mapped.force();
+            }
+            this.mapped = null;
+            try {
+                this.file.setLength(end);
+            } catch (IOException e) {
+                //マップ中の切り詰めができない環境では 0 埋めのまま残す（次回の追記時に除かれる）
+            }
+        } finally {
+            this.file.close();
+            this.file = null;
+            this.channel = null;
+        }
+    }
+
+    /**
+     * 書き込めなかった部分を 0 に戻す
+     *
+     * @param start : int : 開始位置
+     */
+    private void clearTail(int start) {
+        for (int pos = start; pos < this.mapped.position(); pos++) {
+            this.mapped.put(pos, (byte)0);
+        }
+    }
+
+    /**
+     * パターンから世代に対応するファイルを生成する
+     *
+     * @param generation : int : 世代
+     * @return {@link File} ; ファイル
+     */
+    private File generateFile(int generation) {
+        return generateFile(this.pattern, generation, this.count);
+    }
+
+    /**
+     * パターンから世代に対応するファイルを生成する
+     * <br>"%h" はホームディレクトリ，"%t" は一時ディレクトリ，"%g" は世代，"%u" は 0，"%%" は "%" に置き換える。
+     * 世代数が2以上で "%g" がない場合は末尾に ".世代" を付加する。
+     *
+     * @param pattern    : {@link String} : ファイル名のパターン
+     * @param generation : int             : 世代
+     * @param count      : int             : 世代数
+     * @return {@link File} ; ファイル
+     */
+    static File generateFile(String pattern, int generation, int count) {
+        StringBuilder name = new StringBuilder();
+        boolean hasGeneration = false;
+        for (int i = 0; i < pattern.length(); i++) {
+            char ch = pattern.charAt(i);
+            char next = (i + 1 < pattern.length()) ? pattern.charAt(i + 1) : 0;
+            if (ch == '%' && next == 'h') {
+                name.append(System.getProperty("user.home"));
+                i++;
+            } else if (ch == '%' && next == 't') {
+                name.append(System.getProperty("java.io.tmpdir"));
+                i++;
+            } else if (ch == '%' && next == 'g') {
+                name.append(generation);
+                hasGeneration = true;
+                i++;
+            } else if (ch == '%' && next == 'u') {
+                name.append(0);
+                i++;
+            } else if (ch == '%' && next == '%') {
+                name.append('%');
+                i++;
+            } else {
+                name.append(ch);
+            }
+        }
+        if (count > 1 && !hasGeneration) {
+            name.append('.').append(generation);
+        }
+        return new File(name.toString());
+    }
+
+    /**
+     * 文字エンコーダを生成する
+     *
+     * @param charset : {@link Charset} : 文字セット
+     * @return {@link CharsetEncoder} ; 文字エンコーダ
+     */
+    private static CharsetEncoder newEncoder(Charset charset) {
+        return charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+}
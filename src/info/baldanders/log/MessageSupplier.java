@@ -0,0 +1,21 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.log;
+
+/**
+ * ログメッセージの生成インタフェース
+ * <br>出力レベルが有効な場合のみ呼び出される（Java 8 の {@code Supplier<String>} 相当）。
+ * @see LazyLogger
+ */
+public interface MessageSupplier {
+
+    /**
+     * メッセージを生成する
+     *
+     * @return {@link String} ; メッセージ
+     */
+    String get();
+}
@@ -0,0 +1,257 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.log;
+
+import info.baldanders.Util;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Filter;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * 出力頻度制限 Filter クラス
+ * <br>logger ごとに，メッセージ（テンプレート）と例外クラスの組をキーとして出力を制限する。
+ * <ul>
+ * <li>頻度制限：キーごとのトークンバケット（1秒あたりの件数と最大連続件数）を超えたレコードを捨てる</li>
+ * <li>重複抑止：同じキーのレコードは一定時間内に最初の1件のみ出力する</li>
+ * </ul>
+ * 捨てたレコードがある場合は，重複抑止の時間が過ぎた後（頻度制限のみの場合は1秒ごと）に
+ * "(repeated N times) メッセージ" の形式で件数を出力する。
+ */
+public class RateLimitFilter implements Filter {
+
+    /** 保持するキーの最大数（超えた場合は新しいキーを制限しない） */
+    private static final int MAX_KEYS = 10000;
+
+    /** 抑止件数を出力するための定期確認用タイマ（全 logger で共有） */
+    private static Timer timer;
+
+    /** 対象の logger */
+    private final Logger logger;
+
+    /** 1秒あたりの件数（0 なら頻度制限なし） */
+    private final double rate;
+
+    /** 最大連続件数 */
+    private final double burst;
+
+    /** 重複抑止の時間（ミリ秒，0 なら重複抑止なし） */
+    private final long window;
+
+    /** キーごとの状態 */
+    private final ConcurrentHashMap<String, State> states;
+
+    /**
+     * 件数出力用のレコード（制限の対象外）
+     */
+    private static final class SummaryRecord extends LogRecord {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * コンストラクタ
+         *
+         * @param last  : {@link LogRecord} : 最後に捨てたレコード
+         * @param count : long                : 捨てた件数
+         */
+        SummaryRecord(LogRecord last, long count) {
+            super(last.getLevel(), "(repeated " + count + " times) " + last.getMessage());
+            setParameters(last.getParameters());
+            setResourceBundle(last.getResourceBundle());
+            setLoggerName(last.getLoggerName());
+            setSourceClassName(last.getSourceClassName());
+            setSourceMethodName(last.getSourceMethodName());
+            setThreadID(last.getThreadID());
+        }
+    }
+
+    /**
+     * キーごとの状態
+     */
+    private static final class State {
+        /** トークン数 */
+        double tokens;
+        /** トークンを補充した時刻（ナノ秒） */
+        long refilled;
+        /** 重複抑止の開始時刻（ミリ秒） */
+        long windowStart;
+        /** 捨てた件数 */
+        long suppressed;
+        /** 最後に捨てたレコード */
+        LogRecord last;
+        /** 最後にレコードが来た時刻（ミリ秒） */
+        long lastSeen;
+    }
+
+    /**
+     * コンストラクタ
+     *
+     * @param logger : {@link Logger} : 対象の logger（抑止件数の出力先）
+     * @param rate   : double          : 1秒あたりの件数（0 以下なら頻度制限なし）
+     * @param burst  : int             : 最大連続件数（1未満なら1）
+     * @param window : long            : 重複抑止の時間（ミリ秒，0 以下なら重複抑止なし）
+     */
+    public RateLimitFilter(Logger logger, double rate, int burst, long window) {
+        this.logger = logger;
+        this.rate = Math.max(rate, 0);
+        this.burst = Math.max(burst, 1);
+        this.window = Math.max(window, 0);
+        this.states = new ConcurrentHashMap<String, State>();
+        long period = Math.max(this.window, 1000L);
+        final WeakReference<RateLimitFilter> self = new WeakReference<RateLimitFilter>(this);
+        getTimer().schedule(new TimerTask() {
+            @Override
+            public void run() {
+                RateLimitFilter filter = self.get();
+                if (Util.isNull(filter)) {
+                    cancel(); //フィルタが破棄されたら終了
+                } else {
+                    filter.sweep();
+                }
+            }
+        }, period, period);
+    }
+
+    /**
+     * 共有タイマを取得する
+     *
+     * @return {@link Timer} ; タイマ
+     */
+    private static synchronized Timer getTimer() {
+        if (Util.isNull(timer)) {
+            timer = new Timer("RateLimitFilter-sweeper", true);
+        }
+        return timer;
+    }
+
+    /**
+     * レコードを出力するかどうか
+     * @see java.util.logging.Filter#isLoggable(java.util.logging.LogRecord)
+     */
+    @Override
+    public boolean isLoggable(LogRecord record) {
+        if (record instanceof SummaryRecord) {
+            return true;
+        }
+        String key = getKey(record);
+        State state = this.states.get(key);
+        if (Util.isNull(state)) {
+            if (this.states.size() >= MAX_KEYS) {
+                return true; //キーが多すぎる場合は制限しない
+            }
+            State newState = new State();
+            newState.tokens = this.burst;
+            newState.refilled = System.nanoTime();
+            state = this.states.putIfAbsent(key, newState);
+            if (Util.isNull(state)) {
+                state = newState;
+            }
+        }
+        LogRecord summary = null;
+        boolean loggable;
+        synchronized (state) {
+            long now = System.currentTimeMillis();
+            state.lastSeen = now;
+            loggable = true;
+            //重複抑止
+            if (this.window > 0) {
+                if (state.windowStart > 0 && now - state.windowStart < this.window) {
+                    loggable = false;
+                } else {
+                    state.windowStart = now;
+                }
+            }
+            //頻度制限
+            if (loggable && this.rate > 0) {
+                long nanos = System.nanoTime();
+                state.tokens = Math.min(this.burst, state.tokens + (nanos - state.refilled) * this.rate / 1000000000.0);
+                state.refilled = nanos;
+                if (state.tokens < 1.0) {
+                    loggable = false;
+                } else {
+                    state.tokens -= 1.0;
+                }
+            }
+            if (!loggable) {
+                record.getSourceClassName(); //呼び出し元を確定させる
+                state.suppressed++;
+                state.last = record;
+            } else if (state.suppressed > 0 && this.window > 0) {
+                //重複抑止の時間が過ぎたので件数を出力する（頻度制限のみの場合は定期確認時にまとめて出力する）
+                summary = new SummaryRecord(state.last, state.suppressed);
+                state.suppressed = 0;
+                state.last = null;
+            }
+        }
+        if (!Util.isNull(summary)) {
+            this.logger.log(summary);
+        }
+        return loggable;
+    }
+
+    /**
+     * 抑止件数を出力し，使われなくなったキーを破棄する
+     * <br>重複抑止の時間（頻度制限のみなら1秒）が過ぎたキーについて，捨てたレコードがあれば件数を出力する。
+     */
+    void sweep() {
+        long now = System.currentTimeMillis();
+        long expire = Math.max(this.window, 1000L);
+        Iterator<Map.Entry<String, State>> it = this.states.entrySet().iterator();
+        while (it.hasNext()) {
+            State state = it.next().getValue();
+            LogRecord summary = null;
+            synchronized (state) {
+                if (state.suppressed > 0 && (this.window == 0 || now - state.windowStart >= this.window)) {
+                    summary = new SummaryRecord(state.last, state.suppressed);
+                    state.suppressed = 0;
+                    state.last = null;
+                    state.windowStart = 0; //次のレコードは出力する
+                } else if (state.suppressed == 0 && now - state.lastSeen >= expire) {
+                    it.remove();
+                }
+            }
+            if (!Util.isNull(summary)) {
+                this.logger.log(summary);
+            }
+        }
+    }
+
+    /**
+     * 制限のキーを取得する
+     *
+     * @param record : {@link LogRecord} : ログレコード
+     * @return {@link String} ; キー（メッセージ（テンプレート）と例外クラス名）
+     */
+    private static String getKey(LogRecord record) {
+        String template = getTemplate(record);
+        Throwable thrown = record.getThrown();
+        if (Util.isNull(thrown)) {
+            return template;
+        } else {
+            return template + '\0' + thrown.getClass().getName();
+        }
+    }
+
+    /**
+     * メッセージ（テンプレート）を取得する
+     * <br>{@link TemplateLogRecord} の場合は組み立てる前のテンプレートを返す。
+     *
+     * @param record : {@link LogRecord} : ログレコード
+     * @return {@link String} ; メッセージ
+     */
+    private static String getTemplate(LogRecord record) {
+        if (record instanceof TemplateLogRecord) {
+            return String.valueOf(((TemplateLogRecord)record).getTemplate());
+        } else {
+            return String.valueOf(record.getMessage());
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.log;
+
+import info.baldanders.Util;
+
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * "{}" 形式のテンプレートを持つ LogRecord クラス（継承クラス）
+ * <br>メッセージはハンドラが {@link #getMessage()} を呼び出したときに初めて組み立てる。
+ * テンプレート中の "{}" を引数で順に置き換え，引数が足りない場合は "{}" のまま残す。
+ * 置き換えに使われなかった最後の引数が {@link Throwable} の場合は例外情報として扱う。
+ */
+final class TemplateLogRecord extends LogRecord {
+
+    private static final long serialVersionUID = 1L;
+
+    /** テンプレート */
+    private final String template;
+
+    /** 引数 */
+    private final Object[] arguments;
+
+    /** 組み立てたメッセージ */
+    private String rendered;
+
+    /**
+     * コンストラクタ
+     *
+     * @param level     : {@link Level}    : 出力レベル
+     * @param template  : {@link String}   : テンプレート
+     * @param arguments : {@link Object}[] : 引数
+     */
+    TemplateLogRecord(Level level, String template, Object[] arguments) {
+        super(level, template);
+        this.template = template;
+        this.arguments = Util.isNull(arguments) ? new Object[0] : arguments;
+        this.rendered = null;
+        //置き換えに使われない最後の引数が例外なら例外情報とする
+        int count = countPlaceholders(template);
+        if (this.arguments.length > count && this.arguments[this.arguments.length - 1] instanceof Throwable) {
+            setThrown((Throwable)this.arguments[this.arguments.length - 1]);
+        }
+    }
+
+    /**
+     * メッセージを取得する（初回のみ組み立てる）
+     * @see java.util.logging.LogRecord#getMessage()
+     */
+    @Override
+    public synchronized String getMessage() {
+        if (Util.isNull(this.rendered)) {
+            this.rendered = render(this.template, this.arguments);
+        }
+        return this.rendered;
+    }
+
+    /**
+     * テンプレートを取得する
+     *
+     * @return {@link String} ; テンプレート
+     */
+    String getTemplate() {
+        return this.template;
+    }
+
+    /**
+     * 引数を取得する
+     *
+     * @return {@link Object}[] ; 引数
+     */
+    Object[] getArguments() {
+        return this.arguments;
+    }
+
+    /**
+     * テンプレートの "{}" を引数で置き換える
+     *
+     * @param template  : {@link String}   : テンプレート（null なら "null"）
+     * @param arguments : {@link Object}[] : 引数
+     * @return {@link String} ; メッセージ
+     */
+    static String render(String template, Object[] arguments) {
+        if (Util.isNull(template)) {
+            return null;
+        }
+        StringBuilder msg = new StringBuilder(template.length() + 16 * arguments.length);
+        int start = 0;
+        int index = 0;
+        int pos;
+        while (index < arguments.length && (pos = template.indexOf("{}", start)) >= 0) {
+            msg.append(template, start, pos);
+            appendArgument(arguments[index++], msg);
+            start = pos + 2;
+        }
+        msg.append(template, start, template.length());
+        return msg.toString();
+    }
+
+    /**
+     * 引数を文字列にして追加する（配列は要素を展開する）
+     *
+     * @param argument : {@link Object}        : 引数
+     * @param msg      : {@link StringBuilder} : 出力先バッファ
+     */
+    private static void appendArgument(Object argument, StringBuilder msg) {
+        if (argument instanceof Object[]) {
+            msg.append(Arrays.deepToString((Object[])argument));
+        } else {
+            msg.append(String.valueOf(argument));
+        }
+    }
+
+    /**
+     * テンプレート中の "{}" の数を数える
+     *
+     * @param template : {@link String} : テンプレート
+     * @return int ; "{}" の数
+     */
+    private static int countPlaceholders(String template) {
+        if (Util.isNull(template)) {
+            return 0;
+        }
+        int count = 0;
+        int pos = 0;
+        while ((pos = template.indexOf("{}", pos)) >= 0) {
+            count++;
+            pos += 2;
+        }
+        return count;
+    }
+}
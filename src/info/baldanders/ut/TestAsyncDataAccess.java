@@ -0,0 +1,204 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.ut;
+
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import info.baldanders.jdbc.AsyncDataAccess;
+import info.baldanders.jdbc.DataAccess;
+import info.baldanders.jdbc.DbParameter;
+import info.baldanders.jdbc.DbStatement;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * {@link AsyncDataAccess} クラス用単体テスト
+ * <br>組み込みデータベース（H2）を使う。
+ */
+public class TestAsyncDataAccess {
+
+    /** 接続先 */
+    private static final String URL = "jdbc:h2:mem:asyncDataAccess;DB_CLOSE_DELAY=-1";
+
+    /** 件数を取得する SQL文 */
+    private static final String COUNT = "SELECT COUNT(*) FROM M_PERSON";
+
+    /** 結果の待ち時間（秒） */
+    private static final long TIMEOUT = 10;
+
+    /** テストデータ作成・削除用の接続（データベースを保持する） */
+    private Connection connection;
+
+    /** データアクセスオブジェクト */
+    private DataAccess dao;
+
+    /** テスト対象 */
+    private AsyncDataAccess async;
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        this.connection = DriverManager.getConnection(URL, "sa", "");
+        Statement stmt = this.connection.createStatement();
+        stmt.execute("CREATE TABLE M_PERSON (PERSON_NAME VARCHAR(16) PRIMARY KEY, AGE INT)");
+        stmt.execute("INSERT INTO M_PERSON VALUES ('Alice', 24), ('Bob', 42)");
+        stmt.close();
+        Properties properties = new Properties();
+        properties.setProperty("driver", "org.h2.Driver");
+        properties.setProperty("url", URL);
+        properties.setProperty("user", "sa");
+        properties.setProperty("password", "");
+        properties.setProperty("pool.minSize", "0");
+        properties.setProperty("pool.maxSize", "2");
+        properties.setProperty("pool.timeout", "1000");
+        this.dao = DataAccess.newInstance(properties);
+        this.async = this.dao.getAsync();
+    }
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @After
+    public void tearDown() throws Exception {
+        this.dao.shutdown();
+        this.connection.createStatement().execute("DROP ALL OBJECTS");
+        this.connection.close();
+    }
+
+    /**
+     * ワーカスレッドで並行して実行することのテスト
+     */
+    @Test
+    public void testWorkerThreads() throws Exception {
+        assertSame(this.async, this.dao.getAsync());
+        //2つの処理が同時に実行されていなければ待ち合わせがタイムアウトする
+        final CountDownLatch latch = new CountDownLatch(2);
+        ArrayList<Future<String>> futures = new ArrayList<Future<String>>();
+        for (int i = 0; i < 2; i++) {
+            futures.add(this.async.submit(new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    try (DbStatement statement = dao.getStatement(COUNT)) {
+                        assertEquals("2", statement.select().getRow(1).get(1));
+                    }
+                    latch.countDown();
+                    if (!latch.await(TIMEOUT, TimeUnit.SECONDS)) {
+                        throw new IllegalStateException("並行して実行されていない");
+                    }
+                    return Thread.currentThread().getName();
+                }
+            }));
+        }
+        String name1 = futures.get(0).get(TIMEOUT, TimeUnit.SECONDS);
+        String name2 = futures.get(1).get(TIMEOUT, TimeUnit.SECONDS);
+        assertTrue(name1, name1.startsWith("AsyncDataAccess-"));
+        assertTrue(name2, name2.startsWith("AsyncDataAccess-"));
+        assertNotEquals(name1, name2);
+        assertNotEquals(Thread.currentThread().getName(), name1);
+        assertEquals(0, this.dao.getPool().getActiveCount()); //処理ごとに接続を返却した
+        assertEquals(2, this.dao.getPool().getIdleCount());
+    }
+
+    /**
+     * クエリと更新を非同期に実行することのテスト
+     */
+    @Test
+    public void testSelectAndUpdate() throws Exception {
+        Future<Integer> update = this.async.update("UPDATE M_PERSON SET AGE = AGE + 1 WHERE AGE > ?", params(30));
+        assertEquals(Integer.valueOf(1), update.get(TIMEOUT, TimeUnit.SECONDS));
+        assertEquals("43", selectAge("Bob")); //コミットした
+        Future<Integer> insert = this.async.update("INSERT INTO M_PERSON VALUES ('Carol', 30)", null);
+        assertEquals(Integer.valueOf(1), insert.get(TIMEOUT, TimeUnit.SECONDS));
+        assertEquals(3, this.async.select("SELECT * FROM M_PERSON WHERE AGE > ?", params(0)).get(TIMEOUT, TimeUnit.SECONDS).sizeRow());
+        assertEquals(0, this.dao.getPool().getActiveCount()); //呼び出し側のスレッドも接続を借りていない
+    }
+
+    /**
+     * 処理の例外を {@link Future#get()} で返し，ロールバックして接続を返却することのテスト
+     */
+    @Test
+    public void testException() throws Exception {
+        //更新の失敗（主キーの重複）
+        Future<Integer> insert = this.async.update("INSERT INTO M_PERSON VALUES ('Alice', 30)", null);
+        try {
+            insert.get(TIMEOUT, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof SQLException);
+        }
+        //クエリの失敗
+        Future<?> select = this.async.select("SELECT * FROM M_MISSING", null);
+        try {
+            select.get(TIMEOUT, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof SQLException);
+        }
+        //更新した後の任意の例外
+        Future<Integer> task = this.async.submit(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                try (DbStatement statement = dao.getStatement("DELETE FROM M_PERSON")) {
+                    assertEquals(2, statement.executeUpdate());
+                }
+                throw new IllegalStateException("task");
+            }
+        });
+        try {
+            task.get(TIMEOUT, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+            assertEquals("task", e.getCause().getMessage());
+        }
+        assertEquals("24", selectAge("Alice")); //ロールバックした
+        assertEquals(0, this.dao.getPool().getActiveCount());
+    }
+
+    /**
+     * テストデータ作成用の接続で年齢を取得する
+     *
+     * @param name : {@link String} : 名前
+     * @return {@link String} ; 年齢
+     * @throws SQLException 取得に失敗した場合
+     */
+    private String selectAge(String name) throws SQLException {
+        ArrayList<DbParameter> paramList = new ArrayList<DbParameter>();
+        paramList.add(new DbParameter(name, Types.VARCHAR));
+        try (DbStatement statement = new DbStatement(this.connection, "SELECT AGE FROM M_PERSON WHERE PERSON_NAME = ?", paramList)) {
+            return statement.select().getRow(1).get(1);
+        }
+    }
+
+    /**
+     * パラメータのリストを作る
+     *
+     * @param age : int : 年齢
+     * @return {@link ArrayList}<{@link DbParameter}> ; パラメータのリスト
+     */
+    private static ArrayList<DbParameter> params(int age) {
+        ArrayList<DbParameter> params = new ArrayList<DbParameter>();
+        params.add(new DbParameter(age, Types.INTEGER));
+        return params;
+    }
+}
@@ -0,0 +1,219 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.ut;
+
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Properties;
+
+import info.baldanders.jdbc.BulkInsert;
+import info.baldanders.jdbc.DataAccess;
+import info.baldanders.jdbc.DataSet;
+import info.baldanders.jdbc.DbParameter;
+import info.baldanders.jdbc.DbStatement;
+import info.baldanders.jdbc.StatementCache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * {@link BulkInsert} クラス用単体テスト
+ * <br>組み込みデータベース（H2）を使う。
+ */
+public class TestBulkInsert {
+
+    /** 接続先 */
+    private static final String URL = "jdbc:h2:mem:bulkInsert;DB_CLOSE_DELAY=-1";
+
+    /** 列名に VALUE を含む INSERT 文 */
+    private static final String INSERT = "INSERT INTO M_ITEM (ID, VALUE) VALUES (?, ?)";
+
+    /** 接続オブジェクト */
+    private Connection connection;
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        this.connection = DriverManager.getConnection(URL, "sa", "");
+        Statement stmt = this.connection.createStatement();
+        stmt.execute("CREATE TABLE M_ITEM (ID INT PRIMARY KEY, VALUE VARCHAR(16))");
+        stmt.close();
+    }
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @After
+    public void tearDown() throws Exception {
+        this.connection.createStatement().execute("DROP ALL OBJECTS");
+        this.connection.close();
+    }
+
+    /**
+     * 列名のリストの中の VALUE を VALUES 句とみなさないことのテスト
+     */
+    @Test
+    public void testFindValues() throws Exception {
+        try (BulkInsert bulk = new BulkInsert(this.connection, null, INSERT)) {
+            assertEquals(true, bulk.isRewritable());
+        }
+        try (BulkInsert bulk = new BulkInsert(this.connection, null, "insert into M_ITEM (`value`, \"VALUES\") value ('(', ?)")) {
+            assertEquals(true, bulk.isRewritable());
+        }
+        //書き換えられない
+        try (BulkInsert bulk = new BulkInsert(this.connection, null, "INSERT INTO M_ITEM (ID, VALUE) SELECT ?, ? FROM DUAL")) {
+            assertEquals(false, bulk.isRewritable());
+        }
+        try (BulkInsert bulk = new BulkInsert(this.connection, null, "INSERT INTO M_ITEM (ID, VALUE) VALUES (?, ?) ON DUPLICATE KEY UPDATE VALUE = ?")) {
+            assertEquals(false, bulk.isRewritable());
+        }
+        try (BulkInsert bulk = new BulkInsert(this.connection, null, "UPDATE M_ITEM SET VALUE = ?")) {
+            assertEquals(false, bulk.isRewritable());
+        }
+    }
+
+    /**
+     * 上限ごとに分割し，端数を2のべき乗に分けて実行することのテスト
+     */
+    @Test
+    public void testChunk() throws Exception {
+        StatementCache cache = new StatementCache(this.connection, 8);
+        try (BulkInsert bulk = new BulkInsert(this.connection, cache, INSERT, 4, 65535, 1024 * 1024)) {
+            assertEquals(4, bulk.getMaxRows());
+            assertEquals(11, bulk.insert(rows(0, 11)));
+            assertEquals(4, bulk.getExecuteCount()); //4行＋4行＋2行＋1行
+        }
+        assertEquals(3, cache.size()); //4行・2行・1行の3種類の SQL文
+        assertRows(11);
+        cache.close();
+        //プレースホルダ数の上限（5 / 2 = 2行）
+        try (BulkInsert bulk = new BulkInsert(this.connection, null, INSERT, 1000, 5, 1024 * 1024)) {
+            assertEquals(2, bulk.getMaxRows());
+            assertEquals(3, bulk.insert(rows(11, 3)));
+            assertEquals(2, bulk.getExecuteCount());
+        }
+        //パラメータの推定サイズの上限（1行ずつ）
+        try (BulkInsert bulk = new BulkInsert(this.connection, null, INSERT, 1000, 65535, 1)) {
+            assertEquals(3, bulk.insert(rows(14, 3)));
+            assertEquals(3, bulk.getExecuteCount());
+        }
+        assertRows(17);
+    }
+
+    /**
+     * 書き換えられない SQL文をバッチ実行することのテスト
+     */
+    @Test
+    public void testBatch() throws Exception {
+        try (BulkInsert bulk = new BulkInsert(this.connection, null, "INSERT INTO M_ITEM (ID, VALUE) SELECT ?, ? FROM DUAL", 2, 65535, 1024 * 1024)) {
+            assertEquals(5, bulk.insert(rows(0, 5)));
+            assertEquals(3, bulk.getExecuteCount()); //2行ずつのバッチ
+        }
+        assertRows(5);
+    }
+
+    /**
+     * パラメータの数が合わない行があれば実行しないことのテスト
+     */
+    @Test
+    public void testValidate() throws Exception {
+        try (BulkInsert bulk = new BulkInsert(this.connection, null, INSERT)) {
+            ArrayList<ArrayList<DbParameter>> paramSets = rows(0, 3);
+            paramSets.get(1).remove(1);
+            try {
+                bulk.insert(paramSets);
+                fail();
+            } catch (IllegalArgumentException e) {
+                //1行目のパラメータが足りない
+            }
+            paramSets.set(1, null);
+            try {
+                bulk.insert(paramSets);
+                fail();
+            } catch (IllegalArgumentException e) {
+                //1行目がない
+            }
+            assertEquals(0, bulk.getExecuteCount());
+        }
+        assertRows(0);
+    }
+
+    /**
+     * {@link DataAccess} から取得した場合に SQL実行統計に記録し，クエリ結果のキャッシュを破棄することのテスト
+     */
+    @Test
+    public void testDataAccess() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty("driver", "org.h2.Driver");
+        properties.setProperty("url", URL);
+        properties.setProperty("user", "sa");
+        properties.setProperty("password", "");
+        properties.setProperty("resultCache.maxBytes", "1048576");
+        properties.setProperty("resultCache.tables", "M_ITEM");
+        properties.setProperty("metrics.enabled", "true");
+        DataAccess dao = DataAccess.newInstance(properties);
+        try (DataAccess.Session session = dao.open()) {
+            String select = "SELECT COUNT(*) FROM M_ITEM";
+            try (DbStatement statement = dao.getStatement(select)) {
+                assertEquals("0", statement.select().getRow(1).get(1));
+            }
+            assertEquals(1, dao.getResultCache().size());
+            try (BulkInsert bulk = dao.getBulkInsert(INSERT)) {
+                assertEquals(3, bulk.insert(rows(0, 3)));
+            }
+            assertEquals(0, dao.getResultCache().size()); //M_ITEM のキャッシュを破棄した
+            assertEquals(2, dao.getMetrics().get(INSERT).getCount()); //2行＋1行
+            assertEquals(3, dao.getMetrics().get(INSERT).getRows());
+            dao.commit();
+        } finally {
+            dao.shutdown();
+        }
+        assertRows(3);
+    }
+
+    /**
+     * 行ごとのパラメータのリストを作る
+     *
+     * @param start : int : 開始の ID
+     * @param count : int : 行数
+     * @return {@link ArrayList}<{@link ArrayList}<{@link DbParameter}>> ; 行ごとのパラメータのリスト
+     */
+    private static ArrayList<ArrayList<DbParameter>> rows(int start, int count) {
+        ArrayList<ArrayList<DbParameter>> paramSets = new ArrayList<ArrayList<DbParameter>>();
+        for (int i = start; i < start + count; i++) {
+            ArrayList<DbParameter> paramList = new ArrayList<DbParameter>();
+            paramList.add(new DbParameter(i, Types.INTEGER));
+            paramList.add(new DbParameter("item" + i, Types.VARCHAR));
+            paramSets.add(paramList);
+        }
+        return paramSets;
+    }
+
+    /**
+     * 挿入した行を確認する（ID と VALUE の組がずれていないこと）
+     *
+     * @param count : int : 行数
+     * @throws Exception 取得に失敗した場合
+     */
+    private void assertRows(int count) throws Exception {
+        try (DbStatement statement = new DbStatement(this.connection, "SELECT ID, VALUE FROM M_ITEM ORDER BY ID")) {
+            DataSet ds = statement.select();
+            assertEquals(count, ds.sizeRow());
+            for (int i = 0; i < count; i++) {
+                assertEquals(String.valueOf(i), ds.getRow(i + 1).get(1));
+                assertEquals("item" + i, ds.getRow(i + 1).get(2));
+            }
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.ut;
+
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLTimeoutException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import info.baldanders.jdbc.ConnectionPool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * {@link ConnectionPool} クラス用単体テスト
+ * <br>組み込みデータベース（H2）を使う。
+ */
+public class TestConnectionPool {
+
+    /** 接続先 */
+    private static final String URL = "jdbc:h2:mem:connectionPool;DB_CLOSE_DELAY=-1";
+
+    /** テスト対象 */
+    private ConnectionPool pool;
+
+    /** 別スレッドで接続を取得する */
+    private ExecutorService executor;
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        this.executor = Executors.newSingleThreadExecutor();
+    }
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @After
+    public void tearDown() throws Exception {
+        this.executor.shutdownNow();
+        if (this.pool != null) {
+            this.pool.close();
+        }
+        Connection conn = DriverManager.getConnection(URL, "sa", "");
+        conn.createStatement().execute("DROP ALL OBJECTS");
+        conn.close();
+    }
+
+    /**
+     * 最大数を超えて取得しようとするとタイムアウトすることのテスト
+     */
+    @Test
+    public void testMaxSize() throws Exception {
+        this.pool = new ConnectionPool(URL, "sa", "", 1, 2, 200, 0, 0, 0);
+        assertEquals(1, this.pool.getIdleCount());
+        Connection conn1 = this.pool.borrow();
+        Connection conn2 = this.pool.borrow();
+        assertNotSame(conn1, conn2);
+        assertEquals(2, this.pool.getActiveCount());
+        assertEquals(0, this.pool.getIdleCount());
+        long start = System.nanoTime();
+        try {
+            this.pool.borrow();
+            fail();
+        } catch (SQLTimeoutException e) {
+            //最大数まで貸し出している
+        }
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(200));
+        assertEquals(2, this.pool.getActiveCount());
+        this.pool.release(conn2);
+        assertSame(conn2, this.pool.borrow()); //返却した接続を再利用する
+        this.pool.release(conn1);
+        this.pool.release(conn2);
+        assertEquals(0, this.pool.getActiveCount());
+        assertEquals(2, this.pool.getIdleCount());
+    }
+
+    /**
+     * 返却されるまで取得を待つことのテスト
+     */
+    @Test
+    public void testBlockingBorrow() throws Exception {
+        this.pool = new ConnectionPool(URL, "sa", "", 0, 1, 5000, 0, 0, 0);
+        final Connection conn = this.pool.borrow();
+        Future<Connection> future = this.executor.submit(new Callable<Connection>() {
+            @Override
+            public Connection call() throws Exception {
+                return pool.borrow();
+            }
+        });
+        try {
+            future.get(200, TimeUnit.MILLISECONDS);
+            fail();
+        } catch (TimeoutException e) {
+            //返却されるまで待っている
+        }
+        assertEquals(1, this.pool.getActiveCount());
+        this.pool.release(conn);
+        assertSame(conn, future.get(1000, TimeUnit.MILLISECONDS));
+        assertEquals(1, this.pool.getActiveCount());
+        this.pool.release(conn);
+        assertEquals(0, this.pool.getActiveCount());
+    }
+
+    /**
+     * 使えなくなった接続を破棄することのテスト
+     */
+    @Test
+    public void testValidation() throws Exception {
+        this.pool = new ConnectionPool(URL, "sa", "", 0, 2, 1000, 0, 1, 0);
+        Connection conn1 = this.pool.borrow();
+        Connection conn2 = this.pool.borrow();
+        this.pool.release(conn1);
+        this.pool.release(conn2);
+        assertEquals(2, this.pool.getIdleCount());
+        //データベースを停止してプール内の接続を使えなくする
+        Connection admin = DriverManager.getConnection(URL, "sa", "");
+        admin.createStatement().execute("SHUTDOWN");
+        Connection conn = this.pool.borrow();
+        assertNotSame(conn1, conn);
+        assertNotSame(conn2, conn);
+        assertEquals(true, conn.isValid(1));
+        assertEquals(0, this.pool.getIdleCount()); //検証に失敗した2つを破棄した
+        //閉じた接続は返却時に破棄する
+        conn.close();
+        this.pool.release(conn);
+        assertEquals(0, this.pool.getActiveCount());
+        assertEquals(0, this.pool.getIdleCount());
+    }
+
+    /**
+     * 一定時間使われなかった接続を最小数まで閉じることのテスト
+     */
+    @Test
+    public void testIdleEviction() throws Exception {
+        this.pool = new ConnectionPool(URL, "sa", "", 1, 3, 1000, 100, 0, 0); //確認の間隔は1秒
+        Connection[] conns = new Connection[] {this.pool.borrow(), this.pool.borrow(), this.pool.borrow()};
+        for (Connection conn : conns) {
+            this.pool.release(conn);
+        }
+        assertEquals(3, this.pool.getIdleCount());
+        long deadline = System.currentTimeMillis() + 5000;
+        while (this.pool.getIdleCount() > 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        assertEquals(1, this.pool.getIdleCount());
+        int closed = 0;
+        for (Connection conn : conns) {
+            if (conn.isClosed()) {
+                closed++;
+            }
+        }
+        assertEquals(2, closed);
+    }
+}
@@ -0,0 +1,166 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.ut;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.sql.Types;
+
+import info.baldanders.jdbc.CsvWriter;
+import info.baldanders.jdbc.DataCursor;
+import info.baldanders.jdbc.DataSet;
+
+import org.h2.tools.SimpleResultSet;
+import org.junit.Test;
+
+/**
+ * {@link CsvWriter} クラス用単体テスト
+ * <br>データベースを使わず，メモリ上のクエリ結果（{@link SimpleResultSet}）を出力する。
+ */
+public class TestCsvWriter {
+
+    /** 改行コード */
+    private static final String LS = System.getProperty("line.separator");
+
+    /** バッファサイズ（{@link CsvWriter} の内部バッファの文字数） */
+    private static final int BUFFER_SIZE = 8192;
+
+    /** テストデータ（囲む必要のない値，","，"\""，CR，LF，null，空文字列） */
+    private static final String [] VALUES = {"plain", "a,b", "say \"hi\"", "cr\rx", "line1\nline2", null, ""};
+
+    /**
+     * 必要な値のみダブルクォートで囲むテスト
+     */
+    @Test
+    public void testQuote() throws Exception {
+        String expected = "C1,C2,C3,C4,C5,C6,C7" + LS
+                + "plain,\"a,b\",\"say \"\"hi\"\"\",\"cr\rx\",\"line1\nline2\",," + LS;
+        StringWriter out = new StringWriter();
+        try (CsvWriter csv = new CsvWriter(out, false)) {
+            DataCursor cursor = new DataCursor(resultSet(VALUES));
+            csv.writeHeader(cursor);
+            assertEquals(1, csv.write(cursor));
+            assertEquals(true, cursor.isClosed());
+            assertEquals(1, csv.getRowCount());
+        }
+        assertEquals(expected, out.toString());
+        //DataSet から出力しても同じ
+        out = new StringWriter();
+        try (CsvWriter csv = new CsvWriter(out, false)) {
+            DataSet ds = new DataSet(resultSet(VALUES));
+            csv.writeHeader(ds);
+            assertEquals(1, csv.write(ds));
+        }
+        assertEquals(expected, out.toString());
+        //全て囲む場合は DataSet.toString() と同じ
+        out = new StringWriter();
+        try (CsvWriter csv = new CsvWriter(out, true)) {
+            csv.write(new DataCursor(resultSet(VALUES)));
+        }
+        assertEquals(new DataSet(resultSet(VALUES)).toString(), out.toString());
+    }
+
+    /**
+     * チャネルに出力する（文字コードを変換する）テスト
+     */
+    @Test
+    public void testChannel() throws Exception {
+        String [] values = {"日本語", "😀,絵文字", null};
+        String expected = toCsvString(values);
+        assertEquals("日本語,\"😀,絵文字\"," + LS, expected);
+        //文字コードの指定がなければ UTF-8
+        assertEquals(expected, new String(toCsvBytes(null, values), StandardCharsets.UTF_8));
+        Charset sjis = Charset.forName("Windows-31J");
+        assertEquals("日本語,\"?,絵文字\"," + LS, new String(toCsvBytes(sjis, values), sjis)); //変換できない文字は置き換える
+        //行データ単位の出力
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (CsvWriter csv = new CsvWriter(Channels.newChannel(out), StandardCharsets.UTF_8, false)) {
+            DataCursor cursor = new DataCursor(resultSet(values));
+            csv.writeRow(cursor.fetch());
+            assertEquals(0, out.size()); //バッファに溜める
+            csv.writeRow(null); //空行
+            csv.flush();
+            assertEquals(expected + LS, new String(out.toByteArray(), StandardCharsets.UTF_8));
+            assertEquals(2, csv.getRowCount());
+        }
+        assertEquals(expected + LS, new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * サロゲートペアがバッファの境界をまたぐテスト
+     * <br>変換できずに残ったサロゲートペアの前半は次の書き出しに持ち越す。
+     */
+    @Test
+    public void testSurrogateBoundary() throws Exception {
+        for (int offset = BUFFER_SIZE - 2; offset <= BUFFER_SIZE + 1; offset++) {
+            StringBuilder value = new StringBuilder();
+            for (int i = 0; i < offset; i++) {
+                value.append('a');
+            }
+            value.append("😀"); //offset の位置にサロゲートペアの前半
+            for (int i = 0; i < BUFFER_SIZE; i++) {
+                value.append("😁");
+            }
+            String [] values = {value.toString()};
+            String expected = value.toString() + LS;
+            assertEquals(expected, toCsvString(values));
+            String actual = new String(toCsvBytes(StandardCharsets.UTF_8, values), StandardCharsets.UTF_8);
+            assertEquals("offset=" + offset, expected.length(), actual.length());
+            assertEquals("offset=" + offset, expected, actual);
+        }
+    }
+
+    /**
+     * 1行分の値を文字ストリームに出力する（必要な値のみ囲む）
+     *
+     * @param values : {@link String} [] : 値
+     * @return {@link String} ; 出力結果
+     * @throws Exception 出力に失敗した場合
+     */
+    private static String toCsvString(String [] values) throws Exception {
+        StringWriter out = new StringWriter();
+        try (CsvWriter csv = new CsvWriter(out, false)) {
+            csv.write(new DataCursor(resultSet(values)));
+        }
+        return out.toString();
+    }
+
+    /**
+     * 1行分の値をチャネルに出力する（必要な値のみ囲む）
+     *
+     * @param charset : {@link Charset}     : 文字コード
+     * @param values  : {@link String} [] : 値
+     * @return byte [] ; 出力結果
+     * @throws Exception 出力に失敗した場合
+     */
+    private static byte [] toCsvBytes(Charset charset, String [] values) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (CsvWriter csv = new CsvWriter(Channels.newChannel(out), charset, false)) {
+            assertEquals(1, csv.write(new DataCursor(resultSet(values))));
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 1行分のクエリ結果を作る（カラム名は C1, C2, ...）
+     *
+     * @param values : {@link String} [] : 値
+     * @return {@link SimpleResultSet} ; クエリ結果
+     */
+    private static SimpleResultSet resultSet(String [] values) {
+        SimpleResultSet rs = new SimpleResultSet();
+        for (int col = 0; col < values.length; col++) {
+            rs.addColumn("C" + (col + 1), Types.VARCHAR, Integer.MAX_VALUE, 0);
+        }
+        rs.addRow((Object [])values);
+        return rs;
+    }
+}
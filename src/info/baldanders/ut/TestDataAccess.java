@@ -0,0 +1,174 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.ut;
+
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Properties;
+
+import info.baldanders.jdbc.ConnectionPool;
+import info.baldanders.jdbc.DataAccess;
+import info.baldanders.jdbc.DbStatement;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * {@link DataAccess} クラス用単体テスト（参照系クエリの振り分け）
+ * <br>組み込みデータベース（H2）2つをプライマリとレプリカの代わりに使う。
+ */
+public class TestDataAccess {
+
+    /** プライマリの代わり */
+    private static final String PRIMARY_URL = "jdbc:h2:mem:dataAccessPrimary;DB_CLOSE_DELAY=-1";
+
+    /** レプリカの代わり */
+    private static final String REPLICA_URL = "jdbc:h2:mem:dataAccessReplica;DB_CLOSE_DELAY=-1";
+
+    /** 接続できないレプリカ（存在しないデータベース） */
+    private static final String MISSING_URL = "jdbc:h2:mem:dataAccessMissing;IFEXISTS=TRUE";
+
+    /** どちらで実行したかを返す SQL文 */
+    private static final String SELECT = "SELECT NAME FROM M_NODE";
+
+    /** テストデータ作成・削除用の接続（データベースを保持する） */
+    private ArrayList<Connection> connections;
+
+    /** テスト対象 */
+    private DataAccess dao;
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        this.connections = new ArrayList<Connection>();
+        for (String url : new String[] {PRIMARY_URL, REPLICA_URL}) {
+            Connection conn = DriverManager.getConnection(url, "sa", "");
+            this.connections.add(conn);
+            Statement stmt = conn.createStatement();
+            stmt.execute("CREATE TABLE M_NODE (NAME VARCHAR(16))");
+            stmt.execute("INSERT INTO M_NODE VALUES ('" + (url.equals(PRIMARY_URL) ? "primary" : "replica") + "')");
+            stmt.close();
+        }
+        this.dao = DataAccess.newInstance(properties(REPLICA_URL));
+    }
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @After
+    public void tearDown() throws Exception {
+        this.dao.release();
+        this.dao.shutdown();
+        for (Connection conn : this.connections) {
+            conn.createStatement().execute("DROP ALL OBJECTS");
+            conn.close();
+        }
+    }
+
+    /**
+     * トランザクション外の参照系クエリをレプリカで実行することのテスト
+     */
+    @Test
+    public void testReadFromReplica() throws Exception {
+        ConnectionPool replica = this.dao.getReplicaRouter().select();
+        assertEquals("replica", selectNode(this.dao.getStatement(SELECT)));
+        assertEquals(1, replica.getActiveCount()); //release するまで借りたまま
+        assertEquals("primary", selectNode(this.dao.getPrimaryStatement(SELECT, null)));
+        this.dao.release();
+        assertEquals(0, replica.getActiveCount());
+        assertEquals(0, this.dao.getPool().getActiveCount());
+    }
+
+    /**
+     * トランザクション中の参照系クエリはプライマリで実行することのテスト
+     */
+    @Test
+    public void testReadInTransaction() throws Exception {
+        try (DataAccess.Session session = this.dao.open()) {
+            try (DbStatement statement = this.dao.getStatement("UPDATE M_NODE SET NAME = 'updated'")) {
+                assertEquals(1, statement.executeUpdate());
+            }
+            assertEquals("updated", selectNode(this.dao.getStatement(SELECT))); //未確定の更新が見える
+        }
+        assertEquals("replica", selectNode(this.dao.getStatement(SELECT)));
+        assertEquals("primary", selectNode(this.dao.getPrimaryStatement(SELECT, null))); //ロールバックされた
+    }
+
+    /**
+     * 接続できないレプリカを外してプライマリで実行することのテスト
+     */
+    @Test
+    public void testFallbackToPrimary() throws Exception {
+        DataAccess fallback = DataAccess.newInstance(properties(MISSING_URL));
+        try {
+            assertEquals("primary", selectNode(fallback.getStatement(SELECT)));
+            assertEquals(0, fallback.getReplicaRouter().getHealthyCount());
+            fallback.release();
+            assertEquals(0, fallback.getPool().getActiveCount());
+        } finally {
+            fallback.release();
+            fallback.shutdown();
+        }
+    }
+
+    /**
+     * レプリカで実行した結果をキャッシュしないことのテスト
+     */
+    @Test
+    public void testReplicaReadNotCached() throws Exception {
+        assertEquals("replica", selectNode(this.dao.getStatement(SELECT)));
+        assertEquals(0, this.dao.getResultCache().size());
+        this.dao.release();
+        assertEquals("primary", selectNode(this.dao.getPrimaryStatement(SELECT, null)));
+        assertEquals(1, this.dao.getResultCache().size());
+        this.dao.release();
+        assertEquals("primary", selectNode(this.dao.getStatement(SELECT))); //プライマリの結果はキャッシュから返す
+    }
+
+    /**
+     * ステートメントを実行して1行目の値を取得する
+     *
+     * @param statement : {@link DbStatement} : ステートメント
+     * @return {@link String} ; 1行目の値
+     * @throws Exception 実行に失敗した場合
+     */
+    private static String selectNode(DbStatement statement) throws Exception {
+        try {
+            return statement.select().getRow(1).get(1);
+        } finally {
+            statement.close();
+        }
+    }
+
+    /**
+     * 接続情報を作る
+     *
+     * @param replicaUrl : {@link String} : レプリカの URL
+     * @return {@link Properties} ; 接続情報
+     */
+    private static Properties properties(String replicaUrl) {
+        Properties properties = new Properties();
+        properties.setProperty("driver", "org.h2.Driver");
+        properties.setProperty("url", PRIMARY_URL);
+        properties.setProperty("user", "sa");
+        properties.setProperty("password", "");
+        properties.setProperty("pool.minSize", "0");
+        properties.setProperty("pool.maxSize", "2");
+        properties.setProperty("pool.timeout", "1000");
+        properties.setProperty("replica.urls", replicaUrl);
+        properties.setProperty("replica.checkInterval", "0"); //定期確認しない
+        properties.setProperty("resultCache.maxBytes", "1048576");
+        properties.setProperty("resultCache.tables", "M_NODE");
+        return properties;
+    }
+}
@@ -0,0 +1,273 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.ut;
+
+import static org.junit.Assert.*;
+
+import java.sql.Date;
+import java.sql.Types;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+
+import info.baldanders.jdbc.DataColumn;
+import info.baldanders.jdbc.TypedDataSet;
+
+import org.h2.tools.SimpleResultSet;
+import org.junit.Test;
+
+/**
+ * {@link DataColumn} クラス用単体テスト（抽出・集計）
+ * <br>データベースを使わず，メモリ上のクエリ結果（{@link SimpleResultSet}）から {@link TypedDataSet} を作る。
+ */
+public class TestDataColumn {
+
+    /** 誤差 */
+    private static final double DELTA = 1e-9;
+
+    /**
+     * 整数型（int）のカラムのテスト
+     */
+    @Test
+    public void testInt() throws Exception {
+        //1列目は NULL を含む，2列目は NULL を含まない
+        TypedDataSet ds = dataSet(new int[] {Types.INTEGER, Types.INTEGER},
+                new Object[] {5, 4}, new Object[] {null, 2}, new Object[] {3, 9}, new Object[] {5, 4}, new Object[] {1, 7});
+        assertEquals(5, ds.sizeRow());
+        //全行（null）と BitSet で指定した行
+        assertEquals(rows(1, 3, 4, 5), ds.selectRange(1, -1, 5, null)); //NULL の行（値は 0 で保持）を含まない
+        assertEquals(rows(1, 3), ds.selectRange(1, -1, 5, rows(1, 2, 3)));
+        assertEquals(rows(1, 2, 4, 5), ds.selectRange(2, 2, 8, null));
+        assertEquals(rows(3, 4), ds.selectRange(2, 2, 9, rows(3, 4)));
+        assertEquals(rows(1, 4), ds.selectEquals(1, "5", null));
+        assertEquals(rows(2), ds.selectEquals(1, null, null));
+        assertEquals(rows(4), ds.selectEquals(1, "5", rows(2, 3, 4)));
+        assertEquals(4, ds.count(1, null));
+        assertEquals(1, ds.count(1, rows(1, 2)));
+        assertEquals(5, ds.count(2, null));
+        assertEquals(14, ds.sum(1, null), DELTA);
+        assertEquals(14, ds.sumLong(1, null));
+        assertEquals(3, ds.sumLong(1, rows(2, 3)));
+        assertEquals(26, ds.sumLong(2, null));
+        assertEquals(1, ds.min(1, null), DELTA);
+        assertEquals(5, ds.max(1, null), DELTA);
+        assertEquals(3, ds.min(1, rows(2, 3, 4)), DELTA);
+        assertEquals(2, ds.min(2, null), DELTA); //NULL がなければ配列を直接走査する
+        assertEquals(9, ds.max(2, null), DELTA);
+        assertEquals(4, ds.max(2, rows(1, 2, 4)), DELTA);
+        assertEquals(Double.NaN, ds.min(1, rows(2)), DELTA); //NULL の行のみ
+        assertEquals(Double.NaN, ds.max(1, new BitSet()), DELTA);
+        assertGroups(groups(null, 1, "1", 1, "3", 1, "5", 2), ds.groupCount(1, null));
+        assertGroups(groups("3", 1, "5", 1), ds.groupCount(1, rows(3, 4)));
+        //範囲外の行番号は無視する
+        assertEquals(rows(5), ds.selectRange(1, 1, 1, rows(0, 5, 6, 100)));
+        assertEquals(1, ds.count(1, rows(5, 6)));
+    }
+
+    /**
+     * 整数型（long）と日付時刻型のカラムのテスト
+     */
+    @Test
+    public void testLong() throws Exception {
+        TypedDataSet ds = dataSet(new int[] {Types.BIGINT, Types.DATE},
+                new Object[] {3000000000L, Date.valueOf("2020-01-03")},
+                new Object[] {null, null},
+                new Object[] {-1L, Date.valueOf("2019-12-31")},
+                new Object[] {3000000000L, Date.valueOf("2020-01-03")});
+        assertEquals(rows(1, 4), ds.selectRange(1, 1, Double.MAX_VALUE, null));
+        assertEquals(rows(3), ds.selectRange(1, -1, 0, null));
+        assertEquals(rows(3), ds.selectRange(1, -1, 0, rows(2, 3)));
+        assertEquals(rows(1, 4), ds.selectEquals(1, "3000000000", null));
+        assertEquals(3, ds.count(1, null));
+        assertEquals(5999999999L, ds.sumLong(1, null));
+        assertEquals(2999999999L, ds.sumLong(1, rows(2, 3, 4)));
+        assertEquals(5999999999.0, ds.sum(1, null), DELTA);
+        assertEquals(-1, ds.min(1, null), DELTA);
+        assertEquals(3000000000.0, ds.max(1, rows(2, 3, 4)), DELTA);
+        assertGroups(groups(null, 1, "-1", 1, "3000000000", 2), ds.groupCount(1, null));
+        //日付時刻型はミリ秒で比較し，値の順に数える
+        long millis = Date.valueOf("2020-01-01").getTime();
+        assertEquals(rows(1, 4), ds.selectRange(2, millis, Double.MAX_VALUE, null));
+        assertEquals(rows(2), ds.selectEquals(2, null, null));
+        assertEquals(Date.valueOf("2019-12-31").getTime(), ds.min(2, null), DELTA);
+        assertGroups(groups(null, 1, "2019-12-31", 1, "2020-01-03", 2), ds.groupCount(2, null));
+        //符号なしの INTEGER は long で保持する
+        DataColumn unsigned = DataColumn.create(Types.INTEGER, false);
+        SimpleResultSet rs = resultSet(new int[] {Types.INTEGER}, new Object[] {4294967295L});
+        rs.next();
+        unsigned.read(rs, 1);
+        assertEquals(4294967295L, unsigned.getLong(1));
+        assertEquals(4294967295L, unsigned.sumLong(null));
+    }
+
+    /**
+     * 浮動小数点型のカラムのテスト
+     */
+    @Test
+    public void testDouble() throws Exception {
+        TypedDataSet ds = dataSet(new int[] {Types.DOUBLE},
+                new Object[] {2.5}, new Object[] {10.0}, new Object[] {null}, new Object[] {2.5}, new Object[] {-0.5});
+        assertEquals(rows(1, 2, 4), ds.selectRange(1, 0, 10, null)); //NULL の行（値は 0 で保持）を含まない
+        assertEquals(rows(2), ds.selectRange(1, 0, 10, rows(2, 3)));
+        assertEquals(rows(1, 4), ds.selectEquals(1, "2.5", null));
+        assertEquals(4, ds.count(1, null));
+        assertEquals(14.5, ds.sum(1, null), DELTA);
+        assertEquals(12.5, ds.sum(1, rows(1, 2, 3)), DELTA);
+        assertEquals(14, ds.sumLong(1, null));
+        assertEquals(-0.5, ds.min(1, null), DELTA);
+        assertEquals(10, ds.max(1, null), DELTA);
+        assertEquals(2.5, ds.max(1, rows(3, 4)), DELTA);
+        //文字列の順（"10.0" < "2.5"）ではなく値の順
+        assertGroups(groups(null, 1, "-0.5", 1, "2.5", 2, "10.0", 1), ds.groupCount(1, null));
+    }
+
+    /**
+     * 文字列型のカラムのテスト（{@link DataColumn} の既定の実装）
+     */
+    @Test
+    public void testString() throws Exception {
+        TypedDataSet ds = dataSet(new int[] {Types.VARCHAR},
+                new Object[] {"b"}, new Object[] {"1.5"}, new Object[] {null}, new Object[] {"b"}, new Object[] {"a"}, new Object[] {"-2"});
+        assertEquals(rows(2), ds.selectRange(1, 1, 2, null));
+        assertEquals(rows(1, 4, 5), ds.selectRange(1, 0, 0, null)); //数値に変換できない値は 0 とみなす（NULL は含まない）
+        assertEquals(rows(6), ds.selectRange(1, -2, -1, rows(3, 6)));
+        assertEquals(rows(1, 4), ds.selectEquals(1, "b", null));
+        assertEquals(rows(3), ds.selectEquals(1, null, null));
+        assertEquals(5, ds.count(1, null));
+        assertEquals(2, ds.count(1, rows(1, 2, 3)));
+        assertEquals(-0.5, ds.sum(1, null), DELTA);
+        assertEquals(-2, ds.sumLong(1, null)); //"1.5" は整数に変換できない
+        assertEquals(-2, ds.min(1, null), DELTA);
+        assertEquals(1.5, ds.max(1, null), DELTA);
+        assertGroups(groups(null, 1, "-2", 1, "1.5", 1, "a", 1, "b", 2), ds.groupCount(1, null));
+        assertGroups(groups("a", 1, "b", 1), ds.groupCount(1, rows(4, 5)));
+    }
+
+    /**
+     * {@code null} のビットマップが複数の要素にまたがる場合のテスト
+     */
+    @Test
+    public void testNullBitmap() throws Exception {
+        Object [][] data = new Object[200][];
+        long sum = 0;
+        int count = 0;
+        for (int i = 0; i < data.length; i++) {
+            if (i % 7 == 0) {
+                data[i] = new Object[] {null, null};
+            } else {
+                data[i] = new Object[] {i, (double) i};
+                sum += i;
+                count++;
+            }
+        }
+        TypedDataSet ds = dataSet(new int[] {Types.INTEGER, Types.DOUBLE}, data);
+        for (int col = 1; col <= 2; col++) {
+            for (int row = 1; row <= data.length; row++) {
+                assertEquals(data[row-1][0] == null, ds.isNull(row, col));
+            }
+            assertEquals(count, ds.count(col, null));
+            assertEquals(count, ds.selectRange(col, 0, data.length, null).cardinality());
+            assertEquals(data.length - count, ds.selectEquals(col, null, null).cardinality());
+            assertEquals(sum, ds.sumLong(col, null));
+            assertEquals(1, ds.min(col, null), DELTA);
+            assertEquals(data.length - 1, ds.max(col, null), DELTA);
+            assertEquals(Integer.valueOf(data.length - count), ds.groupCount(col, null).get(null));
+            //ビットマップの2要素目と3要素目（行番号 65〜192）
+            BitSet rows = new BitSet();
+            rows.set(65, 193);
+            assertEquals(rows.cardinality() - 18, ds.count(col, rows)); //行番号 71, 78, ..., 190 が NULL
+        }
+    }
+
+    /**
+     * 行のないカラムと範囲外のカラムのテスト
+     */
+    @Test
+    public void testEmpty() throws Exception {
+        TypedDataSet ds = dataSet(new int[] {Types.INTEGER, Types.BIGINT, Types.DOUBLE, Types.VARCHAR});
+        assertEquals(0, ds.sizeRow());
+        for (int col = 0; col <= 5; col++) { //0 と 5 は範囲外
+            assertEquals(0, ds.selectRange(col, -Double.MAX_VALUE, Double.MAX_VALUE, null).cardinality());
+            assertEquals(0, ds.selectEquals(col, null, null).cardinality());
+            assertEquals(0, ds.count(col, null));
+            assertEquals(0, ds.sum(col, null), DELTA);
+            assertEquals(0, ds.sumLong(col, rows(1)));
+            assertEquals(Double.NaN, ds.min(col, null), DELTA);
+            assertEquals(Double.NaN, ds.max(col, null), DELTA);
+            assertEquals(0, ds.groupCount(col, null).size());
+        }
+        TypedDataSet empty = new TypedDataSet();
+        assertEquals(Double.NaN, empty.min(1, null), DELTA);
+        assertEquals(0, empty.groupCount(1, null).size());
+    }
+
+    /**
+     * メモリ上のクエリ結果を作る
+     *
+     * @param types : int[]        : カラムのタイプ（{@link java.sql.Types}）
+     * @param data  : {@link Object}[][] : 行ごとの値
+     * @return {@link SimpleResultSet} ; クエリ結果
+     */
+    private static SimpleResultSet resultSet(int [] types, Object []... data) {
+        SimpleResultSet rs = new SimpleResultSet();
+        for (int col = 0; col < types.length; col++) {
+            rs.addColumn("C" + (col + 1), types[col], 20, 2);
+        }
+        for (Object [] row : data) {
+            rs.addRow(row);
+        }
+        return rs;
+    }
+
+    /**
+     * メモリ上のクエリ結果からデータセットを作る
+     *
+     * @param types : int[]        : カラムのタイプ（{@link java.sql.Types}）
+     * @param data  : {@link Object}[][] : 行ごとの値
+     * @return {@link TypedDataSet} ; データセット
+     * @throws Exception 作成に失敗した場合
+     */
+    private static TypedDataSet dataSet(int [] types, Object []... data) throws Exception {
+        return new TypedDataSet(resultSet(types, data));
+    }
+
+    /**
+     * 行番号の集合を作る
+     *
+     * @param rowNums : int[] : 行番号（1,2,...）
+     * @return {@link BitSet} ; 行番号の集合
+     */
+    private static BitSet rows(int... rowNums) {
+        BitSet rows = new BitSet();
+        for (int row : rowNums) {
+            rows.set(row);
+        }
+        return rows;
+    }
+
+    /**
+     * 値ごとの行数を順序も含めて確認する
+     *
+     * @param expected : {@link LinkedHashMap}<{@link String}, {@link Integer}> : 期待値
+     * @param actual   : {@link LinkedHashMap}<{@link String}, {@link Integer}> : 値
+     */
+    private static void assertGroups(LinkedHashMap<String, Integer> expected, LinkedHashMap<String, Integer> actual) {
+        assertEquals(expected.toString(), actual.toString()); //equals は順序を比較しない
+    }
+
+    /**
+     * 値ごとの行数の期待値を作る
+     *
+     * @param keyAndCounts : {@link Object}[] : 値と行数の組の並び
+     * @return {@link LinkedHashMap}<{@link String}, {@link Integer}> ; 値ごとの行数
+     */
+    private static LinkedHashMap<String, Integer> groups(Object... keyAndCounts) {
+        LinkedHashMap<String, Integer> groups = new LinkedHashMap<String, Integer>();
+        for (int i = 0; i < keyAndCounts.length; i += 2) {
+            groups.put((String) keyAndCounts[i], (Integer) keyAndCounts[i+1]);
+        }
+        return groups;
+    }
+}
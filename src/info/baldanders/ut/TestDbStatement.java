@@ -0,0 +1,424 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.ut;
+
+import static org.junit.Assert.*;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import info.baldanders.jdbc.DataCursor;
+import info.baldanders.jdbc.DataRow;
+import info.baldanders.jdbc.DataSet;
+import info.baldanders.jdbc.DbParameter;
+import info.baldanders.jdbc.DbStatement;
+import info.baldanders.jdbc.RowHandler;
+import info.baldanders.jdbc.StatementCache;
+import info.baldanders.jdbc.StatementMetrics;
+import info.baldanders.log.LoggerFactory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * {@link DbStatement} クラス用単体テスト
+ * <br>組み込みデータベース（H2）を使う。
+ */
+public class TestDbStatement {
+
+    /** 接続先 */
+    private static final String URL = "jdbc:h2:mem:dbStatement;DB_CLOSE_DELAY=-1";
+
+    /** 全件を取得する SQL文 */
+    private static final String SELECT = "SELECT ID FROM M_SEQ ORDER BY ID";
+
+    /** 行数 */
+    private static final int ROWS = 25;
+
+    /** 接続オブジェクト */
+    private Connection connection;
+
+    /** ステートメントにセットされたフェッチサイズ */
+    private final ArrayList<Integer> fetchSizes = new ArrayList<Integer>();
+
+    /** ステートメントが返したクエリ結果 */
+    private final ArrayList<ResultSet> resultSets = new ArrayList<ResultSet>();
+
+    /** フェッチサイズとクエリ結果を記録する接続オブジェクト */
+    private Connection recorder;
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        this.connection = DriverManager.getConnection(URL, "sa", "");
+        Statement stmt = this.connection.createStatement();
+        stmt.execute("CREATE TABLE M_SEQ (ID INT PRIMARY KEY)");
+        stmt.execute("INSERT INTO M_SEQ SELECT X FROM SYSTEM_RANGE(1, " + ROWS + ")");
+        stmt.execute("CREATE TABLE M_ITEM (ID INT PRIMARY KEY, VALUE VARCHAR(16))");
+        stmt.close();
+        this.recorder = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Connection.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                Object result = invokeTarget(connection, method, args);
+                if (method.getName().equals("prepareStatement")) {
+                    return record((PreparedStatement) result);
+                }
+                return result;
+            }
+        });
+    }
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @After
+    public void tearDown() throws Exception {
+        this.connection.createStatement().execute("DROP ALL OBJECTS");
+        this.connection.close();
+    }
+
+    /**
+     * フェッチサイズを指定してカーソルで全件を取得することのテスト
+     */
+    @Test
+    public void testSelectCursor() throws Exception {
+        try (DbStatement statement = new DbStatement(this.recorder, SELECT)) {
+            DataCursor cursor = statement.selectCursor(7);
+            assertEquals("[7]", this.fetchSizes.toString());
+            assertEquals(1, cursor.sizeColumn());
+            assertEquals("ID", cursor.getColumnName(1));
+            DataRow row;
+            int id = 0;
+            while ((row = cursor.fetch()) != null) {
+                assertEquals(String.valueOf(++id), row.get(1));
+                assertEquals(id, cursor.getRowCount());
+            }
+            assertEquals(ROWS, id);
+            assertEquals(true, cursor.isClosed()); //最後の行まで取得したら閉じる
+            assertEquals(true, this.resultSets.get(0).isClosed());
+            assertNull(cursor.fetch());
+            assertEquals(ROWS, cursor.getRowCount());
+            //0以下ならドライバのデフォルト
+            statement.selectCursor(-1).close();
+            assertEquals("[7, 0]", this.fetchSizes.toString());
+            //引数なしならデフォルトのフェッチサイズ
+            statement.selectCursor().close();
+            assertEquals("[7, 0, " + DbStatement.DEFAULT_FETCH_SIZE + "]", this.fetchSizes.toString());
+        }
+    }
+
+    /**
+     * カーソルを途中で閉じることのテスト
+     */
+    @Test
+    public void testCursorClose() throws Exception {
+        try (DbStatement statement = new DbStatement(this.recorder, SELECT)) {
+            DataCursor cursor = statement.selectCursor(5);
+            assertEquals("1", cursor.fetch().get(1));
+            assertEquals("2", cursor.fetch().get(1));
+            ResultSet rs = this.resultSets.get(0);
+            assertEquals(false, rs.isClosed());
+            cursor.close();
+            assertEquals(true, cursor.isClosed());
+            assertEquals(true, rs.isClosed()); //クエリ結果を閉じた
+            assertNull(cursor.fetch());
+            assertEquals(2, cursor.getRowCount());
+            cursor.close(); //2回目は何もしない
+            //同じステートメントで再実行できる
+            cursor = statement.selectCursor(5);
+            assertEquals("1", cursor.fetch().get(1));
+            cursor.close();
+        }
+    }
+
+    /**
+     * 行データ処理が中断した時点で取得をやめることのテスト
+     */
+    @Test
+    public void testRowHandler() throws Exception {
+        StatementMetrics metrics = new StatementMetrics(10);
+        final ArrayList<String> ids = new ArrayList<String>();
+        try (DbStatement statement = new DbStatement(this.recorder, SELECT)) {
+            statement.setMetrics(metrics, SELECT);
+            assertEquals(3, statement.select(new RowHandler() {
+                @Override
+                public boolean handle(DataRow row) {
+                    ids.add(row.get(1));
+                    return ids.size() < 3;
+                }
+            }, 4));
+            assertEquals("[1, 2, 3]", ids.toString());
+            assertEquals("[4]", this.fetchSizes.toString());
+            assertEquals(true, this.resultSets.get(0).isClosed()); //中断してもクエリ結果を閉じる
+            assertEquals(1, metrics.get(SELECT).getCount());
+            assertEquals(3, metrics.get(SELECT).getRows()); //処理した行数のみ記録する
+            assertEquals(0, statement.select(null, 4));
+            //全件を処理する
+            ids.clear();
+            assertEquals(ROWS, statement.select(new RowHandler() {
+                @Override
+                public boolean handle(DataRow row) {
+                    ids.add(row.get(1));
+                    return true;
+                }
+            }, 0));
+            assertEquals(ROWS, ids.size());
+            assertEquals(true, this.resultSets.get(1).isClosed());
+        }
+    }
+
+    /**
+     * 行データ処理の例外を呼び出し側に返すことのテスト
+     */
+    @Test
+    public void testRowHandlerError() throws Exception {
+        StatementMetrics metrics = new StatementMetrics(10);
+        try (DbStatement statement = new DbStatement(this.recorder, SELECT)) {
+            statement.setMetrics(metrics, SELECT);
+            try {
+                statement.select(new RowHandler() {
+                    @Override
+                    public boolean handle(DataRow row) throws SQLException {
+                        throw new SQLException("handler");
+                    }
+                }, 10);
+                fail();
+            } catch (SQLException e) {
+                assertEquals("handler", e.getMessage());
+            }
+            assertEquals(true, this.resultSets.get(0).isClosed()); //例外でもクエリ結果を閉じる
+        }
+        assertEquals(1, metrics.get(SELECT).getErrorCount());
+    }
+
+    /**
+     * バッチサイズごとに分けてバッチ実行することのテスト
+     */
+    @Test
+    public void testUpdateBatch() throws Exception {
+        String insert = "INSERT INTO M_ITEM (ID, VALUE) VALUES (?, ?)";
+        try (DbStatement statement = new DbStatement(this.connection, insert)) {
+            ArrayList<int[]> result = statement.updateBatch(items(0, 5), 2);
+            assertEquals(3, result.size()); //2件＋2件＋1件
+            assertEquals(2, result.get(0).length);
+            assertEquals(1, result.get(2).length);
+            assertEquals(0, statement.updateBatch(new ArrayList<ArrayList<DbParameter>>(), 2).size());
+            assertEquals(0, statement.updateBatch(null, 2).size());
+        }
+        //NULL を含むパラメータのリスト
+        String update = "UPDATE M_ITEM SET VALUE = ? WHERE ID = ?";
+        ArrayList<ArrayList<DbParameter>> paramSets = new ArrayList<ArrayList<DbParameter>>();
+        for (int i = 0; i < 2; i++) {
+            ArrayList<DbParameter> paramList = new ArrayList<DbParameter>();
+            paramList.add(new DbParameter(i == 0 ? null : "updated", Types.VARCHAR));
+            paramList.add(new DbParameter(i, Types.INTEGER));
+            paramSets.add(paramList);
+        }
+        try (DbStatement statement = new DbStatement(this.connection, update)) {
+            statement.updateBatch(paramSets);
+        }
+        DataSet ds = selectItems();
+        assertEquals(5, ds.sizeRow());
+        assertNull(ds.getRow(1).get(2));
+        assertEquals("updated", ds.getRow(2).get(2));
+        assertEquals("item2", ds.getRow(3).get(2));
+    }
+
+    /**
+     * パラメータの数が合わないリストがあれば何も送信しないことのテスト
+     */
+    @Test
+    public void testUpdateBatchValidate() throws Exception {
+        String insert = "INSERT INTO M_ITEM (ID, VALUE) VALUES (?, ?)";
+        try (DbStatement statement = new DbStatement(this.connection, insert)) {
+            ArrayList<ArrayList<DbParameter>> paramSets = items(0, 5);
+            paramSets.get(3).remove(1);
+            try {
+                statement.updateBatch(paramSets, 2);
+                fail();
+            } catch (IllegalArgumentException e) {
+                //3番目のパラメータが足りない
+            }
+            paramSets.set(3, null);
+            try {
+                statement.updateBatch(paramSets, 2);
+                fail();
+            } catch (IllegalArgumentException e) {
+                //3番目がない
+            }
+            paramSets = items(0, 2);
+            paramSets.get(0).add(new DbParameter("extra", Types.VARCHAR));
+            paramSets.get(1).add(new DbParameter("extra", Types.VARCHAR));
+            try {
+                statement.updateBatch(paramSets, 2);
+                fail();
+            } catch (IllegalArgumentException e) {
+                //すべてのリストがプレースホルダより多い
+            }
+        }
+        assertEquals(0, selectItems().sizeRow()); //最初のバッチも送信していない
+    }
+
+    /**
+     * close されずに破棄されたステートメントをキャッシュに返却することのテスト
+     */
+    @Test
+    public void testLeak() throws Exception {
+        final ArrayList<LogRecord> records = new ArrayList<LogRecord>();
+        Handler handler = new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                records.add(record);
+            }
+            @Override
+            public void flush() {
+            }
+            @Override
+            public void close() {
+            }
+        };
+        Logger logger = LoggerFactory.getLogger("jdbc.StatementLeakDetector");
+        logger.addHandler(handler);
+        StatementCache cache = new StatementCache(this.connection, 8);
+        try {
+            //検出が無効でも返却する（ログは出力しない）
+            DbStatement.setLeakDetection(false);
+            leak(cache);
+            assertEquals(true, awaitRelease(cache));
+            assertEquals(0, records.size());
+            //検出が有効なら生成箇所をログに出力する
+            DbStatement.setLeakDetection(true);
+            leak(cache);
+            assertEquals(true, awaitRelease(cache));
+            assertEquals(1, records.size());
+            assertEquals(Level.WARNING, records.get(0).getLevel());
+            assertNotNull(records.get(0).getThrown());
+        } finally {
+            DbStatement.setLeakDetection(false);
+            logger.removeHandler(handler);
+            cache.close();
+        }
+    }
+
+    /**
+     * キャッシュから取得したステートメントを close せずに破棄する
+     *
+     * @param cache : {@link StatementCache} : ステートメントキャッシュ
+     * @throws SQLException 取得に失敗した場合
+     */
+    private static void leak(StatementCache cache) throws SQLException {
+        DbStatement statement = new DbStatement(cache, SELECT, null);
+        assertEquals(ROWS, statement.select().sizeRow());
+    }
+
+    /**
+     * 破棄されたステートメントがキャッシュに返却されるまで待つ
+     * <br>GC を促してから別のステートメントを生成し，破棄済みのステートメントを確認させる。
+     *
+     * @param cache : {@link StatementCache} : ステートメントキャッシュ
+     * @return boolean ; 返却された（キャッシュにヒットした）場合は {@code true}
+     * @throws Exception 確認に失敗した場合
+     */
+    private boolean awaitRelease(StatementCache cache) throws Exception {
+        for (int i = 0; i < 100; i++) {
+            System.gc();
+            Thread.sleep(10);
+            new DbStatement(this.connection, "SELECT 1").close();
+            long hit = cache.getHitCount();
+            PreparedStatement ps = cache.prepare(SELECT); //使用中ならキャッシュしないステートメントを返す
+            cache.release(ps);
+            if (cache.getHitCount() > hit) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * ID と VALUE のパラメータのリストの集合を作る
+     *
+     * @param start : int : 開始の ID
+     * @param count : int : 件数
+     * @return {@link ArrayList}<{@link ArrayList}<{@link DbParameter}>> ; パラメータのリストの集合
+     */
+    private static ArrayList<ArrayList<DbParameter>> items(int start, int count) {
+        ArrayList<ArrayList<DbParameter>> paramSets = new ArrayList<ArrayList<DbParameter>>();
+        for (int i = start; i < start + count; i++) {
+            ArrayList<DbParameter> paramList = new ArrayList<DbParameter>();
+            paramList.add(new DbParameter(i, Types.INTEGER));
+            paramList.add(new DbParameter("item" + i, Types.VARCHAR));
+            paramSets.add(paramList);
+        }
+        return paramSets;
+    }
+
+    /**
+     * M_ITEM の全件を ID 順に取得する
+     *
+     * @return {@link DataSet} ; 取得結果
+     * @throws SQLException 取得に失敗した場合
+     */
+    private DataSet selectItems() throws SQLException {
+        try (DbStatement statement = new DbStatement(this.connection, "SELECT ID, VALUE FROM M_ITEM ORDER BY ID")) {
+            return statement.select();
+        }
+    }
+
+    /**
+     * フェッチサイズとクエリ結果を記録するステートメントを作る
+     *
+     * @param target : {@link PreparedStatement} : 実際のステートメント
+     * @return {@link PreparedStatement} ; 記録するステートメント
+     */
+    private PreparedStatement record(final PreparedStatement target) {
+        return (PreparedStatement) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {PreparedStatement.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                Object result = invokeTarget(target, method, args);
+                if (method.getName().equals("setFetchSize")) {
+                    fetchSizes.add((Integer) args[0]);
+                } else if (method.getName().equals("executeQuery")) {
+                    resultSets.add((ResultSet) result);
+                }
+                return result;
+            }
+        });
+    }
+
+    /**
+     * 実際のオブジェクトのメソッドを呼び出す
+     *
+     * @param target : {@link Object}   : 実際のオブジェクト
+     * @param method : {@link Method}   : メソッド
+     * @param args   : {@link Object}[] : 引数
+     * @return {@link Object} ; 戻り値
+     * @throws Throwable メソッドが投げた例外
+     */
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
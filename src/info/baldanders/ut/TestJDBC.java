@@ -7,14 +7,25 @@ package info.baldanders.ut;
 
 import static org.junit.Assert.*;
 
+import java.io.StringWriter;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.concurrent.Future;
 
+import info.baldanders.jdbc.AsyncDataAccess;
+import info.baldanders.jdbc.BulkInsert;
+import info.baldanders.jdbc.CsvWriter;
 import info.baldanders.jdbc.DataAccess;
 import info.baldanders.jdbc.DataAccessProperties;
+import info.baldanders.jdbc.DataCursor;
+import info.baldanders.jdbc.DataRow;
 import info.baldanders.jdbc.DataSet;
 import info.baldanders.jdbc.DbParameter;
 import info.baldanders.jdbc.DbStatement;
+import info.baldanders.jdbc.ResultCache;
+import info.baldanders.jdbc.RowHandler;
+import info.baldanders.jdbc.StatementMetrics;
+import info.baldanders.jdbc.TypedDataSet;
 
 import org.junit.After;
 import org.junit.AfterClass;
@@ -62,6 +73,16 @@ public class TestJDBC {
         test02Select();
         test03Insert();
         test02Select();
+        test02bSelectCursor();
+        test02cStatementCache();
+        test02dSelectTyped();
+        test02eSelectAsync();
+        test02fResultCache();
+        test02gCsvWriter();
+        test02hStatementMetrics();
+        test03bInsertBatch();
+        test03cBulkInsert();
+        test02Select();
         test04aUpdate();
         test02Select();
         test04bUpdate();
@@ -83,15 +104,123 @@ public class TestJDBC {
         System.out.println(dao.getDbInfo()); //出力先のデータベース情報を表示する
     }
     private void test02Select() throws Exception {
+        DataAccess dao = DataAccess.getInstance();
+        try (DbStatement statement = dao.getStatement("SELECT * FROM M_PERSON;");
+             DataSet ds = statement.select()) {
+            if (ds.sizeRow() == 0) {
+                System.out.println("データがない");
+                assertEquals("", ds.toString());
+            } else {
+                System.out.println(ds.toString()); //結果を CSV 形式で出力
+            }
+        }
+    }
+
+    private void test02bSelectCursor() throws Exception {
         DataAccess dao = DataAccess.getInstance();
         DbStatement statement = dao.getStatement("SELECT * FROM M_PERSON;");
-        DataSet ds = statement.select();
-        if (ds.sizeRow() == 0) {
-            System.out.println("データがない");
-            assertEquals("", ds.toString());
-        } else {
-            System.out.println(ds.toString()); //結果を CSV 形式で出力
+        DataCursor cursor = statement.selectCursor(10);
+        DataRow row;
+        while ((row = cursor.fetch()) != null) {
+            System.out.println(row.toString()); //結果を CSV 形式で出力
+        }
+        assertEquals(true, cursor.isClosed());
+        int count = cursor.getRowCount();
+
+        statement = dao.getStatement("SELECT * FROM M_PERSON;");
+        assertEquals(count, statement.select(new RowHandler() {
+            @Override
+            public boolean handle(DataRow row) {
+                System.out.println(row.toString()); //結果を CSV 形式で出力
+                return true;
+            }
+        }, 10));
+    }
+
+    private void test02cStatementCache() throws Exception {
+        DataAccess dao = DataAccess.getInstance();
+        long hit = dao.getPool().getStatementCacheHitCount();
+        DbStatement statement1 = dao.getStatement("SELECT * FROM M_PERSON WHERE PERSON_NAME = ?;");
+        ArrayList<DbParameter> params = new ArrayList<DbParameter>();
+        params.add(new DbParameter("Alice", Types.VARCHAR));
+        assertEquals(true, statement1.bind(params));
+        DataCursor cursor = statement1.selectCursor(1);
+        //使用中のステートメントは共有しない（キャッシュしない新しいステートメントを使う）
+        try (DbStatement statement2 = dao.getStatement("SELECT * FROM M_PERSON WHERE PERSON_NAME = ?;", params)) {
+            statement2.select();
+        }
+        assertEquals(hit, dao.getPool().getStatementCacheHitCount());
+        assertEquals(false, cursor.isClosed());
+        statement1.close(); //返却時に開いている結果セットを閉じる
+        try (DbStatement statement3 = dao.getStatement("SELECT * FROM M_PERSON WHERE PERSON_NAME = ?;", params)) {
+            statement3.select();
+        }
+        assertEquals(hit + 1, dao.getPool().getStatementCacheHitCount());
+        assertEquals(true, dao.rollback());
+    }
+
+    private void test02dSelectTyped() throws Exception {
+        DataAccess dao = DataAccess.getInstance();
+        DbStatement statement = dao.getStatement("SELECT PERSON_ID, PERSON_NAME, AGE, UPD_TIME FROM M_PERSON;");
+        TypedDataSet ds = statement.selectTyped();
+        assertEquals(4, ds.sizeColumn());
+        for (int row = 1; row <= ds.sizeRow(); row++) {
+            System.out.println(ds.getLong(row, 1) + " : " + ds.getString(row, 2) + " : " + ds.getInt(row, 3) + " : " + ds.getTimestamp(row, 4));
+        }
+        assertEquals(0, ds.getInt(ds.sizeRow()+1, 3)); //範囲外
+        assertEquals(true, ds.isNull(1, 5)); //範囲外
+    }
+
+    private void test02eSelectAsync() throws Exception {
+        AsyncDataAccess async = DataAccess.getInstance().getAsync();
+        ArrayList<Future<DataSet>> results = new ArrayList<Future<DataSet>>();
+        for (int i = 0; i < 5; i++) {
+            results.add(async.select("SELECT * FROM M_PERSON;", null));
+        }
+        String csv = results.get(0).get().toString();
+        for (Future<DataSet> result : results) {
+            assertEquals(csv, result.get().toString());
+        }
+    }
+
+    private void test02fResultCache() throws Exception {
+        DataAccess dao = DataAccess.getInstance();
+        ResultCache cache = new ResultCache(1024 * 1024, 60000, "");
+        String sql = "SELECT * FROM M_PERSON;";
+        DataSet ds = dao.getStatement(sql).select();
+        cache.put(sql, null, ds, cache.getGeneration());
+        assertEquals(ds.toString(), cache.get(sql, null).toString());
+        assertEquals(1, cache.getHitCount());
+        cache.invalidate("UPDATE M_PERSON SET AGE = AGE;");
+        assertEquals(false, cache.isCacheable(sql)); //コミットまではキャッシュを使わない
+        cache.endTransaction(true);
+        assertEquals(null, cache.get(sql, null));
+        assertEquals(true, dao.rollback());
+    }
+
+    private void test02gCsvWriter() throws Exception {
+        DataAccess dao = DataAccess.getInstance();
+        DataSet ds = dao.getStatement("SELECT * FROM M_PERSON;").select();
+        StringWriter out = new StringWriter();
+        try (CsvWriter csv = new CsvWriter(out, true)) {
+            assertEquals(ds.sizeRow(), csv.write(dao.getStatement("SELECT * FROM M_PERSON;").selectCursor(10)));
         }
+        assertEquals(ds.toString(), out.toString()); //全て囲む場合は DataSet.toString() と同じ
+    }
+
+    private void test02hStatementMetrics() throws Exception {
+        //正規化とヒストグラムは TestStatementMetrics で確認する
+        DataAccess dao = DataAccess.getInstance();
+        StatementMetrics metrics = new StatementMetrics(10);
+        String sql = "SELECT * FROM M_PERSON WHERE AGE > 20;";
+        try (DbStatement statement = dao.getStatement(sql)) {
+            statement.setMetrics(metrics, sql);
+            DataSet ds = statement.select();
+            assertEquals(ds.sizeRow(), metrics.get(sql).getRows());
+        }
+        assertEquals(1, metrics.getExecutionCount());
+        assertEquals(true, metrics.register());
+        assertEquals(true, metrics.unregister());
     }
 
     private void test03Insert() throws Exception {
@@ -114,6 +243,41 @@ public class TestJDBC {
         assertEquals(true, dao.commit());
     }
 
+    private void test03bInsertBatch() throws Exception {
+        DataAccess dao = DataAccess.getInstance();
+        ArrayList<ArrayList<DbParameter>> paramSets = new ArrayList<ArrayList<DbParameter>>();
+        String [] names = {"Carol", "Dave", "Ellen"};
+        for (String name : names) {
+            ArrayList<DbParameter> params = new ArrayList<DbParameter>();
+            params.add(new DbParameter(name, Types.VARCHAR));
+            params.add(new DbParameter(30, Types.SMALLINT));
+            paramSets.add(params);
+        }
+        DbStatement statement1 = dao.getStatement("INSERT INTO M_PERSON (PERSON_NAME,AGE,UPD_TIME) VALUES (?,?,SYSDATE());");
+        ArrayList<int[]> counts = statement1.insertBatch(paramSets, 2);
+        assertEquals(2, counts.size()); //2件＋1件
+        assertEquals(2, counts.get(0).length);
+        assertEquals(1, counts.get(1).length);
+        assertEquals(true, dao.rollback());
+    }
+
+    private void test03cBulkInsert() throws Exception {
+        DataAccess dao = DataAccess.getInstance();
+        ArrayList<ArrayList<DbParameter>> paramSets = new ArrayList<ArrayList<DbParameter>>();
+        for (int i = 0; i < 11; i++) {
+            ArrayList<DbParameter> params = new ArrayList<DbParameter>();
+            params.add(new DbParameter("Bulk" + i, Types.VARCHAR));
+            params.add(new DbParameter(30, Types.SMALLINT));
+            paramSets.add(params);
+        }
+        try (BulkInsert bulk = dao.getBulkInsert("INSERT INTO M_PERSON (PERSON_NAME,AGE,UPD_TIME) VALUES (?,?,SYSDATE());")) {
+            assertEquals(true, bulk.isRewritable());
+            assertEquals(11, bulk.insert(paramSets));
+            assertEquals(1, bulk.getExecuteCount()); //11行を1文で実行（分割のテストは TestBulkInsert）
+        }
+        assertEquals(true, dao.rollback());
+    }
+
     private void test04aUpdate() throws Exception {
         DataAccess dao = DataAccess.getInstance();
         ArrayList<DbParameter> params = new ArrayList<DbParameter>();
@@ -161,8 +325,11 @@ public class TestJDBC {
         sql.append(" PERSON_NAME = ?");
         params.add(new DbParameter("Bob", Types.VARCHAR));
         sql.append(";");
-        DbStatement statement1 = dao.getStatement(sql.toString(), params);
-        assertEquals(true, statement1.delete());
-        assertEquals(true, dao.commit());
+        try (DataAccess.Session session = dao.open()) {
+            DbStatement statement1 = dao.getStatement(sql.toString(), params);
+            assertEquals(true, statement1.delete());
+            assertEquals(true, dao.commit());
+            assertEquals(0, statement1.executeUpdate()); //コミット後も同じステートメントを使える
+        }
     }
 }
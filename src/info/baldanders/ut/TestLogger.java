@@ -6,10 +6,34 @@
 package info.baldanders.ut;
 
 
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.ConsoleHandler;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
 import java.util.logging.Logger;
 
+import info.baldanders.log.AsyncHandler;
+import info.baldanders.log.BinaryLogDecoder;
+import info.baldanders.log.BinaryLogHandler;
+import info.baldanders.log.LazyLogger;
+import info.baldanders.log.LogFormatter;
 import info.baldanders.log.LoggerFactory;
 import info.baldanders.log.LoggerProperties;
+import info.baldanders.log.MappedFileHandler;
+import info.baldanders.log.MessageSupplier;
+import info.baldanders.log.RateLimitFilter;
 
 import org.junit.After;
 import org.junit.AfterClass;
@@ -71,4 +95,356 @@ public class TestLogger {
     	logger.finer("詳細レベル(2)");
     	logger.finest("詳細レベル(3)");
     }
+
+    /**
+     * {@link LoggerFactory} キャッシュのテスト
+     */
+    @Test
+    public void testLoggerCache() {
+        Logger logger = LoggerFactory.getLogger("TestLoggerCache");
+        Level level = logger.getLevel();
+        int handlers = logger.getHandlers().length;
+        for (int i = 0; i < 10; i++) {
+            assertEquals(true, logger == LoggerFactory.getLogger("TestLoggerCache"));
+        }
+        assertEquals(handlers, LoggerFactory.getLogger("TestLoggerCache", Level.FINE).getHandlers().length); //ハンドラは1度だけ追加される
+        assertEquals(Level.FINE, logger.getLevel());
+        assertEquals(true, logger == LoggerFactory.getLogger("TestLoggerCache", Level.WARNING)); //レベルが違っても同じ logger
+        assertEquals(Level.WARNING, logger.getLevel());
+        LoggerFactory.getLogger("TestLoggerCache"); //レベル指定なしならプロパティファイルの値に戻す
+        assertEquals(level, logger.getLevel());
+    }
+
+    /**
+     * {@link LoggerFactory#reload()} テスト
+     */
+    @Test
+    public void testReload() {
+        Logger logger = LoggerFactory.getLogger("TestReload");
+        Level level = logger.getLevel();
+        int handlers = logger.getHandlers().length;
+        assertEquals(true, LoggerFactory.reload());
+        assertEquals(true, logger == LoggerFactory.getLogger("TestReload")); //logger はそのまま使う
+        assertEquals(level, logger.getLevel());
+        assertEquals(handlers, logger.getHandlers().length);
+        LoggerFactory.getLogger("TestReload", Level.SEVERE); //指定した出力レベルは再読み込みで戻さない
+        assertEquals(true, LoggerFactory.reload());
+        assertEquals(Level.SEVERE, logger.getLevel());
+        LoggerFactory.getLogger("TestReload");
+        assertEquals(level, logger.getLevel());
+    }
+
+    /**
+     * {@link LazyLogger} テスト
+     */
+    @Test
+    public void testLazyLogger() {
+        LazyLogger logger = LazyLogger.getLogger("TestLazyLogger", Level.INFO);
+        final int[] count = {0};
+        MessageSupplier supplier = new MessageSupplier() {
+            @Override
+            public String get() {
+                count[0]++;
+                return "遅延評価";
+            }
+        };
+        final ArrayList<LogRecord> records = new ArrayList<LogRecord>();
+        Handler handler = new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                records.add(record);
+            }
+            @Override
+            public void flush() {
+            }
+            @Override
+            public void close() {
+            }
+        };
+        logger.getLogger().addHandler(handler);
+        try {
+            logger.fine(supplier); //出力レベル外なので呼び出されない
+            assertEquals(0, count[0]);
+            logger.info(supplier);
+            assertEquals(1, count[0]);
+            logger.fine("詳細 : {}", "出力しない");
+            logger.info("情報 : {} = {}", "key", 123);
+            logger.info("情報 : {}, {}, {}", 1, null, 3L);
+            logger.info("情報 : {} {}", "不足");
+            logger.logv(Level.WARNING, "警告 : {}", "引数", new IllegalStateException("例外"));
+        } finally {
+            logger.getLogger().removeHandler(handler);
+        }
+        assertEquals(5, records.size());
+        assertEquals("遅延評価", records.get(0).getMessage());
+        assertEquals("情報 : key = 123", records.get(1).getMessage());
+        assertEquals("情報 : 1, null, 3", records.get(2).getMessage());
+        assertEquals("情報 : 不足 {}", records.get(3).getMessage()); //引数が足りない場合は "{}" のまま
+        assertEquals("警告 : 引数", records.get(4).getMessage());
+        assertEquals("例外", records.get(4).getThrown().getMessage());
+        assertEquals(getClass().getName(), records.get(4).getSourceClassName()); //呼び出し元
+        assertEquals("testLazyLogger", records.get(4).getSourceMethodName());
+    }
+
+    /**
+     * {@link RateLimitFilter} テスト
+     */
+    @Test
+    public void testRateLimitFilter() {
+        Logger logger = Logger.getLogger("TestRateLimitFilter");
+        logger.setUseParentHandlers(false);
+        final int[] count = {0};
+        Handler handler = new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                count[0]++;
+                System.out.print(getFormatter().format(record));
+            }
+            @Override
+            public void flush() {
+            }
+            @Override
+            public void close() {
+            }
+        };
+        handler.setFormatter(new LogFormatter());
+        logger.addHandler(handler);
+        logger.setFilter(new RateLimitFilter(logger, 0, 1, 60000));
+        for (int i = 0; i < 100; i++) {
+            logger.log(Level.SEVERE, "同じエラー", new IllegalStateException("例外"));
+        }
+        assertEquals(1, count[0]); //重複は抑止される
+        logger.removeHandler(handler);
+        logger.setFilter(null);
+    }
+
+    /**
+     * {@link AsyncHandler} テスト
+     */
+    @Test
+    public void testAsyncHandler() {
+        ConsoleHandler console = new ConsoleHandler();
+        console.setLevel(Level.ALL);
+        console.setFormatter(new LogFormatter());
+        AsyncHandler handler = new AsyncHandler(new Handler[] {console}, 16, AsyncHandler.OverflowPolicy.DROP, Level.WARNING, 1);
+        Logger logger = Logger.getLogger("TestAsyncHandler");
+        logger.setUseParentHandlers(false);
+        logger.addHandler(handler);
+        for (int i = 0; i < 100; i++) {
+            logger.info("情報(" + i + ")");
+        }
+        logger.severe("致命的エラー"); //満杯でも捨てない
+        handler.flush();
+        assertEquals(0, handler.getQueueSize());
+        System.out.println("dropped=" + handler.getDroppedCount());
+        assertEquals(Level.ALL, handler.getLevel());
+        console.setLevel(Level.WARNING);
+        handler.updateLevel(); //委譲先のレベルの変更を反映する
+        assertEquals(Level.WARNING, handler.getLevel());
+        handler.close();
+        logger.removeHandler(handler);
+    }
+
+    /**
+     * {@link AsyncHandler} を出力中に閉じてもレコードを失わないことのテスト
+     */
+    @Test
+    public void testAsyncHandlerClose() throws Exception {
+        final int threads = 4;
+        final int records = 2000;
+        for (int n = 0; n < 10; n++) {
+            final AtomicInteger published = new AtomicInteger(0);
+            Handler counter = new Handler() {
+                @Override
+                public void publish(LogRecord record) {
+                    published.incrementAndGet();
+                }
+                @Override
+                public void flush() {
+                }
+                @Override
+                public void close() {
+                }
+            };
+            counter.setLevel(Level.ALL);
+            final AsyncHandler handler = new AsyncHandler(new Handler[] {counter}, 8, AsyncHandler.OverflowPolicy.BLOCK, null, 1);
+            Thread[] workers = new Thread[threads];
+            for (int i = 0; i < threads; i++) {
+                workers[i] = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        for (int j = 0; j < records; j++) {
+                            handler.publish(new LogRecord(Level.INFO, "情報(" + j + ")"));
+                        }
+                    }
+                });
+                workers[i].start();
+            }
+            Thread.sleep(1);
+            handler.close(); //出力中に閉じる
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            assertEquals(0, handler.getQueueSize());
+            assertEquals(threads * records, published.get());
+        }
+    }
+
+    /**
+     * {@link MappedFileHandler} テスト
+     */
+    @Test
+    public void testMappedFileHandler() throws Exception {
+        MappedFileHandler handler = new MappedFileHandler("%t/mapped%g.log", 1000, 3, false);
+        handler.setLevel(Level.ALL);
+        Logger logger = Logger.getLogger("TestMappedFileHandler");
+        logger.setUseParentHandlers(false);
+        logger.addHandler(handler);
+        for (int i = 0; i < 50; i++) {
+            logger.info("情報(" + i + ")");
+        }
+        handler.close();
+        logger.removeHandler(handler);
+        File file = new File(System.getProperty("java.io.tmpdir"), "mapped0.log");
+        assertEquals(true, file.exists());
+        assertEquals(true, file.length() <= 1000); //確保した領域は切り詰められる
+    }
+
+    /**
+     * {@link BinaryLogHandler} / {@link BinaryLogDecoder} テスト
+     */
+    @Test
+    public void testBinaryLog() throws Exception {
+        ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        BinaryLogHandler handler = new BinaryLogHandler(binary);
+        handler.setLevel(Level.ALL);
+        LogFormatter formatter = new LogFormatter();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            LogRecord record = new LogRecord(Level.INFO, "情報({0}) : {1}");
+            record.setParameters(new Object[] {i, 1234.5});
+            record.setSourceClassName(getClass().getName());
+            record.setSourceMethodName("testBinaryLog");
+            if (i == 9) {
+                record.setThrown(new IllegalStateException("例外"));
+            }
+            expected.append(formatter.format(record));
+            handler.publish(record);
+        }
+        handler.close();
+        StringWriter text = new StringWriter();
+        BinaryLogDecoder decoder = new BinaryLogDecoder(new ByteArrayInputStream(binary.toByteArray()), null);
+        assertEquals(10, decoder.decode(text));
+        assertEquals(expected.toString(), text.toString());
+    }
+
+    /**
+     * {@link BinaryLogHandler} 出力失敗時のテスト（出力に失敗したレコードだけが欠ける）
+     */
+    @Test
+    public void testBinaryLogWriteFailure() throws Exception {
+        ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        final boolean[] fail = {true};
+        BinaryLogHandler handler = new BinaryLogHandler(new FilterOutputStream(binary) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                if (fail[0] && len > 64 * 1024) { //バッファを経由しない長いレコードフレームで1回だけ失敗する
+                    fail[0] = false;
+                    throw new IOException("write failure");
+                }
+                out.write(b, off, len);
+            }
+        });
+        handler.setLevel(Level.ALL);
+        handler.setErrorManager(new ErrorManager() {
+            @Override
+            public synchronized void error(String msg, Exception ex, int code) {
+                //出力失敗は想定どおり
+            }
+        });
+        StringBuilder message = new StringBuilder();
+        for (int i = 0; i < 70000; i++) {
+            message.append('x');
+        }
+        LogFormatter formatter = new LogFormatter();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 2; i++) {
+            LogRecord record = new LogRecord(Level.INFO, message.toString());
+            record.setSourceClassName(getClass().getName());
+            record.setSourceMethodName("testBinaryLogWriteFailure");
+            if (i > 0) {
+                expected.append(formatter.format(record));
+            }
+            handler.publish(record); //1件目は出力に失敗する
+        }
+        handler.close();
+        assertEquals(false, fail[0]);
+        StringWriter text = new StringWriter();
+        BinaryLogDecoder decoder = new BinaryLogDecoder(new ByteArrayInputStream(binary.toByteArray()), null);
+        assertEquals(1, decoder.decode(text));
+        assertEquals(expected.toString(), text.toString());
+    }
+
+    /**
+     * {@link BinaryLogHandler} 番号を割り当てる文字列のテスト
+     * <br>パラメータのないメッセージと長い文字列は毎回埋め込みで出力する。
+     */
+    @Test
+    public void testBinaryLogIntern() throws Exception {
+        ByteArrayOutputStream binary = new ByteArrayOutputStream();
+        BinaryLogHandler handler = new BinaryLogHandler(binary);
+        handler.setLevel(Level.ALL);
+        StringBuilder longTemplate = new StringBuilder("長いテンプレート({0})");
+        for (int i = 0; i < 2000; i++) {
+            longTemplate.append('x');
+        }
+        String[] messages = {"組み立て済みのメッセージ", "パラメータ付き({0})", longTemplate.toString()};
+        LogFormatter formatter = new LogFormatter();
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 2; i++) {
+            for (String message : messages) {
+                LogRecord record = new LogRecord(Level.INFO, message);
+                if (message.indexOf("{0}") >= 0) {
+                    record.setParameters(new Object[] {i});
+                }
+                record.setSourceClassName(getClass().getName());
+                record.setSourceMethodName("testBinaryLogIntern");
+                expected.append(formatter.format(record));
+                handler.publish(record);
+            }
+        }
+        handler.close();
+        byte[] bytes = binary.toByteArray();
+        assertEquals(2, count(bytes, messages[0])); //埋め込み
+        assertEquals(1, count(bytes, messages[1])); //番号を割り当てる
+        assertEquals(2, count(bytes, messages[2])); //長いので埋め込み
+        assertEquals(1, count(bytes, getClass().getName()));
+        StringWriter text = new StringWriter();
+        BinaryLogDecoder decoder = new BinaryLogDecoder(new ByteArrayInputStream(bytes), null);
+        assertEquals(6, decoder.decode(text));
+        assertEquals(expected.toString(), text.toString());
+    }
+
+    /**
+     * バイト列に含まれる文字列（UTF-8）の数を数える
+     *
+     * @param bytes : byte[]          : バイト列
+     * @param str   : {@link String} : 文字列
+     * @return int ; 出現数
+     */
+    private static int count(byte[] bytes, String str) {
+        byte[] target = str.getBytes(StandardCharsets.UTF_8);
+        int count = 0;
+        for (int i = 0; i + target.length <= bytes.length; i++) {
+            int j = 0;
+            while (j < target.length && bytes[i + j] == target[j]) {
+                j++;
+            }
+            if (j == target.length) {
+                count++;
+                i += target.length - 1;
+            }
+        }
+        return count;
+    }
 }
@@ -0,0 +1,156 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.ut;
+
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+
+import info.baldanders.jdbc.ConnectionPool;
+import info.baldanders.jdbc.DbStatement;
+import info.baldanders.jdbc.ReplicaRouter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * {@link ReplicaRouter} クラス用単体テスト
+ * <br>組み込みデータベース（H2）2つをプライマリとレプリカの代わりに使う。
+ */
+public class TestReplicaRouter {
+
+    /** プライマリの代わり */
+    private static final String PRIMARY_URL = "jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1";
+
+    /** レプリカの代わり */
+    private static final String REPLICA_URL = "jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1";
+
+    /** 遅延を取得する SQL文（REPLICA_STATUS テーブルで遅延を模擬する） */
+    private static final String LAG_QUERY = "SELECT LAG_SECONDS FROM REPLICA_STATUS";
+
+    /** テストデータ作成・削除用の接続（データベースを保持する） */
+    private ArrayList<Connection> connections;
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        this.connections = new ArrayList<Connection>();
+        for (String url : new String[] {PRIMARY_URL, REPLICA_URL}) {
+            Connection conn = DriverManager.getConnection(url, "sa", "");
+            this.connections.add(conn);
+            Statement stmt = conn.createStatement();
+            stmt.execute("CREATE TABLE M_NODE (NAME VARCHAR(16))");
+            stmt.execute("INSERT INTO M_NODE VALUES ('" + (url.equals(PRIMARY_URL) ? "primary" : "replica") + "')");
+            stmt.execute("CREATE TABLE REPLICA_STATUS (LAG_SECONDS INT)");
+            stmt.execute("INSERT INTO REPLICA_STATUS VALUES (0)");
+            stmt.close();
+        }
+    }
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @After
+    public void tearDown() throws Exception {
+        for (Connection conn : this.connections) {
+            conn.createStatement().execute("DROP ALL OBJECTS");
+            conn.close();
+        }
+    }
+
+    /**
+     * 参照系クエリの判定テスト
+     */
+    @Test
+    public void testIsReadQuery() {
+        assertEquals(true, ReplicaRouter.isReadQuery("SELECT * FROM M_NODE"));
+        assertEquals(true, ReplicaRouter.isReadQuery(" /* comment */ (select name from M_NODE) union (select name from M_NODE)"));
+        assertEquals(true, ReplicaRouter.isReadQuery("WITH T AS (SELECT 1) SELECT * FROM T"));
+        assertEquals(false, ReplicaRouter.isReadQuery("SELECT * FROM M_NODE FOR\nUPDATE"));
+        assertEquals(false, ReplicaRouter.isReadQuery("SELECT * FROM M_NODE LOCK IN SHARE MODE"));
+        assertEquals(false, ReplicaRouter.isReadQuery("SELECT 1 INTO @x"));
+        assertEquals(false, ReplicaRouter.isReadQuery("UPDATE M_NODE SET NAME = 'x'"));
+        assertEquals(false, ReplicaRouter.isReadQuery(null));
+    }
+
+    /**
+     * レプリカの振り分けと遅延による切り離しのテスト
+     *
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testSelect() throws Exception {
+        ConnectionPool replica = new ConnectionPool(REPLICA_URL, "sa", "", 0, 2, 1000, 0, 1, 0);
+        ArrayList<ConnectionPool> pools = new ArrayList<ConnectionPool>();
+        pools.add(replica);
+        ReplicaRouter router = new ReplicaRouter(pools, ReplicaRouter.Balance.LEAST_LOADED, LAG_QUERY, 5000, 0);
+        try {
+            assertSame(replica, router.select());
+            Connection conn = router.select().borrow();
+            try (DbStatement stmt = new DbStatement(conn, "SELECT NAME FROM M_NODE")) {
+                assertEquals("replica", stmt.select().getRow(1).get(1));
+            }
+            replica.release(conn);
+
+            //遅延がしきい値を超えたら対象から外す
+            this.connections.get(1).createStatement().execute("UPDATE REPLICA_STATUS SET LAG_SECONDS = 10");
+            router.check();
+            assertEquals(10000, router.getLagMillis(replica));
+            assertEquals(0, router.getHealthyCount());
+            assertNull(router.select()); //プライマリを使う
+
+            //レプリケーション停止中（NULL）も対象外
+            this.connections.get(1).createStatement().execute("UPDATE REPLICA_STATUS SET LAG_SECONDS = NULL");
+            router.check();
+            assertNull(router.select());
+
+            //回復したら戻す
+            this.connections.get(1).createStatement().execute("UPDATE REPLICA_STATUS SET LAG_SECONDS = 1");
+            router.check();
+            assertSame(replica, router.select());
+
+            //接続に失敗したら外す
+            router.markDown(replica, null);
+            assertNull(router.select());
+        } finally {
+            router.close();
+        }
+    }
+
+    /**
+     * 順番に振り分けるテスト
+     *
+     * @throws java.lang.Exception
+     */
+    @Test
+    public void testRoundRobin() throws Exception {
+        ConnectionPool primary = new ConnectionPool(PRIMARY_URL, "sa", "", 0, 2, 1000, 0, 1, 0);
+        ConnectionPool replica = new ConnectionPool(REPLICA_URL, "sa", "", 0, 2, 1000, 0, 1, 0);
+        ArrayList<ConnectionPool> pools = new ArrayList<ConnectionPool>();
+        pools.add(primary);
+        pools.add(replica);
+        ReplicaRouter router = new ReplicaRouter(pools, null, null, 0, 0);
+        try {
+            ConnectionPool first = router.select();
+            ConnectionPool second = router.select();
+            assertNotSame(first, second);
+            assertSame(first, router.select());
+            router.markDown(first, null);
+            assertSame(second, router.select());
+            assertSame(second, router.select());
+            router.check(); //遅延を判定しない場合は接続できれば戻す
+            assertEquals(2, router.getHealthyCount());
+        } finally {
+            router.close();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.ut;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import info.baldanders.jdbc.DataSet;
+import info.baldanders.jdbc.ResultCache;
+
+import org.junit.Test;
+
+/**
+ * {@link ResultCache} クラス用単体テスト（データベースは使わない）
+ */
+public class TestResultCache {
+
+    /**
+     * テーブル名の抽出テスト
+     */
+    @Test
+    public void testParseTables() {
+        assertEquals(tables("M_PERSON"), ResultCache.parseTables("SELECT * FROM M_PERSON;"));
+        assertEquals(tables("M_PERSON", "M_DEPT"), ResultCache.parseTables("SELECT p.NAME FROM M_PERSON p, M_DEPT d WHERE p.DEPT_ID = d.DEPT_ID"));
+        assertEquals(tables("M_PERSON", "M_DEPT"), ResultCache.parseTables("select * from `db`.`m_person` as p left join M_DEPT d on p.DEPT_ID = d.DEPT_ID"));
+        assertEquals(tables("M_PERSON"), ResultCache.parseTables("SELECT * FROM M_PERSON WHERE NAME = 'x FROM M_DEPT' -- JOIN M_ROLE\n"));
+        assertEquals(tables("M_PERSON"), ResultCache.parseTables("SELECT * FROM M_PERSON WHERE NAME = 'it\\'s, FROM M_DEPT'"));
+        assertEquals(tables(), ResultCache.parseTables("SELECT 1"));
+        //特定できない
+        assertNull(ResultCache.parseTables("SELECT * FROM M_PERSON WHERE DEPT_ID IN (SELECT DEPT_ID FROM M_DEPT)"));
+        assertNull(ResultCache.parseTables("SELECT * FROM (SELECT * FROM M_PERSON) t"));
+        assertNull(ResultCache.parseTables("SELECT NAME FROM M_PERSON UNION SELECT NAME FROM M_DEPT"));
+        assertNull(ResultCache.parseTables("SELECT EXTRACT(YEAR FROM UPD_TIME) FROM M_PERSON"));
+        assertNull(ResultCache.parseTables("WITH T AS (SELECT 1) SELECT * FROM T"));
+        assertNull(ResultCache.parseTables("CALL REFRESH_PERSON()"));
+        //更新系
+        assertEquals(tables("M_PERSON"), ResultCache.parseTables("INSERT INTO M_PERSON (NAME) VALUES ('FROM M_DEPT')"));
+        assertEquals(tables("M_PERSON"), ResultCache.parseTables("replace m_person values (1)"));
+        assertEquals(tables("M_PERSON", "M_DEPT"), ResultCache.parseTables("UPDATE M_PERSON p, M_DEPT d SET p.AGE = 1 WHERE p.DEPT_ID = d.DEPT_ID"));
+        assertEquals(tables("M_PERSON"), ResultCache.parseTables("DELETE FROM M_PERSON WHERE NAME = ?"));
+        assertEquals(tables("M_PERSON"), ResultCache.parseTables("TRUNCATE TABLE M_PERSON"));
+        assertEquals(tables("M_PERSON"), ResultCache.parseTables("ALTER TABLE M_PERSON ADD COLUMN X INT"));
+        assertEquals(tables("M_PERSON", "M_DEPT"), ResultCache.parseTables("DROP TABLE IF EXISTS M_PERSON, M_DEPT"));
+        assertNull(ResultCache.parseTables("UPDATE M_PERSON p JOIN M_DEPT d ON p.DEPT_ID = d.DEPT_ID SET p.AGE = 1"));
+        assertNull(ResultCache.parseTables("DELETE p FROM M_PERSON p JOIN M_DEPT d ON p.DEPT_ID = d.DEPT_ID"));
+        assertNull(ResultCache.parseTables("RENAME TABLE M_PERSON TO M_PERSON_OLD"));
+    }
+
+    /**
+     * キャッシュ対象のテーブルの判定テスト
+     */
+    @Test
+    public void testIsCacheable() {
+        ResultCache cache = new ResultCache(1024 * 1024, 60000, "M_PERSON");
+        assertEquals(true, cache.isCacheable("SELECT * FROM M_PERSON p"));
+        assertEquals(false, cache.isCacheable("SELECT * FROM M_PERSON p, M_DEPT d")); //M_DEPT は対象外
+        assertEquals(false, cache.isCacheable("SELECT * FROM M_PERSON WHERE ID IN (SELECT ID FROM M_DEPT)"));
+        assertEquals(false, cache.isCacheable("UPDATE M_PERSON SET AGE = 1"));
+        //行ロックや INTO を含む SELECT 文
+        assertEquals(false, cache.isCacheable("SELECT * FROM M_PERSON WHERE ID = ? FOR UPDATE"));
+        assertEquals(false, cache.isCacheable("select * from M_PERSON for\nupdate nowait"));
+        assertEquals(false, cache.isCacheable("SELECT * FROM M_PERSON FOR SHARE"));
+        assertEquals(false, cache.isCacheable("SELECT * FROM M_PERSON LOCK IN SHARE MODE"));
+        assertEquals(false, cache.isCacheable("SELECT NAME INTO @name FROM M_PERSON"));
+        assertEquals(false, cache.isCacheable("SELECT * FROM M_PERSON INTO OUTFILE '/tmp/person.txt'"));
+    }
+
+    /**
+     * 特定できない更新ですべて破棄するテスト
+     */
+    @Test
+    public void testInvalidateUnknown() {
+        ResultCache cache = new ResultCache(1024 * 1024, 60000, "");
+        String sql = "SELECT * FROM M_PERSON";
+        cache.put(sql, null, new DataSet(), cache.getGeneration());
+        assertEquals(1, cache.size());
+        cache.invalidate("UPDATE M_DEPT SET NAME = 'x'");
+        assertEquals(1, cache.size()); //別のテーブル
+        cache.invalidate("CALL REFRESH_PERSON()");
+        assertEquals(0, cache.size());
+        cache.endTransaction(false);
+        cache.put(sql, null, new DataSet(), cache.getGeneration());
+        cache.invalidate("TRUNCATE M_PERSON");
+        assertEquals(0, cache.size());
+        cache.endTransaction(true);
+        //特定できない SELECT 文はキャッシュしない
+        cache.put("SELECT * FROM (SELECT * FROM M_PERSON) t", null, new DataSet(), cache.getGeneration());
+        assertEquals(0, cache.size());
+    }
+
+    /**
+     * テーブル名のセットを作る
+     *
+     * @param names : {@link String}... : テーブル名
+     * @return {@link Set}<{@link String}> ; テーブル名のセット
+     */
+    private static Set<String> tables(String... names) {
+        return new HashSet<String>(Arrays.asList(names));
+    }
+}
@@ -0,0 +1,159 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.ut;
+
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+import info.baldanders.jdbc.BulkInsert;
+import info.baldanders.jdbc.DbParameter;
+import info.baldanders.jdbc.DbStatement;
+import info.baldanders.jdbc.SlowQueryLog;
+import info.baldanders.log.LoggerFactory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * {@link SlowQueryLog} クラス用単体テスト
+ * <br>組み込みデータベース（H2）を使う。
+ */
+public class TestSlowQueryLog {
+
+    /** 接続先 */
+    private static final String URL = "jdbc:h2:mem:slowQueryLog;DB_CLOSE_DELAY=-1";
+
+    /** 接続オブジェクト */
+    private Connection connection;
+
+    /** 出力されたログ */
+    private final ArrayList<LogRecord> records = new ArrayList<LogRecord>();
+
+    /** ログを受け取るハンドラ */
+    private final Handler handler = new Handler() {
+        @Override
+        public void publish(LogRecord record) {
+            records.add(record);
+        }
+        @Override
+        public void flush() {
+        }
+        @Override
+        public void close() {
+        }
+    };
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        this.connection = DriverManager.getConnection(URL, "sa", "");
+        Statement stmt = this.connection.createStatement();
+        stmt.execute("CREATE TABLE M_PERSON (PERSON_NAME VARCHAR(16), AGE INT)");
+        stmt.execute("INSERT INTO M_PERSON VALUES ('Alice', 24), ('Bob', 42), ('Carol', 30)");
+        stmt.close();
+        LoggerFactory.getLogger(SlowQueryLog.LOGGER_NAME).addHandler(this.handler);
+    }
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @After
+    public void tearDown() throws Exception {
+        LoggerFactory.getLogger(SlowQueryLog.LOGGER_NAME).removeHandler(this.handler);
+        this.connection.createStatement().execute("DROP ALL OBJECTS");
+        this.connection.close();
+    }
+
+    /**
+     * しきい値とサンプリングのテスト
+     */
+    @Test
+    public void testCheck() {
+        SlowQueryLog log = new SlowQueryLog(100, 2, 1); //2件に1件，1秒あたり1件まで
+        ArrayList<DbParameter> paramList = params(20);
+        String sql = "SELECT * FROM M_PERSON WHERE AGE > ?;";
+        assertEquals(false, log.check(sql, paramList, 99999999L, 1, 0, false)); //しきい値未満
+        assertEquals(false, log.check(sql, paramList, 100000000L, 1, 0, false)); //サンプリングで間引く
+        assertEquals(true, log.check(sql, paramList, 100000000L, 1, 0, false));
+        assertEquals(false, log.check(sql, paramList, 100000000L, 1, 0, true)); //サンプリングで間引く
+        assertEquals(false, log.check(sql, paramList, 100000000L, 1, 0, false)); //1秒あたりの上限
+        assertEquals(4, log.getSlowCount());
+        assertEquals(1, log.getLoggedCount());
+        assertEquals(1, this.records.size());
+    }
+
+    /**
+     * 実行時にセットされていたパラメータを出力することのテスト
+     */
+    @Test
+    public void testStatement() throws Exception {
+        SlowQueryLog log = new SlowQueryLog(0, 1, 1000); //すべて出力する
+        String sql = "SELECT * FROM M_PERSON WHERE AGE > ?";
+        try (DbStatement statement = new DbStatement(this.connection, sql)) {
+            statement.setSlowQueryLog(log, sql, null, 0);
+            statement.bind(params(25));
+            assertEquals(2, statement.select().sizeRow());
+            statement.bind(params(40));
+            ArrayList<DbParameter> paramList = params(0);
+            statement.setParameter(1, paramList.get(0));
+            assertEquals(3, statement.select().sizeRow());
+        }
+        assertEquals(2, this.records.size());
+        assertTrue(this.records.get(0).getMessage(), this.records.get(0).getMessage().endsWith("params=['25']"));
+        assertTrue(this.records.get(1).getMessage(), this.records.get(1).getMessage().endsWith("params=['0']"));
+    }
+
+    /**
+     * バッチ実行ではパラメータの代わりに件数を出力することのテスト
+     */
+    @Test
+    public void testBatch() throws Exception {
+        SlowQueryLog log = new SlowQueryLog(0, 1, 1000); //すべて出力する
+        String sql = "INSERT INTO M_PERSON (PERSON_NAME, AGE) VALUES (?, ?)";
+        ArrayList<ArrayList<DbParameter>> paramSets = new ArrayList<ArrayList<DbParameter>>();
+        for (int i = 0; i < 3; i++) {
+            ArrayList<DbParameter> paramList = new ArrayList<DbParameter>();
+            paramList.add(new DbParameter("Dave" + i, Types.VARCHAR));
+            paramList.add(new DbParameter(50 + i, Types.INTEGER));
+            paramSets.add(paramList);
+        }
+        try (DbStatement statement = new DbStatement(this.connection, sql)) {
+            statement.setSlowQueryLog(log, sql, null, 0);
+            statement.updateBatch(paramSets, 2);
+        }
+        assertEquals(1, this.records.size());
+        assertTrue(this.records.get(0).getMessage(), this.records.get(0).getMessage().endsWith("rows=3, wait=0.0ms, sql=" + sql + ", batch=3"));
+        try (BulkInsert bulk = new BulkInsert(this.connection, null, sql)) {
+            bulk.setSlowQueryLog(log, 0);
+            assertEquals(3, bulk.insert(paramSets));
+        }
+        assertEquals(3, this.records.size()); //2行と1行の2文
+        assertTrue(this.records.get(1).getMessage(), this.records.get(1).getMessage().endsWith("sql=" + sql + ", batch=2"));
+        assertTrue(this.records.get(2).getMessage(), this.records.get(2).getMessage().endsWith("sql=" + sql + ", batch=1"));
+    }
+
+    /**
+     * パラメータのリストを作る
+     *
+     * @param age : int : 年齢
+     * @return {@link ArrayList}<{@link DbParameter}> ; パラメータのリスト
+     */
+    private static ArrayList<DbParameter> params(int age) {
+        ArrayList<DbParameter> params = new ArrayList<DbParameter>();
+        params.add(new DbParameter(age, Types.INTEGER));
+        return params;
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.ut;
+
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+
+import info.baldanders.jdbc.DataCursor;
+import info.baldanders.jdbc.DataRow;
+import info.baldanders.jdbc.DbParameter;
+import info.baldanders.jdbc.DbStatement;
+import info.baldanders.jdbc.StatementCache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * {@link StatementCache} クラス用単体テスト
+ * <br>組み込みデータベース（H2）を使う。
+ */
+public class TestStatementCache {
+
+    /** 接続先 */
+    private static final String URL = "jdbc:h2:mem:statementCache;DB_CLOSE_DELAY=-1";
+
+    /** 接続オブジェクト */
+    private Connection connection;
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        this.connection = DriverManager.getConnection(URL, "sa", "");
+        Statement stmt = this.connection.createStatement();
+        stmt.execute("CREATE TABLE M_PERSON (PERSON_NAME VARCHAR(16), AGE INT)");
+        stmt.execute("INSERT INTO M_PERSON VALUES ('Alice', 24), ('Bob', 42), ('Carol', 30)");
+        stmt.close();
+    }
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @After
+    public void tearDown() throws Exception {
+        this.connection.createStatement().execute("DROP ALL OBJECTS");
+        this.connection.close();
+    }
+
+    /**
+     * 使用中のステートメントを共有しないことのテスト
+     */
+    @Test
+    public void testInUse() throws Exception {
+        StatementCache cache = new StatementCache(this.connection, 8);
+        String sql = "SELECT PERSON_NAME FROM M_PERSON WHERE AGE > ? ORDER BY PERSON_NAME";
+        DbStatement outer = new DbStatement(cache, sql, params(25));
+        DataCursor cursor = outer.selectCursor(1);
+        assertEquals("Bob", cursor.fetch().get(1));
+        //外側のカーソルを開いたまま同じ SQL 文を別のパラメータで実行する
+        try (DbStatement inner = new DbStatement(cache, sql, params(0))) {
+            assertEquals(3, inner.select().sizeRow());
+        }
+        assertEquals(0, cache.getHitCount());
+        DataRow row = cursor.fetch();
+        assertEquals("Carol", row.get(1)); //外側のパラメータと結果セットは変わらない
+        outer.close();
+        try (DbStatement again = new DbStatement(cache, sql, params(40))) {
+            assertEquals(1, again.select().sizeRow());
+        }
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.size());
+        cache.close();
+    }
+
+    /**
+     * 使用中のステートメントを破棄の対象にしても閉じないことのテスト
+     */
+    @Test
+    public void testEvictInUse() throws Exception {
+        StatementCache cache = new StatementCache(this.connection, 1);
+        DbStatement first = new DbStatement(cache, "SELECT COUNT(*) FROM M_PERSON WHERE AGE > ?", params(25));
+        try (DbStatement second = new DbStatement(cache, "SELECT COUNT(*) FROM M_PERSON", null)) {
+            assertEquals("3", second.select().getRow(1).get(1));
+        }
+        assertEquals("2", first.select().getRow(1).get(1)); //破棄の対象になっても使える
+        first.close();
+        assertEquals(1, cache.size());
+        cache.close();
+    }
+
+    /**
+     * パラメータのリストを作る
+     *
+     * @param age : int : 年齢
+     * @return {@link ArrayList}<{@link DbParameter}> ; パラメータのリスト
+     */
+    private static ArrayList<DbParameter> params(int age) {
+        ArrayList<DbParameter> params = new ArrayList<DbParameter>();
+        params.add(new DbParameter(age, Types.INTEGER));
+        return params;
+    }
+}
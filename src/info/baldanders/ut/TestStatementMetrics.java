@@ -0,0 +1,171 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.ut;
+
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+
+import info.baldanders.jdbc.DbParameter;
+import info.baldanders.jdbc.DbStatement;
+import info.baldanders.jdbc.StatementMetrics;
+import info.baldanders.jdbc.StatementStats;
+
+import org.junit.Test;
+
+/**
+ * {@link StatementMetrics} クラス用単体テスト
+ * <br>{@link DbStatement} からの記録のテストのみ組み込みデータベース（H2）を使う。
+ */
+public class TestStatementMetrics {
+
+    /** 接続先 */
+    private static final String URL = "jdbc:h2:mem:statementMetrics;DB_CLOSE_DELAY=-1";
+
+    /** 1ミリ秒（ナノ秒） */
+    private static final long MILLIS = 1000L * 1000L;
+
+    /**
+     * SQL 文の正規化のテスト
+     */
+    @Test
+    public void testNormalize() {
+        StatementMetrics metrics = new StatementMetrics(10);
+        metrics.record("SELECT * FROM M_PERSON WHERE AGE > 20;", System.nanoTime(), 1, 0);
+        metrics.record("SELECT *  FROM M_PERSON\nWHERE AGE > 30", System.nanoTime(), 2, 0);
+        metrics.recordError("SELECT * FROM M_PERSON WHERE AGE > 'x';", System.nanoTime());
+        assertEquals(1, metrics.getStatementCount()); //空白とリテラルの違いはまとめる
+        StatementStats stats = metrics.get("SELECT * FROM M_PERSON WHERE AGE > 40");
+        assertEquals("SELECT * FROM M_PERSON WHERE AGE > ?", stats.getSql());
+        assertEquals(3, stats.getCount());
+        assertEquals(1, stats.getErrorCount());
+        assertEquals(3, stats.getRows());
+        //文字列リテラルのエスケープ，識別子中の数字，引用符で囲んだ識別子
+        metrics.record("SELECT T1.`COL2` FROM T1 WHERE NAME = 'it''s' AND X = 1.5", System.nanoTime(), 0, 0);
+        assertEquals("SELECT T1.`COL2` FROM T1 WHERE NAME = ? AND X = ?",
+                metrics.get("SELECT T1.`COL2` FROM T1 WHERE NAME = 'a' AND X = 2").getSql());
+        assertNull(metrics.get("SELECT * FROM M_DEPT"));
+    }
+
+    /**
+     * SQL 文の数の上限のテスト
+     */
+    @Test
+    public void testMaxStatements() {
+        StatementMetrics metrics = new StatementMetrics(2);
+        metrics.record("SELECT * FROM T1", System.nanoTime(), 0, 0);
+        metrics.record("SELECT * FROM T2", System.nanoTime(), 0, 0);
+        metrics.record("SELECT * FROM T3", System.nanoTime(), 0, 0);
+        metrics.record("SELECT * FROM T4", System.nanoTime(), 0, 0);
+        assertEquals(3, metrics.getStatementCount()); //上限を超えた分はひとつにまとめる
+        assertEquals(2, metrics.get("SELECT * FROM T4").getCount());
+        assertEquals(metrics.get("SELECT * FROM T3").getSql(), metrics.get("SELECT * FROM T4").getSql());
+        assertEquals(4, metrics.getExecutionCount());
+        metrics.reset();
+        assertEquals(0, metrics.getExecutionCount());
+    }
+
+    /**
+     * 実行時間のパーセンタイルのテスト
+     */
+    @Test
+    public void testPercentile() {
+        StatementMetrics metrics = new StatementMetrics(10);
+        String sql = "SELECT * FROM M_PERSON";
+        assertEquals(0, metrics.getExecutionCount());
+        for (int i = 0; i < 980; i++) {
+            metrics.record(sql, System.nanoTime() - MILLIS, 0, 0);
+        }
+        for (int i = 0; i < 20; i++) {
+            metrics.record(sql, System.nanoTime() - 100 * MILLIS, 0, 0);
+        }
+        StatementStats stats = metrics.get(sql);
+        assertEquals(1000, stats.getCount());
+        //区間の上限を返すので，相対誤差（約3%）の範囲で記録した値以上になる
+        assertBetween(MILLIS, MILLIS * 11 / 10, stats.getP50Nanos());
+        assertBetween(100 * MILLIS, 110 * MILLIS, stats.getP99Nanos());
+        assertBetween(100 * MILLIS, 110 * MILLIS, stats.getP999Nanos());
+        assertBetween(100 * MILLIS, 110 * MILLIS, stats.getMaxNanos());
+        assertEquals(true, stats.getP999Nanos() <= stats.getMaxNanos());
+        assertBetween(980 * MILLIS + 20 * 100 * MILLIS, 1100 * MILLIS + 20 * 110 * MILLIS, stats.getTotalNanos());
+    }
+
+    /**
+     * {@link DbStatement} が実行を記録することのテスト
+     */
+    @Test
+    public void testRecordStatement() throws Exception {
+        Connection connection = DriverManager.getConnection(URL, "sa", "");
+        try {
+            Statement stmt = connection.createStatement();
+            stmt.execute("CREATE TABLE M_PERSON (PERSON_NAME VARCHAR(16), AGE INT)");
+            stmt.execute("INSERT INTO M_PERSON VALUES ('Alice', 24), ('Bob', 42), ('Carol', 30)");
+            stmt.close();
+            StatementMetrics metrics = new StatementMetrics(10);
+            String select = "SELECT * FROM M_PERSON WHERE AGE > ?";
+            try (DbStatement statement = new DbStatement(connection, select, params(25))) {
+                statement.setMetrics(metrics, select);
+                assertEquals(2, statement.select().sizeRow());
+                statement.bind(params(0));
+                assertEquals(3, statement.selectTyped().sizeRow());
+            }
+            StatementStats stats = metrics.get(select);
+            assertEquals(2, stats.getCount());
+            assertEquals(5, stats.getRows());
+            assertEquals(true, stats.getBytes() > 0); //DataSet に展開した分のみ
+            assertEquals(true, stats.getMaxNanos() > 0);
+            String update = "UPDATE M_PERSON SET AGE = AGE + 1 WHERE AGE > ?";
+            try (DbStatement statement = new DbStatement(connection, update, params(25))) {
+                statement.setMetrics(metrics, update);
+                assertEquals(2, statement.executeUpdate());
+            }
+            assertEquals(2, metrics.get(update).getRows());
+            String error = "SELECT 1 / (AGE - 24) FROM M_PERSON";
+            try (DbStatement statement = new DbStatement(connection, error)) {
+                statement.setMetrics(metrics, error);
+                statement.select();
+                fail();
+            } catch (SQLException e) {
+                //0で除算する
+            }
+            assertEquals(1, metrics.get(error).getErrorCount());
+            assertEquals(4, metrics.getExecutionCount());
+            assertEquals(1, metrics.getErrorCount());
+        } finally {
+            connection.createStatement().execute("DROP ALL OBJECTS");
+            connection.close();
+        }
+    }
+
+    /**
+     * 値が範囲内にあることを確認する
+     *
+     * @param min    : long : 下限
+     * @param max    : long : 上限
+     * @param actual : long : 値
+     */
+    private static void assertBetween(long min, long max, long actual) {
+        assertTrue(actual + " < " + min, actual >= min);
+        assertTrue(actual + " > " + max, actual <= max);
+    }
+
+    /**
+     * パラメータのリストを作る
+     *
+     * @param age : int : 年齢
+     * @return {@link ArrayList}<{@link DbParameter}> ; パラメータのリスト
+     */
+    private static ArrayList<DbParameter> params(int age) {
+        ArrayList<DbParameter> params = new ArrayList<DbParameter>();
+        params.add(new DbParameter(age, Types.INTEGER));
+        return params;
+    }
+}
@@ -0,0 +1,201 @@
+/**
+ * Prototyping Java Codes
+ * <br>These codes are licensed under CC0.
+ *     http://creativecommons.org/publicdomain/zero/1.0/
+ */
+package info.baldanders.ut;
+
+import static org.junit.Assert.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+
+import info.baldanders.jdbc.DbStatement;
+import info.baldanders.jdbc.TypedDataSet;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * {@link TypedDataSet} クラス用単体テスト
+ * <br>組み込みデータベース（H2）を使う。
+ */
+public class TestTypedDataSet {
+
+    /** 接続先 */
+    private static final String URL = "jdbc:h2:mem:typedDataSet;DB_CLOSE_DELAY=-1";
+
+    /** 誤差 */
+    private static final double DELTA = 1e-9;
+
+    /** 接続オブジェクト */
+    private Connection connection;
+
+    /** テスト対象（1行目は値あり，2行目はすべて NULL，3行目は負の値など） */
+    private TypedDataSet ds;
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @Before
+    public void setUp() throws Exception {
+        this.connection = DriverManager.getConnection(URL, "sa", "");
+        Statement stmt = this.connection.createStatement();
+        stmt.execute("CREATE TABLE T_TYPED (ID INT PRIMARY KEY, C_TINY TINYINT, C_SMALL SMALLINT, C_INT INT, C_BIG BIGINT,"
+                + " C_REAL REAL, C_DOUBLE DOUBLE, C_DEC DECIMAL(10, 2), C_STR VARCHAR(16), C_DATE DATE, C_TIME TIME, C_TS TIMESTAMP)");
+        stmt.execute("INSERT INTO T_TYPED VALUES (1, 1, 2, 3, 9223372036854775807, 1.5, 2.25, 12.34, 'abc',"
+                + " DATE '2020-01-02', TIME '03:04:05', TIMESTAMP '2020-01-02 03:04:05.678')");
+        stmt.execute("INSERT INTO T_TYPED VALUES (2, NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL, NULL)");
+        stmt.execute("INSERT INTO T_TYPED VALUES (3, -1, -2, -3, -4, -0.5, -0.25, -1.10, '',"
+                + " DATE '1969-12-31', TIME '23:59:59', TIMESTAMP '1969-12-31 23:59:59.999')");
+        stmt.close();
+        try (DbStatement statement = new DbStatement(this.connection, "SELECT * FROM T_TYPED ORDER BY ID")) {
+            this.ds = statement.selectTyped();
+        }
+    }
+
+    /**
+     * @throws java.lang.Exception
+     */
+    @After
+    public void tearDown() throws Exception {
+        this.connection.createStatement().execute("DROP ALL OBJECTS");
+        this.connection.close();
+    }
+
+    /**
+     * カラム情報のテスト
+     */
+    @Test
+    public void testColumns() {
+        assertEquals(3, this.ds.sizeRow());
+        assertEquals(12, this.ds.sizeColumn());
+        int [] types = {Types.INTEGER, Types.TINYINT, Types.SMALLINT, Types.INTEGER, Types.BIGINT,
+                Types.REAL, Types.DOUBLE, Types.DECIMAL, Types.VARCHAR, Types.DATE, Types.TIME, Types.TIMESTAMP};
+        for (int col = 1; col <= types.length; col++) {
+            assertEquals(this.ds.getColumnName(col), types[col-1], this.ds.getColumnType(col));
+            assertEquals(3, this.ds.getColumn(col).size());
+        }
+        assertEquals("C_TINY", this.ds.getColumnName(2));
+        assertEquals("C_TS", this.ds.getColumnName(12));
+        //範囲外
+        for (int col : new int[] {0, 13}) {
+            assertNull(this.ds.getColumn(col));
+            assertEquals(Types.NULL, this.ds.getColumnType(col));
+            assertNull(this.ds.getColumnName(col));
+        }
+    }
+
+    /**
+     * 整数型のカラムのテスト
+     */
+    @Test
+    public void testInteger() {
+        for (int col = 2; col <= 4; col++) {
+            assertEquals(col - 1, this.ds.getInt(1, col));
+            assertEquals(col - 1, this.ds.getLong(1, col));
+            assertEquals(col - 1, this.ds.getDouble(1, col), DELTA);
+            assertEquals(String.valueOf(col - 1), this.ds.getString(1, col));
+            assertEquals(1 - col, this.ds.getInt(3, col));
+            assertEquals(String.valueOf(1 - col), this.ds.getString(3, col));
+            assertNulls(col);
+        }
+        //BIGINT は long で保持する
+        assertEquals(Long.MAX_VALUE, this.ds.getLong(1, 5));
+        assertEquals(String.valueOf(Long.MAX_VALUE), this.ds.getString(1, 5));
+        assertEquals(-4, this.ds.getInt(3, 5));
+        assertEquals(-4, this.ds.getLong(3, 5));
+        assertEquals(-4, this.ds.getDouble(3, 5), DELTA);
+        assertNulls(5);
+    }
+
+    /**
+     * 浮動小数点型と DECIMAL 型のカラムのテスト
+     */
+    @Test
+    public void testDecimal() {
+        assertEquals(1.5, this.ds.getDouble(1, 6), DELTA);
+        assertEquals("1.5", this.ds.getString(1, 6));
+        assertEquals(1, this.ds.getInt(1, 6)); //小数部を切り捨てる
+        assertEquals(2.25, this.ds.getDouble(1, 7), DELTA);
+        assertEquals(2, this.ds.getLong(1, 7));
+        assertEquals(-0.25, this.ds.getDouble(3, 7), DELTA);
+        assertEquals(0, this.ds.getLong(3, 7));
+        assertNulls(6);
+        assertNulls(7);
+        //DECIMAL は文字列で保持する
+        assertEquals("12.34", this.ds.getString(1, 8));
+        assertEquals(12.34, this.ds.getDouble(1, 8), DELTA);
+        assertEquals(0, this.ds.getInt(1, 8)); //整数に変換できない
+        assertEquals(0, this.ds.getLong(1, 8));
+        assertEquals("-1.10", this.ds.getString(3, 8));
+        assertEquals(-1.1, this.ds.getDouble(3, 8), DELTA);
+        assertNulls(8);
+    }
+
+    /**
+     * 文字列型のカラムのテスト
+     */
+    @Test
+    public void testString() {
+        assertEquals("abc", this.ds.getString(1, 9));
+        assertEquals(0, this.ds.getInt(1, 9));
+        assertEquals(0, this.ds.getDouble(1, 9), DELTA);
+        assertEquals("", this.ds.getString(3, 9));
+        assertEquals(false, this.ds.isNull(3, 9)); //空文字列は NULL ではない
+        assertNulls(9);
+        assertEquals(3, this.ds.toString().split(System.getProperty("line.separator")).length);
+    }
+
+    /**
+     * 日付時刻型のカラムのテスト
+     */
+    @Test
+    public void testDateTime() {
+        assertEquals("2020-01-02", this.ds.getString(1, 10));
+        assertEquals(Timestamp.valueOf("2020-01-02 00:00:00"), this.ds.getTimestamp(1, 10));
+        assertEquals("03:04:05", this.ds.getString(1, 11));
+        assertEquals("2020-01-02 03:04:05.678", this.ds.getString(1, 12));
+        assertEquals(Timestamp.valueOf("2020-01-02 03:04:05.678"), this.ds.getTimestamp(1, 12));
+        assertEquals(Timestamp.valueOf("2020-01-02 03:04:05.678").getTime(), this.ds.getLong(1, 12));
+        //エポックより前
+        assertEquals("1969-12-31", this.ds.getString(3, 10));
+        assertEquals("23:59:59", this.ds.getString(3, 11));
+        assertEquals(Timestamp.valueOf("1969-12-31 23:59:59.999"), this.ds.getTimestamp(3, 12));
+        for (int col = 10; col <= 12; col++) {
+            assertNulls(col);
+        }
+        //日付時刻型以外はミリ秒とみなす
+        assertEquals(new Timestamp(3), this.ds.getTimestamp(1, 4));
+    }
+
+    /**
+     * NULL の行と範囲外の位置の値を確認する
+     *
+     * @param col : int : カラム番号（1,2,...）
+     */
+    private void assertNulls(int col) {
+        String name = this.ds.getColumnName(col);
+        assertEquals(name, false, this.ds.isNull(1, col));
+        //NULL の行（2行目）と範囲外の行
+        for (int row : new int[] {2, 0, 4}) {
+            assertEquals(name, true, this.ds.isNull(row, col));
+            assertEquals(name, 0, this.ds.getInt(row, col));
+            assertEquals(name, 0, this.ds.getLong(row, col));
+            assertEquals(name, 0, this.ds.getDouble(row, col), DELTA);
+            assertNull(name, this.ds.getString(row, col));
+            assertNull(name, this.ds.getTimestamp(row, col));
+        }
+        //範囲外のカラム
+        assertEquals(true, this.ds.isNull(1, 0));
+        assertEquals(0, this.ds.getInt(1, 13));
+        assertEquals(0, this.ds.getLong(1, 13));
+        assertEquals(0, this.ds.getDouble(1, 13), DELTA);
+        assertNull(this.ds.getString(1, 13));
+        assertNull(this.ds.getTimestamp(1, 13));
+    }
+}
@@ -6,7 +6,9 @@
 package info.baldanders.ut;
 
 import static org.junit.Assert.*;
+import static org.junit.Assume.*;
 
+import java.io.File;
 import java.util.Date;
 
 import info.baldanders.Util;
@@ -155,6 +157,28 @@ public class TestUtil {
         assertEquals(result, Util.stringJoin(",", arry, Util.Quote.TYPE_CSV));
     }
 
+    /**
+     * {@link Util.stringJoin} テスト
+     * <br>バッファへの追加（{@link Util.Quote}.{@code TYPE_CSV}）
+     */
+    @Test
+    public void testStringJoin10() {
+        Object [] arry = {"a\"b\"", null, 100}; //入力値
+        String result = "[\"a\"\"b\"\"\",\"\",\"100\""; //期待値
+        assertEquals(result, Util.stringJoin(new StringBuilder("["), ",", arry, Util.Quote.TYPE_CSV).toString());
+    }
+
+    /**
+     * {@link Util.quoteSql} テスト
+     * <br>バッファへの追加
+     */
+    @Test
+    public void testQuoteSql() {
+        assertEquals("'it''s'", Util.quoteSql("it's"));
+        assertEquals("['plain'", Util.quoteSql(new StringBuilder("["), "plain").toString());
+        assertEquals("''", Util.quoteSql(new StringBuilder(), null).toString());
+    }
+
     /**
      * {@link Util.date2String} テスト
      * <br>正常系
@@ -185,6 +209,17 @@ public class TestUtil {
         assertEquals("", Util.date2String(dt, null));
     }
 
+    /**
+     * {@link Util.date2String} テスト
+     * <br>epoch ミリ秒
+     */
+    @Test
+    public void testDate2String4() {
+        Date dt = Util.string2Date("2014-12-31T23:59:59.999+0900");
+        assertEquals(Util.date2String(dt), Util.date2String(dt.getTime()));
+        assertEquals("", Util.date2String(dt.getTime(), null));
+    }
+
     /**
      * {@link Util.date2String} テスト
      * <br>異常値
@@ -281,9 +316,10 @@ public class TestUtil {
      */
     @Test
     public void testCanWriteFile() {
+        assumeTrue(File.separatorChar == '\\'); //Windows のパス区切りを前提としている
         String baseDir = System.getProperty("user.dir") + "\\doc\\";
         System.out.println("baseDir=["+baseDir+"]");
-        assertEquals(false, Util.canWriteFile(null));
+        assertEquals(false, Util.canWriteFile((String)null));
         assertEquals(false, Util.canWriteFile(""));
         assertEquals(false, Util.canWriteFile(baseDir+"test")); //ディレクトリ
         assertEquals(false, Util.canWriteFile(baseDir+"test\\cannotWrite.txt")); //書き込み不可なファイル
@@ -297,9 +333,10 @@ public class TestUtil {
      */
     @Test
     public void testCanReadFile() {
+        assumeTrue(File.separatorChar == '\\'); //Windows のパス区切りを前提としている
         String baseDir = System.getProperty("user.dir") + "\\doc\\";
         System.out.println("baseDir=["+baseDir+"]");
-        assertEquals(false, Util.canReadFile(null));
+        assertEquals(false, Util.canReadFile((String)null));
         assertEquals(false, Util.canReadFile(""));
         assertEquals(false, Util.canReadFile(baseDir+"test")); //ディレクトリ
         assertEquals(true, Util.canReadFile(baseDir+"test\\cannotWrite.txt")); //書き込み不可なファイル